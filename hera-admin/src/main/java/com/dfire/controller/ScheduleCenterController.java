@@ -56,6 +56,8 @@ public class ScheduleCenterController extends BaseHeraController {
     @Autowired
     private HeraJobActionService heraJobActionService;
     @Autowired
+    private HeraJobSnapshotService heraJobSnapshotService;
+    @Autowired
     @Qualifier("heraGroupMemoryService")
     private HeraGroupService heraGroupService;
     @Autowired
@@ -94,7 +96,7 @@ public class ScheduleCenterController extends BaseHeraController {
     public JsonResponse getJobMessage(Integer jobId) {
         HeraJob job = heraJobService.findById(jobId);
         HeraJobVo heraJobVo = BeanConvertUtils.convert(job);
-        heraJobVo.setInheritConfig(getInheritConfig(job.getGroupId()));
+        heraJobVo.setInheritConfig(heraGroupService.getInheritConfig(job.getGroupId()));
         HeraJobMonitor monitor = heraJobMonitorService.findByJobId(jobId);
         StringBuilder focusUsers = new StringBuilder("[ ");
         Optional.ofNullable(monitor).ifPresent(m -> {
@@ -197,7 +199,7 @@ public class ScheduleCenterController extends BaseHeraController {
         Integer id = StringUtil.getGroupId(groupId);
         HeraGroup group = heraGroupService.findById(id);
         HeraGroupVo groupVo = BeanConvertUtils.convert(group);
-        groupVo.setInheritConfig(getInheritConfig(groupVo.getParent()));
+        groupVo.setInheritConfig(heraGroupService.getInheritConfig(groupVo.getParent()));
         groupVo.setUIdS(getuIds(id, RunAuthType.GROUP));
         if (groupVo.getConfigs().keySet().stream().anyMatch(key -> key.toLowerCase().contains(Constants.PASSWORD_WORD))
                 || groupVo.getInheritConfig().keySet().stream().anyMatch(key -> key.toLowerCase().contains(Constants.PASSWORD_WORD))) {
@@ -319,9 +321,8 @@ public class ScheduleCenterController extends BaseHeraController {
         actionHistory.setBatchId(heraAction.getBatchId());
         actionHistory.setBizLabel(heraJob.getBizLabel());
         heraJobHistoryService.insert(actionHistory);
-        heraAction.setScript(heraJob.getScript());
+        heraAction.setSnapshotId(heraJobSnapshotService.save(heraJob));
         heraAction.setHistoryId(actionHistory.getId());
-        heraAction.setConfigs(configs);
         heraAction.setAuto(heraJob.getAuto());
         heraAction.setHostGroupId(heraJob.getHostGroupId());
         heraJobActionService.update(heraAction);
@@ -407,26 +408,9 @@ public class ScheduleCenterController extends BaseHeraController {
 
         if (StringUtils.isNotBlank(newJob.getDependencies())) {
             if (!newJob.getDependencies().equals(memJob.getDependencies())) {
-                List<HeraJob> relation = heraJobService.getAllJobDependencies();
-
-                DagLoopUtil dagLoopUtil = new DagLoopUtil(heraJobService.selectMaxId());
-                relation.forEach(x -> {
-                    String dependencies;
-                    if (x.getId() == newJob.getId()) {
-                        dependencies = newJob.getDependencies();
-                    } else {
-                        dependencies = x.getDependencies();
-                    }
-                    if (StringUtils.isNotBlank(dependencies)) {
-                        String[] split = dependencies.split(",");
-                        for (String s : split) {
-                            dagLoopUtil.addEdge(x.getId(), Integer.parseInt(s));
-                        }
-                    }
-                });
-
-                if (dagLoopUtil.isLoop()) {
-                    return new JsonResponse(false, "出现环形依赖，请检测依赖关系:" + dagLoopUtil.getLoop());
+                String loop = heraJobService.findDependencyLoop(newJob.getId(), newJob.getDependencies());
+                if (loop != null) {
+                    return new JsonResponse(false, "出现环形依赖，请检测依赖关系:" + loop);
                 }
             }
         }
@@ -721,8 +705,8 @@ public class ScheduleCenterController extends BaseHeraController {
     @RequestMapping(value = "getLog", method = RequestMethod.GET)
     @ResponseBody
     @RunAuth(idIndex = 1)
-    public JsonResponse getJobLog(Integer id, Integer jobId) {
-        return new JsonResponse(true, heraJobHistoryService.findLogById(id));
+    public JsonResponse getJobLog(Integer id, Integer jobId, Long offset) {
+        return new JsonResponse(true, heraJobHistoryService.findLogById(id, offset));
     }
 
 
@@ -785,25 +769,6 @@ public class ScheduleCenterController extends BaseHeraController {
     }
 
 
-    private Map<String, String> getInheritConfig(Integer groupId) {
-        HeraGroup group = heraGroupService.findConfigById(groupId);
-        Map<String, String> configMap = new TreeMap<>();
-        while (group != null && groupId != null && groupId != 0) {
-            Map<String, String> map = StringUtil.convertStringToMap(group.getConfigs());
-            // 多重继承相同变量，以第一个的为准
-            for (Map.Entry<String, String> entry : map.entrySet()) {
-                String key = entry.getKey();
-                if (!configMap.containsKey(key)) {
-                    configMap.put(key, entry.getValue());
-                }
-            }
-            groupId = group.getParent();
-            group = heraGroupService.findConfigById(groupId);
-        }
-        return configMap;
-    }
-
-
     private String getuIds(Integer id, RunAuthType type) {
         List<HeraPermission> permissions = heraPermissionService.findByTargetId(id, type.getName(), 1);
         StringBuilder uids = new StringBuilder("[ ");
@@ -40,12 +40,27 @@ CREATE TABLE IF NOT EXISTS `hera_action`
   `host_group_id`        tinyint(2)                   DEFAULT NULL COMMENT '任务可分配的执行服务器组',
   `down_actions`         varchar(16)                  DEFAULT NULL,
   `batch_id` varchar(50) DEFAULT NULL COMMENT '批次号',
+  `snapshot_id`          char(64)                     DEFAULT NULL COMMENT '任务定义快照id',
   PRIMARY KEY (`id`),
   KEY `ind_action_groupid` (`group_id`),
   KEY `ind_actionjobid` (`job_id`)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4 COMMENT ='job版本记录表';
 
+CREATE TABLE IF NOT EXISTS `hera_job_snapshot`
+(
+  `id`          char(64)   NOT NULL COMMENT '任务id和定义内容的sha-256',
+  `job_id`      bigint(20) NOT NULL COMMENT '任务id',
+  `script`      mediumtext COMMENT '任务脚本',
+  `configs`     text COMMENT '任务配置',
+  `resources`   text COMMENT '任务资源',
+  `description` varchar(256) DEFAULT NULL COMMENT '任务描述',
+  `gmt_create`  datetime     DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `ind_job_id` (`job_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='任务定义快照表，内容相同的定义只存一份，版本通过snapshot_id引用';
+
 CREATE TABLE IF NOT EXISTS `hera_action_history`
 (
   `id`                 bigint(20) NOT NULL AUTO_INCREMENT,
@@ -75,6 +90,17 @@ CREATE TABLE IF NOT EXISTS `hera_action_history`
   KEY `ind_end_time` (`end_time`)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4 COMMENT ='Job运行日志表';
+
+CREATE TABLE IF NOT EXISTS `hera_action_history_log`
+(
+  `id`         bigint(20) NOT NULL AUTO_INCREMENT,
+  `history_id` bigint(20) NOT NULL COMMENT '运行记录id',
+  `content`    mediumtext COMMENT '任务运行中追加的日志片段',
+  `gmt_create` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `ind_history_id` (`history_id`, `id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='运行日志片段表，任务结束后合并到hera_action_history';
 CREATE TABLE IF NOT EXISTS `hera_advice`
 (
   `id`          bigint(20) NOT NULL AUTO_INCREMENT,
@@ -175,7 +175,8 @@ layui.use(['table'], function () {
                 type: "get",
                 data: {
                     id: actionRow.id,
-                    jobId: actionRow.jobId
+                    jobId: actionRow.jobId,
+                    offset: actionRow.logOffset || 0
                 },
                 success: function (result) {
                     var logArea = $('#log_' + actionRow.id);
@@ -188,9 +189,15 @@ layui.use(['table'], function () {
                     if (data.status === 'running') {
                         window.setTimeout(scheduleLog, 5000);
                     }
-                    logArea[0].innerHTML = data.log;
+                    if (data.increment) {
+                        logArea[0].insertAdjacentHTML('beforeend', data.log);
+                        actionRow.log += data.log;
+                    } else {
+                        logArea[0].innerHTML = data.log;
+                        actionRow.log = data.log;
+                    }
                     logArea.scrollTop(logArea.prop("scrollHeight"), 200);
-                    actionRow.log = data.log;
+                    actionRow.logOffset = data.offset;
                     actionRow.status = data.status;
                 }
             })
@@ -499,6 +506,7 @@ layui.use(['table'], function () {
 //                },
                 onExpandRow: function (index, row) {
                     actionRow = row;
+                    actionRow.logOffset = 0;
                     scheduleLog();
                 }
             });
@@ -1557,7 +1557,8 @@ let JobLogTable = function (jobId) {
             type: "get",
             data: {
                 id: actionRow.id,
-                jobId: actionRow.jobId
+                jobId: actionRow.jobId,
+                offset: actionRow.logOffset || 0
             },
             success: function (result) {
                 let logArea = $('#log_' + actionRow.id);
@@ -1570,10 +1571,16 @@ let JobLogTable = function (jobId) {
                 if (data.status === 'running' && !closeLog) {
                     window.setTimeout(scheduleLog, 5000);
                 }
-                logArea[0].innerHTML = data.log;
+                if (data.increment) {
+                    logArea[0].insertAdjacentHTML('beforeend', data.log);
+                    actionRow.log += data.log;
+                } else {
+                    logArea[0].innerHTML = data.log;
+                    actionRow.log = data.log;
+                }
                 logArea.scrollTop(logArea.prop("scrollHeight"), 200);
 
-                actionRow.log = data.log;
+                actionRow.logOffset = data.offset;
                 actionRow.status = data.status;
             }
         })
@@ -1758,6 +1765,7 @@ let JobLogTable = function (jobId) {
             },
             onExpandRow: function (index, row) {
                 actionRow = row;
+                actionRow.logOffset = 0;
                 closeLog = false;
                 scheduleLog();
             },
@@ -0,0 +1,110 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.HeraJob;
+import com.dfire.common.entity.Judge;
+import com.dfire.config.HeraGlobalEnv;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 模拟hera_job表，验证增量刷新只拉取修改过的行，删除通过id对比摘除
+ */
+public class DeltaTableCacheTest {
+
+    private final Map<Integer, HeraJob> table = new HashMap<>();
+
+    private final AtomicInteger fetchedRows = new AtomicInteger();
+
+    private DeltaTableCache<HeraJob> cache;
+
+    private long clock = 1000000L;
+
+    private long probeInterval;
+
+    @Before
+    public void init() {
+        probeInterval = HeraGlobalEnv.getCacheProbeInterval();
+        new HeraGlobalEnv().setCacheProbeInterval(0);
+        for (int id = 1; id <= 20000; id++) {
+            save(id);
+        }
+        cache = new DeltaTableCache<>("hera_job",
+                this::tableInfo,
+                () -> fetch(table.values()),
+                lastModified -> fetch(table.values().stream().filter(job -> !job.getGmtModified().before(lastModified)).collect(Collectors.toList())),
+                () -> new ArrayList<>(table.keySet()),
+                HeraJob::getId,
+                HeraJob::getGmtModified);
+    }
+
+    @After
+    public void restore() {
+        new HeraGlobalEnv().setCacheProbeInterval(probeInterval);
+    }
+
+    @Test
+    public void deltaRefresh() {
+        Assert.assertEquals(20000, cache.get().size());
+        Assert.assertEquals(20000, fetchedRows.get());
+
+        fetchedRows.set(0);
+        Assert.assertEquals(20000, cache.get().size());
+        Assert.assertEquals(0, fetchedRows.get());
+
+        save(5);
+        table.get(5).setName("changed");
+        save(20001);
+        table.remove(7);
+        fetchedRows.set(0);
+        Map<Integer, HeraJob> jobs = cache.get();
+        //水位上的那一行会被重复拉取
+        Assert.assertEquals(3, fetchedRows.get());
+        Assert.assertEquals(20000, jobs.size());
+        Assert.assertEquals("changed", jobs.get(5).getName());
+        Assert.assertNotNull(jobs.get(20001));
+        Assert.assertNull(jobs.get(7));
+        Assert.assertEquals(1, cache.getFullLoadCount());
+        Assert.assertEquals(1, cache.getRefreshCount());
+    }
+
+    @Test
+    public void probeThrottle() {
+        new HeraGlobalEnv().setCacheProbeInterval(60 * 1000L);
+        cache.get();
+        save(1);
+        cache.get();
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        cache.expire();
+        cache.get();
+        Assert.assertEquals(2, cache.getMissCount());
+    }
+
+    private void save(int id) {
+        HeraJob job = table.computeIfAbsent(id, key -> {
+            HeraJob heraJob = new HeraJob();
+            heraJob.setId(key);
+            return heraJob;
+        });
+        job.setGmtModified(new Date(clock++));
+    }
+
+    private Judge tableInfo() {
+        Judge judge = new Judge();
+        judge.setCount(table.size());
+        judge.setMaxId(table.keySet().stream().max(Integer::compareTo).orElse(null));
+        judge.setLastModified(table.values().stream().map(HeraJob::getGmtModified).max(Date::compareTo).orElse(null));
+        return judge;
+    }
+
+    private List<HeraJob> fetch(Collection<HeraJob> rows) {
+        fetchedRows.addAndGet(rows.size());
+        return new ArrayList<>(rows);
+    }
+}
@@ -0,0 +1,62 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.HeraGroup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分组配置继承快照：子分组覆盖父分组，修改分组只摘除该分组及其子分组
+ */
+public class GroupConfigTreeTest {
+
+    private final Map<Integer, HeraGroup> groups = new HashMap<>();
+
+    @Test
+    public void inheritAndInvalidate() {
+        save(1, 0, "{\"a\":\"1\",\"b\":\"1\",\"fixed\":\"true\"}", "[{\"name\":\"r1\",\"uri\":\"hdfs://r1\"}]");
+        save(2, 1, "{\"b\":\"2\",\"fixed\":\" \"}", "[{\"name\":\"r2\",\"uri\":\"hdfs://r2\"}]");
+        save(3, 2, "{\"c\":\"3\"}", null);
+        save(4, 1, "{\"d\":\"4\"}", null);
+        GroupConfigTree tree = new GroupConfigTree(() -> groups);
+
+        GroupConfigTree.Snapshot leaf = tree.get(3);
+        Assert.assertEquals("1", leaf.getConfigs().get("a"));
+        Assert.assertEquals("2", leaf.getConfigs().get("b"));
+        Assert.assertEquals("3", leaf.getConfigs().get("c"));
+        Assert.assertEquals("r2", leaf.getResources().get(0).get("name"));
+        Assert.assertEquals("r1", leaf.getResources().get(1).get("name"));
+        Assert.assertEquals("2", leaf.getInheritVal("b", "a"));
+        //最近的defaultKey为空白时继续向上找
+        Assert.assertEquals("true", leaf.getInheritVal("area.fixed", "fixed"));
+        Assert.assertNull(leaf.getInheritVal("x", "y"));
+        tree.get(4);
+        Assert.assertEquals(4, tree.size());
+        Assert.assertEquals(4, tree.getBuildCount());
+
+        Assert.assertSame(leaf, tree.get(3));
+        Assert.assertEquals(4, tree.getBuildCount());
+
+        save(2, 1, "{\"b\":\"changed\"}", null);
+        tree.invalidate(Collections.singletonList(2));
+        Assert.assertEquals(2, tree.size());
+        Assert.assertEquals("changed", tree.get(3).getConfigs().get("b"));
+        Assert.assertEquals(6, tree.getBuildCount());
+
+        tree.invalidate(null);
+        Assert.assertEquals(0, tree.size());
+        Assert.assertNull(tree.get(99));
+    }
+
+    private void save(int id, int parent, String configs, String resources) {
+        HeraGroup group = new HeraGroup();
+        group.setId(id);
+        group.setParent(parent);
+        group.setConfigs(configs);
+        group.setResources(resources);
+        groups.put(id, group);
+    }
+}
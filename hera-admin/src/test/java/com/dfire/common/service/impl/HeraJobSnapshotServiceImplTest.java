@@ -0,0 +1,35 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.HeraJob;
+import com.dfire.common.entity.HeraJobSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 任务定义快照id：内容相同时相同，任务、字段内容或字段边界不同时不同
+ */
+public class HeraJobSnapshotServiceImplTest {
+
+    @Test
+    public void contentHash() {
+        HeraJobSnapshot snapshot = HeraJobSnapshotServiceImpl.of(job(1, "echo 1", "{}"));
+        Assert.assertEquals(64, snapshot.getId().length());
+        Assert.assertEquals("echo 1", snapshot.getScript());
+        Assert.assertEquals(snapshot.getId(), HeraJobSnapshotServiceImpl.of(job(1, "echo 1", "{}")).getId());
+
+        Assert.assertNotEquals(snapshot.getId(), HeraJobSnapshotServiceImpl.of(job(2, "echo 1", "{}")).getId());
+        Assert.assertNotEquals(snapshot.getId(), HeraJobSnapshotServiceImpl.of(job(1, "echo 2", "{}")).getId());
+        Assert.assertNotEquals(snapshot.getId(), HeraJobSnapshotServiceImpl.of(job(1, "echo 1{", "}")).getId());
+        Assert.assertNotEquals(HeraJobSnapshotServiceImpl.of(job(1, null, "{}")).getId(),
+                HeraJobSnapshotServiceImpl.of(job(1, "", "{}")).getId());
+    }
+
+    private HeraJob job(int id, String script, String configs) {
+        HeraJob heraJob = new HeraJob();
+        heraJob.setId(id);
+        heraJob.setScript(script);
+        heraJob.setConfigs(configs);
+        heraJob.setDescription("test");
+        return heraJob;
+    }
+}
@@ -0,0 +1,86 @@
+package com.dfire.common.util;
+
+import com.dfire.common.exception.HeraException;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.Velocity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 日期宏渲染：和逐个Velocity.evaluate的旧实现结果一致，1k个宏的脚本对比耗时
+ */
+public class RenderHierarchyPropertiesTest {
+
+    private static final String DATE = "201810181230";
+
+    private static final Pattern ZDT = Pattern.compile("\\$\\{zdt.*?\\}");
+
+    private static final String[] MACROS = {
+            "${zdt.format(\"yyyyMMdd\")}",
+            "${zdt.addDay(-1).format(\"yyyy-MM-dd\")}",
+            "${zdt.addDay(1).format(\"yyyyMMdd HH:mm\")}",
+            "${zdt.add(2,-1).format(\"yyyyMM\")}",
+            "${zdt.getTime()}"
+    };
+
+    @Test
+    public void sameAsLegacy() throws Exception {
+        String script = "select * from t where dt='${zdt.format(\"yyyyMMdd\")}' and pt in ('${zdt.addDay(-1).format(\"yyyyMMdd\")}',"
+                + " '${zdt.addDay(-1).format(\"yyyyMMdd\")}') and ds='${yesterday}' and x='${other}'";
+        Assert.assertEquals(legacy(script, DATE), RenderHierarchyProperties.render(script, DATE));
+        Assert.assertEquals("select 1", RenderHierarchyProperties.render("select 1", DATE));
+        Assert.assertNull(RenderHierarchyProperties.render(null, DATE));
+        //缓存命中后结果不变
+        Assert.assertEquals(legacy(script, DATE), RenderHierarchyProperties.render(script, DATE));
+    }
+
+    @Test(expected = HeraException.class)
+    public void renderFail() throws Exception {
+        RenderHierarchyProperties.render("${zdt.notExist()}", DATE);
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("insert overwrite table t").append(i).append(" partition(dt='")
+                    .append(MACROS[i % MACROS.length]).append("_").append(i).append("') select ${yesterday};\n");
+        }
+        String script = builder.toString();
+        Assert.assertEquals(legacy(script, DATE), RenderHierarchyProperties.render(script, DATE));
+
+        int rounds = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            legacy(script, DATE);
+        }
+        long legacy = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            RenderHierarchyProperties.render(script, DATE);
+        }
+        long now = System.nanoTime() - start;
+        System.out.println("1k macros, legacy:" + legacy / rounds / 1000 + "us, compiled:" + now / rounds / 1000 + "us");
+    }
+
+    /**
+     * 旧实现：每找到一个宏就evaluate一次并替换整个脚本，再从头匹配
+     */
+    private String legacy(String template, String dateStr) throws Exception {
+        Matcher matcher = ZDT.matcher(template);
+        while (matcher.find()) {
+            String m = matcher.group();
+            StringWriter sw = new StringWriter();
+            VelocityContext context = new VelocityContext();
+            context.put("zdt", new HeraDateTool(HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN)));
+            Velocity.evaluate(context, sw, "", m);
+            template = template.replace(m, sw.toString());
+            matcher = ZDT.matcher(template);
+        }
+        return template.replace("${yesterday}", new HeraDateTool(HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN)).addDay(-1).format("yyyyMMdd"));
+    }
+}
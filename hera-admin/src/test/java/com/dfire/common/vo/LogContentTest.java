@@ -0,0 +1,157 @@
+package com.dfire.common.vo;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.config.HeraGlobalEnv;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 尾部日志环形队列的正确性检查，与原来加锁LinkedList的1000万行吞吐对比需加 -Dhera.benchmark=true 才执行
+ */
+public class LogContentTest {
+
+    private static final int HEAD = 100;
+
+    private static final int TAIL = 1000;
+
+    private static final int LINE_COUNT = 10000000;
+
+    @BeforeClass
+    public static void init() {
+        HeraGlobalEnv env = new HeraGlobalEnv();
+        env.setWebLogHeadCount(HEAD);
+        env.setWebLogTailCount(TAIL);
+    }
+
+    @Test
+    public void headAndTail() {
+        LogContent logContent = new LogContent();
+        for (int i = 0; i < HEAD + 5000; i++) {
+            logContent.appendConsole("line " + i);
+        }
+        logContent.appendConsole("java.lang.NullPointerException");
+        logContent.appendHera("hera log");
+        String content = logContent.getContent();
+        Assert.assertTrue(content.contains("line 0" + Constants.LOG_SPLIT));
+        Assert.assertFalse(content.contains("line " + (HEAD + 100) + Constants.LOG_SPLIT));
+        Assert.assertTrue(content.contains("line " + (HEAD + 4999) + Constants.LOG_SPLIT));
+        Assert.assertTrue(content.contains("<font style=\"color:red\">java.lang.NullPointerException</font>"));
+        Assert.assertTrue(content.endsWith("<b>HERA#</b> hera log" + Constants.LOG_SPLIT));
+    }
+
+    @Test
+    public void append() {
+        LogContent logContent = new LogContent(new StringBuffer("base"));
+        logContent.append("a");
+        LogContent.Append append = logContent.nextAppend();
+        Assert.assertEquals("a" + Constants.LOG_SPLIT, append.getContent());
+        logContent.commitAppend(append);
+        Assert.assertNull(logContent.nextAppend());
+
+        for (int i = 0; i < HEAD + TAIL * 2; i++) {
+            logContent.append("b");
+        }
+        logContent.commitAppend(logContent.nextAppend());
+        logContent.append("c");
+        Assert.assertEquals("c" + Constants.LOG_SPLIT, logContent.nextAppend().getContent());
+    }
+
+    @Test
+    public void tailMark() {
+        LogContent.TailRing ring = new LogContent.TailRing(4);
+        ring.add("a", (byte) 1);
+        ring.add("b", (byte) 2);
+        long mark = ring.mark(1);
+        Assert.assertTrue(LogContent.TailRing.isPublished(mark, 1));
+        Assert.assertEquals(2, LogContent.TailRing.kind(mark));
+        Assert.assertEquals("b", ring.get(1, mark));
+        //已占位还没写完的行不能跳过
+        Assert.assertFalse(LogContent.TailRing.isPublished(ring.mark(2), 2));
+        Assert.assertFalse(LogContent.TailRing.isPublished(3L << 2 | 3, 2));
+        //被覆盖后读到的是新行的标记，旧行跳过
+        for (int i = 0; i < 4; i++) {
+            ring.add("c", (byte) 0);
+        }
+        Assert.assertTrue(LogContent.TailRing.isPublished(ring.mark(1), 1));
+        Assert.assertNull(ring.get(1, ring.mark(1)));
+        Assert.assertNull(ring.get(1, mark));
+    }
+
+    @Test
+    public void errorKeyword() {
+        Assert.assertTrue(LogContent.isErrorMsg("FAILED: SemanticException"));
+        Assert.assertTrue(LogContent.isErrorMsg("some ERROR happened"));
+        Assert.assertTrue(LogContent.isErrorMsg("sh: foo: command not found"));
+        Assert.assertFalse(LogContent.isErrorMsg("INFO : OK"));
+        Assert.assertFalse(LogContent.isErrorMsg("err"));
+    }
+
+    @Test
+    public void tailThroughput() {
+        Assume.assumeTrue(Boolean.getBoolean("hera.benchmark"));
+        String[] lines = new String[1024];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = i % 100 == 0 ? "2019-01-01 00:00:00 ERROR task failed " + i : "2019-01-01 00:00:00 INFO map = 100%, reduce = " + i + "%";
+        }
+        LockedTail locked = new LockedTail();
+        long start = System.nanoTime();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            locked.appendConsole(lines[i & 1023]);
+        }
+        long lockedCost = System.nanoTime() - start;
+
+        LogContent logContent = new LogContent();
+        start = System.nanoTime();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            logContent.appendConsole(lines[i & 1023]);
+        }
+        long ringCost = System.nanoTime() - start;
+        Assert.assertTrue(logContent.getContent().length() > 0);
+
+        System.out.println(LINE_COUNT + " lines, locked list:" + LINE_COUNT * 1000L / (lockedCost / 1000000 + 1) + " lines/s"
+                + ", ring:" + LINE_COUNT * 1000L / (ringCost / 1000000 + 1) + " lines/s");
+    }
+
+    /**
+     * 原来的尾部日志实现：每行加锁、立即拼接html
+     */
+    private static class LockedTail {
+
+        private final LinkedList<String> tailLog = new LinkedList<>();
+
+        private final Lock lock = new ReentrantLock();
+
+        void appendConsole(String log) {
+            String msg = "<b>CONSOLE#</b> " + redColorMsg(log) + Constants.LOG_SPLIT;
+            try {
+                lock.lock();
+                tailLog.add(msg);
+                if (tailLog.size() >= TAIL) {
+                    tailLog.removeFirst();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private String redColorMsg(String log) {
+            if (log.toLowerCase().contains("error")
+                    || log.toLowerCase().contains("failed")
+                    || log.contains("Exception")
+                    || log.contains("NullPointException")
+                    || log.contains("No such file or directory")
+                    || log.contains("command not found")
+                    || log.contains("Permission denied")) {
+                return "<font style=\"color:red\">" + log + "</font>";
+            } else {
+                return log;
+            }
+        }
+    }
+}
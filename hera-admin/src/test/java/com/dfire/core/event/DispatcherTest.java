@@ -0,0 +1,115 @@
+package com.dfire.core.event;
+
+import com.dfire.common.enums.TriggerTypeEnum;
+import com.dfire.core.event.handler.AbstractHandler;
+import com.dfire.core.event.handler.JobHandler;
+import com.dfire.core.netty.master.MasterContext;
+import com.dfire.event.ApplicationEvent;
+import com.dfire.event.HeraJobSuccessEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 索引路由与全量广播的对比，每个版本依赖前一个版本，成功事件只应该到达直接下游
+ */
+public class DispatcherTest {
+
+    private static final int EVENT_COUNT = 200;
+
+    private final AtomicLong handled = new AtomicLong();
+
+    @Test
+    public void routeToDownstreamOnly() {
+        Dispatcher dispatcher = new Dispatcher();
+        List<JobHandler> handlers = buildHandlers(dispatcher, 100);
+        handled.set(0);
+        dispatcher.forwardEvent(new HeraJobSuccessEvent(actionId(10), TriggerTypeEnum.SCHEDULE, "1"));
+        Assert.assertEquals(1, handled.get());
+
+        dispatcher.removeJobHandler(handlers.get(11));
+        handled.set(0);
+        dispatcher.forwardEvent(new HeraJobSuccessEvent(actionId(10), TriggerTypeEnum.SCHEDULE, "1"));
+        Assert.assertEquals(0, handled.get());
+
+        dispatcher.updateDependencies(handlers.get(50), Arrays.asList(actionId(10), actionId(49)));
+        handled.set(0);
+        dispatcher.forwardEvent(new HeraJobSuccessEvent(actionId(10), TriggerTypeEnum.SCHEDULE, "1"));
+        Assert.assertEquals(1, handled.get());
+        Assert.assertEquals(1, dispatcher.getJobHandlers(50).size());
+    }
+
+    @Test
+    public void routeVsBroadcast() {
+        for (int size : new int[]{10000, 50000, 100000}) {
+            Dispatcher dispatcher = new Dispatcher();
+            buildHandlers(dispatcher, size);
+            List<AbstractHandler> all = dispatcher.getJobHandlers();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                broadcast(all, new HeraJobSuccessEvent(actionId(i), TriggerTypeEnum.SCHEDULE, "1"));
+            }
+            long broadcastCost = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                dispatcher.forwardEvent(new HeraJobSuccessEvent(actionId(i), TriggerTypeEnum.SCHEDULE, "1"));
+            }
+            long routeCost = System.nanoTime() - start;
+
+            System.out.println("handlers:" + size
+                    + " broadcast:" + broadcastCost / EVENT_COUNT / 1000 + "us/event"
+                    + " route:" + routeCost / EVENT_COUNT / 1000 + "us/event");
+        }
+    }
+
+    /**
+     * 原来的全量广播方式
+     */
+    private void broadcast(List<AbstractHandler> handlers, ApplicationEvent event) {
+        for (AbstractHandler handler : new ArrayList<>(handlers)) {
+            if (handler.canHandle(event)) {
+                handler.handleEvent(event);
+            }
+        }
+    }
+
+    private List<JobHandler> buildHandlers(Dispatcher dispatcher, int size) {
+        MasterContext masterContext = new MasterContext();
+        masterContext.setDispatcher(dispatcher);
+        List<JobHandler> handlers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String dependency = i == 0 ? null : actionId(i - 1);
+            JobHandler handler = new CountHandler(actionId(i), dependency, masterContext);
+            dispatcher.addJobHandler(handler, dependency);
+            handlers.add(handler);
+        }
+        return handlers;
+    }
+
+    private static String actionId(int jobId) {
+        return String.format("201901010000%06d", jobId);
+    }
+
+    private class CountHandler extends JobHandler {
+
+        private final String dependency;
+
+        CountHandler(String actionId, String dependency, MasterContext masterContext) {
+            super(actionId, null, masterContext);
+            this.dependency = dependency;
+        }
+
+        @Override
+        public void handleEvent(ApplicationEvent event) {
+            if (event instanceof HeraJobSuccessEvent && ((HeraJobSuccessEvent) event).getJobId().equals(dependency)) {
+                handled.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.dfire.core.netty;
+
+import com.dfire.core.netty.util.NettyTransport;
+import com.dfire.protocol.RpcOperate;
+import com.dfire.protocol.RpcRequest.Request;
+import com.dfire.protocol.RpcSocketMessage.SocketMessage;
+import com.google.protobuf.ByteString;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本机master/worker回环压测：原来的单io线程+每条消息同步等待flush 对比 多io线程+flush合并+异步发送，
+ * 输出每秒消息数和p99延迟
+ */
+public class NettyChannelBenchmarkTest {
+
+    private static final int MESSAGE_COUNT = 50000;
+
+    private static final int SENDER_THREADS = 4;
+
+    private static final ByteString BODY = ByteString.copyFrom(new byte[256]);
+
+    @Test
+    public void benchmark() throws Exception {
+        Result before = run(false);
+        Result after = run(true);
+        System.out.println(MESSAGE_COUNT + " messages, before:" + before + ", after(" + NettyTransport.name() + "):" + after);
+    }
+
+    private Result run(boolean async) throws Exception {
+        EventLoopGroup serverGroup = async ? NettyTransport.newEventLoopGroup(NettyTransport.ioThreads(), "bench-server") : new NioEventLoopGroup(1);
+        EventLoopGroup clientGroup = async ? NettyTransport.newEventLoopGroup(NettyTransport.ioThreads(), "bench-client") : new NioEventLoopGroup(1);
+        long[] sendTime = new long[MESSAGE_COUNT];
+        long[] latency = new long[MESSAGE_COUNT];
+        CountDownLatch latch = new CountDownLatch(MESSAGE_COUNT);
+        try {
+            Channel server = new ServerBootstrap().group(serverGroup)
+                    .channel(async ? NettyTransport.serverChannelClass() : NioServerSocketChannel.class)
+                    .childOption(ChannelOption.TCP_NODELAY, async)
+                    .childHandler(initializer(async, new SimpleChannelInboundHandler<SocketMessage>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, SocketMessage msg) {
+                            ctx.writeAndFlush(msg);
+                        }
+                    }))
+                    .bind(0).sync().channel();
+            Channel client = new Bootstrap().group(clientGroup)
+                    .channel(async ? NettyTransport.channelClass() : NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, async)
+                    .handler(initializer(async, new SimpleChannelInboundHandler<SocketMessage>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, SocketMessage msg) throws Exception {
+                            int rid = Request.parseFrom(msg.getBody()).getRid();
+                            latency[rid] = System.nanoTime() - sendTime[rid];
+                            latch.countDown();
+                        }
+                    }))
+                    .connect(new InetSocketAddress("127.0.0.1", ((InetSocketAddress) server.localAddress()).getPort())).sync().channel();
+            NettyChannel channel = new NettyChannel(client);
+
+            long start = System.nanoTime();
+            Thread[] senders = new Thread[SENDER_THREADS];
+            for (int t = 0; t < SENDER_THREADS; t++) {
+                int from = t;
+                senders[t] = new Thread(() -> {
+                    for (int rid = from; rid < MESSAGE_COUNT; rid += SENDER_THREADS) {
+                        SocketMessage message = message(rid);
+                        sendTime[rid] = System.nanoTime();
+                        try {
+                            if (async) {
+                                channel.send(message);
+                            } else {
+                                channel.writeAndFlush(message);
+                            }
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+                senders[t].start();
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+            Assert.assertTrue(latch.await(60, TimeUnit.SECONDS));
+            long cost = System.nanoTime() - start;
+            client.close().sync();
+            server.close().sync();
+            Arrays.sort(latency);
+            return new Result(MESSAGE_COUNT * 1000000000L / cost, latency[(int) (MESSAGE_COUNT * 0.99)] / 1000);
+        } finally {
+            clientGroup.shutdownGracefully();
+            serverGroup.shutdownGracefully();
+        }
+    }
+
+    private ChannelInitializer<SocketChannel> initializer(boolean async, ChannelHandler handler) {
+        return new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(SocketChannel ch) {
+                if (async) {
+                    ch.pipeline().addLast(NettyTransport.flushConsolidation());
+                }
+                ch.pipeline().addLast(new ProtobufVarint32FrameDecoder())
+                        .addLast(new ProtobufDecoder(SocketMessage.getDefaultInstance()))
+                        .addLast(new ProtobufVarint32LengthFieldPrepender())
+                        .addLast(new ProtobufEncoder())
+                        .addLast(handler);
+            }
+        };
+    }
+
+    private SocketMessage message(int rid) {
+        return SocketMessage.newBuilder()
+                .setKind(SocketMessage.Kind.REQUEST)
+                .setBody(Request.newBuilder().setRid(rid).setOperate(RpcOperate.Operate.HeartBeat).setBody(BODY).build().toByteString())
+                .build();
+    }
+
+    private static class Result {
+
+        private final long messagesPerSecond;
+
+        private final long p99Micros;
+
+        Result(long messagesPerSecond, long p99Micros) {
+            this.messagesPerSecond = messagesPerSecond;
+            this.p99Micros = p99Micros;
+        }
+
+        @Override
+        public String toString() {
+            return messagesPerSecond + " msg/s, p99 " + p99Micros + "us";
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.dfire.core.netty.cluster;
+
+import com.dfire.core.netty.NettyChannel;
+import com.dfire.protocol.RpcRequest.Request;
+import com.dfire.protocol.RpcSocketMessage.SocketMessage;
+import com.google.protobuf.ByteString;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 发件箱按请求id合并、条数上限、重连后按顺序补发
+ */
+public class FailBackOutboxTest {
+
+    private static final String PEER = "embedded";
+
+    @Test
+    public void coalesceAndRebind() throws Exception {
+        EmbeddedChannel closed = new EmbeddedChannel();
+        closed.remoteAddress();
+        closed.close();
+        NettyChannel down = new NettyChannel(closed);
+
+        FailBackOutbox.offer(FailBackOutbox.Side.MASTER, down, message(1, "a"));
+        FailBackOutbox.offer(FailBackOutbox.Side.MASTER, down, message(1, "b"));
+        FailBackOutbox.offer(FailBackOutbox.Side.MASTER, down, message(2, "c"));
+        Assert.assertEquals(2, FailBackOutbox.depth(FailBackOutbox.Side.MASTER).get(PEER).intValue());
+
+        for (int rid = 3; rid < 3000; rid++) {
+            FailBackOutbox.offer(FailBackOutbox.Side.MASTER, down, message(rid, "d"));
+        }
+        Assert.assertEquals(1000, FailBackOutbox.depth(FailBackOutbox.Side.MASTER).get(PEER).intValue());
+
+        EmbeddedChannel up = new EmbeddedChannel();
+        FailBackOutbox.rebind(FailBackOutbox.Side.MASTER, new NettyChannel(up));
+        Assert.assertEquals("b", body(up.readOutbound()));
+        Assert.assertEquals("c", body(up.readOutbound()));
+        int count = 2;
+        while (up.readOutbound() != null) {
+            count++;
+        }
+        Assert.assertEquals(1000, count);
+        Assert.assertNull(FailBackOutbox.depth(FailBackOutbox.Side.MASTER).get(PEER));
+    }
+
+    @Test
+    public void separateSides() throws Exception {
+        //master节点上本机worker与master互连，两端对端host相同，发件箱不能混用
+        EmbeddedChannel closed = new EmbeddedChannel();
+        closed.remoteAddress();
+        closed.close();
+        FailBackOutbox.offer(FailBackOutbox.Side.MASTER, new NettyChannel(closed), message(1, "to-worker"));
+        Assert.assertEquals(1, FailBackOutbox.depth(FailBackOutbox.Side.MASTER).get(PEER).intValue());
+        Assert.assertNull(FailBackOutbox.depth(FailBackOutbox.Side.WORKER).get(PEER));
+
+        EmbeddedChannel workerSide = new EmbeddedChannel();
+        Assert.assertFalse(FailBackOutbox.offerIfPending(FailBackOutbox.Side.WORKER, new NettyChannel(workerSide), message(2, "to-master")));
+        FailBackOutbox.rebind(FailBackOutbox.Side.WORKER, new NettyChannel(workerSide));
+        Assert.assertNull(workerSide.readOutbound());
+
+        EmbeddedChannel masterSide = new EmbeddedChannel();
+        FailBackOutbox.rebind(FailBackOutbox.Side.MASTER, new NettyChannel(masterSide));
+        Assert.assertEquals("to-worker", body(masterSide.readOutbound()));
+        Assert.assertNull(FailBackOutbox.depth(FailBackOutbox.Side.MASTER).get(PEER));
+    }
+
+    private SocketMessage message(int rid, String body) {
+        return SocketMessage.newBuilder()
+                .setKind(SocketMessage.Kind.REQUEST)
+                .setBody(Request.newBuilder().setRid(rid).setBody(ByteString.copyFromUtf8(body)).build().toByteString())
+                .build();
+    }
+
+    private String body(Object msg) throws Exception {
+        return Request.parseFrom(((SocketMessage) msg).getBody()).getBody().toStringUtf8();
+    }
+}
@@ -1,19 +0,0 @@
-package com.dfire.core.netty.listener;
-
-import org.junit.Test;
-
-import static org.junit.Assert.*;
-
-/**
- * Created by xiaosuda on 2018/7/31.
- */
-public class WorkResponseListenerTest {
-
-    @Test
-    public void onWebResponse() {
-
-        WorkResponseListener responseListener = new WorkResponseListener();
-
-
-    }
-}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.entity.HeraJob;
+import com.dfire.core.util.CronPlanCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 按依赖层级生成版本：依赖版本的选取、成环和缺失上游的处理、按层批量写库，以及2万任务的生成耗时
+ */
+public class ActionGeneratorTest {
+
+    private static final String CRON_DATE = "2018-10-18";
+
+    @Test
+    public void generate() {
+        ActionGenerator generator = new ActionGenerator(4, heraJob -> "snapshot" + heraJob.getId());
+        List<HeraJob> jobs = Arrays.asList(
+                scheduleJob(1, "0 0 3 * * ?"),
+                scheduleJob(2, "0 0 1,13 * * ?"),
+                dependJob(3, "1,2"),
+                dependJob(4, "3"),
+                dependJob(5, "6"),
+                dependJob(6, "5"),
+                dependJob(7, "99"),
+                scheduleJob(8, "bad cron"),
+                scheduleJob(1, "0 0 3 * * ?"));
+        List<Integer> writes = new ArrayList<>();
+        try {
+            Map<Integer, List<HeraAction>> idMap = generator.generate(jobs, CRON_DATE, actions -> writes.add(actions.size()));
+            //定时任务一层，依赖任务两层，每层写一次
+            Assert.assertEquals(Arrays.asList(3, 1, 1), writes);
+            Assert.assertEquals(1, idMap.get(1).size());
+            Assert.assertEquals(201810180300000001L, idMap.get(1).get(0).getId().longValue());
+            Assert.assertEquals("0 0 3 18 10 ?", idMap.get(1).get(0).getCronExpression());
+            Assert.assertEquals("snapshot1", idMap.get(1).get(0).getSnapshotId());
+            Assert.assertEquals("2018-10-18", idMap.get(1).get(0).getBatchId());
+
+            //以版本少的任务1为基准，任务2取离基准最近的版本
+            HeraAction action = idMap.get(3).get(0);
+            Assert.assertEquals(1, idMap.get(3).size());
+            Assert.assertEquals(201810180300000003L, action.getId().longValue());
+            Assert.assertEquals("201810180300000001,201810180100000002", action.getDependencies());
+            Assert.assertEquals("1,2", action.getJobDependencies());
+            Assert.assertEquals("201810180300000003", idMap.get(4).get(0).getDependencies());
+
+            Assert.assertFalse(idMap.containsKey(5));
+            Assert.assertFalse(idMap.containsKey(6));
+            Assert.assertTrue(idMap.get(7).isEmpty());
+            Assert.assertFalse(idMap.containsKey(8));
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    public void cronPlanCache() {
+        CronPlanCache cache = new CronPlanCache();
+        List<String> times = cache.get(1, "0 0 1,13 * * ?", CRON_DATE);
+        Assert.assertEquals(Arrays.asList("2018-10-18 01:00:00", "2018-10-18 13:00:00"), times);
+        Assert.assertTrue(times == cache.get(1, "0 0 1,13 * * ?", CRON_DATE));
+        Assert.assertEquals(Arrays.asList("2018-10-19 01:00:00", "2018-10-19 13:00:00"), cache.get(1, "0 0 1,13 * * ?", "2018-10-19"));
+        Assert.assertEquals(Arrays.asList("2018-10-19 02:00:00"), cache.get(1, "0 0 2 * * ?", "2018-10-19"));
+        Assert.assertTrue(cache.get(2, "bad cron", CRON_DATE) == null);
+
+        cache.retain(Arrays.asList(2, 3));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    /**
+     * 1万个定时任务，1万个依赖任务分布在约20层，每个依赖1~3个上游
+     */
+    @Test
+    public void benchmark() {
+        List<HeraJob> jobs = syntheticDag(10000, 10000);
+        for (int parallelism : new int[]{1, Runtime.getRuntime().availableProcessors()}) {
+            ActionGenerator generator = new ActionGenerator(parallelism, heraJob -> "snapshot" + heraJob.getId());
+            try {
+                long[] cost = new long[2];
+                int[] actions = new int[1];
+                for (int i = 0; i < cost.length; i++) {
+                    actions[0] = 0;
+                    long start = System.currentTimeMillis();
+                    Map<Integer, List<HeraAction>> idMap = generator.generate(jobs, CRON_DATE, list -> actions[0] += list.size());
+                    cost[i] = System.currentTimeMillis() - start;
+                    Assert.assertEquals(jobs.size(), idMap.size());
+                }
+                System.out.println(jobs.size() + " jobs, " + actions[0] + " actions, parallelism " + parallelism
+                        + ", cold:" + cost[0] + "ms, cron cached:" + cost[1] + "ms");
+            } finally {
+                generator.shutdown();
+            }
+        }
+    }
+
+    private List<HeraJob> syntheticDag(int scheduleCount, int dependCount) {
+        Random random = new Random(2018);
+        List<HeraJob> jobs = new ArrayList<>(scheduleCount + dependCount);
+        for (int id = 1; id <= scheduleCount; id++) {
+            String cron = id % 10 == 0 ? "0 " + random.nextInt(60) + " */2 * * ?" : "0 " + random.nextInt(60) + " " + random.nextInt(24) + " * * ?";
+            jobs.add(scheduleJob(id, cron));
+        }
+        int levelSize = dependCount / 20;
+        for (int i = 0; i < dependCount; i++) {
+            int id = scheduleCount + i + 1;
+            //只依赖更早的任务，保证无环
+            int upper = scheduleCount + i / levelSize * levelSize;
+            StringBuilder dependencies = new StringBuilder();
+            for (int n = random.nextInt(3); n >= 0; n--) {
+                if (dependencies.length() > 0) {
+                    dependencies.append(",");
+                }
+                dependencies.append(upper - random.nextInt(Math.min(upper, 2000)));
+            }
+            jobs.add(dependJob(id, dependencies.toString()));
+        }
+        return jobs;
+    }
+
+    private HeraJob scheduleJob(int id, String cron) {
+        HeraJob heraJob = job(id);
+        heraJob.setScheduleType(0);
+        heraJob.setCronExpression(cron);
+        return heraJob;
+    }
+
+    private HeraJob dependJob(int id, String dependencies) {
+        HeraJob heraJob = job(id);
+        heraJob.setScheduleType(1);
+        heraJob.setDependencies(dependencies);
+        return heraJob;
+    }
+
+    private HeraJob job(int id) {
+        HeraJob heraJob = new HeraJob();
+        heraJob.setId(id);
+        heraJob.setAuto(1);
+        heraJob.setCronPeriod("day");
+        heraJob.setCronInterval(0);
+        heraJob.setScript("echo " + id);
+        return heraJob;
+    }
+}
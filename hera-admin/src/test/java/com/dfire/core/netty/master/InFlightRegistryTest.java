@@ -0,0 +1,109 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.enums.TriggerTypeEnum;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 任务登记表：排队、分发、执行的状态流转，并发入队时同一任务只有一个能登记成功
+ */
+public class InFlightRegistryTest {
+
+    @Test
+    public void lifecycle() {
+        InFlightRegistry registry = new InFlightRegistry();
+        Assert.assertTrue(registry.register(TriggerTypeEnum.SCHEDULE, 1, "201810180000000001", "10"));
+        //手动恢复和自动调度共用通道
+        Assert.assertFalse(registry.register(TriggerTypeEnum.MANUAL_RECOVER, 1, "201810180000000001", "11"));
+        Assert.assertTrue(registry.register(TriggerTypeEnum.MANUAL, 1, "201810180000000001", "12"));
+        Assert.assertTrue(registry.register(TriggerTypeEnum.DEBUG, 1, "1", "13"));
+        Assert.assertFalse(registry.exists(TriggerTypeEnum.DEBUG, 1));
+
+        registry.dispatched(TriggerTypeEnum.SCHEDULE, 1, "10");
+        Assert.assertEquals(InFlightRegistry.Stage.DISPATCHED, registry.get(TriggerTypeEnum.SCHEDULE, 1).getStage());
+        registry.running(TriggerTypeEnum.SCHEDULE, 1, "201810180000000001", "10", "127.0.0.1");
+        Assert.assertEquals(InFlightRegistry.Stage.RUNNING, registry.get(TriggerTypeEnum.SCHEDULE, 1).getStage());
+        Assert.assertEquals("127.0.0.1", registry.get(TriggerTypeEnum.SCHEDULE, 1).getHost());
+
+        //其它执行记录的结束不影响当前登记
+        registry.release(TriggerTypeEnum.SCHEDULE, 1, "9");
+        Assert.assertTrue(registry.exists(TriggerTypeEnum.SCHEDULE, 1));
+        registry.release(TriggerTypeEnum.SCHEDULE, 1, "10");
+        Assert.assertFalse(registry.exists(TriggerTypeEnum.SCHEDULE, 1));
+
+        //重试不经过队列，下发时直接登记
+        registry.running(TriggerTypeEnum.SCHEDULE, 2, "201810180000000002", "20", "127.0.0.1");
+        Assert.assertTrue(registry.exists(TriggerTypeEnum.SCHEDULE, 2));
+        Assert.assertEquals(2, registry.size());
+        Assert.assertEquals(1, registry.getStageCount().get(InFlightRegistry.Stage.QUEUED).intValue());
+        registry.release(TriggerTypeEnum.MANUAL, 1, null);
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void releaseOnHost() {
+        InFlightRegistry registry = new InFlightRegistry();
+        registry.running(TriggerTypeEnum.SCHEDULE, 1, "201810180000000001", "10", "10.0.0.1");
+        //取消后重新登记，旧进程还在断线的worker上
+        registry.release(TriggerTypeEnum.SCHEDULE, 1, "10");
+        Assert.assertTrue(registry.register(TriggerTypeEnum.SCHEDULE, 1, "201810180000000001", "11"));
+        registry.releaseOnHost(TriggerTypeEnum.SCHEDULE, 1, "10.0.0.1");
+        Assert.assertEquals("11", registry.get(TriggerTypeEnum.SCHEDULE, 1).getHistoryId());
+
+        //新的执行已下发到其它worker
+        registry.running(TriggerTypeEnum.SCHEDULE, 1, "201810180000000001", "11", "10.0.0.2");
+        registry.releaseOnHost(TriggerTypeEnum.SCHEDULE, 1, "10.0.0.1");
+        Assert.assertTrue(registry.exists(TriggerTypeEnum.SCHEDULE, 1));
+        registry.releaseOnHost(TriggerTypeEnum.SCHEDULE, 1, "10.0.0.2");
+        Assert.assertFalse(registry.exists(TriggerTypeEnum.SCHEDULE, 1));
+    }
+
+    @Test
+    public void concurrentEnqueue() throws Exception {
+        InFlightRegistry registry = new InFlightRegistry();
+        int jobs = 100, threads = 16, rounds = 2000;
+        AtomicIntegerArray active = new AtomicIntegerArray(jobs);
+        AtomicInteger duplicate = new AtomicInteger(0);
+        AtomicInteger accepted = new AtomicInteger(0);
+        AtomicInteger historyId = new AtomicInteger(0);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < rounds; i++) {
+                    int jobId = (i * 31 + (int) Thread.currentThread().getId()) % jobs;
+                    String id = String.valueOf(historyId.incrementAndGet());
+                    if (!registry.register(TriggerTypeEnum.SCHEDULE, jobId, String.valueOf(jobId), id)) {
+                        continue;
+                    }
+                    accepted.incrementAndGet();
+                    if (active.incrementAndGet(jobId) > 1) {
+                        duplicate.incrementAndGet();
+                    }
+                    registry.dispatched(TriggerTypeEnum.SCHEDULE, jobId, id);
+                    registry.running(TriggerTypeEnum.SCHEDULE, jobId, String.valueOf(jobId), id, "127.0.0.1");
+                    active.decrementAndGet(jobId);
+                    registry.release(TriggerTypeEnum.SCHEDULE, jobId, id);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        Assert.assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        Assert.assertEquals(0, duplicate.get());
+        Assert.assertTrue(accepted.get() > 0);
+        Assert.assertEquals(0, registry.size());
+    }
+}
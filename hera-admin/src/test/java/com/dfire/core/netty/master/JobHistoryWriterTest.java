@@ -0,0 +1,125 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraDebugHistory;
+import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.HeraJobHistoryLog;
+import com.dfire.common.service.HeraDebugHistoryService;
+import com.dfire.common.service.HeraJobHistoryService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * master批量写执行记录：同一批里开始和结束合并为一次update，日志片段一次批量写入，写库完成后future结束
+ */
+public class JobHistoryWriterTest {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    @Test
+    public void mergeStartAndFinish() throws Exception {
+        JobHistoryWriter writer = new JobHistoryWriter(historyService(), debugService());
+        writer.start();
+        try {
+            //第一条写库阻塞，后面的更新积压成一批
+            CompletableFuture<Void> first = writer.finished(finish("0"));
+            TimeUnit.MILLISECONDS.sleep(200);
+            writer.started(start("1"));
+            writer.started(start("2"));
+            CompletableFuture<Void> last = writer.finished(finish("1"));
+            blocked.countDown();
+
+            first.get(5, TimeUnit.SECONDS);
+            last.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(4, statements.size());
+            Assert.assertEquals("updateHeraJobHistoryLogAndStatus:0:null:success", statements.get(0));
+            Assert.assertEquals("update:1:127.0.0.1:success", statements.get(1));
+            //合并后的结束同样清理运行中的日志片段
+            Assert.assertEquals("deleteHeraJobHistoryLog:1", statements.get(2));
+            Assert.assertEquals("update:2:127.0.0.1:null", statements.get(3));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    public void appendLogsInOneStatement() throws Exception {
+        JobHistoryWriter writer = new JobHistoryWriter(historyService(), debugService());
+        writer.start();
+        try {
+            CompletableFuture<Void> first = writer.finished(finish("0"));
+            TimeUnit.MILLISECONDS.sleep(200);
+            writer.appendLog("1", "a");
+            writer.appendLog("2", "b");
+            writer.appendLog("1", "c");
+            writer.finished(finish("2"));
+            writer.debugLog(HeraDebugHistory.builder().id("3").log("x").build());
+            writer.debugFinished(HeraDebugHistory.builder().id("3").status("success").log("y").build());
+            CompletableFuture<Void> last = writer.debugLog(HeraDebugHistory.builder().id("3").log("z").build());
+            blocked.countDown();
+
+            first.get(5, TimeUnit.SECONDS);
+            last.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(5, statements.size());
+            //同一批里已经结束的执行记录不再追加日志片段
+            Assert.assertEquals("appendHeraJobHistoryLog:1:a,1:c", statements.get(1));
+            Assert.assertEquals("updateHeraJobHistoryLogAndStatus:2:null:success", statements.get(2));
+            //开发中心结束带完整日志，不被之后的运行中日志覆盖
+            Assert.assertEquals("updateStatus:3:success", statements.get(3));
+            Assert.assertEquals("updateLog:3:y", statements.get(4));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private HeraJobHistoryService historyService() {
+        return (HeraJobHistoryService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HeraJobHistoryService.class}, (proxy, method, args) -> {
+                    if (args[0] instanceof String) {
+                        statements.add(method.getName() + ":" + args[0]);
+                        return 1;
+                    }
+                    if (args[0] instanceof List) {
+                        statements.add(method.getName() + ":" + ((List<HeraJobHistoryLog>) args[0]).stream()
+                                .map(log -> log.getHistoryId() + ":" + log.getContent())
+                                .collect(Collectors.joining(",")));
+                        return 1;
+                    }
+                    HeraJobHistory history = (HeraJobHistory) args[0];
+                    if ("0".equals(history.getId())) {
+                        blocked.await(5, TimeUnit.SECONDS);
+                    }
+                    statements.add(method.getName() + ":" + history.getId() + ":" + history.getExecuteHost() + ":" + history.getStatus());
+                    return 1;
+                });
+    }
+
+    private HeraDebugHistoryService debugService() {
+        return (HeraDebugHistoryService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HeraDebugHistoryService.class}, (proxy, method, args) -> {
+                    HeraDebugHistory history = (HeraDebugHistory) args[0];
+                    statements.add(method.getName() + ":" + history.getId() + ":"
+                            + ("updateLog".equals(method.getName()) ? history.getLog() : history.getStatus()));
+                    return 1;
+                });
+    }
+
+    private HeraJobHistory start(String id) {
+        return HeraJobHistory.builder().id(id).executeHost("127.0.0.1").startTime(new Date()).hostGroupId(1).build();
+    }
+
+    private HeraJobHistory finish(String id) {
+        return HeraJobHistory.builder().id(id).status("success").log("log").endTime(new Date()).build();
+    }
+}
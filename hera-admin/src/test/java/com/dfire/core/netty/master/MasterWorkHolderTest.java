@@ -0,0 +1,89 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.config.HeraGlobalEnv;
+import com.dfire.core.message.HeartBeatInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * worker槽位预占、心跳间的负载预估和预热冷却
+ */
+public class MasterWorkHolderTest {
+
+    @Test
+    public void predictAndCoolDown() {
+        HeraGlobalEnv env = new HeraGlobalEnv();
+        env.setPerTaskUseMem(500F);
+        env.setSystemMemUsed(4000F);
+
+        MasterWorkHolder holder = new MasterWorkHolder(null);
+        holder.setHeartBeatInfo(beat(0.3F, 0.5F, 10000F, 4));
+        Assert.assertEquals(13, holder.getFreeSlots().get());
+        Assert.assertFalse(holder.isCoolingDown(10));
+
+        //心跳之后没有分发任务时不冷却
+        Assert.assertTrue(holder.tryReserveSlot());
+        Assert.assertEquals(0.55F, holder.predictCpuLoad(), 0.001F);
+        Assert.assertEquals(0.55F, holder.predictMemRate(), 0.001F);
+        Assert.assertFalse(holder.isCoolingDown(10));
+        //预估负载超过阈值开始冷却，关闭时不冷却
+        Assert.assertTrue(holder.tryReserveSlot());
+        Assert.assertFalse(holder.isCoolingDown(0));
+        Assert.assertTrue(holder.isCoolingDown(10));
+
+        //新的心跳重新预估，冷却持续到截止时间
+        holder.setHeartBeatInfo(beat(0.3F, 0.5F, 10000F, 4));
+        Assert.assertEquals(0.3F, holder.predictCpuLoad(), 0.001F);
+        Assert.assertTrue(holder.isCoolingDown(10));
+        holder.setCoolDownUntil(0);
+        Assert.assertFalse(holder.isCoolingDown(10));
+
+        //预占后未下发归还槽位，不计入预估
+        Assert.assertTrue(holder.tryReserveSlot());
+        holder.releaseSlot();
+        Assert.assertEquals(0.5F, holder.predictMemRate(), 0.001F);
+        Assert.assertEquals(13, holder.getFreeSlots().get());
+    }
+
+    @Test
+    public void workerSlots() {
+        HeraGlobalEnv env = new HeraGlobalEnv();
+        env.setPerTaskUseMem(500F);
+        env.setSystemMemUsed(4000F);
+
+        //worker上报了执行槽位时按剩余槽位分配
+        MasterWorkHolder holder = new MasterWorkHolder(null);
+        HeartBeatInfo beat = beat(0.3F, 0.5F, 10000F, 4);
+        beat.setSlotTotal(8);
+        beat.setSlotUsed(6);
+        holder.setHeartBeatInfo(beat);
+        Assert.assertEquals(2, holder.getFreeSlots().get());
+
+        //被worker拒绝后下次心跳之前不再分发
+        holder.markFull();
+        Assert.assertFalse(holder.tryReserveSlot());
+        beat.setSlotUsed(0);
+        holder.setHeartBeatInfo(beat);
+        Assert.assertEquals(8, holder.getFreeSlots().get());
+    }
+
+    @Test
+    public void missingBeat() {
+        MasterWorkHolder holder = new MasterWorkHolder(null);
+        Assert.assertFalse(holder.tryReserveSlot());
+        Assert.assertEquals(Float.MAX_VALUE, holder.predictCpuLoad(), 0F);
+        Assert.assertEquals(Float.MAX_VALUE, holder.predictMemRate(), 0F);
+    }
+
+    private HeartBeatInfo beat(float cpuLoad, float memRate, float memTotal, int cores) {
+        return HeartBeatInfo.builder()
+                .cpuLoadPerCore(cpuLoad)
+                .memRate(memRate)
+                .memTotal(memTotal)
+                .cores(cores)
+                .running(new ArrayList<>())
+                .build();
+    }
+}
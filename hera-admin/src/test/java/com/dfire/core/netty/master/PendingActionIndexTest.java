@@ -0,0 +1,56 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.enums.StatusEnum;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 待执行版本索引：只取出过期的版本，已结束和被替换的版本移出索引，重新执行后加回
+ */
+public class PendingActionIndexTest {
+
+    @Test
+    public void overdue() {
+        Map<Long, HeraAction> actionMap = new HashMap<>();
+        HeraAction waiting = action(201810180100000001L, null);
+        HeraAction running = action(201810180200000002L, StatusEnum.RUNNING.toString());
+        HeraAction success = action(201810180300000003L, StatusEnum.SUCCESS.toString());
+        HeraAction future = action(201810182300000004L, null);
+        Arrays.asList(waiting, running, success, future).forEach(action -> actionMap.put(action.getId(), action));
+        PendingActionIndex index = new PendingActionIndex();
+        index.addAll(actionMap.values());
+        Assert.assertEquals(3, index.size());
+
+        List<HeraAction> overdue = index.overdue(201810181200000000L, actionMap);
+        Assert.assertEquals(Arrays.asList(waiting, running), overdue);
+
+        //执行结束的在下次检测时移出，重新执行后加回
+        running.setStatus(StatusEnum.SUCCESS.toString());
+        Assert.assertEquals(Arrays.asList(waiting), index.overdue(201810181200000000L, actionMap));
+        Assert.assertEquals(2, index.size());
+        running.setStatus(StatusEnum.RUNNING.toString());
+        index.add(running);
+        Assert.assertEquals(Arrays.asList(waiting, running), index.overdue(201810181200000000L, actionMap));
+
+        //重新生成后旧版本失效，不再检测
+        HeraAction regenerated = action(waiting.getId(), null);
+        actionMap.put(regenerated.getId(), regenerated);
+        Assert.assertEquals(Arrays.asList(running), index.overdue(201810181200000000L, actionMap));
+        index.add(regenerated);
+        Assert.assertEquals(Arrays.asList(regenerated, running), index.overdue(201810181200000000L, actionMap));
+        Assert.assertEquals(3, index.size());
+    }
+
+    private HeraAction action(Long id, String status) {
+        HeraAction heraAction = new HeraAction();
+        heraAction.setId(id);
+        heraAction.setStatus(status);
+        return heraAction;
+    }
+}
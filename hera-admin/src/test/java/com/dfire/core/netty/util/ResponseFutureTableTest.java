@@ -0,0 +1,59 @@
+package com.dfire.core.netty.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 5000个同时在途的请求，多线程乱序返回response
+ */
+public class ResponseFutureTableTest {
+
+    private static final int IN_FLIGHT = 5000;
+
+    @Test
+    public void inFlightLoad() throws Exception {
+        ResponseFutureTable<Integer> table = new ResponseFutureTable<>("test-response-timer");
+        List<Integer> rids = new ArrayList<>(IN_FLIGHT);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(IN_FLIGHT);
+        for (int rid = 0; rid < IN_FLIGHT; rid++) {
+            rids.add(rid);
+            futures.add(table.register(rid, 1, TimeUnit.HOURS, null));
+        }
+        Assert.assertEquals(IN_FLIGHT, table.size());
+
+        Collections.shuffle(rids);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        long start = System.nanoTime();
+        for (Integer rid : rids) {
+            pool.execute(() -> table.complete(rid, rid));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        System.out.println(IN_FLIGHT + " responses matched in " + (System.nanoTime() - start) / 1000 + "us");
+        pool.shutdown();
+
+        for (int rid = 0; rid < IN_FLIGHT; rid++) {
+            Assert.assertEquals(Integer.valueOf(rid), futures.get(rid).get());
+        }
+        Assert.assertEquals(0, table.size());
+        Assert.assertFalse(table.complete(0, 0));
+        table.shutdown();
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        ResponseFutureTable<Integer> table = new ResponseFutureTable<>("test-response-timer");
+        AtomicInteger timeoutCount = new AtomicInteger();
+        CompletableFuture<Integer> future = table.register(1, 200, TimeUnit.MILLISECONDS, timeoutCount::incrementAndGet);
+        Assert.assertNull(future.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, timeoutCount.get());
+        Assert.assertEquals(0, table.size());
+        Assert.assertFalse(table.complete(1, 1));
+        table.shutdown();
+    }
+}
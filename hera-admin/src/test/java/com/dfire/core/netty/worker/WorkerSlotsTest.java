@@ -0,0 +1,54 @@
+package com.dfire.core.netty.worker;
+
+import com.dfire.config.HeraGlobalEnv;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * worker执行槽位：按任务类型占用，满了拒绝，空闲时总是允许
+ */
+public class WorkerSlotsTest {
+
+    @Test
+    public void acquire() {
+        WorkerSlots slots = new WorkerSlots(4, "shell:1, hive:2,spark:3,bad,spark2:x");
+        Assert.assertEquals(1, slots.weight("shell"));
+        Assert.assertEquals(2, slots.weight("Hive"));
+        Assert.assertEquals(1, slots.weight("spark2"));
+        Assert.assertEquals(1, slots.weight(null));
+
+        Assert.assertTrue(slots.tryAcquire(slots.weight("hive")));
+        Assert.assertTrue(slots.tryAcquire(slots.weight("shell")));
+        Assert.assertFalse(slots.tryAcquire(slots.weight("spark")));
+        Assert.assertTrue(slots.tryAcquire(slots.weight("shell")));
+        Assert.assertFalse(slots.tryAcquire(1));
+        Assert.assertEquals(4, slots.getUsed());
+
+        slots.release(2);
+        slots.release(1);
+        Assert.assertTrue(slots.tryAcquire(slots.weight("spark")));
+        slots.release(3);
+        slots.release(1);
+        Assert.assertEquals(0, slots.getUsed());
+
+        //空闲时超过总数的任务也允许执行
+        WorkerSlots small = new WorkerSlots(1, "spark:3");
+        Assert.assertTrue(small.tryAcquire(small.weight("spark")));
+        Assert.assertFalse(small.tryAcquire(1));
+    }
+
+    @Test
+    public void create() {
+        HeraGlobalEnv env = new HeraGlobalEnv();
+        env.setPerTaskUseMem(500F);
+        env.setSystemMemUsed(4000F);
+        env.setWorkerSlots(0);
+        //cpu核数*2和内存可容纳任务数取较小值
+        Assert.assertEquals(16, WorkerSlots.create(8, 16000F).getTotal());
+        Assert.assertEquals(12, WorkerSlots.create(8, 10000F).getTotal());
+        Assert.assertEquals(1, WorkerSlots.create(8, 1000F).getTotal());
+        env.setWorkerSlots(5);
+        Assert.assertEquals(5, WorkerSlots.create(8, 16000F).getTotal());
+        env.setWorkerSlots(0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dfire.core.netty.worker.request;
+
+import com.dfire.core.netty.master.MasterWorkHolder;
+import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 增量心跳：worker只上报执行中任务的增减，master合并后与worker一致，丢失增量后由全量心跳校正
+ */
+public class WorkerHandlerHeartBeatTest {
+
+    @Test
+    public void deltaMerge() {
+        WorkerHandlerHeartBeat heartBeat = new WorkerHandlerHeartBeat();
+        MasterWorkHolder holder = new MasterWorkHolder(null);
+        Set<String> running = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            running.add(String.valueOf(201810180000000000L + i));
+        }
+        Set<String> manual = new HashSet<>(Collections.singleton("m1"));
+        Set<String> debug = new HashSet<>();
+
+        HeartBeatMessage full = beat(heartBeat, true, running, manual, debug);
+        Assert.assertTrue(holder.mergeRunning(full));
+        Assert.assertEquals(running, holder.getBeatRunning());
+
+        //任务结束和新增只上报变化的部分
+        running.remove("201810180000000000");
+        running.add("201810180100000000");
+        manual.clear();
+        debug.add("d1");
+        HeartBeatMessage delta = beat(heartBeat, false, running, manual, debug);
+        Assert.assertTrue(holder.mergeRunning(delta));
+        Assert.assertEquals(1, delta.getRunningsCount());
+        Assert.assertEquals(1, delta.getRemovedRunningsCount());
+        Assert.assertEquals(running, holder.getBeatRunning());
+        Assert.assertTrue(holder.getBeatManualRunning().isEmpty());
+        Assert.assertEquals(debug, holder.getBeatDebugRunning());
+        Assert.assertTrue(delta.getSerializedSize() * 20 < full.getSerializedSize());
+
+        //没有变化时只剩机器信息
+        HeartBeatMessage idle = beat(heartBeat, false, running, manual, debug);
+        Assert.assertTrue(holder.mergeRunning(idle));
+        Assert.assertEquals(0, idle.getRunningsCount() + idle.getRemovedRunningsCount());
+
+        //丢失一次增量，序号不连续，下一次全量心跳校正
+        running.add("201810180200000000");
+        beat(heartBeat, false, running, manual, debug);
+        running.remove("201810180000000001");
+        Assert.assertFalse(holder.mergeRunning(beat(heartBeat, false, running, manual, debug)));
+        Assert.assertNotEquals(running, holder.getBeatRunning());
+        Assert.assertTrue(holder.mergeRunning(beat(heartBeat, true, running, manual, debug)));
+        Assert.assertEquals(running, holder.getBeatRunning());
+    }
+
+    @Test
+    public void oldWorker() {
+        //旧版本worker不带序号和增量标记，每次都是全量
+        MasterWorkHolder holder = new MasterWorkHolder(null);
+        Assert.assertTrue(holder.mergeRunning(HeartBeatMessage.newBuilder().addRunnings("1").addRunnings("2").build()));
+        Assert.assertTrue(holder.mergeRunning(HeartBeatMessage.newBuilder().addRunnings("2").build()));
+        Assert.assertEquals(Collections.singleton("2"), holder.getBeatRunning());
+    }
+
+    private HeartBeatMessage beat(WorkerHandlerHeartBeat heartBeat, boolean full, Set<String> running, Set<String> manual, Set<String> debug) {
+        HeartBeatMessage message = heartBeat.fillRunning(HeartBeatMessage.newBuilder()
+                .setHost("127.0.0.1")
+                .setMemRate(0.5F)
+                .setMemTotal(10000F)
+                .setCpuLoadPerCore(0.3F)
+                .setTimestamp(System.currentTimeMillis())
+                .setCores(4), full, running, manual, debug).build();
+        heartBeat.sent(null, full, new HashSet<>(running), new HashSet<>(manual), new HashSet<>(debug));
+        return message;
+    }
+}
@@ -0,0 +1,91 @@
+package com.dfire.core.quartz;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间轮定时触发：到点触发、按actionId/jobId取消、misfire补触发
+ */
+public class TimingWheelTriggerServiceTest {
+
+    private final List<String> fired = new CopyOnWriteArrayList<>();
+
+    private CountDownLatch latch;
+
+    private TimingWheelTriggerService triggerService;
+
+    @Before
+    public void init() {
+        latch = new CountDownLatch(1);
+        triggerService = new TimingWheelTriggerService(actionId -> {
+            fired.add(actionId);
+            latch.countDown();
+        });
+        triggerService.start();
+    }
+
+    @After
+    public void destroy() {
+        triggerService.shutdown();
+    }
+
+    @Test
+    public void fireAndCancel() throws Exception {
+        long fireTime = System.currentTimeMillis() + 2000;
+        Assert.assertTrue(triggerService.schedule(actionId(fireTime, 1), cron(fireTime)));
+        Assert.assertFalse(triggerService.schedule(actionId(fireTime, 1), cron(fireTime)));
+        triggerService.schedule(actionId(fireTime, 2), cron(fireTime));
+        triggerService.schedule(actionId(fireTime, 3), cron(fireTime));
+        triggerService.schedule(actionId(fireTime + 60 * 1000, 3), cron(fireTime + 60 * 1000));
+        Assert.assertEquals(4, triggerService.size());
+
+        triggerService.cancel(actionId(fireTime, 2));
+        triggerService.cancelJob(3);
+        Assert.assertEquals(1, triggerService.size());
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(System.currentTimeMillis() >= fireTime / 1000 * 1000);
+        TimeUnit.MILLISECONDS.sleep(500);
+        Assert.assertEquals(1, fired.size());
+        Assert.assertEquals(actionId(fireTime, 1), fired.get(0));
+        Assert.assertEquals(0, triggerService.size());
+    }
+
+    @Test
+    public void misfire() throws Exception {
+        long now = System.currentTimeMillis();
+        Map<String, String> triggers = new HashMap<>();
+        //misfire阈值内补触发
+        triggers.put(actionId(now - 5000, 1), cron(now - 5000));
+        //超过阈值的等下一次触发
+        triggers.put(actionId(now - 120 * 1000, 2), cron(now - 120 * 1000));
+        Assert.assertEquals(2, triggerService.scheduleAll(triggers));
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assert.assertEquals(actionId(now - 5000, 1), fired.get(0));
+        Assert.assertEquals(1, triggerService.size());
+    }
+
+    @Test(expected = org.quartz.SchedulerException.class)
+    public void errorCron() throws Exception {
+        triggerService.schedule(actionId(System.currentTimeMillis(), 1), "error cron");
+    }
+
+    private String actionId(long time, int jobId) {
+        return new SimpleDateFormat("yyyyMMddHHmm").format(new Date(time)) + String.format("%06d", jobId);
+    }
+
+    private String cron(long time) {
+        return new SimpleDateFormat("s m H d M").format(new Date(time)) + " ?";
+    }
+}
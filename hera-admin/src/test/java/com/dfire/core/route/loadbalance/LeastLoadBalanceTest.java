@@ -0,0 +1,81 @@
+package com.dfire.core.route.loadbalance;
+
+import com.dfire.common.entity.vo.HeraHostGroupVo;
+import com.dfire.common.vo.JobElement;
+import com.dfire.config.HeraGlobalEnv;
+import com.dfire.core.message.HeartBeatInfo;
+import com.dfire.core.netty.master.MasterContext;
+import com.dfire.core.netty.master.MasterWorkHolder;
+import com.dfire.core.route.loadbalance.impl.LeastLoadBalance;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 按host索引选择worker，槽位在分发时预占，两次心跳之间不会超额分配
+ */
+public class LeastLoadBalanceTest {
+
+    @BeforeClass
+    public static void init() {
+        HeraGlobalEnv env = new HeraGlobalEnv();
+        env.setMaxMemRate(0.8F);
+        env.setMaxCpuLoadPerCore(1.0F);
+        env.setSystemMemUsed(0F);
+        env.setPerTaskUseMem(1000F);
+    }
+
+    @Test
+    public void reserveSlots() {
+        MasterContext masterContext = new MasterContext();
+        Map<Integer, HeraHostGroupVo> hostGroups = new HashMap<>();
+        hostGroups.put(1, HeraHostGroupVo.builder().hosts(Arrays.asList("host-a", "host-b ")).build());
+        masterContext.setHostGroupCache(hostGroups);
+        //host-a剩余2个槽位，host-b剩余1个
+        MasterWorkHolder workerA = worker(masterContext, "host-a", 2000F, 1);
+        MasterWorkHolder workerB = worker(masterContext, "host-b", 1000F, 1);
+        Assert.assertEquals(2, masterContext.getWorkerRegistry().size());
+
+        LoadBalance loadBalance = new LeastLoadBalance();
+        JobElement element = JobElement.builder().jobId("1").hostGroupId(1).build();
+        Assert.assertSame(workerA, loadBalance.select(element, masterContext));
+        Assert.assertNotNull(loadBalance.select(element, masterContext));
+        Assert.assertNotNull(loadBalance.select(element, masterContext));
+        Assert.assertNull(loadBalance.select(element, masterContext));
+        Assert.assertEquals(0, workerA.getFreeSlots().get());
+        Assert.assertEquals(0, workerB.getFreeSlots().get());
+
+        //新的心跳重新计算槽位
+        workerB.setHeartBeatInfo(heartBeat("host-b", 1000F, 1));
+        Assert.assertSame(workerB, loadBalance.select(element, masterContext));
+
+        masterContext.getWorkerRegistry().remove(workerB);
+        Assert.assertNull(masterContext.getWorkerRegistry().get("host-b"));
+        Assert.assertNull(loadBalance.select(element, masterContext));
+    }
+
+    private MasterWorkHolder worker(MasterContext masterContext, String host, Float memTotal, int running) {
+        MasterWorkHolder workHolder = new MasterWorkHolder(null);
+        workHolder.setHeartBeatInfo(heartBeat(host, memTotal, running));
+        masterContext.getWorkerRegistry().heartBeat(workHolder);
+        return workHolder;
+    }
+
+    private HeartBeatInfo heartBeat(String host, Float memTotal, int running) {
+        List<String> runningList = new ArrayList<>();
+        for (int i = 0; i < running; i++) {
+            runningList.add(String.valueOf(i));
+        }
+        return HeartBeatInfo.builder()
+                .host(host)
+                .memRate(0.5F)
+                .cpuLoadPerCore(0.5F)
+                .memTotal(memTotal)
+                .running(runningList)
+                .manualRunning(new ArrayList<>())
+                .debugRunning(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.dfire.core.tool;
+
+import com.dfire.config.HeraGlobalEnv;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * 直接解析/proc得到的快照，心跳读取不产生子进程
+ */
+public class SystemSamplerTest {
+
+    @Test
+    public void snapshot() {
+        Assume.assumeTrue(HeraGlobalEnv.isLinuxSystem());
+        SystemSampler.Snapshot snapshot = SystemSampler.getInstance().getSnapshot();
+        Assert.assertTrue(snapshot.getCores() > 0);
+        Assert.assertTrue(snapshot.getMemTotal() > 0);
+        Assert.assertTrue(snapshot.getMemRate() > 0 && snapshot.getMemRate() < 1);
+        Assert.assertTrue(snapshot.getLoadPerCore() >= 0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100000; i++) {
+            Assert.assertNotNull(SystemSampler.getInstance().getSnapshot());
+        }
+        System.out.println("100000 snapshot reads cost " + (System.nanoTime() - start) / 1000000 + "ms, " + snapshot);
+    }
+}
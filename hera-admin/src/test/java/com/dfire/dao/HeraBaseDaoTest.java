@@ -14,6 +14,7 @@ import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.schedule.HeraSchedule;
 import com.dfire.common.entity.model.JsonResponse;
 import com.dfire.monitor.service.JobManageService;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,6 +27,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import java.lang.reflect.Field;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -127,6 +129,54 @@ public class HeraBaseDaoTest {
 
     }
 
+    /**
+     * 生成版本的吞吐对比：逐条查询+逐条更新 vs 批量预查询+批量刷新
+     */
+    @Test
+    public void heraActionBatchThroughputTest() {
+        int size = 500;
+        long baseId = 209901010000000000L;
+        Long nowAction = Long.parseLong(ActionUtil.getCurrActionVersion());
+        List<HeraAction> actions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            actions.add(HeraAction.builder().id(baseId + i).jobId(i).groupId(1).name("batch").owner("lx").build());
+        }
+        heraJobActionService.batchInsert(actions, nowAction);
+
+        long start = System.currentTimeMillis();
+        for (HeraAction action : actions) {
+            heraJobActionService.insert(action, nowAction);
+        }
+        long singleCost = Math.max(System.currentTimeMillis() - start, 1);
+
+        start = System.currentTimeMillis();
+        heraJobActionService.batchInsert(actions, nowAction);
+        long batchCost = Math.max(System.currentTimeMillis() - start, 1);
+
+        System.out.println("single:" + size * 1000L / singleCost + " rows/s, batch:" + size * 1000L / batchCost + " rows/s");
+        for (HeraAction action : actions) {
+            heraJobActionService.delete(String.valueOf(action.getId()));
+        }
+    }
+
+    @Test
+    public void heraActionScanTest() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_YEAR, -1);
+        long before = Long.parseLong(ActionUtil.getActionVersionByDate(calendar.getTime()));
+        long start = System.currentTimeMillis();
+        List<HeraAction> list = heraJobActionService.getAfterAction(before);
+        long listCost = System.currentTimeMillis() - start;
+
+        AtomicInteger count = new AtomicInteger();
+        start = System.currentTimeMillis();
+        heraJobActionService.scanAfterAction(before, action -> count.incrementAndGet());
+        long scanCost = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(list.size(), count.get());
+        System.out.println(count.get() + " actions, list:" + listCost + "ms, scan:" + scanCost + "ms");
+    }
+
     @Test
     public void heraActionBatchDaoTest() {
 //        heraJobActionService.delete("1111111111111111111");
@@ -0,0 +1,119 @@
+package com.dfire.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * CSR依赖图：上下游遍历、增量修改依赖、删除任务、环检测，以及10w任务下的可达性查询耗时
+ */
+public class JobGraphTest {
+
+    @Test
+    public void traverseAndUpdate() {
+        Map<Integer, int[]> parents = new HashMap<>();
+        parents.put(2, new int[]{1});
+        parents.put(3, new int[]{1});
+        parents.put(4, new int[]{2, 3});
+        JobGraph graph = JobGraph.of(parents);
+        Assert.assertEquals(4, graph.getEdgeCount());
+        Assert.assertEquals(Arrays.asList(2, 3, 4), graph.traverse(1, true));
+        Assert.assertEquals(Arrays.asList(2, 3, 1), graph.traverse(4, false));
+        Assert.assertTrue(graph.reachable(1, 4, true));
+        Assert.assertFalse(graph.reachable(4, 1, true));
+        Assert.assertTrue(graph.traverse(100, true).isEmpty());
+
+        //4改为依赖新任务5，3被删除
+        Map<Integer, int[]> changed = new HashMap<>();
+        changed.put(5, new int[]{1});
+        changed.put(4, new int[]{5});
+        changed.put(3, null);
+        JobGraph next = graph.update(changed);
+        Assert.assertEquals(Arrays.asList(2, 3, 4), graph.traverse(1, true));
+        Assert.assertEquals(Arrays.asList(2, 5, 4), next.traverse(1, true));
+        Assert.assertEquals(0, next.children(2).length);
+        Assert.assertEquals(0, next.parents(3).length);
+        Assert.assertEquals(3, next.getEdgeCount());
+        Assert.assertSame(next, next.update(Collections.singletonMap(4, new int[]{5})));
+
+        Assert.assertEquals(Arrays.asList(1, 5, 4, 1), next.findLoop(1, new int[]{4}));
+        Assert.assertEquals(Arrays.asList(4, 4), next.findLoop(4, new int[]{4}));
+        //只替换原来的依赖不成环
+        Assert.assertNull(next.findLoop(4, new int[]{2}));
+        Assert.assertNull(next.findLoop(7, new int[]{4}));
+    }
+
+    @Test
+    public void compact() {
+        Map<Integer, int[]> parents = new HashMap<>();
+        for (int i = 1; i < 10; i++) {
+            parents.put(i, new int[]{i - 1});
+        }
+        JobGraph graph = JobGraph.of(parents);
+        for (int i = 10; i < 3000; i++) {
+            Map<Integer, int[]> changed = new HashMap<>();
+            changed.put(i, new int[]{i - 1});
+            graph = graph.update(changed);
+        }
+        Assert.assertTrue(graph.getPatchSize() <= 1024);
+        Assert.assertEquals(2999, graph.getEdgeCount());
+        Assert.assertEquals(2999, graph.traverse(0, true).size());
+        Assert.assertTrue(graph.reachable(2999, 0, false));
+    }
+
+    @Test
+    public void benchmark() {
+        int size = 100000;
+        Random random = new Random(1);
+        Map<Integer, int[]> parents = new HashMap<>(size);
+        //1000条链路，每条100个任务依赖链路内前面的1~3个任务，1%的任务额外依赖其它链路
+        for (int id = 1; id < size; id++) {
+            int offset = id % 100;
+            if (offset == 0) {
+                continue;
+            }
+            int count = 1 + random.nextInt(3);
+            int[] dependencies = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                dependencies[i] = id - 1 - random.nextInt(Math.min(offset, 10));
+            }
+            dependencies[count] = random.nextInt(100) == 0 ? random.nextInt(id) : dependencies[0];
+            parents.put(id, Arrays.stream(dependencies).distinct().toArray());
+        }
+        long start = System.nanoTime();
+        JobGraph graph = JobGraph.of(parents);
+        long build = System.nanoTime() - start;
+
+        int queries = 10000;
+        int reachable = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            int to = random.nextInt(size);
+            int from = Math.max(0, to - random.nextInt(200));
+            if (graph.reachable(to, from, false)) {
+                reachable++;
+            }
+        }
+        long query = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            Map<Integer, int[]> changed = new HashMap<>();
+            int id = 1 + random.nextInt(size - 1);
+            changed.put(id, new int[]{id - 1});
+            graph = graph.update(changed);
+        }
+        long update = System.nanoTime() - start;
+        List<Integer> up = graph.traverse(size - 1, false);
+        Assert.assertFalse(up.isEmpty());
+        System.out.println("jobs:" + size + ", edges:" + graph.getEdgeCount() + ", build:" + build / 1000000 + "ms"
+                + ", reachable:" + query / queries / 1000 + "us/query(" + reachable + "/" + queries + ")"
+                + ", update:" + update / 100 / 1000 + "us/update");
+    }
+}
@@ -89,6 +89,11 @@ public class HeraAction {
     //private int cronInterval;
 
     private String batchId;
+
+    /**
+     * 任务定义快照id，脚本、配置等从hera_job_snapshot读取
+     */
+    private String snapshotId;
     
     //private String bizLabel;
 
@@ -0,0 +1,26 @@
+package com.dfire.common.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @desc 任务运行中追加写入的日志片段，任务结束后合并到hera_action_history.log
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HeraJobHistoryLog {
+
+    private Long id;
+
+    private String historyId;
+
+    private String content;
+
+    private Date gmtCreate;
+}
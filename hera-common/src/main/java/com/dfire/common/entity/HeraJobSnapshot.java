@@ -0,0 +1,38 @@
+package com.dfire.common.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @desc 任务定义快照，id为任务id和定义内容的sha-256，同一份脚本、配置只存一次，写入后不再修改。
+ * 版本只记录快照id，不再复制任务的脚本和配置
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HeraJobSnapshot {
+
+    /**
+     * 存放在快照中、生成版本时不再复制到hera_action的任务字段
+     */
+    public static final String[] FIELDS = {"script", "configs", "resources", "description"};
+
+    private String id;
+
+    private Integer jobId;
+
+    private String script;
+
+    private String configs;
+
+    private String resources;
+
+    private String description;
+
+    private Date gmtCreate;
+}
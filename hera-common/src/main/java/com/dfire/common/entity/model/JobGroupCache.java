@@ -33,6 +33,13 @@ public class JobGroupCache {
         return heraActionVo;
     }
 
+    /**
+     * 使用已经查询出的版本信息，避免再查一次库
+     */
+    public void preload(HeraActionVo heraActionVo) {
+        this.heraActionVo = heraActionVo;
+    }
+
     public void refresh() {
         Tuple<HeraActionVo, JobStatus> jobStatusTuple = heraJobActionService.findHeraActionVo(actionId);
         if(jobStatusTuple != null) {
@@ -0,0 +1,30 @@
+package com.dfire.common.entity.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @desc 按偏移量读取的任务日志
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HeraJobLogVo {
+
+    private String log;
+
+    private String status;
+
+    /**
+     * 已读取到的日志片段id，下次从此处继续读取
+     */
+    private Long offset;
+
+    /**
+     * true表示log为offset之后追加的内容，false表示全量日志
+     */
+    private boolean increment;
+}
@@ -1,5 +1,6 @@
 package com.dfire.common.enums;
 
+import com.dfire.common.constants.Constants;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -40,6 +41,22 @@ public enum StatusEnum {
         return null;
     }
 
+    /**
+     * 任务进程退出码对应的状态
+     *
+     * @param exitCode 退出码
+     * @return 状态
+     */
+    public static StatusEnum fromExitCode(int exitCode) {
+        if (exitCode == Constants.SUCCESS_EXIT_CODE) {
+            return SUCCESS;
+        }
+        if (exitCode == Constants.WAIT_EXIT_CODE) {
+            return WAIT;
+        }
+        return FAILED;
+    }
+
     @Override
     public String toString() {
         return status;
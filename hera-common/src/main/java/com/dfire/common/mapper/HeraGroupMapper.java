@@ -8,6 +8,7 @@ import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -56,6 +57,12 @@ public interface HeraGroupMapper {
     @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified from hera_group")
     Judge selectTableInfo();
 
+    @Select("select * from hera_group where gmt_modified >= #{lastModified}")
+    List<HeraGroup> selectModifiedSince(@Param("lastModified") Date lastModified);
+
+    @Select("select id from hera_group")
+    List<Integer> selectAllIds();
+
     @Update("update hera_group set parent = #{parent} where id = #{id}")
     Integer changeParent(@Param("id") Integer id, @Param("parent") Integer parent);
 }
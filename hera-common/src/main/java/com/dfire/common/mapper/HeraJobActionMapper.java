@@ -7,8 +7,12 @@ import com.dfire.common.mybatis.HeraListInLangDriver;
 import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import com.dfire.common.mybatis.action.HeraActionBatchInsertDriver;
+import com.dfire.common.mybatis.action.HeraActionBatchRefreshDriver;
 import com.dfire.common.mybatis.action.HeraActionBatchUpdateDriver;
+import com.dfire.common.mybatis.action.HeraActionBatchUpsertDriver;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +24,13 @@ import java.util.Map;
  */
 public interface HeraJobActionMapper {
 
+    /**
+     * 调度需要的字段，不包含脚本、配置等任务定义
+     */
+    String SCHEDULE_COLUMNS = "id,job_id,auto,cron_expression,cycle,dependencies,job_dependencies,gmt_create,gmt_modified,group_id," +
+            "history_id,host,last_end_time,last_result,name,`offset`,owner,post_processors,pre_processors,ready_dependency,run_type," +
+            "schedule_type,start_time,start_timestamp,statistic_start_time,statistic_end_time,status,timezone,host_group_id,batch_id,snapshot_id";
+
     @Insert("insert into hera_action (#{heraAction})")
     @Lang(HeraInsertLangDriver.class)
     int insert(HeraAction heraAction1);
@@ -33,6 +44,31 @@ public interface HeraJobActionMapper {
     @Lang(HeraActionBatchUpdateDriver.class)
     int batchUpdate(@Param("list") List<HeraAction> list);
 
+    /**
+     * 批量插入新版本，主键冲突时按版本定义刷新
+     */
+    @Insert("insert into hera_action (#{list})")
+    @Lang(HeraActionBatchUpsertDriver.class)
+    int batchUpsert(@Param("list") List<HeraAction> list);
+
+    /**
+     * 批量刷新已存在版本的定义，不修改运行状态，跳过运行中的版本
+     */
+    @Update("update hera_action (#{list})")
+    @Lang(HeraActionBatchRefreshDriver.class)
+    int batchRefresh(@Param("list") List<HeraAction> list);
+
+    /**
+     * 批量查询已存在版本的运行状态
+     */
+    @Select("select id,status,history_id,ready_dependency,gmt_create from hera_action where id in (#{list})")
+    @Lang(HeraListInLangDriver.class)
+    List<HeraAction> selectStatusByIds(@Param("list") List<Long> list);
+
+    @Select("select * from hera_action where id in (#{list})")
+    @Lang(HeraListInLangDriver.class)
+    List<HeraAction> findByIds(@Param("list") List<Long> list);
+
     @Delete("delete from hera_action where id = #{id}")
     int delete(@Param("id") String id);
 
@@ -60,9 +96,17 @@ public interface HeraJobActionMapper {
     @Update("update hera_action set status = #{status},ready_dependency=#{readyDependency} where id = #{id}")
     Integer updateStatusAndReadDependency(HeraAction heraAction);
 
-    @Select("select * from hera_action where id >= #{action}")
+    @Select("select " + SCHEDULE_COLUMNS + " from hera_action where id >= #{action}")
     List<HeraAction> selectAfterAction(long action);
 
+    /**
+     * 流式读取版本，启动时逐行处理，不在内存中保留整个结果集，不读取任务定义
+     */
+    @Select("select " + SCHEDULE_COLUMNS + " from hera_action where id >= #{action}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(HeraAction.class)
+    void scanAfterAction(@Param("action") long action, ResultHandler<HeraAction> handler);
+
     /**
      * 根据JobId 获取版本
      *
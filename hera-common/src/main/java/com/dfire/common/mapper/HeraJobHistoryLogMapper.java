@@ -0,0 +1,25 @@
+package com.dfire.common.mapper;
+
+import com.dfire.common.entity.HeraJobHistoryLog;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * @desc 运行日志片段，只追加不修改
+ */
+public interface HeraJobHistoryLogMapper {
+
+    @Insert("<script>insert into hera_action_history_log (history_id,content) values " +
+            "<foreach collection=\"list\" item=\"item\" separator=\",\">(#{item.historyId},#{item.content})</foreach></script>")
+    int batchInsert(@Param("list") List<HeraJobHistoryLog> list);
+
+    @Select("select id,content from hera_action_history_log where history_id = #{historyId} and id > #{offset} order by id")
+    List<HeraJobHistoryLog> selectAfter(@Param("historyId") String historyId, @Param("offset") Long offset);
+
+    @Delete("delete from hera_action_history_log where history_id = #{historyId}")
+    int deleteByHistoryId(@Param("historyId") String historyId);
+
+    @Delete("delete from hera_action_history_log where gmt_create < DATE_SUB(CURRENT_DATE(),INTERVAL #{beforeDay} DAY)")
+    Integer deleteHistoryRecord(Integer beforeDay);
+}
@@ -4,6 +4,7 @@ import com.dfire.common.entity.HeraJobHistory;
 import com.dfire.common.entity.vo.JobLogHistoryVo;
 import com.dfire.common.entity.vo.PageHelperTimeRange;
 import com.dfire.common.mybatis.HeraInsertLangDriver;
+import com.dfire.common.mybatis.HeraListInLangDriver;
 import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import org.apache.ibatis.annotations.*;
@@ -51,6 +52,10 @@ public interface HeraJobHistoryMapper {
     @Select("select * from hera_action_history where id = #{id}")
     HeraJobHistory findById(@Param("id") String id);
 
+    @Select("select * from hera_action_history where id in (#{list})")
+    @Lang(HeraListInLangDriver.class)
+    List<HeraJobHistory> findByIds(@Param("list") List<String> list);
+
     @Select("select * from hera_action_history where action_id = #{actionId}")
     List<HeraJobHistory> findByActionId(@Param("actionId") String actionId);
 
@@ -99,6 +104,9 @@ public interface HeraJobHistoryMapper {
     @Select("select log,status from hera_action_history where id = #{id}")
     HeraJobHistory selectLogById(Integer id);
 
+    @Select("select status from hera_action_history where id = #{id}")
+    String selectStatusById(Integer id);
+
     
     
     @Select("select count(1) from hera_action_history where job_id = #{id}")
@@ -8,6 +8,7 @@ import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -64,6 +65,12 @@ public interface HeraJobMapper {
     @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified from hera_job")
     Judge selectTableInfo();
 
+    @Select("select * from hera_job where gmt_modified >= #{lastModified}")
+    List<HeraJob> selectModifiedSince(@Param("lastModified") Date lastModified);
+
+    @Select("select id from hera_job")
+    List<Integer> selectAllIds();
+
 
     @Update("update hera_job set group_id = #{parentId} where id = #{newId}")
     Integer changeParent(@Param("newId") Integer newId, @Param("parentId") Integer parentId);
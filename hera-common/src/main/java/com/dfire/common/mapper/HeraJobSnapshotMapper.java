@@ -0,0 +1,19 @@
+package com.dfire.common.mapper;
+
+import com.dfire.common.entity.HeraJobSnapshot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * @desc 任务定义快照，只插入不修改，id相同说明内容相同
+ */
+public interface HeraJobSnapshotMapper {
+
+    @Insert("insert ignore into hera_job_snapshot (id,job_id,script,configs,resources,description) " +
+            "values (#{id},#{jobId},#{script},#{configs},#{resources},#{description})")
+    int insert(HeraJobSnapshot snapshot);
+
+    @Select("select * from hera_job_snapshot where id = #{id}")
+    HeraJobSnapshot findById(@Param("id") String id);
+}
@@ -0,0 +1,67 @@
+package com.dfire.common.mybatis.action;
+
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.entity.HeraJobSnapshot;
+import com.google.common.base.CaseFormat;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 仅仅用于heraAction，生成版本时批量刷新已存在的版本
+ * 只覆盖版本定义相关的字段，运行状态相关的字段保持数据库中的值；参数为null的字段不更新；运行中的版本不更新。
+ * 脚本、配置等已移到任务定义快照，直接覆盖为null，清掉旧版本复制的内容
+ */
+public class HeraActionBatchRefreshDriver extends XMLLanguageDriver implements LanguageDriver {
+
+    /**
+     * 由调度过程维护的字段，生成版本时不能覆盖
+     */
+    static final Set<String> RUNTIME_FIELDS = new HashSet<>(Arrays.asList("id", "status", "historyId", "readyDependency", "gmtCreate"));
+
+    /**
+     * 存放在任务定义快照中的字段
+     */
+    static final Set<String> SNAPSHOT_FIELDS = new HashSet<>(Arrays.asList(HeraJobSnapshot.FIELDS));
+
+    static final String NOT_RUNNING = "(status is null or status != 'running')";
+
+    private final Pattern inPattern = Pattern.compile("\\(#\\{(\\w+)\\}\\)");
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+
+        Matcher matcher = inPattern.matcher(script);
+        if (matcher.find()) {
+            StringBuilder sb = new StringBuilder(" SET ");
+            for (Field field : HeraAction.class.getDeclaredFields()) {
+                if (RUNTIME_FIELDS.contains(field.getName())) {
+                    continue;
+                }
+                String dbName = CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName());
+                String value = "#{item." + field.getName() + "}";
+                sb.append(dbName).append(" = CASE id ")
+                        .append("<foreach collection=\"$1\" item=\"item\" > ")
+                        .append(" WHEN #{item.id,jdbcType=BIGINT} THEN ")
+                        .append(SNAPSHOT_FIELDS.contains(field.getName()) ? value : "IFNULL(" + value + ", " + dbName + ")")
+                        .append("</foreach> END ,");
+            }
+            sb.deleteCharAt(sb.lastIndexOf(","));
+            sb.append(" where id in ");
+            sb.append("<foreach collection=\"$1\" item=\"item\" separator=\",\" open=\"(\" close=\")\"> #{item.id,jdbcType=BIGINT} </foreach>");
+            sb.append(" and ").append(NOT_RUNNING);
+
+            script = matcher.replaceAll(sb.toString());
+            script = "<script>" + script + "</script>";
+        }
+        return super.createSqlSource(configuration, script, parameterType);
+    }
+}
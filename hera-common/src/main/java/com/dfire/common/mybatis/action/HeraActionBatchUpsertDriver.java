@@ -0,0 +1,54 @@
+package com.dfire.common.mybatis.action;
+
+import com.dfire.common.entity.HeraAction;
+import com.google.common.base.CaseFormat;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+import java.lang.reflect.Field;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 仅仅用于heraAction，批量插入新版本
+ * 版本在预查询之后被其它地方插入时走on duplicate key update，与批量刷新一样不覆盖运行状态相关的字段和运行中的版本
+ */
+public class HeraActionBatchUpsertDriver extends XMLLanguageDriver implements LanguageDriver {
+
+    private final Pattern inPattern = Pattern.compile("\\(#\\{(\\w+)\\}\\)");
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+
+        Matcher matcher = inPattern.matcher(script);
+        if (matcher.find()) {
+            StringBuilder sb = new StringBuilder(" (");
+            StringBuilder values = new StringBuilder();
+            StringBuilder update = new StringBuilder(" on duplicate key update ");
+            for (Field field : HeraAction.class.getDeclaredFields()) {
+                String dbName = CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName());
+                sb.append(dbName).append(",");
+                values.append("#{item.").append(field.getName()).append("},");
+                if (!HeraActionBatchRefreshDriver.RUNTIME_FIELDS.contains(field.getName())) {
+                    String value = "VALUES(" + dbName + ")";
+                    if (!HeraActionBatchRefreshDriver.SNAPSHOT_FIELDS.contains(field.getName())) {
+                        value = "IFNULL(" + value + ", " + dbName + ")";
+                    }
+                    update.append(dbName).append(" = IF(").append(HeraActionBatchRefreshDriver.NOT_RUNNING)
+                            .append(", ").append(value).append(", ").append(dbName).append("),");
+                }
+            }
+            sb.deleteCharAt(sb.lastIndexOf(","));
+            values.deleteCharAt(values.lastIndexOf(","));
+            update.deleteCharAt(update.lastIndexOf(","));
+            sb.append(") values ");
+            script = matcher.replaceAll(sb + " <foreach collection=\"$1\" index=\"index\" item=\"item\" " +
+                    "separator=\",\" > (" + values + ")</foreach>" + update);
+
+            script = "<script>" + script + "</script>";
+        }
+        return super.createSqlSource(configuration, script, parameterType);
+    }
+}
@@ -4,6 +4,7 @@ import com.dfire.common.entity.HeraGroup;
 import com.dfire.common.entity.model.HeraJobBean;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -45,4 +46,22 @@ public interface HeraGroupService {
 
     List<HeraGroup> findDownStreamGroup(Integer groupId);
 
+    /**
+     * 分组及其所有父分组合并后的配置，子分组覆盖父分组
+     *
+     * @param groupId 分组id
+     * @return 可修改的配置副本
+     */
+    Map<String, String> getInheritConfig(Integer groupId);
+
+    /**
+     * 按分组继承关系取配置值，key不存在时取最近一个非空的defaultKey
+     *
+     * @param groupId    分组id
+     * @param key        key
+     * @param defaultKey defaultKey
+     * @return 配置值
+     */
+    String getInheritVal(Integer groupId, String key, String defaultKey);
+
 }
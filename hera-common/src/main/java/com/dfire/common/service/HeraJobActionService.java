@@ -8,6 +8,7 @@ import com.dfire.common.vo.GroupTaskVo;
 import com.dfire.common.vo.JobStatus;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -43,6 +44,14 @@ public interface HeraJobActionService {
 
     Tuple<HeraActionVo, JobStatus> findHeraActionVo(String jobId);
 
+    /**
+     * 版本的任务配置，有定义快照时从快照读取
+     *
+     * @param heraAction 版本
+     * @return 配置
+     */
+    String findConfigs(HeraAction heraAction);
+
     /**
      * 查找当前版本的运行状态
      *
@@ -62,6 +71,14 @@ public interface HeraJobActionService {
 
     List<HeraAction> getAfterAction(Long action);
 
+    /**
+     * 流式读取版本号不小于action的所有版本
+     *
+     * @param action   起始版本号
+     * @param consumer 逐行处理
+     */
+    void scanAfterAction(Long action, Consumer<HeraAction> consumer);
+
     /**
      * 根据jobId 获取所有的版本
      *
@@ -1,6 +1,8 @@
 package com.dfire.common.service;
 
 import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.HeraJobHistoryLog;
+import com.dfire.common.entity.vo.HeraJobLogVo;
 import com.dfire.common.entity.vo.PageHelper;
 import com.dfire.common.entity.vo.PageHelperTimeRange;
 
@@ -32,6 +34,8 @@ public interface HeraJobHistoryService {
 
     HeraJobHistory findById(String id);
 
+    List<HeraJobHistory> findByIds(List<String> ids);
+
     List<HeraJobHistory> findByActionId(String actionId);
 
     Integer updateHeraJobHistoryLogAndStatus(HeraJobHistory build);
@@ -46,6 +50,31 @@ public interface HeraJobHistoryService {
 
     HeraJobHistory findLogById(Integer id);
 
+    /**
+     * 按偏移量读取日志，运行中的任务只返回offset之后追加的日志片段
+     *
+     * @param id     运行记录id
+     * @param offset 已读取到的日志片段id，为空或0时返回全量日志
+     * @return 日志
+     */
+    HeraJobLogVo findLogById(Integer id, Long offset);
+
+    /**
+     * 批量追加运行中任务的日志片段
+     *
+     * @param logs 日志片段
+     * @return 写入条数
+     */
+    int appendHeraJobHistoryLog(List<HeraJobHistoryLog> logs);
+
+    /**
+     * 清理运行中追加的日志片段，任务结束后完整日志已写入执行记录
+     *
+     * @param historyId 运行记录id
+     * @return 删除条数
+     */
+    int deleteHeraJobHistoryLog(String historyId);
+
     Map<String, Object> findLogByPage(PageHelperTimeRange pageHelperTimeRange);
 
     List<HeraJobHistory> findTodayJobHistory();
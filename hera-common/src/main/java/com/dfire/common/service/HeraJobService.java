@@ -56,6 +56,15 @@ public interface HeraJobService {
 
     List<HeraJob> getAllJobDependencies();
 
+    /**
+     * 检查把任务的依赖改为dependencies后是否出现环形依赖
+     *
+     * @param jobId        任务id
+     * @param dependencies 新的依赖任务id，逗号分隔
+     * @return 环上的任务链路，没有成环时为null
+     */
+    String findDependencyLoop(Integer jobId, String dependencies);
+
 
     boolean changeParent(Integer newId, Integer parentId);
 
@@ -0,0 +1,20 @@
+package com.dfire.common.service;
+
+import com.dfire.common.entity.HeraJob;
+import com.dfire.common.entity.HeraJobSnapshot;
+
+/**
+ * @desc 任务定义快照
+ */
+public interface HeraJobSnapshotService {
+
+    /**
+     * 保存任务当前定义的快照，内容没变时复用已有快照
+     *
+     * @param heraJob 任务
+     * @return 快照id
+     */
+    String save(HeraJob heraJob);
+
+    HeraJobSnapshot findById(String id);
+}
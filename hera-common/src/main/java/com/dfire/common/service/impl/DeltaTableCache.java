@@ -0,0 +1,220 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.Judge;
+import com.dfire.config.HeraGlobalEnv;
+import com.dfire.logs.HeraLog;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @desc 按gmt_modified增量刷新的表缓存。
+ * 表信息探测按hera.cacheProbeInterval节流；探测到修改时只拉取gmt_modified不早于上次水位的行，
+ * 行数与缓存不一致时再对比id列表摘除已删除的行，id对不上时才全量加载
+ */
+class DeltaTableCache<T> {
+
+    private final String tableName;
+
+    private final Supplier<Judge> tableInfo;
+
+    private final Supplier<List<T>> loadAll;
+
+    private final Function<Date, List<T>> loadModifiedSince;
+
+    private final Supplier<List<Integer>> loadIds;
+
+    private final Function<T, Integer> idGetter;
+
+    private final Function<T, Date> modifiedGetter;
+
+    private volatile Map<Integer, T> cache;
+
+    /**
+     * 已经同步到的gmt_modified水位
+     */
+    private volatile Date lastModified;
+
+    private volatile long nextProbeTime;
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+
+    private final AtomicLong missCount = new AtomicLong(0);
+
+    private final AtomicLong refreshCount = new AtomicLong(0);
+
+    private final AtomicLong fullLoadCount = new AtomicLong(0);
+
+    private final AtomicLong refreshRows = new AtomicLong(0);
+
+    /**
+     * 行变化时的回调，参数为变化的id，全量加载时为null
+     */
+    private volatile Consumer<Collection<Integer>> changeListener;
+
+    DeltaTableCache(String tableName, Supplier<Judge> tableInfo, Supplier<List<T>> loadAll,
+                    Function<Date, List<T>> loadModifiedSince, Supplier<List<Integer>> loadIds,
+                    Function<T, Integer> idGetter, Function<T, Date> modifiedGetter) {
+        this.tableName = tableName;
+        this.tableInfo = tableInfo;
+        this.loadAll = loadAll;
+        this.loadModifiedSince = loadModifiedSince;
+        this.loadIds = loadIds;
+        this.idGetter = idGetter;
+        this.modifiedGetter = modifiedGetter;
+    }
+
+    /**
+     * 获取缓存，探测间隔内直接返回，否则探测表信息并增量同步
+     *
+     * @return id -> 行
+     */
+    Map<Integer, T> get() {
+        Map<Integer, T> current = cache;
+        if (current != null && System.currentTimeMillis() < nextProbeTime) {
+            hitCount.incrementAndGet();
+            return current;
+        }
+        synchronized (this) {
+            if (cache != null && System.currentTimeMillis() < nextProbeTime) {
+                hitCount.incrementAndGet();
+                return cache;
+            }
+            if (sync()) {
+                missCount.incrementAndGet();
+            } else {
+                hitCount.incrementAndGet();
+            }
+            nextProbeTime = System.currentTimeMillis() + HeraGlobalEnv.getCacheProbeInterval();
+            return cache;
+        }
+    }
+
+    /**
+     * 注册行变化回调，在刷新缓存的线程里同步调用
+     *
+     * @param listener 变化的id，全量加载时为null
+     */
+    void onChange(Consumer<Collection<Integer>> listener) {
+        this.changeListener = listener;
+    }
+
+    /**
+     * 下次访问时强制探测
+     */
+    void expire() {
+        nextProbeTime = 0;
+    }
+
+    /**
+     * @return 是否有数据变化
+     */
+    private boolean sync() {
+        Judge judge = tableInfo.get();
+        if (judge == null || judge.getCount() == null || judge.getCount() == 0) {
+            boolean changed = cache == null || !cache.isEmpty();
+            cache = new ConcurrentHashMap<>(0);
+            lastModified = null;
+            if (changed) {
+                notifyChange(null);
+            }
+            return changed;
+        }
+        if (cache == null || lastModified == null || judge.getLastModified() == null) {
+            fullLoad();
+            return true;
+        }
+        boolean changed = false;
+        if (judge.getLastModified().after(lastModified)) {
+            List<T> rows = loadModifiedSince.apply(lastModified);
+            List<Integer> changedIds = new ArrayList<>(rows.size());
+            for (T row : rows) {
+                Integer id = idGetter.apply(row);
+                cache.put(id, row);
+                changedIds.add(id);
+            }
+            notifyChange(changedIds);
+            lastModified = maxModified(rows, judge.getLastModified());
+            refreshCount.incrementAndGet();
+            refreshRows.addAndGet(rows.size());
+            changed = true;
+        }
+        if (judge.getCount() != cache.size()) {
+            Set<Integer> ids = new HashSet<>(loadIds.get());
+            List<Integer> removedIds = new ArrayList<>();
+            cache.keySet().removeIf(id -> !ids.contains(id) && removedIds.add(id));
+            notifyChange(removedIds);
+            if (ids.size() != cache.size()) {
+                HeraLog.warn("{}缓存id与数据库不一致，全量加载", tableName);
+                fullLoad();
+            }
+            changed = true;
+        }
+        if (changed) {
+            HeraLog.info("增量刷新{}缓存:{}", tableName, getStats());
+        }
+        return changed;
+    }
+
+    private void fullLoad() {
+        List<T> all = loadAll.get();
+        Map<Integer, T> map = new ConcurrentHashMap<>(all.size());
+        all.forEach(row -> map.put(idGetter.apply(row), row));
+        lastModified = maxModified(all, null);
+        cache = map;
+        fullLoadCount.incrementAndGet();
+        refreshRows.addAndGet(all.size());
+        notifyChange(null);
+        HeraLog.info("全量加载{}缓存:{}", tableName, getStats());
+    }
+
+    private void notifyChange(Collection<Integer> ids) {
+        Consumer<Collection<Integer>> listener = changeListener;
+        if (listener != null && (ids == null || !ids.isEmpty())) {
+            listener.accept(ids);
+        }
+    }
+
+    /**
+     * 水位取本次拉取到的最大gmt_modified，而不是探测时的最大值，避免探测和拉取之间的修改被跳过
+     */
+    private Date maxModified(List<T> rows, Date defaultValue) {
+        Date max = lastModified;
+        for (T row : rows) {
+            Date modified = modifiedGetter.apply(row);
+            if (modified != null && (max == null || modified.after(max))) {
+                max = modified;
+            }
+        }
+        return max == null ? defaultValue : max;
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    long getFullLoadCount() {
+        return fullLoadCount.get();
+    }
+
+    String getStats() {
+        return "[size:" + (cache == null ? 0 : cache.size())
+                + ",hit:" + hitCount.get()
+                + ",miss:" + missCount.get()
+                + ",refresh:" + refreshCount.get()
+                + ",fullLoad:" + fullLoadCount.get()
+                + ",rows:" + refreshRows.get() + "]";
+    }
+}
@@ -0,0 +1,168 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.HeraGroup;
+import com.dfire.common.util.StringUtil;
+import com.dfire.logs.ErrorLog;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @desc 分组配置继承树：每个分组缓存一份按父分组链合并好的配置和资源快照(只读)，
+ * 分组变化时只摘除链路上包含该分组的快照(即该分组及其所有子分组)，下次访问再按需计算
+ */
+class GroupConfigTree {
+
+    /**
+     * 防止父分组成环时无限递归
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private final Supplier<Map<Integer, HeraGroup>> groups;
+
+    private final Map<Integer, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final AtomicLong buildCount = new AtomicLong(0);
+
+    /**
+     * 每次摘除快照加一，计算期间发生过摘除的快照不放入缓存
+     */
+    private final AtomicLong version = new AtomicLong(0);
+
+    GroupConfigTree(Supplier<Map<Integer, HeraGroup>> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * 获取分组合并后的配置快照
+     *
+     * @param groupId 分组id
+     * @return 分组不存在时为null
+     */
+    Snapshot get(Integer groupId) {
+        Map<Integer, HeraGroup> all = groups.get();
+        return get(all, groupId, 0, version.get());
+    }
+
+    /**
+     * 分组变化，摘除该分组及其子分组的快照
+     *
+     * @param groupIds 变化的分组id，为null时清空
+     */
+    void invalidate(Collection<Integer> groupIds) {
+        version.incrementAndGet();
+        if (groupIds == null) {
+            snapshots.clear();
+            return;
+        }
+        Set<Integer> changed = new HashSet<>(groupIds);
+        snapshots.values().removeIf(snapshot -> snapshot.path.stream().anyMatch(changed::contains));
+    }
+
+    int size() {
+        return snapshots.size();
+    }
+
+    long getBuildCount() {
+        return buildCount.get();
+    }
+
+    private Snapshot get(Map<Integer, HeraGroup> all, Integer groupId, int depth, long startVersion) {
+        if (groupId == null || groupId == 0) {
+            return null;
+        }
+        Snapshot snapshot = snapshots.get(groupId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        HeraGroup group = all.get(groupId);
+        if (group == null) {
+            return null;
+        }
+        Snapshot parent = null;
+        if (depth < MAX_DEPTH) {
+            parent = get(all, group.getParent(), depth + 1, startVersion);
+        } else {
+            ErrorLog.error("分组{}的父分组层级超过{}，可能存在环", groupId, MAX_DEPTH);
+        }
+        snapshot = new Snapshot(group, parent);
+        buildCount.incrementAndGet();
+        if (version.get() != startVersion) {
+            return snapshot;
+        }
+        Snapshot exist = snapshots.putIfAbsent(groupId, snapshot);
+        return exist == null ? snapshot : exist;
+    }
+
+    /**
+     * 分组合并后的配置快照
+     */
+    static class Snapshot {
+
+        /**
+         * 从当前分组到根分组的id
+         */
+        private final Set<Integer> path;
+
+        /**
+         * 本分组的配置
+         */
+        private final Map<String, String> localConfigs;
+
+        /**
+         * 合并后的配置，子分组覆盖父分组
+         */
+        private final Map<String, String> configs;
+
+        /**
+         * 本分组的资源在前，父分组的资源在后
+         */
+        private final List<Map<String, String>> resources;
+
+        private final Snapshot parent;
+
+        private Snapshot(HeraGroup group, Snapshot parent) {
+            this.parent = parent;
+            this.localConfigs = Collections.unmodifiableMap(StringUtil.convertStringToMap(group.getConfigs()));
+            Set<Integer> path = new HashSet<>();
+            path.add(group.getId());
+            Map<String, String> configs = new HashMap<>();
+            List<Map<String, String>> resources = new ArrayList<>(StringUtil.convertResources(group.getResources()));
+            if (parent != null) {
+                path.addAll(parent.path);
+                configs.putAll(parent.configs);
+                resources.addAll(parent.resources);
+            }
+            configs.putAll(localConfigs);
+            this.path = Collections.unmodifiableSet(path);
+            this.configs = Collections.unmodifiableMap(configs);
+            this.resources = Collections.unmodifiableList(resources);
+        }
+
+        Map<String, String> getConfigs() {
+            return configs;
+        }
+
+        List<Map<String, String>> getResources() {
+            return resources;
+        }
+
+        /**
+         * 按继承关系取值，key不存在时取最近一个非空的defaultKey
+         */
+        String getInheritVal(String key, String defaultKey) {
+            if (configs.containsKey(key)) {
+                return configs.get(key);
+            }
+            for (Snapshot snapshot = this; snapshot != null; snapshot = snapshot.parent) {
+                String value = snapshot.localConfigs.get(defaultKey);
+                if (value != null && !value.trim().isEmpty()) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+}
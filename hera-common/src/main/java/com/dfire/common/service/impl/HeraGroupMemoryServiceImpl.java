@@ -1,15 +1,18 @@
 package com.dfire.common.service.impl;
 
 import com.dfire.common.entity.HeraGroup;
-import com.dfire.common.entity.Judge;
-import com.dfire.logs.HeraLog;
+import com.dfire.common.entity.HeraJob;
+import com.dfire.common.entity.model.HeraGroupBean;
+import com.dfire.common.entity.model.HeraJobBean;
+import com.dfire.common.entity.vo.HeraGroupVo;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
- * 对于集合类的大查找  走缓存
+ * 对于集合类的大查找  走缓存，按gmt_modified增量刷新；
+ * 分组配置继承走合并好的快照，缓存刷新到的分组变化时摘除对应子树
  *
  * @author xiaosuda
  * @date 2018/12/5
@@ -17,47 +20,110 @@ import java.util.stream.Collectors;
 @Service("heraGroupMemoryService")
 public class HeraGroupMemoryServiceImpl extends HeraGroupServiceImpl {
 
-    private volatile Judge judge;
+    private final DeltaTableCache<HeraGroup> memoryGroup = new DeltaTableCache<>("hera_group",
+            () -> heraGroupMapper.selectTableInfo(),
+            () -> heraGroupMapper.getAll(),
+            lastModified -> heraGroupMapper.selectModifiedSince(lastModified),
+            () -> heraGroupMapper.selectAllIds(),
+            HeraGroup::getId,
+            HeraGroup::getGmtModified);
 
-    private final Object lock = new Object();
+    private final GroupConfigTree configTree = new GroupConfigTree(memoryGroup::get);
 
-    private Map<Integer, HeraGroup> memoryJob;
-
-    private Map<Integer, HeraGroup> getMemoryJob() {
-        Judge newJudge = heraGroupMapper.selectTableInfo();
-        if (newJudge.getMaxId() == null || newJudge.getLastModified() == null || newJudge.getCount() == null) {
-            return new HashMap<>(0);
-        }
-        if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-            synchronized (lock) {
-                if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-                    HeraLog.info("刷新hera_group库");
-                    judge = newJudge;
-                    List<HeraGroup> all = heraGroupMapper.getAll();
-                    Map<Integer, HeraGroup> jobMap = new HashMap<>(all.size());
-                    all.forEach(group -> jobMap.put(group.getId(), group));
-                    memoryJob = jobMap;
-                }
-            }
-        }
-        judge.setStamp(new Date());
-        return memoryJob;
+    public HeraGroupMemoryServiceImpl() {
+        memoryGroup.onChange(configTree::invalidate);
     }
 
     @Override
     public List<HeraGroup> getAll() {
-        return new ArrayList<>(getMemoryJob().values());
+        return new ArrayList<>(memoryGroup.get().values());
     }
 
 
     @Override
     public List<HeraGroup> findByParent(Integer parentId) {
-        return getMemoryJob().values().stream().filter(group -> group.getExisted() == 1 && group.getParent().equals(parentId)).collect(Collectors.toList());
+        return memoryGroup.get().values().stream().filter(group -> group.getExisted() == 1 && group.getParent().equals(parentId)).collect(Collectors.toList());
     }
 
     @Override
     public List<HeraGroup> findByIds(List<Integer> list) {
-        return getMemoryJob().values().stream().filter(group -> list.contains(group.getId())).collect(Collectors.toList());
+        Map<Integer, HeraGroup> memoryGroup = this.memoryGroup.get();
+        return list.stream().distinct().map(memoryGroup::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * 任务所在分组使用合并好的配置和资源，不再逐级查询父分组
+     */
+    @Override
+    public HeraJobBean getUpstreamJobBean(Integer jobId) {
+        HeraJob heraJob = heraJobService.findById(jobId);
+        if (heraJob == null) {
+            return null;
+        }
+        HeraGroupVo groupVo = HeraGroupVo.builder()
+                .id(heraJob.getGroupId())
+                .configs(new HashMap<>())
+                .resources(new ArrayList<>())
+                .build();
+        GroupConfigTree.Snapshot snapshot = configTree.get(heraJob.getGroupId());
+        if (snapshot != null) {
+            groupVo.getConfigs().putAll(snapshot.getConfigs());
+            groupVo.getResources().addAll(snapshot.getResources());
+        }
+        return HeraJobBean.builder()
+                .heraJob(heraJob)
+                .groupBean(HeraGroupBean.builder().groupVo(groupVo).build())
+                .build();
+    }
+
+    @Override
+    public Map<String, String> getInheritConfig(Integer groupId) {
+        GroupConfigTree.Snapshot snapshot = configTree.get(groupId);
+        return snapshot == null ? new TreeMap<>() : new TreeMap<>(snapshot.getConfigs());
+    }
+
+    @Override
+    public String getInheritVal(Integer groupId, String key, String defaultKey) {
+        GroupConfigTree.Snapshot snapshot = configTree.get(groupId);
+        return snapshot == null ? null : snapshot.getInheritVal(key, defaultKey);
+    }
+
+    @Override
+    public int update(HeraGroup heraGroup) {
+        int res = super.update(heraGroup);
+        changed(heraGroup.getId());
+        return res;
+    }
+
+    @Override
+    public int delete(int id) {
+        int res = super.delete(id);
+        changed(id);
+        return res;
+    }
+
+    @Override
+    public boolean changeParent(Integer id, Integer parent) {
+        boolean res = super.changeParent(id, parent);
+        changed(id);
+        return res;
+    }
+
+    /**
+     * 本机修改的分组立即摘除子树，其它机器的修改等缓存增量刷新时摘除
+     */
+    private void changed(Integer groupId) {
+        memoryGroup.expire();
+        configTree.invalidate(Collections.singletonList(groupId));
+    }
+
+    /**
+     * 缓存命中、刷新情况
+     *
+     * @return 统计信息
+     */
+    public String getCacheStats() {
+        return memoryGroup.getStats() + ",configTree:[size:" + configTree.size() + ",build:" + configTree.getBuildCount() + "]";
     }
 
 }
@@ -8,11 +8,15 @@ import com.dfire.common.mapper.HeraGroupMapper;
 import com.dfire.common.service.HeraGroupService;
 import com.dfire.common.service.HeraJobService;
 import com.dfire.common.util.BeanConvertUtils;
+import com.dfire.common.util.StringUtil;
+import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -26,7 +30,7 @@ public class HeraGroupServiceImpl implements HeraGroupService {
     protected HeraGroupMapper heraGroupMapper;
 
     @Autowired
-    private HeraJobService heraJobService;
+    protected HeraJobService heraJobService;
 
     @Override
     public HeraGroup getRootGroup() {
@@ -117,6 +121,46 @@ public class HeraGroupServiceImpl implements HeraGroupService {
         return res;
     }
 
+    @Override
+    public Map<String, String> getInheritConfig(Integer groupId) {
+        HeraGroup group = this.findConfigById(groupId);
+        Map<String, String> configMap = new TreeMap<>();
+        while (group != null && groupId != null && groupId != 0) {
+            Map<String, String> map = StringUtil.convertStringToMap(group.getConfigs());
+            // 多重继承相同变量，以第一个的为准
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                String key = entry.getKey();
+                if (!configMap.containsKey(key)) {
+                    configMap.put(key, entry.getValue());
+                }
+            }
+            groupId = group.getParent();
+            group = this.findConfigById(groupId);
+        }
+        return configMap;
+    }
+
+    @Override
+    public String getInheritVal(Integer groupId, String key, String defaultKey) {
+        HeraGroup group = this.findConfigById(groupId);
+        String defaultVal = null;
+        while (group != null && groupId != null && groupId != 0) {
+            Map<String, String> map = StringUtil.convertStringToMap(group.getConfigs());
+            // 多重继承相同变量，以第一个的为准
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                if (entry.getKey().equals(key)) {
+                    return entry.getValue();
+                }
+                if (StringUtils.isBlank(defaultVal) && entry.getKey().equals(defaultKey)) {
+                    defaultVal = entry.getValue();
+                }
+            }
+            groupId = group.getParent();
+            group = this.findConfigById(groupId);
+        }
+        return defaultVal;
+    }
+
     private void getDownStreamGroup(HeraGroup heraGroup, List<HeraGroup> streamGroup) {
         if (heraGroup.getDirectory() != 0) {
             streamGroup.add(heraGroup);
@@ -2,6 +2,7 @@ package com.dfire.common.service.impl;
 
 import com.dfire.common.constants.Constants;
 import com.dfire.common.entity.HeraAction;
+import com.dfire.common.entity.HeraJobSnapshot;
 import com.dfire.common.entity.model.TablePageForm;
 import com.dfire.common.entity.vo.HeraActionVo;
 import com.dfire.common.enums.StatusEnum;
@@ -10,6 +11,7 @@ import com.dfire.common.mapper.HeraJobActionMapper;
 import com.dfire.common.service.HeraJobActionService;
 import com.dfire.common.service.HeraJobHistoryService;
 import com.dfire.common.service.HeraJobService;
+import com.dfire.common.service.HeraJobSnapshotService;
 import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.common.vo.GroupTaskVo;
@@ -23,6 +25,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -42,24 +46,61 @@ public class HeraJobActionServiceImpl implements HeraJobActionService {
     @Autowired
     private HeraJobHistoryService heraJobHistoryService;
 
+    @Autowired
+    private HeraJobSnapshotService heraJobSnapshotService;
+
 
     @Override
     public List<HeraAction> batchInsert(List<HeraAction> heraActionList, Long nowAction) {
         ScheduleLog.info("batchInsert-> batch size is :{}", heraActionList.size());
+        if (heraActionList.isEmpty()) {
+            return heraActionList;
+        }
+        long start = System.currentTimeMillis();
+        List<Long> ids = heraActionList.stream().map(HeraAction::getId).collect(Collectors.toList());
+        Map<Long, HeraAction> existMap = new HashMap<>(heraActionList.size());
+        heraJobActionMapper.selectStatusByIds(ids).forEach(action -> existMap.put(action.getId(), action));
+        //运行中的版本不做修改，直接使用数据库中的数据
+        List<Long> runningIds = existMap.values().stream()
+                .filter(action -> StatusEnum.RUNNING.toString().equals(action.getStatus()))
+                .map(HeraAction::getId)
+                .collect(Collectors.toList());
+        Map<Long, HeraAction> runningMap = new HashMap<>(runningIds.size());
+        if (runningIds.size() != 0) {
+            heraJobActionMapper.findByIds(runningIds).forEach(action -> runningMap.put(action.getId(), action));
+        }
+        List<HeraAction> updateList = new ArrayList<>();
         List<HeraAction> insertList = new ArrayList<>();
         for (HeraAction heraAction : heraActionList) {
-            //更新时单条更新
-            //原因：批量更新时，在极端情况下，数据会有批量数据处理时间的buff
-            //     此时如果有其它地方修改了某条数据 会数据库中的数据被批量更新的覆盖
-            if (isNeedUpdateAction(heraAction, nowAction)) {
-                update(heraAction);
+            HeraAction action = existMap.get(heraAction.getId());
+            if (action != null) {
+                HeraAction running = runningMap.get(heraAction.getId());
+                if (running != null) {
+                    BeanUtils.copyProperties(running, heraAction);
+                } else {
+                    heraAction.setStatus(action.getStatus());
+                    heraAction.setHistoryId(action.getHistoryId());
+                    heraAction.setReadyDependency(action.getReadyDependency());
+                    heraAction.setGmtCreate(action.getGmtCreate());
+                    heraAction.setGmtModified(new Date());
+                    updateList.add(heraAction);
+                }
             } else {
+                markExpired(heraAction, nowAction);
                 insertList.add(heraAction);
             }
         }
+        //批量更新只更新版本定义相关的字段，并且在sql中跳过运行中的版本
+        //避免批量处理期间其它地方修改的运行状态被覆盖
+        if (updateList.size() != 0) {
+            heraJobActionMapper.batchRefresh(updateList);
+        }
         if (insertList.size() != 0) {
-            heraJobActionMapper.batchInsert(insertList);
+            heraJobActionMapper.batchUpsert(insertList);
         }
+        long cost = System.currentTimeMillis() - start;
+        ScheduleLog.info("batchInsert-> insert:{}, update:{}, running:{}, cost:{}ms, {} rows/s", insertList.size(), updateList.size(),
+                runningMap.size(), cost, heraActionList.size() * 1000L / Math.max(cost, 1));
         return heraActionList;
     }
 
@@ -84,16 +125,20 @@ public class HeraJobActionServiceImpl implements HeraJobActionService {
             heraAction.setGmtModified(new Date());
             return true;
         } else {
-            if (heraAction.getId() < nowAction) {
-                heraAction.setStatus(StatusEnum.FAILED.toString());
-                heraAction.setLastResult("生成action时，任务过时，直接设置为失败");
-                HeraLog.info("生成action时，任务过时，直接设置为失败:" + heraAction.getId());
-            }
+            markExpired(heraAction, nowAction);
         }
         return false;
 
     }
 
+    private void markExpired(HeraAction heraAction, Long nowAction) {
+        if (heraAction.getId() < nowAction) {
+            heraAction.setStatus(StatusEnum.FAILED.toString());
+            heraAction.setLastResult("生成action时，任务过时，直接设置为失败");
+            HeraLog.info("生成action时，任务过时，直接设置为失败:" + heraAction.getId());
+        }
+    }
+
     @Override
     public int insert(HeraAction heraAction, Long nowAction) {
         if (isNeedUpdateAction(heraAction, nowAction)) {
@@ -151,9 +196,22 @@ public class HeraJobActionServiceImpl implements HeraJobActionService {
         if (heraActionTmp == null) {
             return null;
         }
+        HeraJobSnapshot snapshot = heraJobSnapshotService.findById(heraActionTmp.getSnapshotId());
+        if (snapshot != null) {
+            heraActionTmp.setScript(snapshot.getScript());
+            heraActionTmp.setConfigs(snapshot.getConfigs());
+            heraActionTmp.setResources(snapshot.getResources());
+            heraActionTmp.setDescription(snapshot.getDescription());
+        }
         return BeanConvertUtils.convert(heraActionTmp);
     }
 
+    @Override
+    public String findConfigs(HeraAction heraAction) {
+        HeraJobSnapshot snapshot = heraJobSnapshotService.findById(heraAction.getSnapshotId());
+        return snapshot == null ? heraAction.getConfigs() : snapshot.getConfigs();
+    }
+
     @Override
     public JobStatus findJobStatus(String actionId) {
         Tuple<HeraActionVo, JobStatus> tuple = findHeraActionVo(actionId);
@@ -187,6 +245,11 @@ public class HeraJobActionServiceImpl implements HeraJobActionService {
         return heraJobActionMapper.selectAfterAction(action);
     }
 
+    @Override
+    public void scanAfterAction(Long action, Consumer<HeraAction> consumer) {
+        heraJobActionMapper.scanAfterAction(action, context -> consumer.accept(context.getResultObject()));
+    }
+
     @Override
     public List<String> getActionVersionByJobId(Long jobId) {
         return heraJobActionMapper.getActionVersionByJobId(jobId);
@@ -1,10 +1,14 @@
 package com.dfire.common.service.impl;
 
 import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.HeraJobHistoryLog;
+import com.dfire.common.entity.vo.HeraJobLogVo;
 import com.dfire.common.entity.vo.HeraJobHistoryVo;
 import com.dfire.common.entity.vo.JobLogHistoryVo;
 import com.dfire.common.entity.vo.PageHelper;
 import com.dfire.common.entity.vo.PageHelperTimeRange;
+import com.dfire.common.enums.StatusEnum;
+import com.dfire.common.mapper.HeraJobHistoryLogMapper;
 import com.dfire.common.mapper.HeraJobHistoryMapper;
 import com.dfire.common.service.HeraJobHistoryService;
 import com.dfire.common.util.ActionUtil;
@@ -24,6 +28,9 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
     @Autowired
     HeraJobHistoryMapper heraJobHistoryMapper;
 
+    @Autowired
+    HeraJobHistoryLogMapper heraJobHistoryLogMapper;
+
 
     @Override
     public int updateHeraJobHistoryLog(HeraJobHistory heraJobHistory) {
@@ -42,6 +49,7 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
 
     @Override
     public int delete(String id) {
+        heraJobHistoryLogMapper.deleteByHistoryId(id);
         return heraJobHistoryMapper.delete(id);
     }
 
@@ -65,14 +73,29 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
         return heraJobHistoryMapper.findById(id);
     }
 
+    @Override
+    public List<HeraJobHistory> findByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        return heraJobHistoryMapper.findByIds(ids);
+    }
+
     @Override
     public List<HeraJobHistory> findByActionId(String actionId) {
         return heraJobHistoryMapper.findByActionId(actionId);
     }
 
+    /**
+     * 任务结束时写入完整日志，运行中追加的日志片段随之清理
+     */
     @Override
     public Integer updateHeraJobHistoryLogAndStatus(HeraJobHistory heraJobHistory) {
-        return heraJobHistoryMapper.updateHeraJobHistoryLogAndStatus(heraJobHistory);
+        Integer res = heraJobHistoryMapper.updateHeraJobHistoryLogAndStatus(heraJobHistory);
+        if (!StatusEnum.RUNNING.toString().equals(heraJobHistory.getStatus())) {
+            heraJobHistoryLogMapper.deleteByHistoryId(heraJobHistory.getId());
+        }
+        return res;
     }
 
     @Override
@@ -82,7 +105,56 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
 
     @Override
     public HeraJobHistory findLogById(Integer id) {
-        return heraJobHistoryMapper.selectLogById(id);
+        HeraJobHistory history = heraJobHistoryMapper.selectLogById(id);
+        if (history != null && StatusEnum.RUNNING.toString().equals(history.getStatus())) {
+            StringBuilder log = new StringBuilder(history.getLog() == null ? "" : history.getLog());
+            heraJobHistoryLogMapper.selectAfter(String.valueOf(id), 0L).forEach(chunk -> log.append(chunk.getContent()));
+            history.setLog(log.toString());
+        }
+        return history;
+    }
+
+    @Override
+    public HeraJobLogVo findLogById(Integer id, Long offset) {
+        boolean increment = offset != null && offset > 0;
+        StringBuilder log = new StringBuilder();
+        String status;
+        if (increment) {
+            status = heraJobHistoryMapper.selectStatusById(id);
+        } else {
+            HeraJobHistory history = heraJobHistoryMapper.selectLogById(id);
+            if (history == null) {
+                return null;
+            }
+            status = history.getStatus();
+            log.append(history.getLog() == null ? "" : history.getLog());
+        }
+        if (!StatusEnum.RUNNING.toString().equals(status)) {
+            //任务已结束，日志片段已经合并，增量读取时需要重新全量读取
+            if (increment) {
+                return findLogById(id, 0L);
+            }
+            return HeraJobLogVo.builder().log(log.toString()).status(status).offset(0L).increment(false).build();
+        }
+        long lastOffset = increment ? offset : 0L;
+        for (HeraJobHistoryLog chunk : heraJobHistoryLogMapper.selectAfter(String.valueOf(id), lastOffset)) {
+            log.append(chunk.getContent());
+            lastOffset = chunk.getId();
+        }
+        return HeraJobLogVo.builder().log(log.toString()).status(status).offset(lastOffset).increment(increment).build();
+    }
+
+    @Override
+    public int appendHeraJobHistoryLog(List<HeraJobHistoryLog> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return 0;
+        }
+        return heraJobHistoryLogMapper.batchInsert(logs);
+    }
+
+    @Override
+    public int deleteHeraJobHistoryLog(String historyId) {
+        return heraJobHistoryLogMapper.deleteByHistoryId(historyId);
     }
 
     @Override
@@ -121,6 +193,7 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
     @Override
     public void deleteHistoryRecord(Integer beforeDay) {
         heraJobHistoryMapper.deleteHistoryRecord(beforeDay);
+        heraJobHistoryLogMapper.deleteHistoryRecord(beforeDay);
     }
 
     @Override
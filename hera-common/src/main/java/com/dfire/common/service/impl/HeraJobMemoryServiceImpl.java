@@ -1,14 +1,14 @@
 package com.dfire.common.service.impl;
 
 import com.dfire.common.entity.HeraJob;
-import com.dfire.common.entity.Judge;
-import com.dfire.logs.HeraLog;
+import com.dfire.graph.JobGraph;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 
 /**
- * 内存级别缓存job信息
+ * 内存级别缓存job信息，按gmt_modified增量刷新；
+ * 依赖图常驻内存，缓存刷新到的任务变化时增量合并
  *
  * @author xiaosuda
  * @date 2018/12/3
@@ -16,50 +16,35 @@ import java.util.*;
 @Service("heraJobMemoryService")
 public class HeraJobMemoryServiceImpl extends HeraJobServiceImpl {
 
-    private volatile Judge judge;
-
-    private Map<Integer, HeraJob> memoryJob;
-
-    private Map<Integer, HeraJob> getMemoryJob() {
-        Judge newJudge = heraJobMapper.selectTableInfo();
-        if (newJudge.getMaxId() == null || newJudge.getLastModified() == null || newJudge.getCount() == null) {
-            return new HashMap<>(0);
-        }
-        if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-            synchronized (this) {
-                if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-                    HeraLog.info("刷新hera_job库");
-                    judge = newJudge;
-                    List<HeraJob> all = heraJobMapper.getAll();
-                    Map<Integer, HeraJob> jobMap = new HashMap<>(all.size());
-                    all.forEach(job -> jobMap.put(job.getId(), job));
-                    memoryJob = jobMap;
-                }
-            }
-        }
-        judge.setStamp(new Date());
-        return memoryJob;
-    }
+    private final DeltaTableCache<HeraJob> memoryJob = new DeltaTableCache<>("hera_job",
+            () -> heraJobMapper.selectTableInfo(),
+            () -> heraJobMapper.getAll(),
+            lastModified -> heraJobMapper.selectModifiedSince(lastModified),
+            () -> heraJobMapper.selectAllIds(),
+            HeraJob::getId,
+            HeraJob::getGmtModified);
+
+    private final JobGraphCache jobGraph = new JobGraphCache(memoryJob::get);
 
+    public HeraJobMemoryServiceImpl() {
+        memoryJob.onChange(jobGraph::invalidate);
+    }
 
     @Override
     public List<HeraJob> getAll() {
-        return new ArrayList<>(getMemoryJob().values());
+        return new ArrayList<>(memoryJob.get().values());
     }
 
 
     @Override
     public HeraJob findMemById(int id) {
-        if (memoryJob == null) {
-            memoryJob = getMemoryJob();
-        }
-        return memoryJob.get(id);
+        return memoryJob.get().get(id);
     }
 
     @Override
     public List<HeraJob> findByIds(List<Integer> list) {
         List<HeraJob> res = new ArrayList<>();
-        Map<Integer, HeraJob> memoryJob = getMemoryJob();
+        Map<Integer, HeraJob> memoryJob = this.memoryJob.get();
         list.forEach(id -> res.add(memoryJob.get(id)));
         return res;
     }
@@ -68,4 +53,44 @@ public class HeraJobMemoryServiceImpl extends HeraJobServiceImpl {
     public List<HeraJob> getAllJobDependencies() {
         return this.getAll();
     }
+
+    /**
+     * 重复执行检测时每次入队都会调用，走缓存
+     */
+    @Override
+    public boolean isRepeat(Integer jobId) {
+        HeraJob job = this.findMemById(jobId);
+        return job == null ? super.isRepeat(jobId) : job.getRepeatRun() > 0;
+    }
+
+    @Override
+    protected JobGraph getJobGraph() {
+        return jobGraph.get();
+    }
+
+    /**
+     * 本机修改的任务下次访问时立即探测，依赖图随缓存刷新合并
+     */
+    @Override
+    public Integer update(HeraJob heraJob) {
+        Integer res = super.update(heraJob);
+        memoryJob.expire();
+        return res;
+    }
+
+    @Override
+    public int delete(int id) {
+        int res = super.delete(id);
+        memoryJob.expire();
+        return res;
+    }
+
+    /**
+     * 缓存命中、刷新情况
+     *
+     * @return 统计信息
+     */
+    public String getCacheStats() {
+        return memoryJob.getStats() + ",jobGraph:" + jobGraph.getStats();
+    }
 }
@@ -11,10 +11,9 @@ import com.dfire.common.service.HeraGroupService;
 import com.dfire.common.service.HeraJobHistoryService;
 import com.dfire.common.service.HeraJobService;
 import com.dfire.common.util.ActionUtil;
-import com.dfire.common.util.DagLoopUtil;
-import com.dfire.graph.DirectionGraph;
 import com.dfire.graph.Edge;
 import com.dfire.graph.GraphNode;
+import com.dfire.graph.JobGraph;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -179,62 +178,17 @@ public class HeraJobServiceImpl implements HeraJobService {
             remark = (String) graphNode1.getRemark();
         }
         GraphNode<Integer> graphNode = new GraphNode<>(nodeJob.getAuto(), nodeJob.getId(), "任务ID:" + jobId + "\n任务名称:" + nodeJob.getName() + remark,  nodeJob.getName());
-        return buildCurrJobGraph(historyMap, graphNode, getDirectionGraph(), type);
+        return buildCurrJobGraph(historyMap, graphNode, getJobGraph(), type);
     }
 
     @Override
     public List<Integer> findJobImpact(int jobId, Integer type) {
-        Set<Integer> check = new HashSet<>();
         List<Integer> res = new ArrayList<>();
-        check.add(jobId);
         res.add(jobId);
-        DirectionGraph<Integer> graph = getDirectionGraph();
-
-        Queue<GraphNode<Integer>> nodeQueue = new LinkedList<>();
-        GraphNode<Integer> node = new GraphNode<>(jobId, "","");
-        nodeQueue.add(node);
-        List<Integer> graphNodes;
-        Map<Integer, GraphNode<Integer>> indexMap = graph.getIndexMap();
-        GraphNode<Integer> graphNode;
-        Set<Integer> vis = new HashSet<>();
-        while (!nodeQueue.isEmpty()) {
-            node = nodeQueue.remove();
-            graphNodes = getNodes(node, graph, vis, type);
-            if (graphNodes == null) {
-                continue;
-            }
-            for (Integer integer : graphNodes) {
-                graphNode = indexMap.get(integer);
-                if (!check.contains(graphNode.getNodeName())) {
-                    check.add(graphNode.getNodeName());
-                    res.add(graphNode.getNodeName());
-                    nodeQueue.add(graphNode);
-                }
-
-            }
-        }
+        res.addAll(getJobGraph().traverse(jobId, type != 0));
         return res;
     }
 
-
-    private List<Integer> getNodes(GraphNode<Integer> node, DirectionGraph<Integer> graph, Set<Integer> vis, Integer type) {
-        Integer index = graph.getNodeIndex(node);
-        if (index == null) {
-            return null;
-        }
-        if (vis.contains(index)) {
-            return null;
-        }
-        vis.add(index);
-        ArrayList<Integer> graphNodes;
-        if (type == 0) {
-            graphNodes = graph.getSrcEdge()[index];
-        } else {
-            graphNodes = graph.getTarEdge()[index];
-        }
-        return graphNodes;
-    }
-
     @Override
     public List<HeraJob> findDownStreamJob(Integer jobId) {
         return this.getStreamTask(jobId, true);
@@ -251,6 +205,19 @@ public class HeraJobServiceImpl implements HeraJobService {
         return heraJobMapper.getAllJobRelations();
     }
 
+    @Override
+    public String findDependencyLoop(Integer jobId, String dependencies) {
+        if (StringUtils.isBlank(dependencies)) {
+            return null;
+        }
+        int[] parents = Arrays.stream(dependencies.split(Constants.COMMA))
+                .filter(StringUtils::isNotBlank)
+                .mapToInt(dependency -> Integer.parseInt(dependency.trim()))
+                .toArray();
+        List<Integer> loop = getJobGraph().findLoop(jobId, parents);
+        return loop == null ? null : loop.stream().map(String::valueOf).collect(Collectors.joining("->"));
+    }
+
     @Override
     public boolean changeParent(Integer newId, Integer parentId) {
         Integer update = heraJobMapper.changeParent(newId, parentId);
@@ -322,8 +289,13 @@ public class HeraJobServiceImpl implements HeraJobService {
         return map;
     }
 
-    private DirectionGraph<Integer> getDirectionGraph() {
-        return this.buildJobGraph();
+    /**
+     * 任务依赖图，每次按所有任务的依赖关系构建
+     *
+     * @return 依赖图
+     */
+    protected JobGraph getJobGraph() {
+        return JobGraphCache.build(this.getAllJobDependencies());
     }
 
 
@@ -336,40 +308,8 @@ public class HeraJobServiceImpl implements HeraJobService {
      */
 
     private List<HeraJob> getStreamTask(Integer jobId, boolean down) {
-        GraphNode<Integer> head = new GraphNode<>();
-        head.setNodeName(jobId);
-        DirectionGraph<Integer> graph = this.getDirectionGraph();
-        Integer headIndex = graph.getNodeIndex(head);
-        Queue<Integer> nodeQueue = new LinkedList<>();
-        if (headIndex != null) {
-            nodeQueue.add(headIndex);
-        }
-        ArrayList<Integer> graphNodes;
-        Map<Integer, GraphNode<Integer>> indexMap = graph.getIndexMap();
-        List<Integer> jobList = new ArrayList<>();
-        Set<Integer> vis = new HashSet<>();
-        while (!nodeQueue.isEmpty()) {
-            headIndex = nodeQueue.remove();
-            if (vis.contains(headIndex)) {
-                continue;
-            }
-            vis.add(headIndex);
-            if (down) {
-                graphNodes = graph.getTarEdge()[headIndex];
-            } else {
-                graphNodes = graph.getSrcEdge()[headIndex];
-            }
-            if (graphNodes == null || graphNodes.size() == 0) {
-                continue;
-            }
-
-            for (Integer graphNode : graphNodes) {
-                nodeQueue.add(graphNode);
-                jobList.add(indexMap.get(graphNode).getNodeName());
-            }
-        }
-
-        List<HeraJob> res = new ArrayList<>();
+        List<Integer> jobList = this.getJobGraph().traverse(jobId, down);
+        List<HeraJob> res = new ArrayList<>(jobList.size());
         for (Integer id : jobList) {
             res.add(this.findById(id));
         }
@@ -382,7 +322,7 @@ public class HeraJobServiceImpl implements HeraJobService {
      * @param graph      所有任务的关系图
      * @param type       展示类型  0:任务进度分析   1:影响分析
      */
-    private Map<String, Object> buildCurrJobGraph(Map<String, GraphNode> historyMap, GraphNode<Integer> node, DirectionGraph<Integer> graph, Integer type) {
+    private Map<String, Object> buildCurrJobGraph(Map<String, GraphNode> historyMap, GraphNode<Integer> node, JobGraph graph, Integer type) {
         String start = "标识节点";
         Map<String, Object> res = new HashMap<>(2);
         List<Edge> edgeList = new ArrayList<>();
@@ -391,26 +331,27 @@ public class HeraJobServiceImpl implements HeraJobService {
         res.put("headNode", headNode);
         nodeQueue.add(node);
         edgeList.add(new Edge(headNode, node));
-        List<Integer> graphNodes;
-        Map<Integer, GraphNode<Integer>> indexMap = graph.getIndexMap();
-        GraphNode graphNode;
+        int[] graphNodes;
+        HeraJob job;
         Set<Integer> vis = new HashSet<>();
         while (!nodeQueue.isEmpty()) {
             node = nodeQueue.remove();
-            graphNodes = getNodes(node, graph, vis, type);
-            if (graphNodes == null) {
+            if (!vis.add(node.getNodeName())) {
                 continue;
             }
-            for (Integer integer : graphNodes) {
-                graphNode = indexMap.get(integer);
-                GraphNode graphNode1 = historyMap.get(graphNode.getNodeName() + "");
-                if (graphNode1 == null) {
-                    graphNode1 = new GraphNode<>(graphNode.getAuto(), graphNode.getNodeName(), "" + graphNode.getRemark(),graphNode.getDescName());
-                } else {
-                    graphNode1 = new GraphNode<>(graphNode.getAuto(), graphNode.getNodeName(), "" + graphNode.getRemark() + graphNode1.getRemark(),graphNode.getDescName());
+            graphNodes = type == 0 ? graph.parents(node.getNodeName()) : graph.children(node.getNodeName());
+            for (int id : graphNodes) {
+                if ((job = findMemById(id)) == null) {
+                    continue;
                 }
-                edgeList.add(new Edge(node, graphNode1));
-                nodeQueue.add(graphNode1);
+                String remark = "任务ID:" + id + "\n任务名称:" + job.getName() + "\n";
+                GraphNode history = historyMap.get(id + "");
+                if (history != null) {
+                    remark = remark + history.getRemark();
+                }
+                GraphNode<Integer> graphNode = new GraphNode<>(job.getAuto(), id, remark, job.getName());
+                edgeList.add(new Edge(node, graphNode));
+                nodeQueue.add(graphNode);
             }
         }
         res.put("edges", edgeList);
@@ -418,45 +359,4 @@ public class HeraJobServiceImpl implements HeraJobService {
     }
 
 
-    /**
-     * 定时调用的任务图
-     *
-     * @return DirectionGraph
-     */
-
-    public DirectionGraph<Integer> buildJobGraph() {
-        List<HeraJob> list = this.getAllJobDependencies();
-        Map<Integer, String> map = new HashMap<>(list.size());
-        Map<Integer, Integer> parentAutoMap = new HashMap<>(list.size());
-        for (HeraJob job : list) {
-            map.put(job.getId(), job.getName());
-            parentAutoMap.put(job.getId(), job.getAuto());
-        }
-        int pid, id;
-        String dependencies;
-        DirectionGraph<Integer> directionGraph = new DirectionGraph<>();
-        for (HeraJob job : list) {
-            id = job.getId();
-            dependencies = job.getDependencies();
-            if (StringUtils.isBlank(dependencies)) {
-                continue;
-            }
-            String[] parents = dependencies.split(Constants.COMMA);
-            for (String parent : parents) {
-                pid = Integer.parseInt(parent);
-                if (map.get(pid) == null) {
-                    continue;
-                }
-                GraphNode<Integer> graphNodeBegin = new GraphNode<>(job.getAuto(), id, "任务ID:" + id + "\n任务名称:" + map.get(id) + "\n",job.getName());
-                GraphNode<Integer> graphNodeEnd = new GraphNode<>(parentAutoMap.get(pid), pid, "任务ID:" + pid + "\n任务名称:" + map.get(pid) + "\n",map.get(pid));
-                directionGraph.addNode(graphNodeBegin);
-                directionGraph.addNode(graphNodeEnd);
-                directionGraph.addEdge(graphNodeBegin, graphNodeEnd);
-            }
-        }
-
-        return directionGraph;
-    }
-
-
 }
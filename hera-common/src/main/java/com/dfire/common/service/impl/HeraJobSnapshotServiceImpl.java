@@ -0,0 +1,99 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.HeraJob;
+import com.dfire.common.entity.HeraJobSnapshot;
+import com.dfire.common.mapper.HeraJobSnapshotMapper;
+import com.dfire.common.service.HeraJobSnapshotService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @desc 任务定义快照。每个任务记住最近一次保存的快照id，定义没变时不再写库；
+ * 快照内容不可变，读取时缓存最近用到的快照
+ */
+@Service("heraJobSnapshotService")
+public class HeraJobSnapshotServiceImpl implements HeraJobSnapshotService {
+
+    private static final int MAX_CACHE = 1024;
+
+    @Autowired
+    private HeraJobSnapshotMapper heraJobSnapshotMapper;
+
+    private final Map<Integer, String> saved = new ConcurrentHashMap<>();
+
+    private final Cache<String, HeraJobSnapshot> snapshots = CacheBuilder.newBuilder().maximumSize(MAX_CACHE).build();
+
+    @Override
+    public String save(HeraJob heraJob) {
+        HeraJobSnapshot snapshot = of(heraJob);
+        if (!Objects.equals(saved.get(heraJob.getId()), snapshot.getId())) {
+            heraJobSnapshotMapper.insert(snapshot);
+            saved.put(heraJob.getId(), snapshot.getId());
+        }
+        return snapshot.getId();
+    }
+
+    @Override
+    public HeraJobSnapshot findById(String id) {
+        if (id == null) {
+            return null;
+        }
+        HeraJobSnapshot snapshot = snapshots.getIfPresent(id);
+        if (snapshot == null) {
+            snapshot = heraJobSnapshotMapper.findById(id);
+            if (snapshot != null) {
+                snapshots.put(id, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    static HeraJobSnapshot of(HeraJob heraJob) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(ByteBuffer.allocate(4).putInt(heraJob.getId()).array());
+        update(digest, heraJob.getScript());
+        update(digest, heraJob.getConfigs());
+        update(digest, heraJob.getResources());
+        update(digest, heraJob.getDescription());
+        StringBuilder id = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            id.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return HeraJobSnapshot.builder()
+                .id(id.toString())
+                .jobId(heraJob.getId())
+                .script(heraJob.getScript())
+                .configs(heraJob.getConfigs())
+                .resources(heraJob.getResources())
+                .description(heraJob.getDescription())
+                .build();
+    }
+
+    /**
+     * 每个字段带上长度，区分null、空串以及字段边界
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+}
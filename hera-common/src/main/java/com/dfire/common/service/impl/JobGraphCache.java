@@ -0,0 +1,149 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.entity.HeraJob;
+import com.dfire.graph.JobGraph;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.HeraLog;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @desc 常驻的任务依赖图。任务缓存刷新到的任务先记下来，下次取图时只把这些任务的依赖改动合并进图，
+ * 全量加载时才重建
+ */
+class JobGraphCache {
+
+    private final Supplier<Map<Integer, HeraJob>> jobs;
+
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuild = true;
+
+    private volatile JobGraph graph;
+
+    private final AtomicLong buildCount = new AtomicLong(0);
+
+    private final AtomicLong updateCount = new AtomicLong(0);
+
+    JobGraphCache(Supplier<Map<Integer, HeraJob>> jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * 获取最新的依赖图，先触发任务缓存刷新
+     *
+     * @return 依赖图快照
+     */
+    JobGraph get() {
+        Map<Integer, HeraJob> all = jobs.get();
+        if (!rebuild && pending.isEmpty()) {
+            return graph;
+        }
+        synchronized (this) {
+            if (rebuild) {
+                rebuild = false;
+                pending.clear();
+                graph = build(all.values());
+                buildCount.incrementAndGet();
+                HeraLog.info("重建任务依赖图:{}", getStats());
+            } else if (!pending.isEmpty()) {
+                Map<Integer, int[]> changed = new HashMap<>(pending.size());
+                for (Iterator<Integer> iterator = pending.iterator(); iterator.hasNext(); ) {
+                    Integer id = iterator.next();
+                    iterator.remove();
+                    HeraJob job = all.get(id);
+                    changed.put(id, job == null ? null : parents(job, all.keySet()));
+                }
+                graph = graph.update(changed);
+                updateCount.incrementAndGet();
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * 任务变化，下次取图时合并
+     *
+     * @param ids 变化的任务id，为null时重建
+     */
+    void invalidate(Collection<Integer> ids) {
+        if (ids == null) {
+            rebuild = true;
+        } else {
+            pending.addAll(ids);
+        }
+    }
+
+    /**
+     * 按任务列表构建依赖图，依赖不存在的任务时忽略该依赖
+     */
+    static JobGraph build(Collection<HeraJob> jobs) {
+        Set<Integer> ids = new HashSet<>(jobs.size());
+        jobs.forEach(job -> ids.add(job.getId()));
+        Map<Integer, int[]> parents = new HashMap<>(jobs.size());
+        for (HeraJob job : jobs) {
+            int[] dependencies = parents(job, ids);
+            if (dependencies.length > 0) {
+                parents.put(job.getId(), dependencies);
+            }
+        }
+        return JobGraph.of(parents);
+    }
+
+    private static int[] parents(HeraJob job, Set<Integer> exists) {
+        if (StringUtils.isBlank(job.getDependencies())) {
+            return new int[0];
+        }
+        String[] split = job.getDependencies().split(Constants.COMMA);
+        int[] res = new int[split.length];
+        int size = 0;
+        for (String dependency : split) {
+            if (StringUtils.isBlank(dependency)) {
+                continue;
+            }
+            int parent;
+            try {
+                parent = Integer.parseInt(dependency.trim());
+            } catch (NumberFormatException e) {
+                ErrorLog.error("任务{}的依赖{}不是任务id", job.getId(), dependency);
+                continue;
+            }
+            if (!exists.contains(parent) || contains(res, size, parent)) {
+                continue;
+            }
+            res[size++] = parent;
+        }
+        return size == res.length ? res : Arrays.copyOf(res, size);
+    }
+
+    private static boolean contains(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long getBuildCount() {
+        return buildCount.get();
+    }
+
+    long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    String getStats() {
+        JobGraph current = graph;
+        return "[capacity:" + (current == null ? 0 : current.getCapacity())
+                + ",edges:" + (current == null ? 0 : current.getEdgeCount())
+                + ",patch:" + (current == null ? 0 : current.getPatchSize())
+                + ",build:" + buildCount.get()
+                + ",update:" + updateCount.get() + "]";
+    }
+}
@@ -4,12 +4,19 @@ import com.dfire.common.exception.HeraException;
 import com.dfire.logs.ErrorLog;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.Velocity;
+import org.apache.velocity.context.InternalContextAdapterImpl;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
 
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,7 +38,29 @@ public class RenderHierarchyProperties extends HierarchyProperties {
         }
     }
 
-    static Pattern pt = Pattern.compile("\\$\\{zdt.*?\\}");
+    private static final String YESTERDAY = "${yesterday}";
+
+    /**
+     * 日期宏和${yesterday}一起匹配，一次扫描完成替换
+     */
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{zdt.*?\\}|\\$\\{yesterday\\}");
+
+    /**
+     * 缓存的脚本数、日期宏数上限，超过后清空重建
+     */
+    private static final int MAX_SCRIPTS = 1024;
+
+    private static final int MAX_MACROS = 10000;
+
+    /**
+     * 脚本hash -> 按占位符切分好的脚本
+     */
+    private static final Map<Integer, CompiledScript> SCRIPT_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 日期宏 -> 解析并初始化好的velocity语法树
+     */
+    private static final Map<String, SimpleNode> MACRO_CACHE = new ConcurrentHashMap<>();
 
     public RenderHierarchyProperties(HierarchyProperties properties) {
         super(new HashMap<>());
@@ -48,33 +77,115 @@ public class RenderHierarchyProperties extends HierarchyProperties {
         if (template == null) {
             return null;
         }
-        Matcher matcher = pt.matcher(template);
-        while (matcher.find()) {
-            String m = template.substring(matcher.start(), matcher.end());
-            StringWriter sw = new StringWriter();
+        CompiledScript script = compile(template);
+        if (script.macros.length == 0) {
+            return template;
+        }
+        Date date = dateStr == null ? new Date() : HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN);
+        StringBuilder result = new StringBuilder(template.length());
+        //同一个宏在脚本中多次出现只渲染一次
+        Map<String, String> rendered = new HashMap<>();
+        for (int i = 0; i < script.macros.length; i++) {
+            result.append(script.literals[i]);
+            String macro = script.macros[i];
+            String value = rendered.get(macro);
+            if (value == null) {
+                value = YESTERDAY.equals(macro) ? new HeraDateTool(date).addDay(-1).format("yyyyMMdd") : renderMacro(macro, date);
+                rendered.put(macro, value);
+            }
+            result.append(value);
+        }
+        result.append(script.literals[script.macros.length]);
+        return result.toString();
+    }
+
+    private static String renderMacro(String macro, Date date) throws HeraException {
+        StringWriter sw = new StringWriter();
+        try {
+            VelocityContext context = new VelocityContext();
+            context.put("zdt", new HeraDateTool(date));
+            InternalContextAdapterImpl ica = new InternalContextAdapterImpl(context);
+            ica.pushCurrentTemplateName(macro);
             try {
-                VelocityContext context = new VelocityContext();
-                if (dateStr == null) {
-                    context.put("zdt", new HeraDateTool());
-                } else {
-                    context.put("zdt", new HeraDateTool(HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN)));
-                }
-                Velocity.evaluate(context, sw, "", m);
-                if (m.equals(sw.toString())) {
-                    throw new HeraException("渲染日期失败:" + m);
-                }
-            } catch (Exception e) {
-                throw new HeraException(e);
+                compileMacro(macro).render(ica, sw);
+            } finally {
+                ica.popCurrentTemplateName();
             }
-            template = template.replace(m, sw.toString());
-            matcher = pt.matcher(template);
+            if (macro.equals(sw.toString())) {
+                throw new HeraException("渲染日期失败:" + macro);
+            }
+        } catch (Exception e) {
+            throw new HeraException(e);
         }
-        if (dateStr == null) {
-            template = template.replace("${yesterday}", new HeraDateTool().addDay(-1).format("yyyyMMdd"));
-        } else {
-            template = template.replace("${yesterday}", new HeraDateTool(HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN)).addDay(-1).format("yyyyMMdd"));
+        return sw.toString();
+    }
+
+    /**
+     * 脚本按占位符切分为文本段和占位符，按脚本hash缓存
+     */
+    private static CompiledScript compile(String template) {
+        Integer hash = template.hashCode();
+        CompiledScript script = SCRIPT_CACHE.get(hash);
+        if (script != null && script.template.equals(template)) {
+            return script;
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> macros = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int start = 0;
+        while (matcher.find()) {
+            literals.add(template.substring(start, matcher.start()));
+            macros.add(matcher.group());
+            start = matcher.end();
+        }
+        literals.add(template.substring(start));
+        script = new CompiledScript(template, literals.toArray(new String[0]), macros.toArray(new String[0]));
+        if (SCRIPT_CACHE.size() >= MAX_SCRIPTS) {
+            SCRIPT_CACHE.clear();
+        }
+        SCRIPT_CACHE.put(hash, script);
+        return script;
+    }
+
+    /**
+     * 日期宏只解析一次，语法树初始化后可以被多个线程重复渲染
+     */
+    private static SimpleNode compileMacro(String macro) throws Exception {
+        SimpleNode node = MACRO_CACHE.get(macro);
+        if (node != null) {
+            return node;
+        }
+        node = RuntimeSingleton.parse(new StringReader(macro), macro);
+        InternalContextAdapterImpl ica = new InternalContextAdapterImpl(new VelocityContext());
+        ica.pushCurrentTemplateName(macro);
+        try {
+            node.init(ica, RuntimeSingleton.getRuntimeServices());
+        } finally {
+            ica.popCurrentTemplateName();
+        }
+        if (MACRO_CACHE.size() >= MAX_MACROS) {
+            MACRO_CACHE.clear();
+        }
+        MACRO_CACHE.put(macro, node);
+        return node;
+    }
+
+    private static class CompiledScript {
+
+        private final String template;
+
+        /**
+         * 比占位符多一段
+         */
+        private final String[] literals;
+
+        private final String[] macros;
+
+        CompiledScript(String template, String[] literals, String[] macros) {
+            this.template = template;
+            this.literals = literals;
+            this.macros = macros;
         }
-        return template;
     }
 
     @Override
@@ -36,6 +36,20 @@ public class JobElement {
 
     private Integer costMinute;
 
+    /**
+     * 进入等待队列的时间，用于统计入队到分发的延迟
+     */
+    private long enqueueTime;
+
+    /**
+     * 被worker拒绝后已经以新的元素放回等待队列，执行线程结束时不再移除登记
+     */
+    private boolean requeued;
+
+    /**
+     * 调度任务已经执行的次数，被worker拒绝后放回队列时保留，重新分发后接着计算重试次数
+     */
+    private int runCount;
 
 
     public boolean equals(JobElement jobElement) {
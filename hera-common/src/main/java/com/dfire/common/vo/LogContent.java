@@ -4,15 +4,14 @@ import com.dfire.common.constants.Constants;
 import com.dfire.common.enums.StatusEnum;
 import com.dfire.config.HeraGlobalEnv;
 
-import lombok.Builder;
 import lombok.Data;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.LinkedList;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -24,8 +23,8 @@ public class LogContent {
 
     private int lines;
 
-    private final String CONSOLE = "<b>CONSOLE#</b> ";
-    private final String HERA = "<b>HERA#</b> ";
+    private static final String CONSOLE = "<b>CONSOLE#</b> ";
+    private static final String HERA = "<b>HERA#</b> ";
     private StringBuffer content;
 
     private static final int HEAD_PRINT_COUNT = HeraGlobalEnv.getWebLogHeadCount();
@@ -39,57 +38,86 @@ public class LogContent {
 
     private static final String ERROR = "error";
 
-    private LinkedList<String> tailLog;
+    private static final String FAILED = StatusEnum.FAILED.toString();
 
-    private Lock lock;
+    private static final String[] ERROR_KEYWORDS = {"Exception", "No such file or directory", "command not found", "Permission denied"};
+
+    private static final byte KIND_RAW = 0;
+    private static final byte KIND_CONSOLE = 1;
+    private static final byte KIND_HERA = 2;
+
+    /**
+     * 超过头部行数后的尾部日志，保存原始行，展示时再做html处理
+     */
+    private final TailRing tailLog;
+
+    /**
+     * 已经追加写入数据库的头部日志长度
+     */
+    private int appendedHeadLength;
+
+    /**
+     * 已经追加写入数据库的尾部日志行数
+     */
+    private long appendedTailCount;
 
     public LogContent() {
-        this.tailLog = new LinkedList<>();
         this.content = new StringBuffer();
-        this.lock = new ReentrantLock();
+        this.tailLog = new TailRing(TAIL_PRINT_COUNT);
     }
 
     public LogContent(StringBuffer content) {
         this.content = content;
-        this.tailLog = new LinkedList<>();
-        this.lock = new ReentrantLock();
+        this.tailLog = new TailRing(TAIL_PRINT_COUNT);
+        //已有的日志已经在数据库中
+        this.appendedHeadLength = content.length();
     }
 
+    private String tailLog() {
+        if (lines >= HEAD_PRINT_COUNT) {
+            StringBuilder sb = new StringBuilder();
+            long end = tailLog.count();
+            appendTail(sb, Math.max(0, end - tailLog.capacity()), end, false);
+            return sb.toString();
+        } else {
+            return "";
+        }
+    }
 
     /**
-     * size大小的队列
+     * 把序号在[start, end)之间的尾部日志按展示格式写入sb，已经被覆盖的行跳过
      *
-     * @param log
+     * @param stopAtUnpublished 遇到还没写完的行时是否停止，追加写入时不能跳过，否则这一行再也不会写入
+     * @return 停止处的序号，没有停止时为end
      */
-    private void queuePushLog(String log) {
-        try {
-            lock.lock();
-            tailLog.add(log);
-            if (tailLog.size() >= TAIL_PRINT_COUNT) {
-                tailLog.removeFirst();
+    private long appendTail(StringBuilder sb, long start, long end, boolean stopAtUnpublished) {
+        for (long seq = start; seq < end; seq++) {
+            long mark = tailLog.mark(seq);
+            if (!TailRing.isPublished(mark, seq)) {
+                if (stopAtUnpublished) {
+                    return seq;
+                }
+                continue;
             }
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    private String tailLog() {
-        if (lines >= HEAD_PRINT_COUNT) {
-            StringBuilder sb = new StringBuilder();
-            String[] tailLogs;
-            try {
-                lock.lock();
-                tailLogs = tailLog.toArray(new String[0]);
-            } finally {
-                lock.unlock();
+            String log = tailLog.get(seq, mark);
+            if (log == null) {
+                continue;
             }
-            for (String log : tailLogs) {
-                sb.append(log);
+            switch (TailRing.kind(mark)) {
+                case KIND_CONSOLE:
+                    sb.append(CONSOLE);
+                    appendColorMsg(sb, log);
+                    break;
+                case KIND_HERA:
+                    sb.append(HERA).append(log);
+                    break;
+                default:
+                    sb.append(log);
+                    break;
             }
-            return sb.toString();
-        } else {
-            return "";
+            sb.append(Constants.LOG_SPLIT);
         }
+        return end;
     }
 
 
@@ -99,10 +127,12 @@ public class LogContent {
             return;
         }
         if (lines < HEAD_PRINT_COUNT) {
-            content.append(CONSOLE).append(redColorMsg(log)).append(Constants.LOG_SPLIT);
+            StringBuilder sb = new StringBuilder(CONSOLE.length() + log.length() + 48).append(CONSOLE);
+            appendColorMsg(sb, log);
+            content.append(sb.append(Constants.LOG_SPLIT));
             appendLimitLog();
         } else {
-            queuePushLog(CONSOLE + redColorMsg(log) + Constants.LOG_SPLIT);
+            tailLog.add(log, KIND_CONSOLE);
         }
     }
 
@@ -114,7 +144,7 @@ public class LogContent {
                 content.append(HERA).append(s).append(Constants.LOG_SPLIT);
                 appendLimitLog();
             } else {
-                queuePushLog(HERA + s + Constants.LOG_SPLIT);
+                tailLog.add(s, KIND_HERA);
             }
 		}
     }
@@ -124,7 +154,7 @@ public class LogContent {
             content.append(log).append(Constants.LOG_SPLIT);
             appendLimitLog();
         } else {
-            queuePushLog(log + Constants.LOG_SPLIT);
+            tailLog.add(log, KIND_RAW);
         }
     }
 
@@ -156,23 +186,72 @@ public class LogContent {
         return content.toString() + tailLog();
     }
 
+    /**
+     * 自上次追加写入以来新增的日志，写入成功后调用{@link #commitAppend(Append)}
+     *
+     * @return 新增的日志，没有新增时返回null
+     */
+    public Append nextAppend() {
+        int headLength = content.length();
+        StringBuilder sb = new StringBuilder();
+        if (headLength > appendedHeadLength) {
+            sb.append(content, appendedHeadLength, headLength);
+        }
+        long count = tailLog.count();
+        long start = appendedTailCount;
+        if (count - start > tailLog.capacity()) {
+            start = count - tailLog.capacity();
+            sb.append(HERA).append("省略").append(start - appendedTailCount).append("行日志").append(Constants.LOG_SPLIT);
+        }
+        long end = appendTail(sb, start, count, true);
+        if (sb.length() == 0) {
+            return null;
+        }
+        return new Append(sb.toString(), headLength, end);
+    }
+
+    public void commitAppend(Append append) {
+        appendedHeadLength = append.headLength;
+        appendedTailCount = append.tailCount;
+    }
 
     public String getMailContent() {
         return getContent();
     }
 
-    private String redColorMsg(String log) {
-        if (log.toLowerCase().contains(ERROR)
-                || log.toLowerCase().contains(StatusEnum.FAILED.toString())
-                || log.contains("Exception")
-                || log.contains("NullPointException")
-                || log.contains("No such file or directory")
-                || log.contains("command not found")
-                || log.contains("Permission denied")) {
-            return "<font style=\"color:red\">" + log + "</font>";
+    private void appendColorMsg(StringBuilder sb, String log) {
+        if (isErrorMsg(log)) {
+            sb.append("<font style=\"color:red\">").append(log).append("</font>");
         } else {
-            return log;
+            sb.append(log);
+        }
+    }
+
+    /**
+     * 不区分大小写的关键字匹配不生成新的字符串
+     */
+    static boolean isErrorMsg(String log) {
+        if (containsIgnoreCase(log, ERROR) || containsIgnoreCase(log, FAILED)) {
+            return true;
+        }
+        for (String keyword : ERROR_KEYWORDS) {
+            if (log.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsIgnoreCase(String log, String keyword) {
+        int max = log.length() - keyword.length();
+        char first = keyword.charAt(0);
+        for (int i = 0; i <= max; i++) {
+            char c = log.charAt(i);
+            if ((c == first || Character.toLowerCase(c) == first) && log.regionMatches(true, i + 1, keyword, 1, keyword.length() - 1)) {
+                return true;
+            }
         }
+        return false;
     }
 
 
@@ -180,4 +259,102 @@ public class LogContent {
         return lines;
     }
 
+    /**
+     * 一次追加写入的内容和写入后的位置
+     */
+    public static class Append {
+
+        private final String content;
+
+        private final int headLength;
+
+        private final long tailCount;
+
+        Append(String content, int headLength, long tailCount) {
+            this.content = content;
+            this.headLength = headLength;
+            this.tailCount = tailCount;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    /**
+     * 预分配的尾部日志环形队列，写入不加锁，只保留最近capacity行。
+     * stdout、stderr两个读取线程会同时写入，每行通过递增序号占位，
+     * 槽位标记中同时保存序号和行类型，读取时校验标记，还没写完的行由调用方决定跳过或者停止，已经被覆盖的行直接跳过
+     */
+    static final class TailRing {
+
+        /**
+         * 标记低2位的行类型，表示槽位正在写入
+         */
+        private static final long WRITING = 3;
+
+        private final int capacity;
+
+        private final AtomicReferenceArray<String> logs;
+
+        /**
+         * 槽位标记：(日志的序号+1) << 2 | 行类型，0表示还没有写入
+         */
+        private final AtomicLongArray published;
+
+        private final AtomicLong count = new AtomicLong(0);
+
+        TailRing(int capacity) {
+            this.capacity = Math.max(capacity, 1);
+            this.logs = new AtomicReferenceArray<>(this.capacity);
+            this.published = new AtomicLongArray(this.capacity);
+        }
+
+        void add(String log, byte kind) {
+            long seq = count.getAndIncrement();
+            int index = (int) (seq % capacity);
+            //先标记为写入中，读到旧行的线程再次校验标记时会发现已被覆盖
+            published.set(index, (seq + 1) << 2 | WRITING);
+            logs.set(index, log);
+            published.lazySet(index, (seq + 1) << 2 | kind);
+        }
+
+        long mark(long seq) {
+            return published.get((int) (seq % capacity));
+        }
+
+        /**
+         * @return 序号为seq的行是否已经写完，已被覆盖的行也算写完
+         */
+        static boolean isPublished(long mark, long seq) {
+            long markSeq = (mark >>> 2) - 1;
+            return markSeq > seq || (markSeq == seq && (mark & WRITING) != WRITING);
+        }
+
+        static byte kind(long mark) {
+            return (byte) (mark & WRITING);
+        }
+
+        /**
+         * @param mark 读取前的槽位标记
+         * @return 序号为seq的行，已被覆盖时返回null
+         */
+        String get(long seq, long mark) {
+            int index = (int) (seq % capacity);
+            if (mark != ((seq + 1) << 2 | kind(mark)) || kind(mark) == WRITING) {
+                return null;
+            }
+            String log = logs.get(index);
+            return published.get(index) == mark ? log : null;
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        int capacity() {
+            return capacity;
+        }
+    }
+
 }
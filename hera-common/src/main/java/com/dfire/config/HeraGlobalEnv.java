@@ -28,9 +28,21 @@ public class HeraGlobalEnv {
     @Getter
     private static long requestTimeout = 60 * 1000L;
 
+    @Getter
+    private static long cacheProbeInterval = 1000L;
+
     @Getter
     private static long channelTimeout = 1000L;
 
+    @Getter
+    private static int nettyIoThreads;
+
+    @Getter
+    private static boolean nativeEpoll = true;
+
+    @Getter
+    private static int actionParallelism;
+
     @Getter
     private static int jobCacheDay;
 
@@ -54,8 +66,14 @@ public class HeraGlobalEnv {
     @Getter
     private static Float systemMemUsed;
     @Getter
+    private static int workerSlots;
+    @Getter
+    private static String slotWeights = "shell:1,hive:2,spark:2,spark2:2";
+    @Getter
     private static Integer scanRate;
     @Getter
+    private static String triggerEngine = "wheel";
+    @Getter
     private static Integer connectPort;
     @Getter
     private static String workDir;
@@ -63,6 +81,9 @@ public class HeraGlobalEnv {
     private static Integer maxParallelNum;
     @Getter
     private static Integer heartBeat;
+
+    @Getter
+    private static int heartBeatFullInterval = 30;
     @Getter
     private static String admin;
     @Getter
@@ -240,6 +261,11 @@ public class HeraGlobalEnv {
         HeraGlobalEnv.scanRate = scanRate;
     }
 
+    @Value("${hera.triggerEngine:wheel}")
+    public void setTriggerEngine(String triggerEngine) {
+        HeraGlobalEnv.triggerEngine = triggerEngine;
+    }
+
     @Value("${hera.connectPort}")
     public void setConnectPort(Integer connectPort) {
         HeraGlobalEnv.connectPort = connectPort;
@@ -261,6 +287,11 @@ public class HeraGlobalEnv {
         HeraGlobalEnv.maxParallelNum = maxParallelNum;
     }
 
+    @Value("${hera.cacheProbeInterval:1000}")
+    public void setCacheProbeInterval(long cacheProbeInterval) {
+        HeraGlobalEnv.cacheProbeInterval = cacheProbeInterval;
+    }
+
     @Value("${hera.jobCacheDay}")
     public void setJobCacheDay(int jobCacheDay) {
         HeraGlobalEnv.jobCacheDay = jobCacheDay;
@@ -282,6 +313,11 @@ public class HeraGlobalEnv {
         HeraGlobalEnv.heartBeat = heartBeat;
     }
 
+    @Value("${hera.heartBeatFullInterval:30}")
+    public void setHeartBeatFullInterval(int heartBeatFullInterval) {
+        HeraGlobalEnv.heartBeatFullInterval = heartBeatFullInterval;
+    }
+
     @Value("${hera.perTaskUseMem}")
     public void setPerTaskUseMem(Float perTaskUseMem) {
         HeraGlobalEnv.perTaskUseMem = perTaskUseMem;
@@ -292,6 +328,16 @@ public class HeraGlobalEnv {
         HeraGlobalEnv.systemMemUsed = systemMemUsed;
     }
 
+    @Value("${hera.workerSlots:0}")
+    public void setWorkerSlots(int workerSlots) {
+        HeraGlobalEnv.workerSlots = workerSlots;
+    }
+
+    @Value("${hera.slotWeights:shell:1,hive:2,spark:2,spark2:2}")
+    public void setSlotWeights(String slotWeights) {
+        HeraGlobalEnv.slotWeights = slotWeights;
+    }
+
     @Value("${hera.maxCpuLoadPerCore}")
     public void setMaxCpuLoadPerCore(Float maxCpuLoadPerCore) {
         HeraGlobalEnv.maxCpuLoadPerCore = maxCpuLoadPerCore;
@@ -317,6 +363,21 @@ public class HeraGlobalEnv {
         HeraGlobalEnv.channelTimeout = channelTimeout;
     }
 
+    @Value("${hera.nettyIoThreads:0}")
+    public void setNettyIoThreads(int nettyIoThreads) {
+        HeraGlobalEnv.nettyIoThreads = nettyIoThreads;
+    }
+
+    @Value("${hera.actionParallelism:0}")
+    public void setActionParallelism(int actionParallelism) {
+        HeraGlobalEnv.actionParallelism = actionParallelism;
+    }
+
+    @Value("${hera.nativeEpoll:true}")
+    public void setNativeEpoll(boolean nativeEpoll) {
+        HeraGlobalEnv.nativeEpoll = nativeEpoll;
+    }
+
     @Value("${spark.address}")
     public void setSparkAddress(String sparkAddress) {
         HeraGlobalEnv.sparkAddress = sparkAddress;
@@ -0,0 +1,387 @@
+package com.dfire.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * @desc 任务依赖图：以任务id为下标的CSR(压缩邻接)数组，上游、下游各一份。
+ * 图是只读快照，修改依赖时生成新快照：改动过的点的邻接表放在补丁里，补丁多了再整体压缩成新的CSR
+ */
+public class JobGraph {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * 补丁数超过该值或容量的1/16时压缩
+     */
+    private static final int MIN_COMPACT = 1024;
+
+    private static final ThreadLocal<Visit> VISIT = ThreadLocal.withInitial(Visit::new);
+
+    /**
+     * 下标容量，为最大任务id+1
+     */
+    private final int capacity;
+
+    /**
+     * upTarget[upOffset[id], upOffset[id + 1]) 为id依赖的任务
+     */
+    private final int[] upOffset;
+
+    private final int[] upTarget;
+
+    /**
+     * downTarget[downOffset[id], downOffset[id + 1]) 为依赖id的任务
+     */
+    private final int[] downOffset;
+
+    private final int[] downTarget;
+
+    /**
+     * 压缩后改动过的点，优先于CSR
+     */
+    private final Map<Integer, int[]> upPatch;
+
+    private final Map<Integer, int[]> downPatch;
+
+    private final int edgeCount;
+
+    private JobGraph(int capacity, int[] upOffset, int[] upTarget, int[] downOffset, int[] downTarget,
+                     Map<Integer, int[]> upPatch, Map<Integer, int[]> downPatch, int edgeCount) {
+        this.capacity = capacity;
+        this.upOffset = upOffset;
+        this.upTarget = upTarget;
+        this.downOffset = downOffset;
+        this.downTarget = downTarget;
+        this.upPatch = upPatch;
+        this.downPatch = downPatch;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * @param parents 任务id -> 依赖的任务id，调用方保证依赖的任务存在且不重复
+     * @return 依赖图
+     */
+    public static JobGraph of(Map<Integer, int[]> parents) {
+        int capacity = 0;
+        for (Map.Entry<Integer, int[]> entry : parents.entrySet()) {
+            capacity = Math.max(capacity, entry.getKey() + 1);
+            for (int parent : entry.getValue()) {
+                capacity = Math.max(capacity, parent + 1);
+            }
+        }
+        return compact(capacity, parents::get);
+    }
+
+    private static JobGraph compact(int capacity, IntFunction<int[]> parentsOf) {
+        int[] upOffset = new int[capacity + 1];
+        int[] downOffset = new int[capacity + 1];
+        for (int id = 0; id < capacity; id++) {
+            int[] parents = parentsOf.apply(id);
+            if (parents != null) {
+                upOffset[id + 1] = parents.length;
+                for (int parent : parents) {
+                    downOffset[parent + 1]++;
+                }
+            }
+        }
+        for (int id = 0; id < capacity; id++) {
+            upOffset[id + 1] += upOffset[id];
+            downOffset[id + 1] += downOffset[id];
+        }
+        int edgeCount = upOffset[capacity];
+        int[] upTarget = new int[edgeCount];
+        int[] downTarget = new int[edgeCount];
+        int[] downFill = Arrays.copyOf(downOffset, capacity);
+        for (int id = 0; id < capacity; id++) {
+            int[] parents = parentsOf.apply(id);
+            if (parents != null) {
+                System.arraycopy(parents, 0, upTarget, upOffset[id], parents.length);
+                for (int parent : parents) {
+                    downTarget[downFill[parent]++] = id;
+                }
+            }
+        }
+        return new JobGraph(capacity, upOffset, upTarget, downOffset, downTarget,
+                Collections.emptyMap(), Collections.emptyMap(), edgeCount);
+    }
+
+    /**
+     * 修改部分任务的依赖，生成新的快照，当前快照不变
+     *
+     * @param changed 任务id -> 新的依赖任务id，为null表示任务已删除
+     * @return 新的依赖图
+     */
+    public JobGraph update(Map<Integer, int[]> changed) {
+        Map<Integer, int[]> up = new HashMap<>(upPatch);
+        Map<Integer, int[]> down = new HashMap<>(downPatch);
+        int newCapacity = capacity;
+        int newEdgeCount = edgeCount;
+        boolean modified = false;
+        for (Map.Entry<Integer, int[]> entry : changed.entrySet()) {
+            int id = entry.getKey();
+            int[] next = entry.getValue() == null ? EMPTY : entry.getValue();
+            int[] old = neighbours(up, false, id);
+            if (entry.getValue() != null && Arrays.equals(old, next)) {
+                continue;
+            }
+            modified = true;
+            up.put(id, next);
+            newEdgeCount += next.length - old.length;
+            newCapacity = Math.max(newCapacity, id + 1);
+            for (int parent : old) {
+                if (!contains(next, parent)) {
+                    down.put(parent, remove(neighbours(down, true, parent), id));
+                }
+            }
+            for (int parent : next) {
+                newCapacity = Math.max(newCapacity, parent + 1);
+                if (!contains(old, parent)) {
+                    down.put(parent, add(neighbours(down, true, parent), id));
+                }
+            }
+            if (entry.getValue() == null) {
+                for (int child : neighbours(down, true, id)) {
+                    up.put(child, remove(neighbours(up, false, child), id));
+                    newEdgeCount--;
+                }
+                down.put(id, EMPTY);
+            }
+        }
+        if (!modified) {
+            return this;
+        }
+        JobGraph graph = new JobGraph(newCapacity, upOffset, upTarget, downOffset, downTarget, up, down, newEdgeCount);
+        if (up.size() + down.size() > Math.max(MIN_COMPACT, newCapacity >> 4)) {
+            return compact(newCapacity, graph::parents);
+        }
+        return graph;
+    }
+
+    /**
+     * @return 任务依赖的任务id
+     */
+    public int[] parents(int id) {
+        return neighbours(upPatch, false, id);
+    }
+
+    /**
+     * @return 依赖该任务的任务id
+     */
+    public int[] children(int id) {
+        return neighbours(downPatch, true, id);
+    }
+
+    /**
+     * 广度优先遍历所有上游或下游任务
+     *
+     * @param start 起点任务id
+     * @param down  true:下游 false:上游
+     * @return 按层次排列的任务id，不包含起点
+     */
+    public List<Integer> traverse(int start, boolean down) {
+        if (!inRange(start)) {
+            return new ArrayList<>(0);
+        }
+        Visit visit = VISIT.get();
+        int epoch = visit.begin(capacity);
+        int[] stamp = visit.stamp, queue = visit.queue;
+        int head = 0, tail = 0;
+        stamp[start] = epoch;
+        queue[tail++] = start;
+        while (head < tail) {
+            int node = queue[head++];
+            int[] patch = patch(down, node);
+            int[] target = patch != null ? patch : (down ? downTarget : upTarget);
+            int from = patch != null ? 0 : offset(down, node);
+            int to = patch != null ? patch.length : offset(down, node + 1);
+            for (int i = from; i < to; i++) {
+                int next = target[i];
+                if (stamp[next] != epoch) {
+                    stamp[next] = epoch;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        List<Integer> res = new ArrayList<>(tail - 1);
+        for (int i = 1; i < tail; i++) {
+            res.add(queue[i]);
+        }
+        return res;
+    }
+
+    /**
+     * @param from 起点任务id
+     * @param to   终点任务id
+     * @param down true:沿下游找 false:沿上游找
+     * @return from能否到达to
+     */
+    public boolean reachable(int from, int to, boolean down) {
+        return search(from, new int[]{to}, down, false) != null;
+    }
+
+    /**
+     * 检查把任务的依赖改为parents后是否成环：任意一个依赖是该任务自身或者在该任务的下游即成环。
+     * 搜索时不经过该任务原来的依赖
+     *
+     * @param id      任务id
+     * @param parents 新的依赖任务id
+     * @return 环上的任务id，从该任务出发沿下游回到该任务；不成环时为null
+     */
+    public List<Integer> findLoop(int id, int[] parents) {
+        if (contains(parents, id)) {
+            return Arrays.asList(id, id);
+        }
+        List<Integer> path = search(id, parents, true, true);
+        if (path != null) {
+            path.add(id);
+        }
+        return path;
+    }
+
+    /**
+     * @return 从from到targets中任一点的路径(包含两端)，不可达时为null
+     */
+    private List<Integer> search(int from, int[] targets, boolean down, boolean withPath) {
+        if (!inRange(from) || targets.length == 0) {
+            return null;
+        }
+        Visit visit = VISIT.get();
+        int epoch = visit.begin(capacity);
+        int[] stamp = visit.stamp, queue = visit.queue, prev = visit.prev;
+        int head = 0, tail = 0;
+        stamp[from] = epoch;
+        queue[tail++] = from;
+        while (head < tail) {
+            int node = queue[head++];
+            int[] patch = patch(down, node);
+            int[] target = patch != null ? patch : (down ? downTarget : upTarget);
+            int start = patch != null ? 0 : offset(down, node);
+            int end = patch != null ? patch.length : offset(down, node + 1);
+            for (int i = start; i < end; i++) {
+                int next = target[i];
+                if (stamp[next] == epoch) {
+                    continue;
+                }
+                stamp[next] = epoch;
+                prev[next] = node;
+                if (contains(targets, next)) {
+                    List<Integer> path = new ArrayList<>();
+                    if (withPath) {
+                        for (int cur = next; cur != from; cur = prev[cur]) {
+                            path.add(cur);
+                        }
+                        path.add(from);
+                        Collections.reverse(path);
+                    }
+                    return path;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return null;
+    }
+
+    private boolean inRange(int id) {
+        return id >= 0 && id < capacity;
+    }
+
+    private int[] patch(boolean down, int id) {
+        Map<Integer, int[]> patch = down ? downPatch : upPatch;
+        return patch.isEmpty() ? null : patch.get(id);
+    }
+
+    /**
+     * 压缩之后新增的任务不在CSR里
+     */
+    private int offset(boolean down, int index) {
+        int[] offset = down ? downOffset : upOffset;
+        return offset[Math.min(index, offset.length - 1)];
+    }
+
+    private int[] neighbours(Map<Integer, int[]> patch, boolean down, int id) {
+        int[] res = patch.isEmpty() ? null : patch.get(id);
+        if (res != null) {
+            return res;
+        }
+        if (id < 0) {
+            return EMPTY;
+        }
+        int from = offset(down, id), to = offset(down, id + 1);
+        return from == to ? EMPTY : Arrays.copyOfRange(down ? downTarget : upTarget, from, to);
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int item : array) {
+            if (item == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] add(int[] array, int value) {
+        int[] res = Arrays.copyOf(array, array.length + 1);
+        res[array.length] = value;
+        return res;
+    }
+
+    private static int[] remove(int[] array, int value) {
+        int[] res = new int[array.length];
+        int size = 0;
+        for (int item : array) {
+            if (item != value) {
+                res[size++] = item;
+            }
+        }
+        return size == res.length ? res : Arrays.copyOf(res, size);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @return 还没压缩进CSR的改动点数
+     */
+    public int getPatchSize() {
+        return upPatch.size() + downPatch.size();
+    }
+
+    /**
+     * 每个线程复用的遍历数组，用递增的epoch代替每次清空访问标记
+     */
+    private static class Visit {
+
+        private int[] stamp = EMPTY;
+
+        private int[] prev = EMPTY;
+
+        private int[] queue = EMPTY;
+
+        private int epoch;
+
+        int begin(int capacity) {
+            if (stamp.length < capacity) {
+                stamp = new int[capacity];
+                prev = new int[capacity];
+                queue = new int[capacity];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+    }
+}
@@ -12,6 +12,10 @@ public class HeartLog {
         log.info(msg);
     }
 
+    public static boolean isDebugEnabled() {
+        return log.isDebugEnabled();
+    }
+
     public static void debug(String msg) {
         log.debug(msg);
     }
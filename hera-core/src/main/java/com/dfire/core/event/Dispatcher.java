@@ -1,24 +1,24 @@
 package com.dfire.core.event;
 
+import com.dfire.common.constants.Constants;
+import com.dfire.common.util.ActionUtil;
 import com.dfire.core.event.base.AbstractObservable;
 import com.dfire.core.event.base.MvcEvent;
 import com.dfire.core.event.handler.AbstractHandler;
 import com.dfire.core.event.handler.JobHandler;
 import com.dfire.core.event.listenter.AbstractListener;
-import com.dfire.event.ApplicationEvent;
-import com.dfire.event.EventType;
+import com.dfire.event.*;
 import com.dfire.logs.ErrorLog;
-import com.google.common.collect.Lists;
-import lombok.Getter;
+import org.apache.commons.lang.StringUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
  * @time: Created in 11:00 2018/1/4
- * @desc hera中的任务事件observer, 接受事件，全局广播dispatch
+ * @desc hera中的任务事件observer, 接受事件，按actionId/jobId/依赖关系索引路由dispatch
  */
 public class Dispatcher extends AbstractObservable {
 
@@ -26,21 +26,128 @@ public class Dispatcher extends AbstractObservable {
 
     public static final EventType afterDispatch = new EventType();
 
-    @Getter
-    List<AbstractHandler> jobHandlers;
+    /**
+     * actionId -> handler
+     */
+    private final Map<String, JobHandler> actionHandlers = new ConcurrentHashMap<>();
+
+    /**
+     * jobId -> 该任务所有版本的handler
+     */
+    private final Map<Integer, Set<JobHandler>> jobIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 被依赖的actionId -> 依赖它的下游handler
+     */
+    private final Map<String, Set<JobHandler>> dependentIndex = new ConcurrentHashMap<>();
+
+    /**
+     * actionId -> 已经建立索引的依赖actionId，重建索引时用来摘除旧的依赖
+     */
+    private final Map<String, Set<String>> handlerDependencies = new ConcurrentHashMap<>();
 
     public Dispatcher() {
-        jobHandlers = new ArrayList<>();
+    }
+
+    /**
+     * 所有handler的快照
+     *
+     * @return handler列表
+     */
+    public List<AbstractHandler> getJobHandlers() {
+        return new ArrayList<>(actionHandlers.values());
+    }
+
+    public JobHandler getJobHandler(String actionId) {
+        return actionHandlers.get(actionId);
+    }
+
+    /**
+     * 某个任务所有版本的handler
+     *
+     * @param jobId 任务id
+     * @return handler列表
+     */
+    public List<JobHandler> getJobHandlers(Integer jobId) {
+        Set<JobHandler> handlers = jobIndex.get(jobId);
+        if (handlers == null) {
+            return new ArrayList<>(0);
+        }
+        return new ArrayList<>(handlers);
     }
 
     public void addJobHandler(JobHandler jobHandler) {
-        if (!jobHandlers.contains(jobHandler)) {
-            jobHandlers.add(jobHandler);
+        addJobHandler(jobHandler, null);
+    }
+
+    /**
+     * 添加handler，同时建立依赖索引
+     *
+     * @param jobHandler   handler
+     * @param dependencies 版本依赖的actionId，逗号分隔，为空时在handler加载版本信息后再建立索引
+     */
+    public void addJobHandler(JobHandler jobHandler, String dependencies) {
+        String actionId = jobHandler.getActionId();
+        if (actionHandlers.putIfAbsent(actionId, jobHandler) != null) {
+            return;
+        }
+        Integer jobId = ActionUtil.getJobId(actionId);
+        if (jobId != null) {
+            jobIndex.computeIfAbsent(jobId, key -> ConcurrentHashMap.newKeySet()).add(jobHandler);
+        }
+        if (StringUtils.isNotBlank(dependencies)) {
+            updateDependencies(jobHandler, Arrays.asList(dependencies.split(Constants.COMMA)));
         }
     }
 
     public void removeJobHandler(JobHandler jobHandler) {
-        jobHandlers.remove(jobHandler);
+        String actionId = jobHandler.getActionId();
+        if (actionHandlers.remove(actionId) == null) {
+            return;
+        }
+        Integer jobId = ActionUtil.getJobId(actionId);
+        if (jobId != null) {
+            jobIndex.computeIfPresent(jobId, (key, handlers) -> {
+                handlers.remove(jobHandler);
+                return handlers.isEmpty() ? null : handlers;
+            });
+        }
+        unIndexDependencies(jobHandler, handlerDependencies.remove(actionId));
+    }
+
+    /**
+     * 版本依赖变化时重建该handler的下游索引
+     *
+     * @param jobHandler   handler
+     * @param dependencies 最新的依赖actionId
+     */
+    public void updateDependencies(JobHandler jobHandler, Collection<String> dependencies) {
+        String actionId = jobHandler.getActionId();
+        if (!actionHandlers.containsKey(actionId)) {
+            return;
+        }
+        Set<String> newDependencies = dependencies == null ? new HashSet<>(0) : new HashSet<>(dependencies);
+        Set<String> oldDependencies = handlerDependencies.put(actionId, newDependencies);
+        if (oldDependencies != null) {
+            Set<String> removed = new HashSet<>(oldDependencies);
+            removed.removeAll(newDependencies);
+            unIndexDependencies(jobHandler, removed);
+        }
+        for (String dependency : newDependencies) {
+            dependentIndex.computeIfAbsent(dependency, key -> ConcurrentHashMap.newKeySet()).add(jobHandler);
+        }
+    }
+
+    private void unIndexDependencies(JobHandler jobHandler, Set<String> dependencies) {
+        if (dependencies == null) {
+            return;
+        }
+        for (String dependency : dependencies) {
+            dependentIndex.computeIfPresent(dependency, (key, handlers) -> {
+                handlers.remove(jobHandler);
+                return handlers.isEmpty() ? null : handlers;
+            });
+        }
     }
 
     public void addDispatcherListener(AbstractListener listener) {
@@ -67,7 +174,20 @@ public class Dispatcher extends AbstractObservable {
     }
 
     /**
-     * 事件广播，每次任务状态变化，触发响应事件，全局广播，自动调度successEvent,触发依赖调度一些依赖更新
+     * 批量启动时不向每个handler投递初始化事件，只经过监听器判断初始化是否被拦截
+     *
+     * @return 是否继续初始化
+     */
+    public boolean beforeInitialize() {
+        ApplicationEvent applicationEvent = new ApplicationEvent(Events.Initialize);
+        MvcEvent mvcEvent = new MvcEvent(this, applicationEvent);
+        mvcEvent.setApplicationEvent(applicationEvent);
+        return fireEvent(beforeDispatch, mvcEvent);
+    }
+
+    /**
+     * 事件分发，每次任务状态变化，触发响应事件，只投递给关心该事件的handler：
+     * successEvent投递给直接下游，调度/漏跑/失败事件投递给对应版本，任务更新投递给该任务的所有版本，其它事件全局广播
      *
      * @param applicationEvent
      */
@@ -76,8 +196,7 @@ public class Dispatcher extends AbstractObservable {
             MvcEvent mvcEvent = new MvcEvent(this, applicationEvent);
             mvcEvent.setApplicationEvent(applicationEvent);
             if (fireEvent(beforeDispatch, mvcEvent)) {
-                List<AbstractHandler> jobHandlersCopy = Lists.newArrayList(jobHandlers);
-                for (AbstractHandler jobHandler : jobHandlersCopy) {
+                for (JobHandler jobHandler : route(applicationEvent)) {
                     try {
                         if (jobHandler.canHandle(applicationEvent)) {
                             if (!jobHandler.isInitialized()) {
@@ -86,7 +205,7 @@ public class Dispatcher extends AbstractObservable {
                             jobHandler.handleEvent(applicationEvent);
                         }
                     } catch (Exception e) {
-                        ErrorLog.error(((JobHandler) jobHandler).getActionId() + "广播异常", e);
+                        ErrorLog.error(jobHandler.getActionId() + "广播异常", e);
                     }
                 }
                 fireEvent(afterDispatch, mvcEvent);
@@ -97,4 +216,53 @@ public class Dispatcher extends AbstractObservable {
 
     }
 
+    /**
+     * 根据事件类型找到需要处理该事件的handler
+     *
+     * @param event 事件
+     * @return handler快照
+     */
+    private List<JobHandler> route(ApplicationEvent event) {
+        if (event instanceof HeraJobSuccessEvent) {
+            return snapshot(dependentIndex.get(((HeraJobSuccessEvent) event).getJobId()));
+        }
+        if (event instanceof HeraScheduleTriggerEvent) {
+            return single(((HeraScheduleTriggerEvent) event).getJobId());
+        }
+        if (event instanceof HeraJobLostEvent) {
+            return single(((HeraJobLostEvent) event).getJobId());
+        }
+        if (event instanceof HeraJobFailedEvent) {
+            return single(((HeraJobFailedEvent) event).getActionId());
+        }
+        if (event instanceof HeraJobMaintenanceEvent) {
+            HeraJobMaintenanceEvent maintenanceEvent = (HeraJobMaintenanceEvent) event;
+            if (maintenanceEvent.getType() == Events.UpdateActions) {
+                return single(maintenanceEvent.getId());
+            }
+            if (maintenanceEvent.getType() == Events.UpdateJob && StringUtils.isNumeric(maintenanceEvent.getId())) {
+                return snapshot(jobIndex.get(Integer.parseInt(maintenanceEvent.getId())));
+            }
+        }
+        if (event instanceof HeraDebugSuccessEvent || event instanceof HeraDebugFailEvent) {
+            return new ArrayList<>(0);
+        }
+        return new ArrayList<>(actionHandlers.values());
+    }
+
+    private List<JobHandler> single(String actionId) {
+        JobHandler jobHandler = actionId == null ? null : actionHandlers.get(actionId);
+        if (jobHandler == null) {
+            return new ArrayList<>(0);
+        }
+        return Collections.singletonList(jobHandler);
+    }
+
+    private List<JobHandler> snapshot(Set<JobHandler> handlers) {
+        if (handlers == null) {
+            return new ArrayList<>(0);
+        }
+        return new ArrayList<>(handlers);
+    }
+
 }
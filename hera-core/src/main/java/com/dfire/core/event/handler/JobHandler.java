@@ -1,7 +1,6 @@
 package com.dfire.core.event.handler;
 
 import com.alibaba.fastjson.JSONObject;
-import com.dfire.common.constants.Constants;
 import com.dfire.common.constants.LogConstant;
 import com.dfire.common.entity.HeraAction;
 import com.dfire.common.entity.HeraJob;
@@ -19,12 +18,10 @@ import com.dfire.common.service.HeraUserService;
 import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.common.vo.JobStatus;
-import com.dfire.core.event.Dispatcher;
 import com.dfire.core.job.CancelHadoopJob;
 import com.dfire.core.job.JobContext;
 import com.dfire.core.netty.master.Master;
 import com.dfire.core.netty.master.MasterContext;
-import com.dfire.core.quartz.HeraQuartzJob;
 import com.dfire.event.*;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.ScheduleLog;
@@ -32,9 +29,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import org.apache.commons.lang.StringUtils;
-import org.quartz.*;
+import org.quartz.SchedulerException;
 
 import java.util.Date;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -109,45 +107,24 @@ public class JobHandler extends AbstractHandler {
 
         HeraAction heraAction = heraJobActionService.findById(actionId);
         if (heraAction != null) {
-            //对版本表中处于running状态的任务进行重试
-            if (StatusEnum.RUNNING.toString().equals(heraAction.getStatus())) {
-                ScheduleLog.warn("actionId = " + actionId + " 处于RUNNING状态，说明该job状态丢失，立即进行重试操作。。。");
-                //有历史版本
-                if (heraAction.getHistoryId() != null) {
-                    HeraJobHistory jobHistory = jobHistoryService.findById(heraAction.getHistoryId());
-                    if (jobHistory == null) {
-                        return;
-                    }
-                    // 搜索上一次运行的日志，从日志中提取jobId 进行kill
-                    if (jobHistory.getStatus() == null || !jobHistory.getStatus().equals(StatusEnum.SUCCESS.toString())) {
-                        try {
-                            JobContext tmp = JobContext.getTempJobContext(JobContext.MANUAL_RUN);
-                            tmp.setHeraJobHistory(BeanConvertUtils.convert(jobHistory));
-                            new CancelHadoopJob(tmp).run();
-                            startNewJob(BeanConvertUtils.transform(heraAction), LogConstant.SERVER_START_JOB_LOG);
-                        } catch (Exception e) {
-                            ErrorLog.error("取消任务异常", e);
-                        }
-                    }
-                    jobHistory.setStatus(StatusEnum.FAILED.toString());
-                    jobHistory.setIllustrate("任务历史丢失");
-                    jobHistory.setEndTime(new Date());
-                    jobHistoryService.update(jobHistory);
-                } else {
-                    startNewJob(BeanConvertUtils.transform(heraAction), LogConstant.SERVER_START_JOB_LOG);
-                }
+            HeraJobHistory jobHistory = null;
+            if (StatusEnum.RUNNING.toString().equals(heraAction.getStatus()) && heraAction.getHistoryId() != null) {
+                jobHistory = jobHistoryService.findById(heraAction.getHistoryId());
+            }
+            if (!recoverRunning(heraAction, jobHistory)) {
+                return;
             }
         }
 
         /**
-         * 如果是定时任务，启动定时程序,独立调度任务，创建quartz调度
+         * 如果是定时任务，启动定时程序,独立调度任务，注册定时触发
          *
          */
         HeraActionVo heraActionVo = cache.getHeraActionVo();
-        boolean isSchedule = heraActionVo.getAuto() && Objects.equals(heraActionVo.getScheduleType(), JobScheduleTypeEnum.Independent);
-        if (isSchedule) {
+        refreshRoute(heraActionVo);
+        if (isSchedule(heraActionVo)) {
             try {
-                createScheduleJob(masterContext.getDispatcher(), heraActionVo);
+                createScheduleJob(heraActionVo);
             } catch (Exception e) {
                 if (e instanceof SchedulerException) {
                     heraActionVo.setAuto(false);
@@ -158,6 +135,64 @@ public class JobHandler extends AbstractHandler {
         }
     }
 
+    /**
+     * 批量启动时的初始化，版本和历史记录已经批量查出，定时调度收集到triggers中统一注册
+     *
+     * @param heraAction 版本
+     * @param jobHistory RUNNING版本的历史记录
+     * @param triggers   需要注册的定时触发 actionId -> cron表达式
+     */
+    public void warmUp(HeraAction heraAction, HeraJobHistory jobHistory, Map<String, String> triggers) {
+        if (!recoverRunning(heraAction, jobHistory)) {
+            return;
+        }
+        HeraActionVo heraActionVo = BeanConvertUtils.transform(heraAction);
+        cache.preload(heraActionVo);
+        if (isSchedule(heraActionVo) && ActionUtil.isCurrActionVersion(actionId)) {
+            triggers.put(actionId, heraActionVo.getCronExpression().trim());
+        }
+    }
+
+    /**
+     * 对版本表中处于running状态的任务进行重试
+     *
+     * @return 是否继续初始化调度
+     */
+    private boolean recoverRunning(HeraAction heraAction, HeraJobHistory jobHistory) {
+        if (!StatusEnum.RUNNING.toString().equals(heraAction.getStatus())) {
+            return true;
+        }
+        ScheduleLog.warn("actionId = " + actionId + " 处于RUNNING状态，说明该job状态丢失，立即进行重试操作。。。");
+        //有历史版本
+        if (heraAction.getHistoryId() != null) {
+            if (jobHistory == null) {
+                return false;
+            }
+            // 搜索上一次运行的日志，从日志中提取jobId 进行kill
+            if (jobHistory.getStatus() == null || !jobHistory.getStatus().equals(StatusEnum.SUCCESS.toString())) {
+                try {
+                    JobContext tmp = JobContext.getTempJobContext(JobContext.MANUAL_RUN);
+                    tmp.setHeraJobHistory(BeanConvertUtils.convert(jobHistory));
+                    new CancelHadoopJob(tmp).run();
+                    startNewJob(BeanConvertUtils.transform(heraAction), LogConstant.SERVER_START_JOB_LOG);
+                } catch (Exception e) {
+                    ErrorLog.error("取消任务异常", e);
+                }
+            }
+            jobHistory.setStatus(StatusEnum.FAILED.toString());
+            jobHistory.setIllustrate("任务历史丢失");
+            jobHistory.setEndTime(new Date());
+            jobHistoryService.update(jobHistory);
+        } else {
+            startNewJob(BeanConvertUtils.transform(heraAction), LogConstant.SERVER_START_JOB_LOG);
+        }
+        return true;
+    }
+
+    private boolean isSchedule(HeraActionVo heraActionVo) {
+        return heraActionVo.getAuto() && Objects.equals(heraActionVo.getScheduleType(), JobScheduleTypeEnum.Independent);
+    }
+
 
     /**
      * 收到广播的任务成功事件的处理流程，每次自动调度任务成功执行，会进行一次全局的SuccessEvent广播，使得依赖任务可以更新readyDependent
@@ -261,6 +296,7 @@ public class JobHandler extends AbstractHandler {
             ScheduleLog.info("heraAction 为空， 删除{}", actionId);
             return;
         }
+        refreshRoute(heraActionVo);
         //自动调度关闭
         if (!heraActionVo.getAuto()) {
             destroy();
@@ -269,20 +305,31 @@ public class JobHandler extends AbstractHandler {
 
         /**
          * 如果是依赖任务 原来可能是独立任务，需要尝试删除原来的定时调度
-         * 如果是独立任务,则重新创建quartz调度
+         * 如果是独立任务,则重新注册定时触发
          *
          */
         if (heraActionVo.getScheduleType() == JobScheduleTypeEnum.Dependent) {
             destroy();
         } else if (heraActionVo.getScheduleType() == JobScheduleTypeEnum.Independent) {
             try {
-                createScheduleJob(masterContext.getDispatcher(), heraActionVo);
+                createScheduleJob(heraActionVo);
             } catch (SchedulerException e) {
                 ErrorLog.error("创建调度任务异常", e);
             }
         }
     }
 
+    /**
+     * 版本信息加载或刷新后，同步dispatcher中该版本的下游依赖索引
+     *
+     * @param heraActionVo 版本信息
+     */
+    private void refreshRoute(HeraActionVo heraActionVo) {
+        if (heraActionVo != null) {
+            masterContext.getDispatcher().updateDependencies(this, heraActionVo.getDependencies());
+        }
+    }
+
     private void handleMaintenanceEvent(HeraJobMaintenanceEvent event) {
         if (event.getType() == Events.UpdateJob && Objects.equals(Integer.parseInt(event.getId()), ActionUtil.getJobId(actionId))) {
             autoRecovery();
@@ -316,22 +363,14 @@ public class JobHandler extends AbstractHandler {
     /**
      * 创建定时任务
      *
-     * @param dispatcher   the scheduler
      * @param heraActionVo the job name
      */
 
-    private void createScheduleJob(Dispatcher dispatcher, HeraActionVo heraActionVo) throws SchedulerException {
+    private void createScheduleJob(HeraActionVo heraActionVo) throws SchedulerException {
         if (!ActionUtil.isCurrActionVersion(actionId)) {
             return;
         }
-        JobKey jobKey = new JobKey(actionId, Constants.HERA_GROUP);
-        if (masterContext.getQuartzSchedulerService().getScheduler().getJobDetail(jobKey) == null) {
-            JobDetail jobDetail = JobBuilder.newJob(HeraQuartzJob.class).withIdentity(jobKey).build();
-            jobDetail.getJobDataMap().put(Constants.QUARTZ_ID, heraActionVo.getId());
-            jobDetail.getJobDataMap().put(Constants.QUARTZ_DISPATCHER, dispatcher);
-            CronScheduleBuilder scheduleBuilder = CronScheduleBuilder.cronSchedule(heraActionVo.getCronExpression().trim());
-            CronTrigger trigger = TriggerBuilder.newTrigger().withIdentity(actionId, Constants.HERA_GROUP).withSchedule(scheduleBuilder).build();
-            masterContext.getQuartzSchedulerService().getScheduler().scheduleJob(jobDetail, trigger);
+        if (masterContext.getTriggerService().schedule(actionId, heraActionVo.getCronExpression().trim())) {
             ScheduleLog.info("--------------------------- 添加自动调度成功:{}--------------------------", heraActionVo.getId());
         }
     }
@@ -339,7 +378,7 @@ public class JobHandler extends AbstractHandler {
 
     @Override
     public void destroy() {
-        masterContext.getQuartzSchedulerService().deleteJob(actionId);
+        masterContext.getTriggerService().cancel(actionId);
     }
 
     @Override
@@ -5,7 +5,6 @@ import com.dfire.event.HeraJobMaintenanceEvent;
 import com.dfire.event.ApplicationEvent;
 import com.dfire.event.Events;
 import com.dfire.core.event.base.MvcEvent;
-import com.dfire.core.event.handler.AbstractHandler;
 import com.dfire.core.event.handler.JobHandler;
 import com.dfire.core.netty.master.Master;
 import com.dfire.core.netty.master.MasterContext;
@@ -32,17 +31,7 @@ public class HeraAddJobListener extends AbstractListener {
             HeraJobMaintenanceEvent maintenanceEvent = (HeraJobMaintenanceEvent) mvcEvent.getApplicationEvent();
             if (mvcEvent.getType() == Events.UpdateActions) {
                 String actionId = maintenanceEvent.getId();
-                boolean exist = false;
-                for (AbstractHandler handler : masterContext.getDispatcher().getJobHandlers()) {
-                    if (handler instanceof JobHandler) {
-                        JobHandler jobHandler = (JobHandler) handler;
-                        if (jobHandler.getActionId().equals(actionId)) {
-                            exist = true;
-                            break;
-                        }
-                    }
-                }
-                if (!exist) {
+                if (masterContext.getDispatcher().getJobHandler(actionId) == null) {
                     JobHandler handler = new JobHandler(actionId, master, masterContext);
                     masterContext.getDispatcher().addJobHandler(handler);
                     handler.handleEvent(new ApplicationEvent(Events.Initialize));
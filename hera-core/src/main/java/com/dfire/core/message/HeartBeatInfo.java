@@ -5,7 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -21,11 +21,11 @@ public class HeartBeatInfo {
 
     private Float memRate;
 
-    private List<String> running;
+    private Collection<String> running;
 
-    private List<String> manualRunning;
+    private Collection<String> manualRunning;
 
-    private List<String> debugRunning;
+    private Collection<String> debugRunning;
 
     private Long timestamp;
 
@@ -47,4 +47,14 @@ public class HeartBeatInfo {
      * 逻辑cpu核数
      */
     private Integer cores;
+
+    /**
+     * worker执行槽位总数，0表示未上报
+     */
+    private Integer slotTotal;
+
+    /**
+     * worker已占用的执行槽位数
+     */
+    private Integer slotUsed;
 }
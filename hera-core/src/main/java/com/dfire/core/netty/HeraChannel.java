@@ -3,6 +3,7 @@ package com.dfire.core.netty;
 import com.dfire.core.exception.RemotingException;
 import com.dfire.protocol.RpcSocketMessage;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 
 import java.net.SocketAddress;
 
@@ -13,8 +14,16 @@ import java.net.SocketAddress;
 public interface HeraChannel {
 
 
+    /**
+     * 同步发送，等待写入完成，超时或失败抛出异常
+     */
     void writeAndFlush(RpcSocketMessage.SocketMessage msg) throws RemotingException;
 
+    /**
+     * 异步发送，不等待写入完成，发送结果通过返回的future监听
+     */
+    ChannelFuture send(RpcSocketMessage.SocketMessage msg);
+
     SocketAddress getRemoteAddress();
 
     SocketAddress getLocalAddress();
@@ -25,7 +25,7 @@ public class NettyChannel implements HeraChannel {
 
     @Override
     public void writeAndFlush(RpcSocketMessage.SocketMessage message) throws RemotingException {
-        ChannelFuture channelFuture = channel.writeAndFlush(message);
+        ChannelFuture channelFuture = send(message);
         boolean success;
         long timeout = HeraGlobalEnv.getChannelTimeout();
         try {
@@ -43,6 +43,11 @@ public class NettyChannel implements HeraChannel {
         }
     }
 
+    @Override
+    public ChannelFuture send(RpcSocketMessage.SocketMessage message) {
+        return channel.writeAndFlush(message);
+    }
+
     @Override
     public SocketAddress getRemoteAddress() {
         return channel.remoteAddress();
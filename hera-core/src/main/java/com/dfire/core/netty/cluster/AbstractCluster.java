@@ -1,7 +1,9 @@
 package com.dfire.core.netty.cluster;
 
 import com.dfire.core.netty.HeraChannel;
+import com.dfire.protocol.RpcSocketMessage;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 
 import java.net.SocketAddress;
 
@@ -19,6 +21,11 @@ public abstract class AbstractCluster implements Cluster {
         this.channel = channel;
     }
 
+    @Override
+    public ChannelFuture send(RpcSocketMessage.SocketMessage msg) {
+        return channel.send(msg);
+    }
+
     @Override
     public SocketAddress getRemoteAddress() {
         return channel.getRemoteAddress();
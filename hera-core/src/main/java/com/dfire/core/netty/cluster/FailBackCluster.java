@@ -1,16 +1,13 @@
 package com.dfire.core.netty.cluster;
 
-import com.dfire.common.util.NamedThreadFactory;
 import com.dfire.core.exception.RemotingException;
 import com.dfire.core.netty.HeraChannel;
 import com.dfire.core.netty.NettyChannel;
 import com.dfire.logs.SocketLog;
 import com.dfire.protocol.RpcSocketMessage.SocketMessage;
 import io.netty.channel.Channel;
-import io.netty.util.HashedWheelTimer;
-import io.netty.util.Timer;
-
-import java.util.concurrent.TimeUnit;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
 
 /**
  * 集群容错之失败重试
@@ -21,53 +18,52 @@ import java.util.concurrent.TimeUnit;
 public class FailBackCluster extends AbstractCluster {
 
 
-    /**
-     * 最大重试次数
-     */
-    private static final int RETRY_TIMES = 100;
-    /**
-     * 重试 delay 时间
-     */
-    private static final int RETRY_DELAY = 5;
-
-    private volatile Timer retryTimer;
-
+    private final FailBackOutbox.Side side;
 
-    public static HeraChannel wrap(HeraChannel channel) {
-        return new FailBackCluster(channel);
+    public static HeraChannel wrap(HeraChannel channel, FailBackOutbox.Side side) {
+        return new FailBackCluster(channel, side);
     }
 
-    public static HeraChannel wrap(Channel channel) {
-        return wrap(new NettyChannel(channel));
+    public static HeraChannel wrap(Channel channel, FailBackOutbox.Side side) {
+        return wrap(new NettyChannel(channel), side);
     }
 
-    private FailBackCluster(HeraChannel channel) {
+    private FailBackCluster(HeraChannel channel, FailBackOutbox.Side side) {
         super(channel);
+        this.side = side;
     }
 
     @Override
     public void writeAndFlush(SocketMessage msg) {
+        if (FailBackOutbox.offerIfPending(side, channel, msg)) {
+            return;
+        }
         try {
             channel.writeAndFlush(msg);
         } catch (RemotingException e) {
             SocketLog.error("send netty msg cause exception, retry it", e);
-            addFailed(channel, msg);
+            FailBackOutbox.offer(side, channel, msg);
         }
     }
 
-    private void addFailed(HeraChannel channel, SocketMessage msg) {
-        if (retryTimer == null) {
-            synchronized (this) {
-                if (retryTimer == null) {
-                    retryTimer = new HashedWheelTimer(
-                            new NamedThreadFactory("failback-cluster-timer", true),
-                            1,
-                            TimeUnit.SECONDS);
-                }
-            }
+    /**
+     * 异步发送，失败的消息加入重试，与writeAndFlush一致对调用方屏蔽失败，返回的future在发送成功或者加入重试后完成
+     */
+    @Override
+    public ChannelFuture send(SocketMessage msg) {
+        ChannelPromise promise = getChannel().newPromise();
+        if (FailBackOutbox.offerIfPending(side, channel, msg)) {
+            promise.trySuccess();
+            return promise;
         }
-        retryTimer.newTimeout(new RetryTimerTask(channel, msg, RETRY_TIMES, RETRY_DELAY), RETRY_DELAY, TimeUnit.SECONDS);
+        channel.send(msg).addListener(f -> {
+            if (!f.isSuccess()) {
+                SocketLog.error("send netty msg cause exception, retry it", f.cause());
+                FailBackOutbox.offer(side, channel, msg);
+            }
+            promise.trySuccess();
+        });
+        return promise;
     }
 
-
 }
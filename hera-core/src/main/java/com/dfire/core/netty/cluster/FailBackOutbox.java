@@ -0,0 +1,309 @@
+package com.dfire.core.netty.cluster;
+
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.core.netty.HeraChannel;
+import com.dfire.logs.SocketLog;
+import com.dfire.protocol.RpcRequest.Request;
+import com.dfire.protocol.RpcResponse.Response;
+import com.dfire.protocol.RpcSocketMessage.SocketMessage;
+import com.dfire.protocol.RpcWebRequest.WebRequest;
+import com.dfire.protocol.RpcWebResponse.WebResponse;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @desc 失败重试的发件箱，按本端角色(master/worker)和对端host划分，同一个请求id的消息只保留最新的一条。
+ * master节点上的worker也会连到本机master，两端对端host相同，必须按角色分开，否则消息会从另一端的连接补发出去。
+ * 条数和字节数有上限，超过上限的消息直接丢弃。对端重连后发件箱绑定到新的连接，
+ * 连接可写或者定时重试时按入队顺序补发，所有发件箱共用一个重试定时器
+ */
+public class FailBackOutbox {
+
+    /**
+     * 最大重试次数，期间没有任何一条消息发送成功则清空发件箱
+     */
+    private static final int RETRY_TIMES = 100;
+
+    /**
+     * 重试 delay 时间
+     */
+    private static final int RETRY_DELAY = 5;
+
+    private static final int MAX_MESSAGES = 1000;
+
+    private static final long MAX_BYTES = 16 * 1024 * 1024L;
+
+    private static final Timer RETRY_TIMER = new HashedWheelTimer(new NamedThreadFactory("failback-cluster-timer", true), 1, TimeUnit.SECONDS);
+
+    /**
+     * 本端角色 -> 对端host -> 发件箱
+     */
+    private static final Map<Side, Map<String, FailBackOutbox>> OUTBOXES = new EnumMap<>(Side.class);
+
+    static {
+        for (Side side : Side.values()) {
+            OUTBOXES.put(side, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 发件箱所在的一端，master发往worker或者worker发往master
+     */
+    public enum Side {
+        MASTER, WORKER
+    }
+
+    private final Side side;
+
+    private final String peer;
+
+    /**
+     * 消息类型+请求id -> 消息，按入队顺序补发
+     */
+    private final LinkedHashMap<Long, SocketMessage> messages = new LinkedHashMap<>();
+
+    private volatile HeraChannel channel;
+
+    private long bytes;
+
+    private long dropped;
+
+    private int retryTimes;
+
+    private boolean draining;
+
+    private boolean retryScheduled;
+
+    private FailBackOutbox(Side side, String peer, HeraChannel channel) {
+        this.side = side;
+        this.peer = peer;
+        this.channel = channel;
+    }
+
+    /**
+     * 发送失败的消息加入对端的发件箱并尝试补发
+     *
+     * @param side    本端角色
+     * @param channel 发送失败的连接
+     * @param msg     消息
+     */
+    static void offer(Side side, HeraChannel channel, SocketMessage msg) {
+        long key = key(msg);
+        FailBackOutbox[] outbox = new FailBackOutbox[1];
+        boolean[] accepted = new boolean[1];
+        OUTBOXES.get(side).compute(peer(channel), (peer, box) -> {
+            if (box == null) {
+                box = new FailBackOutbox(side, peer, channel);
+            }
+            accepted[0] = box.add(key, msg);
+            outbox[0] = box;
+            return box;
+        });
+        if (accepted[0]) {
+            outbox[0].drain();
+        }
+    }
+
+    /**
+     * 对端有未补发的消息时，新消息也进入发件箱，保证发送顺序
+     *
+     * @return 是否进入了发件箱
+     */
+    static boolean offerIfPending(Side side, HeraChannel channel, SocketMessage msg) {
+        FailBackOutbox outbox = OUTBOXES.get(side).get(peer(channel));
+        if (outbox == null || outbox.isEmpty()) {
+            return false;
+        }
+        offer(side, channel, msg);
+        return true;
+    }
+
+    /**
+     * 对端重连后，把发件箱绑定到新的连接并补发
+     *
+     * @param side    本端角色
+     * @param channel 新的连接
+     */
+    public static void rebind(Side side, HeraChannel channel) {
+        FailBackOutbox outbox = OUTBOXES.get(side).get(peer(channel));
+        if (outbox != null) {
+            outbox.channel = channel;
+            SocketLog.info("rebind {} failback outbox {} to {}, pending:{}", side, outbox.peer, channel.getRemoteAddress(), outbox.size());
+            outbox.drain();
+        }
+    }
+
+    /**
+     * 连接重新可写时补发
+     *
+     * @param side    本端角色
+     * @param channel 连接
+     */
+    public static void writable(Side side, Channel channel) {
+        FailBackOutbox outbox = OUTBOXES.get(side).get(peer(channel.remoteAddress()));
+        if (outbox != null && outbox.channel.getChannel() == channel) {
+            outbox.drain();
+        }
+    }
+
+    /**
+     * @param side 本端角色
+     * @return 对端host -> 待补发的消息数
+     */
+    public static Map<String, Integer> depth(Side side) {
+        Map<String, Integer> depth = new TreeMap<>();
+        OUTBOXES.get(side).forEach((peer, outbox) -> depth.put(peer, outbox.size()));
+        return depth;
+    }
+
+    private synchronized boolean add(long key, SocketMessage msg) {
+        SocketMessage old = messages.get(key);
+        long newBytes = bytes + msg.getSerializedSize() - (old == null ? 0 : old.getSerializedSize());
+        if ((old == null && messages.size() >= MAX_MESSAGES) || newBytes > MAX_BYTES) {
+            if (dropped++ % MAX_MESSAGES == 0) {
+                SocketLog.error("failback outbox {} is full, size:{}, bytes:{}, dropped:{}", peer, messages.size(), bytes, dropped);
+            }
+            return false;
+        }
+        messages.put(key, msg);
+        bytes = newBytes;
+        return true;
+    }
+
+    private synchronized boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    private synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * 按入队顺序补发当前所有消息，发送成功的移除，有失败的等待下次重试
+     */
+    private void drain() {
+        HeraChannel target = channel;
+        List<Map.Entry<Long, SocketMessage>> batch;
+        synchronized (this) {
+            if (draining || messages.isEmpty()) {
+                return;
+            }
+            if (!target.getChannel().isActive() || !target.getChannel().isWritable()) {
+                scheduleRetry();
+                return;
+            }
+            draining = true;
+            batch = new ArrayList<>(messages.entrySet());
+        }
+        AtomicInteger remaining = new AtomicInteger(batch.size());
+        for (Map.Entry<Long, SocketMessage> entry : batch) {
+            target.send(entry.getValue()).addListener(f -> {
+                if (f.isSuccess()) {
+                    remove(entry.getKey(), entry.getValue());
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    drained();
+                }
+            });
+        }
+    }
+
+    private synchronized void remove(Long key, SocketMessage msg) {
+        if (messages.remove(key, msg)) {
+            bytes -= msg.getSerializedSize();
+            retryTimes = 0;
+        }
+    }
+
+    private void drained() {
+        synchronized (this) {
+            draining = false;
+            if (!messages.isEmpty()) {
+                scheduleRetry();
+                return;
+            }
+        }
+        releaseIfEmpty();
+    }
+
+    /**
+     * 发件箱已经清空时移除，新的失败消息会重新创建
+     */
+    private void releaseIfEmpty() {
+        OUTBOXES.get(side).computeIfPresent(peer, (peer, box) -> box == this && box.isEmpty() ? null : box);
+    }
+
+    private synchronized void scheduleRetry() {
+        if (retryScheduled) {
+            return;
+        }
+        retryScheduled = true;
+        RETRY_TIMER.newTimeout(timeout -> {
+            synchronized (this) {
+                retryScheduled = false;
+                if (++retryTimes > RETRY_TIMES) {
+                    SocketLog.error("send netty msg cause exception, retryTimes is {}, stop send {} messages to {} {}", retryTimes, messages.size(), side, peer);
+                    messages.clear();
+                    bytes = 0;
+                    retryTimes = 0;
+                }
+            }
+            drain();
+            releaseIfEmpty();
+        }, RETRY_DELAY, TimeUnit.SECONDS);
+    }
+
+    private static String peer(HeraChannel channel) {
+        return peer(channel.getRemoteAddress());
+    }
+
+    private static String peer(SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            return ((InetSocketAddress) address).getHostString();
+        }
+        return String.valueOf(address);
+    }
+
+    /**
+     * 消息类型和请求id组成的合并key
+     */
+    private static long key(SocketMessage msg) {
+        int rid;
+        try {
+            switch (msg.getKind()) {
+                case REQUEST:
+                    rid = Request.parseFrom(msg.getBody()).getRid();
+                    break;
+                case RESPONSE:
+                    rid = Response.parseFrom(msg.getBody()).getRid();
+                    break;
+                case WEB_REQUEST:
+                    rid = WebRequest.parseFrom(msg.getBody()).getRid();
+                    break;
+                case WEB_RESPONSE:
+                    rid = WebResponse.parseFrom(msg.getBody()).getRid();
+                    break;
+                default:
+                    rid = msg.hashCode();
+                    break;
+            }
+        } catch (InvalidProtocolBufferException e) {
+            rid = msg.hashCode();
+        }
+        return ((long) msg.getKindValue() << 32) | (rid & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,351 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.constants.TimeFormatConstant;
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.entity.HeraJob;
+import com.dfire.common.entity.HeraJobSnapshot;
+import com.dfire.common.util.ActionUtil;
+import com.dfire.common.util.HeraDateTool;
+import com.dfire.core.util.CronPlanCache;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.HeraLog;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.BeanUtils;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @desc 按依赖层级生成版本。定时任务互不依赖，在forkjoin池中并行解析cron生成版本，作为第0层；
+ * 依赖任务的层级为它依赖的依赖任务的最大层级+1，从低到高逐层生成，同一层并行，每层生成完批量写一次库。
+ * cron解析结果按任务缓存，cron不变时不再重新解析
+ */
+public class ActionGenerator {
+
+    private final ForkJoinPool pool;
+
+    private final CronPlanCache cronPlans = new CronPlanCache();
+
+    /**
+     * 保存任务定义快照，返回快照id
+     */
+    private final Function<HeraJob, String> snapshot;
+
+    public ActionGenerator(int parallelism, Function<HeraJob, String> snapshot) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("action-generator-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * 生成版本
+     *
+     * @param jobs     参与生成的任务
+     * @param cronDate 生成版本的日期 yyyy-MM-dd
+     * @param writer   每一层生成的版本，按层批量写库
+     * @return 任务id -> 生成的版本，依赖任务找不到上游版本时为空
+     */
+    public Map<Integer, List<HeraAction>> generate(Collection<HeraJob> jobs, String cronDate, Consumer<List<HeraAction>> writer) {
+        Map<Integer, List<HeraAction>> idMap = new ConcurrentHashMap<>(jobs.size());
+        //单个任务生成时上游任务可能重复出现，按任务id去重
+        Map<Integer, HeraJob> scheduleJobMap = new LinkedHashMap<>();
+        Map<Integer, HeraJob> dependJobs = new HashMap<>();
+        for (HeraJob heraJob : jobs) {
+            if (heraJob.getScheduleType() == null) {
+                continue;
+            }
+            if (heraJob.getScheduleType() == 0) {
+                scheduleJobMap.put(heraJob.getId(), heraJob);
+            } else if (heraJob.getScheduleType() == 1) {
+                dependJobs.put(heraJob.getId(), heraJob);
+            } else {
+                ErrorLog.error("任务{}未知的调度类型{}", heraJob.getId(), heraJob.getScheduleType());
+            }
+        }
+        List<HeraJob> scheduleJobs = new ArrayList<>(scheduleJobMap.values());
+        pool.submit(() -> scheduleJobs.parallelStream().forEach(heraJob -> {
+            List<HeraAction> actions = createScheduleAction(heraJob, cronDate);
+            if (actions != null) {
+                idMap.put(heraJob.getId(), actions);
+            }
+        })).join();
+        write(scheduleJobs, idMap, writer);
+
+        for (List<HeraJob> level : levels(dependJobs)) {
+            //同一层的任务只依赖更低层的任务，互不影响
+            pool.submit(() -> level.parallelStream().forEach(heraJob -> idMap.put(heraJob.getId(), createDependAction(heraJob, idMap)))).join();
+            write(level, idMap, writer);
+        }
+        return idMap;
+    }
+
+    /**
+     * 全量生成后只保留现有任务的cron缓存
+     */
+    public void retainCronPlans(Collection<HeraJob> jobs) {
+        cronPlans.retain(jobs.stream().map(HeraJob::getId).collect(Collectors.toList()));
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void write(List<HeraJob> jobs, Map<Integer, List<HeraAction>> idMap, Consumer<List<HeraAction>> writer) {
+        List<HeraAction> actions = new ArrayList<>();
+        for (HeraJob heraJob : jobs) {
+            List<HeraAction> jobActions = idMap.get(heraJob.getId());
+            if (jobActions != null) {
+                actions.addAll(jobActions);
+            }
+        }
+        if (!actions.isEmpty()) {
+            writer.accept(actions);
+        }
+    }
+
+    /**
+     * 依赖任务按层级分组，依赖成环的任务不生成版本
+     *
+     * @param dependJobs 依赖任务
+     * @return 从第1层开始的各层任务
+     */
+    static List<List<HeraJob>> levels(Map<Integer, HeraJob> dependJobs) {
+        Map<Integer, Integer> level = new HashMap<>(dependJobs.size());
+        Set<Integer> visiting = new HashSet<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        int maxLevel = 0;
+        for (Integer start : dependJobs.keySet()) {
+            if (level.containsKey(start)) {
+                continue;
+            }
+            stack.push(start);
+            while (!stack.isEmpty()) {
+                Integer id = stack.peek();
+                if (level.containsKey(id)) {
+                    stack.pop();
+                } else if (visiting.add(id)) {
+                    for (Integer dependency : dependencies(dependJobs.get(id))) {
+                        if (dependJobs.containsKey(dependency) && !level.containsKey(dependency) && !visiting.contains(dependency)) {
+                            stack.push(dependency);
+                        }
+                    }
+                } else {
+                    stack.pop();
+                    visiting.remove(id);
+                    int max = 0;
+                    for (Integer dependency : dependencies(dependJobs.get(id))) {
+                        if (!dependJobs.containsKey(dependency)) {
+                            continue;
+                        }
+                        Integer dependencyLevel = level.get(dependency);
+                        //依赖的任务还在遍历路径上，说明成环
+                        if (dependencyLevel == null || dependencyLevel < 0) {
+                            max = -1;
+                            break;
+                        }
+                        max = Math.max(max, dependencyLevel);
+                    }
+                    level.put(id, max < 0 ? -1 : max + 1);
+                    maxLevel = Math.max(maxLevel, max + 1);
+                }
+            }
+        }
+        List<List<HeraJob>> levels = new ArrayList<>(maxLevel);
+        for (int i = 0; i < maxLevel; i++) {
+            levels.add(new ArrayList<>());
+        }
+        level.forEach((id, value) -> {
+            if (value < 0) {
+                HeraLog.warn("任务{}的依赖成环，不生成版本", id);
+            } else {
+                levels.get(value - 1).add(dependJobs.get(id));
+            }
+        });
+        return levels;
+    }
+
+    /**
+     * 定时任务按cron生成当天的版本
+     *
+     * @return cron为空或不合法时为null
+     */
+    private List<HeraAction> createScheduleAction(HeraJob heraJob, String cronDate) {
+        String cron = heraJob.getCronExpression();
+        if (StringUtils.isBlank(cron)) {
+            return null;
+        }
+        List<String> times = cronPlans.get(heraJob.getId(), cron, cronDate);
+        if (times == null) {
+            HeraLog.warn("cron parse error,jobId={},cron = {}", heraJob.getId(), cron);
+            return null;
+        }
+        List<HeraAction> heraActionList = new ArrayList<>(times.size());
+        if (times.isEmpty()) {
+            return heraActionList;
+        }
+        String snapshotId = snapshot.apply(heraJob);
+        for (String str : times) {
+            String actionDate = HeraDateTool.StringToDateStr(str, ActionUtil.DEFAULT_FORMAT, ActionUtil.ACTION_MIN);
+            String actionCron = HeraDateTool.StringToDateStr(str, ActionUtil.DEFAULT_FORMAT, ActionUtil.ACTION_CRON) + " ?";
+            Long actionId = Long.parseLong(actionDate) * 1000000 + heraJob.getId();
+            HeraAction heraAction = newAction(heraJob, actionId, snapshotId);
+            heraAction.setCronExpression(actionCron);
+            heraAction.setGmtModified(new Date());
+            heraAction.setJobDependencies(null);
+            heraAction.setDependencies(null);
+            heraAction.setReadyDependency(null);
+            heraActionList.add(heraAction);
+        }
+        return heraActionList;
+    }
+
+    /**
+     * 依赖任务以上游版本最少的任务为基准，每个基准版本生成一个版本，其它上游取离基准版本最近的版本
+     *
+     * @return 有上游任务没有版本时为空
+     */
+    private List<HeraAction> createDependAction(HeraJob heraJob, Map<Integer, List<HeraAction>> idMap) {
+        List<Integer> dependencies = dependencies(heraJob);
+        Integer base = null;
+        for (Integer dependency : dependencies) {
+            List<HeraAction> dpActions = idMap.get(dependency);
+            if (dpActions == null || dpActions.isEmpty()) {
+                HeraLog.info("{}今天找不到版本，无法为任务{}生成版本", dependency, heraJob.getId());
+                return Collections.emptyList();
+            }
+            if (base == null) {
+                base = dependency;
+                continue;
+            }
+            List<HeraAction> baseActions = idMap.get(base);
+            //找到所依赖的任务中版本最少的作为基准版本，个数一样时取时间较大的
+            if (baseActions.size() > dpActions.size()
+                    || (baseActions.size() == dpActions.size() && baseActions.get(0).getId() < dpActions.get(0).getId())) {
+                base = dependency;
+            }
+        }
+        if (base == null) {
+            return Collections.emptyList();
+        }
+        List<HeraAction> baseActions = idMap.get(base);
+        List<HeraAction> res = new ArrayList<>(baseActions.size());
+        String snapshotId = snapshot.apply(heraJob);
+        for (HeraAction action : baseActions) {
+            long baseId = action.getId();
+            StringBuilder actionDependencies = new StringBuilder(String.valueOf(baseId));
+            for (Integer dependency : dependencies) {
+                if (dependency.equals(base)) {
+                    continue;
+                }
+                //找到一个离基准版本时间最近的action，添加为该任务的依赖
+                long nearest = nearest(idMap.get(dependency), baseId);
+                actionDependencies.append(Constants.COMMA).append(nearest / 1000000 * 1000000 + dependency);
+            }
+            HeraAction actionNew = newAction(heraJob, baseId / 1000000 * 1000000 + heraJob.getId(), snapshotId);
+            actionNew.setDependencies(actionDependencies.toString());
+            actionNew.setJobDependencies(heraJob.getDependencies());
+            res.add(actionNew);
+        }
+        return res;
+    }
+
+    private HeraAction newAction(HeraJob heraJob, Long actionId, String snapshotId) {
+        HeraAction heraAction = new HeraAction();
+        //脚本、配置只记快照id，不随每个版本复制
+        BeanUtils.copyProperties(heraJob, heraAction, HeraJobSnapshot.FIELDS);
+        heraAction.setSnapshotId(snapshotId);
+        heraAction.setId(actionId);
+        heraAction.setGmtCreate(new Date());
+        heraAction.setJobId(heraJob.getId());
+        heraAction.setHistoryId(heraJob.getHistoryId());
+        heraAction.setAuto(heraJob.getAuto());
+        heraAction.setHostGroupId(heraJob.getHostGroupId());
+        heraAction.setBatchId(getBatchIdFromActionIdPeriod(actionId, heraJob.getCronPeriod(), heraJob.getCronInterval()));
+        return heraAction;
+    }
+
+    private static long nearest(List<HeraAction> actions, long actionId) {
+        long nearest = actions.get(0).getId();
+        for (HeraAction action : actions) {
+            if (Math.abs(action.getId() - actionId) < Math.abs(nearest - actionId)) {
+                nearest = action.getId();
+            }
+        }
+        return nearest;
+    }
+
+    private static List<Integer> dependencies(HeraJob heraJob) {
+        if (heraJob == null || StringUtils.isBlank(heraJob.getDependencies())) {
+            return Collections.emptyList();
+        }
+        String[] split = heraJob.getDependencies().split(Constants.COMMA);
+        List<Integer> res = new ArrayList<>(split.length);
+        for (String dependency : split) {
+            if (StringUtils.isNotBlank(dependency)) {
+                res.add(Integer.parseInt(dependency.trim()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 输出批次号
+     * @param actionId
+     * @param cronPeriod 周期
+     * @param cronInterval 间隔
+     * @return 批次号；示例actionId=20190102112233,cronPeriod=day,cronInterval=-1,则批次号=2019-01-01
+     */
+    public static String getBatchIdFromActionIdPeriod(Long actionId,String cronPeriod,int cronInterval) {
+    	cronPeriod=cronPeriod.toLowerCase();
+    	if(cronPeriod.equals("other")){
+    		return actionId.toString();
+    	}else{
+    		String dmStr=actionId.toString().substring(0, 14);
+    		Date currDate = HeraDateTool.StringToDate(dmStr, "yyyyMMddHHmmss");
+    		Calendar cal=Calendar.getInstance();
+    		cal.setTime(currDate);
+    		String outDateStr;
+    		SimpleDateFormat outDateFormat = new SimpleDateFormat(TimeFormatConstant.YYYY_MM_DD_HH_MM_SS);
+    		if(cronPeriod.equals("year")){
+    			cal.add(Calendar.YEAR, cronInterval);
+    			outDateStr = outDateFormat.format(cal.getTime());
+    			return outDateStr.substring(0,4);
+    		}else if(cronPeriod.equals("month")){
+    			cal.add(Calendar.MONTH, cronInterval);
+    			outDateStr = outDateFormat.format(cal.getTime());
+    			return outDateStr.substring(0,7);
+    		}else if(cronPeriod.equals("day")){
+    			cal.add(Calendar.DATE, cronInterval);
+    			outDateStr = outDateFormat.format(cal.getTime());
+    			return outDateStr.substring(0,10);
+    		}else if(cronPeriod.equals("hour")){
+    			cal.add(Calendar.HOUR, cronInterval);
+    			outDateStr = outDateFormat.format(cal.getTime());
+    			return outDateStr.substring(0,13);
+    		}else if(cronPeriod.equals("minute")){
+    			cal.add(Calendar.MINUTE, cronInterval);
+    			outDateStr = outDateFormat.format(cal.getTime());
+    			return outDateStr.substring(0,16);
+    		}else if(cronPeriod.equals("second")){
+    			cal.add(Calendar.SECOND, cronInterval);
+    			outDateStr = outDateFormat.format(cal.getTime());
+    			return outDateStr.substring(0,19);
+    		}else{//未知，使用秒方案
+    			cal.add(Calendar.SECOND, cronInterval);
+    			outDateStr = outDateFormat.format(cal.getTime());
+    			return outDateStr.substring(0,19);
+    		}
+    	}
+    }
+}
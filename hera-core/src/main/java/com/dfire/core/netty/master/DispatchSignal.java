@@ -0,0 +1,30 @@
+package com.dfire.core.netty.master;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @desc 任务分发线程的唤醒信号。任务入队、worker心跳、任务结束时唤醒分发线程，
+ * 分发线程醒来之前的多次唤醒合并为一次
+ */
+public class DispatchSignal {
+
+    private final Semaphore permit = new Semaphore(0);
+
+    public void signal() {
+        if (permit.availablePermits() == 0) {
+            permit.release();
+        }
+    }
+
+    /**
+     * 等待唤醒，超时也返回，由调用方做一次兜底扫描
+     *
+     * @return 是否被唤醒
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        boolean signaled = permit.tryAcquire(timeout, unit);
+        permit.drainPermits();
+        return signaled;
+    }
+}
@@ -0,0 +1,198 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.enums.TriggerTypeEnum;
+import com.dfire.logs.TaskLog;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @desc master上排队、已分发、执行中的任务登记表，按触发类型和任务id索引，重复执行检测只查一次表。
+ * 自动调度和手动恢复共用一条通道，手动执行单独一条，开发中心任务不登记。
+ * 同一个任务同一时间在一条通道里只有一条记录，以执行记录id区分是哪一次执行
+ */
+public class InFlightRegistry {
+
+    public enum Stage {
+        /**
+         * 在等待队列中
+         */
+        QUEUED,
+        /**
+         * 已从队列取出交给执行线程
+         */
+        DISPATCHED,
+        /**
+         * 已下发到worker
+         */
+        RUNNING
+    }
+
+    private final Map<Integer, InFlight> schedule = new ConcurrentHashMap<>();
+
+    private final Map<Integer, InFlight> manual = new ConcurrentHashMap<>();
+
+    /**
+     * 登记为排队中，同一通道已有该任务时登记失败
+     *
+     * @param type      触发类型
+     * @param jobId     任务id
+     * @param actionId  版本id
+     * @param historyId 执行记录id
+     * @return 是否登记成功，false表示任务已在排队或执行
+     */
+    public boolean register(TriggerTypeEnum type, Integer jobId, String actionId, String historyId) {
+        Map<Integer, InFlight> lane = lane(type);
+        return lane == null || lane.putIfAbsent(jobId, new InFlight(actionId, historyId, Stage.QUEUED, null)) == null;
+    }
+
+    /**
+     * @return 任务是否已在排队或执行
+     */
+    public boolean exists(TriggerTypeEnum type, Integer jobId) {
+        Map<Integer, InFlight> lane = lane(type);
+        return lane != null && lane.containsKey(jobId);
+    }
+
+    public InFlight get(TriggerTypeEnum type, Integer jobId) {
+        Map<Integer, InFlight> lane = lane(type);
+        return lane == null ? null : lane.get(jobId);
+    }
+
+    /**
+     * 从等待队列取出交给执行线程
+     */
+    public void dispatched(TriggerTypeEnum type, Integer jobId, String historyId) {
+        Map<Integer, InFlight> lane = lane(type);
+        if (lane != null) {
+            lane.computeIfPresent(jobId, (id, inFlight) -> inFlight.owns(historyId) ? inFlight.to(Stage.DISPATCHED, null) : inFlight);
+        }
+    }
+
+    /**
+     * 下发到worker。失败重试、断线重跑不经过等待队列，没有登记时直接登记为执行中
+     */
+    public void running(TriggerTypeEnum type, Integer jobId, String actionId, String historyId, String host) {
+        Map<Integer, InFlight> lane = lane(type);
+        if (lane == null) {
+            return;
+        }
+        InFlight now = lane.compute(jobId, (id, inFlight) -> {
+            if (inFlight == null) {
+                return new InFlight(actionId, historyId, Stage.RUNNING, host);
+            }
+            return inFlight.owns(historyId) ? inFlight.to(Stage.RUNNING, host) : inFlight;
+        });
+        if (!now.owns(historyId)) {
+            TaskLog.warn("任务{}已有执行记录{}在执行，本次执行记录:{}", jobId, now.getHistoryId(), historyId);
+        }
+    }
+
+    /**
+     * worker执行槽位已满拒绝执行，放回等待队列
+     */
+    public void requeued(TriggerTypeEnum type, Integer jobId, String historyId) {
+        Map<Integer, InFlight> lane = lane(type);
+        if (lane != null) {
+            lane.computeIfPresent(jobId, (id, inFlight) -> inFlight.owns(historyId) ? inFlight.to(Stage.QUEUED, null) : inFlight);
+        }
+    }
+
+    /**
+     * 任务结束、取消或执行失败时移除
+     *
+     * @param historyId 只移除该执行记录的登记，为null时移除该任务的登记
+     */
+    public void release(TriggerTypeEnum type, Integer jobId, String historyId) {
+        Map<Integer, InFlight> lane = lane(type);
+        if (lane == null) {
+            return;
+        }
+        if (historyId == null) {
+            lane.remove(jobId);
+        } else {
+            lane.computeIfPresent(jobId, (id, inFlight) -> inFlight.owns(historyId) ? null : inFlight);
+        }
+    }
+
+    /**
+     * worker断线时移除在该worker上执行的登记，任务已取消并重新登记的不受影响
+     *
+     * @param host 断线worker的host
+     */
+    public void releaseOnHost(TriggerTypeEnum type, Integer jobId, String host) {
+        Map<Integer, InFlight> lane = lane(type);
+        if (lane == null || host == null) {
+            return;
+        }
+        lane.computeIfPresent(jobId, (id, inFlight) -> inFlight.getStage() == Stage.RUNNING && host.equals(inFlight.getHost()) ? null : inFlight);
+    }
+
+    public int size() {
+        return schedule.size() + manual.size();
+    }
+
+    /**
+     * @return 各阶段的任务数
+     */
+    public Map<Stage, Integer> getStageCount() {
+        Map<Stage, Integer> count = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            count.put(stage, 0);
+        }
+        schedule.values().forEach(inFlight -> count.merge(inFlight.getStage(), 1, Integer::sum));
+        manual.values().forEach(inFlight -> count.merge(inFlight.getStage(), 1, Integer::sum));
+        return count;
+    }
+
+    private Map<Integer, InFlight> lane(TriggerTypeEnum type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case SCHEDULE:
+            case MANUAL_RECOVER:
+                return schedule;
+            case MANUAL:
+                return manual;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 一次执行的登记信息，状态变化时整体替换
+     */
+    @Getter
+    public static class InFlight {
+
+        private final String actionId;
+
+        private final String historyId;
+
+        private final Stage stage;
+
+        private final String host;
+
+        private final long since;
+
+        InFlight(String actionId, String historyId, Stage stage, String host) {
+            this.actionId = actionId;
+            this.historyId = historyId;
+            this.stage = stage;
+            this.host = host;
+            this.since = System.currentTimeMillis();
+        }
+
+        private boolean owns(String historyId) {
+            return historyId == null || this.historyId == null || Objects.equals(this.historyId, historyId);
+        }
+
+        private InFlight to(Stage stage, String host) {
+            return new InFlight(actionId, historyId, stage, host == null ? this.host : host);
+        }
+    }
+}
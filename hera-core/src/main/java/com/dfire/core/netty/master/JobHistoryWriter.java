@@ -0,0 +1,281 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraDebugHistory;
+import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.HeraJobHistoryLog;
+import com.dfire.common.enums.StatusEnum;
+import com.dfire.common.service.HeraDebugHistoryService;
+import com.dfire.common.service.HeraJobHistoryService;
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.ScheduleLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @desc worker不再直接写执行记录，开始执行、执行结束的状态和日志以及运行中的日志都由master汇总后写库。
+ * 单线程按到达顺序批量取出，同一批里同一条执行记录的开始和结束合并为一次update，日志片段一次批量写入
+ */
+public class JobHistoryWriter {
+
+    private static final int MAX_BATCH = 256;
+
+    private final HeraJobHistoryService heraJobHistoryService;
+
+    private final HeraDebugHistoryService heraDebugHistoryService;
+
+    private final LinkedBlockingQueue<Update> queue = new LinkedBlockingQueue<>();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new NamedThreadFactory("master-history-writer", true));
+
+    private volatile boolean running;
+
+    public JobHistoryWriter(HeraJobHistoryService heraJobHistoryService, HeraDebugHistoryService heraDebugHistoryService) {
+        this.heraJobHistoryService = heraJobHistoryService;
+        this.heraDebugHistoryService = heraDebugHistoryService;
+    }
+
+    public void start() {
+        running = true;
+        writer.execute(() -> {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Update first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    List<Update> batch = new ArrayList<>();
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    flush(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        });
+    }
+
+    public void shutdown() {
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                ErrorLog.error("history writer shutdown timeout, {} updates not written", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 任务下发到worker，记录执行机器和开始时间
+     *
+     * @param history 执行记录，需要带上id和hostGroupId(update会写入基本类型字段)
+     * @return 写库完成后结束的future
+     */
+    public CompletableFuture<Void> started(HeraJobHistory history) {
+        return write(new Update(Type.START, history, null));
+    }
+
+    /**
+     * worker返回执行结果，记录状态、日志和结束时间
+     *
+     * @param history 带id、status、log、endTime的执行记录
+     * @return 写库完成后结束的future
+     */
+    public CompletableFuture<Void> finished(HeraJobHistory history) {
+        return write(new Update(Type.FINISH, history, null));
+    }
+
+    /**
+     * worker上报的运行中新增的日志片段
+     *
+     * @param historyId 执行记录id
+     * @param content   新增的日志
+     * @return 写库完成后结束的future
+     */
+    public CompletableFuture<Void> appendLog(String historyId, String content) {
+        return write(new Update(Type.APPEND, HeraJobHistory.builder().id(historyId).log(content).build(), null));
+    }
+
+    /**
+     * worker上报的开发中心任务运行中的日志，同一批里只写最后一次
+     *
+     * @param history 带id、log的开发中心执行记录
+     * @return 写库完成后结束的future
+     */
+    public CompletableFuture<Void> debugLog(HeraDebugHistory history) {
+        return write(new Update(Type.DEBUG_LOG, null, history));
+    }
+
+    /**
+     * 开发中心任务执行结束，记录状态、结束时间和日志
+     *
+     * @param history 带id、status、endTime、log的开发中心执行记录
+     * @return 写库完成后结束的future
+     */
+    public CompletableFuture<Void> debugFinished(HeraDebugHistory history) {
+        return write(new Update(Type.DEBUG_FINISH, null, history));
+    }
+
+    private CompletableFuture<Void> write(Update update) {
+        if (running) {
+            queue.offer(update);
+        } else {
+            flush(Collections.singletonList(update));
+        }
+        return update.future;
+    }
+
+    /**
+     * @return 待写库的更新数
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    private void flush(List<Update> batch) {
+        Map<String, Update> merged = new LinkedHashMap<>();
+        Map<String, Update> debug = new LinkedHashMap<>();
+        List<Update> appends = new ArrayList<>();
+        for (Update update : batch) {
+            switch (update.type) {
+                case APPEND:
+                    appends.add(update);
+                    break;
+                case DEBUG_LOG:
+                case DEBUG_FINISH:
+                    debug.merge(update.debugHistory.getId(), update, JobHistoryWriter::mergeDebug);
+                    break;
+                default:
+                    merged.merge(update.history.getId(), update, JobHistoryWriter::merge);
+            }
+        }
+        int statements = merged.size() + debug.size();
+        if (appendLogs(appends, merged)) {
+            statements++;
+        }
+        for (Update update : merged.values()) {
+            try {
+                if (update.type == Type.MERGED) {
+                    heraJobHistoryService.update(update.history);
+                    //与结束时的写库一致，清理运行中追加的日志片段
+                    if (!StatusEnum.RUNNING.toString().equals(update.history.getStatus())) {
+                        heraJobHistoryService.deleteHeraJobHistoryLog(update.history.getId());
+                    }
+                } else if (update.type == Type.FINISH) {
+                    heraJobHistoryService.updateHeraJobHistoryLogAndStatus(update.history);
+                } else {
+                    heraJobHistoryService.update(update.history);
+                }
+            } catch (Exception e) {
+                ErrorLog.error("write job history error, id:" + update.history.getId(), e);
+            }
+        }
+        for (Update update : debug.values()) {
+            try {
+                if (update.type == Type.DEBUG_FINISH) {
+                    heraDebugHistoryService.updateStatus(update.debugHistory);
+                }
+                heraDebugHistoryService.updateLog(update.debugHistory);
+            } catch (Exception e) {
+                ErrorLog.error("write debug history error, id:" + update.debugHistory.getId(), e);
+            }
+        }
+        for (Update update : batch) {
+            update.future.complete(null);
+        }
+        if (batch.size() > 1) {
+            ScheduleLog.info("history writer flush {} updates as {} statements", batch.size(), statements);
+        }
+    }
+
+    /**
+     * 日志片段先于结束写入，同一批里已经结束的执行记录结束时会写入完整日志并清理片段，不再追加
+     *
+     * @return 是否执行了写库
+     */
+    private boolean appendLogs(List<Update> appends, Map<String, Update> merged) {
+        List<HeraJobHistoryLog> logs = new ArrayList<>(appends.size());
+        for (Update update : appends) {
+            Update row = merged.get(update.history.getId());
+            if (row == null || row.type == Type.START) {
+                logs.add(HeraJobHistoryLog.builder().historyId(update.history.getId()).content(update.history.getLog()).build());
+            }
+        }
+        if (logs.isEmpty()) {
+            return false;
+        }
+        try {
+            heraJobHistoryService.appendHeraJobHistoryLog(logs);
+        } catch (Exception e) {
+            ErrorLog.error("append job log error, size:" + logs.size(), e);
+        }
+        return true;
+    }
+
+    /**
+     * 开始和结束合并时以开始的执行记录为基础，带上结束的状态、日志和结束时间，整体update一次，之后清理日志片段
+     */
+    private static Update merge(Update old, Update now) {
+        //已合并的更新带有开始的全部字段，继续作为开始参与合并
+        boolean oldFinish = old.type == Type.FINISH;
+        boolean nowFinish = now.type == Type.FINISH;
+        Update start = oldFinish ? (nowFinish ? null : now) : old;
+        Update finish = nowFinish ? now : (oldFinish ? old : null);
+        if (start == null || finish == null) {
+            return now;
+        }
+        HeraJobHistory history = start.history;
+        history.setStatus(finish.history.getStatus());
+        history.setLog(finish.history.getLog());
+        history.setEndTime(finish.history.getEndTime());
+        return new Update(Type.MERGED, history, null);
+    }
+
+    /**
+     * 开发中心的日志每次都是全量，保留最后一次；结束带有完整日志，不被运行中的日志覆盖
+     */
+    private static Update mergeDebug(Update old, Update now) {
+        return old.type == Type.DEBUG_FINISH ? old : now;
+    }
+
+    private enum Type {
+        START,
+        FINISH,
+        /**
+         * 同一批里开始和结束合并后的更新
+         */
+        MERGED,
+        APPEND,
+        DEBUG_LOG,
+        DEBUG_FINISH
+    }
+
+    private static class Update {
+
+        private final Type type;
+
+        private final HeraJobHistory history;
+
+        private final HeraDebugHistory debugHistory;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Update(Type type, HeraJobHistory history, HeraDebugHistory debugHistory) {
+            this.type = type;
+            this.history = history;
+            this.debugHistory = debugHistory;
+        }
+    }
+}
@@ -3,16 +3,16 @@ package com.dfire.core.netty.master;
 
 import com.dfire.common.constants.Constants;
 import com.dfire.common.constants.LogConstant;
-import com.dfire.common.constants.TimeFormatConstant;
 import com.dfire.common.entity.*;
 import com.dfire.common.entity.vo.HeraDebugHistoryVo;
 import com.dfire.common.entity.vo.HeraJobHistoryVo;
 import com.dfire.common.enums.StatusEnum;
 import com.dfire.common.enums.TriggerTypeEnum;
 import com.dfire.common.kv.Tuple;
+import com.dfire.common.service.impl.HeraGroupMemoryServiceImpl;
+import com.dfire.common.service.impl.HeraJobMemoryServiceImpl;
 import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.BeanConvertUtils;
-import com.dfire.common.util.HeraDateTool;
 import com.dfire.common.util.StringUtil;
 import com.dfire.common.vo.JobElement;
 import com.dfire.config.HeraGlobalEnv;
@@ -24,10 +24,10 @@ import com.dfire.core.event.listenter.HeraDebugListener;
 import com.dfire.core.event.listenter.HeraJobFailListener;
 import com.dfire.core.event.listenter.HeraJobSuccessListener;
 import com.dfire.core.message.HeartBeatInfo;
+import com.dfire.core.netty.cluster.FailBackOutbox;
 import com.dfire.core.netty.master.constant.MasterConstant;
 import com.dfire.core.route.loadbalance.LoadBalance;
 import com.dfire.core.route.loadbalance.LoadBalanceFactory;
-import com.dfire.core.util.CronParse;
 import com.dfire.event.Events;
 import com.dfire.event.HeraJobLostEvent;
 import com.dfire.event.HeraJobMaintenanceEvent;
@@ -38,14 +38,15 @@ import io.netty.channel.Channel;
 import lombok.Getter;
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
-import org.springframework.beans.BeanUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -64,14 +65,40 @@ public class Master {
 
     private volatile boolean isGenerateActioning = false;
 
+    /**
+     * 未执行和执行中的版本，按触发时间排序，供漏跑和信号丢失检测使用
+     */
+    @Getter
+    private final PendingActionIndex pendingActions = new PendingActionIndex();
+
+    /**
+     * 已确认信号丢失、等待重跑的版本
+     */
+    private final Set<Long> signalLostChecking = ConcurrentHashMap.newKeySet();
+
     private LoadBalance loadBalance;
 
     private MasterRunJob masterRunJob;
 
-    private Channel lastWork;
+    private static final int BATCH_QUERY_SIZE = 500;
+
+    /**
+     * master启动时间，用于统计重启后到首次分发任务的耗时
+     */
+    private volatile long startTime;
+
+    @Getter
+    private volatile long firstDispatchCost = -1;
+
+    private final AtomicLong dispatchCount = new AtomicLong(0);
+
+    private final AtomicLong dispatchLatencyTotal = new AtomicLong(0);
+
+    private final AtomicLong dispatchLatencyMax = new AtomicLong(0);
 
     public void init(MasterContext masterContext) {
         this.masterContext = masterContext;
+        this.startTime = System.currentTimeMillis();
         masterRunJob = new MasterRunJob(masterContext, this);
         loadBalance = LoadBalanceFactory.getLoadBalance();
         if (HeraGlobalEnv.getEnv().equalsIgnoreCase(Constants.PRE_ENV)) {
@@ -84,17 +111,7 @@ public class Master {
             masterContext.getDispatcher().addDispatcherListener(new HeraJobFailListener(masterContext));
             masterContext.getDispatcher().addDispatcherListener(new HeraDebugListener(masterContext));
             masterContext.getDispatcher().addDispatcherListener(new HeraJobSuccessListener(masterContext));
-            List<HeraAction> allJobList = masterContext.getHeraJobActionService().getAfterAction(getBeforeDayAction());
-            HeraLog.info("-----------------------------action size:{}, time {}-----------------------------", allJobList.size(), System.currentTimeMillis());
-            heraActionMap = new ConcurrentHashMap<>(allJobList.size());
-            allJobList.forEach(heraAction -> {
-                masterContext.getDispatcher().
-                        addJobHandler(new JobHandler(heraAction.getId().toString(), this, masterContext));
-                heraActionMap.put(heraAction.getId(), heraAction);
-            });
-            HeraLog.info("-----------------------------add actions to handler success, time:{}-----------------------------", System.currentTimeMillis());
-            masterContext.getDispatcher().forwardEvent(Events.Initialize);
-            HeraLog.info("-----------------------------dispatcher actions success, time{}-----------------------------", System.currentTimeMillis());
+            warmStart();
             masterContext.refreshHostGroupCache();
             HeraLog.info("refresh hostGroup cache");
             // 1.生成版本
@@ -108,6 +125,56 @@ public class Master {
         });
     }
 
+    /**
+     * 批量启动：流式读取缓存窗口内的版本构建handler，批量查询RUNNING版本的历史记录，
+     * 定时调度收集后一次注册，不再广播Initialize事件让每个handler单独查库
+     */
+    private void warmStart() {
+        long start = System.currentTimeMillis();
+        Dispatcher dispatcher = masterContext.getDispatcher();
+        ConcurrentHashMap<Long, HeraAction> actionMap = new ConcurrentHashMap<>();
+        List<String> runningHistoryIds = new ArrayList<>();
+        masterContext.getHeraJobActionService().scanAfterAction(getBeforeDayAction(), heraAction -> {
+            dispatcher.addJobHandler(new JobHandler(heraAction.getId().toString(), this, masterContext), heraAction.getDependencies());
+            actionMap.put(heraAction.getId(), heraAction);
+            if (StatusEnum.RUNNING.toString().equals(heraAction.getStatus()) && heraAction.getHistoryId() != null) {
+                runningHistoryIds.add(heraAction.getHistoryId());
+            }
+        });
+        heraActionMap = actionMap;
+        pendingActions.addAll(actionMap.values());
+        long loadTime = System.currentTimeMillis();
+        HeraLog.info("-----------------------------add {} actions to handler success, cost:{}ms-----------------------------", actionMap.size(), loadTime - start);
+        if (!dispatcher.beforeInitialize()) {
+            HeraLog.info("初始化事件被拦截，不恢复调度");
+            return;
+        }
+
+        Map<String, HeraJobHistory> runningHistories = new HashMap<>(runningHistoryIds.size());
+        for (int from = 0; from < runningHistoryIds.size(); from += BATCH_QUERY_SIZE) {
+            List<String> ids = runningHistoryIds.subList(from, Math.min(from + BATCH_QUERY_SIZE, runningHistoryIds.size()));
+            masterContext.getHeraJobHistoryService().findByIds(ids).forEach(history -> runningHistories.put(history.getId(), history));
+        }
+
+        Map<String, String> triggers = new HashMap<>();
+        actionMap.values().forEach(heraAction -> {
+            JobHandler handler = dispatcher.getJobHandler(heraAction.getId().toString());
+            if (handler == null) {
+                return;
+            }
+            try {
+                handler.setInitialized(true);
+                handler.warmUp(heraAction, runningHistories.get(heraAction.getHistoryId()), triggers);
+            } catch (Exception e) {
+                ErrorLog.error(heraAction.getId() + "初始化异常", e);
+            }
+        });
+        long initTime = System.currentTimeMillis();
+        int scheduled = masterContext.getTriggerService().scheduleAll(triggers);
+        HeraLog.info("-----------------------------warm start success, actions:{}, running:{}, schedule:{}, load:{}ms, init:{}ms, trigger:{}ms-----------------------------",
+                actionMap.size(), runningHistoryIds.size(), scheduled, loadTime - start, initTime - loadTime, System.currentTimeMillis() - initTime);
+    }
+
     private long getBeforeDayAction() {
         Calendar calendar = Calendar.getInstance();
         calendar.add(Calendar.DAY_OF_YEAR, -HeraGlobalEnv.getJobCacheDay());
@@ -143,50 +210,61 @@ public class Master {
 
 
     /**
-     * 漏泡检测，清理schedule线程，30分钟调度一次
+     * 漏跑检测，每分钟一次，只检查待执行索引中已过期的版本
      * 信号丢失检测
      * job开始检测15分钟之前的漏跑任务
      */
     private void lostJobCheck() {
-        int minute = new DateTime().getMinuteOfHour();
         masterContext.masterSchedule.scheduleAtFixedRate(() -> {
-            ScheduleLog.info("refresh host group success, start roll back");
-            masterContext.refreshHostGroupCache();
-            String currDate = ActionUtil.getCurrActionVersion();
-            Dispatcher dispatcher = masterContext.getDispatcher();
-            if (dispatcher != null) {
+            try {
+                Dispatcher dispatcher = masterContext.getDispatcher();
                 Map<Long, HeraAction> actionMapNew = heraActionMap;
-                if (actionMapNew != null && actionMapNew.size() > 0) {
-                    List<Long> actionIdList = new ArrayList<>();
-                    Long tmp = Long.parseLong(currDate) - MasterConstant.PRE_CHECK_MIN;
-                    for (Long actionId : actionMapNew.keySet()) {
-                        if (actionId < tmp) {
-                            rollBackLostJob(actionId, actionMapNew, actionIdList);
-                            checkLostSingle(actionId, actionMapNew);
-                        }
-                    }
-                    ScheduleLog.info("roll back action count:" + actionIdList.size());
+                if (dispatcher == null || actionMapNew == null || actionMapNew.isEmpty()) {
+                    return;
                 }
-                ScheduleLog.info("clear job scheduler ok");
+                long begin = System.currentTimeMillis();
+                Long tmp = Long.parseLong(ActionUtil.getCurrActionVersion()) - MasterConstant.PRE_CHECK_MIN;
+                List<HeraAction> overdue = pendingActions.overdue(tmp, actionMapNew);
+                Set<Long> actionIdSet = new HashSet<>();
+                rollBackLostJob(overdue, actionMapNew, actionIdSet);
+                checkLostSingle(overdue);
+                ScheduleLog.info("lost job check, overdue:{}, pending:{}, roll back action count:{}, cost:{}ms",
+                        overdue.size(), pendingActions.size(), actionIdSet.size(), System.currentTimeMillis() - begin);
+            } catch (Exception e) {
+                ErrorLog.error("漏跑检测异常", e);
             }
-        }, minute <= 30 ? 40 - minute : 70 - minute, 30, TimeUnit.MINUTES);
+        }, 1, 1, TimeUnit.MINUTES);
 
+        masterContext.masterSchedule.scheduleAtFixedRate(() -> {
+            masterContext.refreshHostGroupCache();
+            ScheduleLog.info("refresh host group success");
+        }, 30, 30, TimeUnit.MINUTES);
     }
 
     /**
      * 漏跑检测
      *
-     * @param actionId     版本id
+     * @param overdue      已过期的未执行和执行中版本
      * @param actionMapNew actionMap集合
-     * @param actionIdList 重跑的actionId
+     * @param actionIdSet  重跑的actionId
      */
-
-    private void rollBackLostJob(Long actionId, Map<Long, HeraAction> actionMapNew, List<Long> actionIdList) {
-        HeraAction lostJob = actionMapNew.get(actionId);
-        boolean isCheck = lostJob != null
-                && lostJob.getAuto() == 1
-                && lostJob.getStatus() == null;
-        if (isCheck && checkJobRun(masterContext.getHeraJobService().findById(lostJob.getJobId()))) {
+    private void rollBackLostJob(List<HeraAction> overdue, Map<Long, HeraAction> actionMapNew, Set<Long> actionIdSet) {
+        List<HeraAction> lostJobs = overdue.stream()
+                .filter(lostJob -> lostJob.getAuto() == 1 && lostJob.getStatus() == null)
+                .collect(Collectors.toList());
+        if (lostJobs.isEmpty()) {
+            return;
+        }
+        List<Integer> jobIds = lostJobs.stream().map(HeraAction::getJobId).distinct().collect(Collectors.toList());
+        Map<Integer, HeraJob> jobMap = new HashMap<>(jobIds.size());
+        masterContext.getHeraJobService().findByIds(jobIds).stream()
+                .filter(Objects::nonNull)
+                .forEach(heraJob -> jobMap.put(heraJob.getId(), heraJob));
+        for (HeraAction lostJob : lostJobs) {
+            Long actionId = lostJob.getId();
+            if (!checkJobRun(jobMap.get(lostJob.getJobId()))) {
+                continue;
+            }
             String dependencies = lostJob.getDependencies();
             if (StringUtils.isNotBlank(dependencies)) {
                 List<String> jobDependList = Arrays.asList(dependencies.split(Constants.COMMA));
@@ -201,10 +279,10 @@ public class Master {
                     }
                 }
                 if (isAllComplete) {
-                    addRollBackJob(actionIdList, actionId);
+                    addRollBackJob(actionIdSet, actionId);
                 }
             } else { //独立任务情况
-                addRollBackJob(actionIdList, actionId);
+                addRollBackJob(actionIdSet, actionId);
             }
         }
     }
@@ -237,53 +315,66 @@ public class Master {
     }
 
     /**
-     * 信号丢失处理
+     * 信号丢失处理，执行中版本的执行记录一次批量查询
      *
-     * @param actionId     hera_action 表信息id /版本id
-     * @param actionMapNew hera_action 内存信息 /内存保存的今天版本信息
+     * @param overdue 已过期的未执行和执行中版本
      */
-    private void checkLostSingle(Long actionId, Map<Long, HeraAction> actionMapNew) {
-        try {
-            HeraAction checkJob = actionMapNew.get(actionId);
-            if (checkJob == null) {
-                return;
-            }
-            if (StatusEnum.RUNNING.toString().equals(checkJob.getStatus())) {
-                HeraJobHistory actionHistory = masterContext.getHeraJobHistoryService().findById(checkJob.getHistoryId());
+    private void checkLostSingle(List<HeraAction> overdue) {
+        List<HeraAction> runningActions = overdue.stream()
+                .filter(checkJob -> StatusEnum.RUNNING.toString().equals(checkJob.getStatus()) && checkJob.getHistoryId() != null)
+                .collect(Collectors.toList());
+        Map<String, HeraJobHistory> histories = new HashMap<>(runningActions.size());
+        for (int from = 0; from < runningActions.size(); from += BATCH_QUERY_SIZE) {
+            List<String> ids = runningActions.subList(from, Math.min(from + BATCH_QUERY_SIZE, runningActions.size())).stream()
+                    .map(HeraAction::getHistoryId)
+                    .collect(Collectors.toList());
+            masterContext.getHeraJobHistoryService().findByIds(ids).forEach(history -> histories.put(history.getId(), history));
+        }
+        for (HeraAction checkJob : runningActions) {
+            try {
+                HeraJobHistory actionHistory = histories.get(checkJob.getHistoryId());
                 if (actionHistory == null) {
-                    return;
+                    continue;
                 }
-                if (actionHistory.getStatus() != null && !actionHistory.getStatus().equals(StatusEnum.RUNNING.toString())) {
+                Long actionId = checkJob.getId();
+                //上一次检测的确认还没结束时不重复确认
+                if (actionHistory.getStatus() != null && !actionHistory.getStatus().equals(StatusEnum.RUNNING.toString())
+                        && signalLostChecking.add(actionId)) {
                     masterContext.getMasterSchedule().schedule(() -> {
-                        HeraAction newAction = masterContext.getHeraJobActionService().findById(String.valueOf(actionId));
-                        if (StatusEnum.RUNNING.toString().equals(newAction.getStatus())) {
-                            HeartLog.warn("任务信号丢失actionId:{},historyId:{}", actionId, newAction.getHistoryId());
-                            Integer jobId = ActionUtil.getJobId(String.valueOf(actionId));
-                            boolean scheduleType = actionHistory.getTriggerType().equals(TriggerTypeEnum.SCHEDULE.getId())
-                                    || actionHistory.getTriggerType().equals(TriggerTypeEnum.MANUAL_RECOVER.getId());
-                            //TODO 可以选择重跑 or 广播 + 设置状态 这里偷懒 直接重跑
-                            masterContext.getWorkMap().values().forEach(workHolder -> {
-                                if (scheduleType) {
-                                    workHolder.getRunning().remove(jobId);
-                                } else {
-                                    workHolder.getManningRunning().remove(jobId);
-                                }
-                            });
-                            startNewJob(actionHistory, "任务信号丢失重试");
+                        try {
+                            HeraAction newAction = masterContext.getHeraJobActionService().findById(String.valueOf(actionId));
+                            if (StatusEnum.RUNNING.toString().equals(newAction.getStatus())) {
+                                HeartLog.warn("任务信号丢失actionId:{},historyId:{}", actionId, newAction.getHistoryId());
+                                Integer jobId = ActionUtil.getJobId(String.valueOf(actionId));
+                                boolean scheduleType = actionHistory.getTriggerType().equals(TriggerTypeEnum.SCHEDULE.getId())
+                                        || actionHistory.getTriggerType().equals(TriggerTypeEnum.MANUAL_RECOVER.getId());
+                                //TODO 可以选择重跑 or 广播 + 设置状态 这里偷懒 直接重跑
+                                masterContext.getWorkMap().values().forEach(workHolder -> {
+                                    if (scheduleType) {
+                                        workHolder.getRunning().remove(jobId);
+                                    } else {
+                                        workHolder.getManningRunning().remove(jobId);
+                                    }
+                                });
+                                masterContext.getInFlightRegistry().release(TriggerTypeEnum.parser(actionHistory.getTriggerType()), jobId, null);
+                                startNewJob(actionHistory, "任务信号丢失重试");
+                            }
+                        } catch (Exception e) {
+                            ErrorLog.error("信号丢失检测异常", e);
+                        } finally {
+                            signalLostChecking.remove(actionId);
                         }
                     }, 1, TimeUnit.MINUTES);
-
                 }
+            } catch (Exception e) {
+                ErrorLog.error("信号丢失检测异常", e);
             }
-        } catch (Exception e) {
-            ErrorLog.error("信号丢失检测异常", e);
         }
-
     }
 
-    private void addRollBackJob(List<Long> actionIdList, Long actionId) {
+    private void addRollBackJob(Set<Long> actionIdSet, Long actionId) {
         String actionStr = String.valueOf(actionId);
-        if (!actionIdList.contains(actionId) &&
+        if (!actionIdSet.contains(actionId) &&
                 !checkJobExists(HeraJobHistoryVo
                         .builder()
                         .actionId(actionStr)
@@ -291,40 +382,32 @@ public class Master {
                         .jobId((ActionUtil.getJobId(actionStr)))
                         .build(), true)) {
             masterContext.getDispatcher().forwardEvent(new HeraJobLostEvent(Events.UpdateJob, actionStr));
-            actionIdList.add(actionId);
+            actionIdSet.add(actionId);
             ScheduleLog.info("roll back lost actionId :" + actionId);
         }
     }
 
     /**
-     * 扫描任务等待队列，可获得worker的任务将执行
-     * 对于没有可运行机器的时，manual,debug任务重新offer到原队列
+     * 任务分发线程，任务入队、worker心跳、任务结束时被唤醒，
+     * 没有唤醒时按scanRate兜底扫描一次
      */
     private void waitingQueueCheck() {
-
-        masterContext.masterSchedule.schedule(new Runnable() {
-            // scan频率递增的步长
-            private final Integer DELAY_TIME = 100;
-            // 最大scan频率
-            private final Integer MAX_DELAY_TIME = 10 * 1000;
-
-            private Integer nextTime = HeraGlobalEnv.getScanRate();
-
-            @Override
-            public void run() {
+        masterContext.getDispatchPool().execute(() -> {
+            DispatchSignal signal = masterContext.getDispatchSignal();
+            while (!Thread.currentThread().isInterrupted()) {
                 try {
-                    if (!masterRunJob.isTaskLimit() && scan()) {
-                        nextTime = HeraGlobalEnv.getScanRate();
-                    } else {
-                        nextTime = (nextTime + DELAY_TIME) > MAX_DELAY_TIME ? MAX_DELAY_TIME : nextTime + DELAY_TIME;
+                    signal.await(HeraGlobalEnv.getScanRate(), TimeUnit.MILLISECONDS);
+                    if (!masterRunJob.isTaskLimit()) {
+                        scan();
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 } catch (Exception e) {
                     ScanLog.error("scan waiting queueTask exception", e);
-                } finally {
-                    masterContext.masterSchedule.schedule(this, nextTime, TimeUnit.MILLISECONDS);
                 }
             }
-        }, HeraGlobalEnv.getScanRate(), TimeUnit.MILLISECONDS);
+            ScanLog.info("dispatch thread exit");
+        });
     }
 
 
@@ -348,7 +431,7 @@ public class Master {
                     removeChannel.add(channel);
                 }
             }
-            removeChannel.forEach(workMap::remove);
+            removeChannel.forEach(channel -> masterContext.getWorkerRegistry().remove(workMap.remove(channel)));
         }, 0, 1, TimeUnit.MINUTES);
     }
 
@@ -405,23 +488,17 @@ public class Master {
                         }
                     }
                     shouldRemove.forEach(actionMap::remove);
-                    List<AbstractHandler> handlers = new ArrayList<>(masterContext.getDispatcher().getJobHandlers());
-                    if (handlers.size() > 0) {
-                        for (AbstractHandler handler : handlers) {
-                            JobHandler jobHandler = (JobHandler) handler;
-                            if (StringUtil.actionIdToJobId(jobHandler.getActionId(), String.valueOf(jobId))) {
-                                masterContext.getQuartzSchedulerService().deleteJob(jobHandler.getActionId());
-                                masterContext.getDispatcher().removeJobHandler(jobHandler);
-                            }
-                        }
+                    masterContext.getTriggerService().cancelJob(jobId);
+                    for (JobHandler jobHandler : masterContext.getDispatcher().getJobHandlers(jobId)) {
+                        masterContext.getDispatcher().removeJobHandler(jobHandler);
                     }
                 }
                 String cronDate = ActionUtil.getActionVersionPrefix(now);
-                Map<Integer, List<HeraAction>> idMap = new HashMap<>(jobList.size());
-                Map<Integer, HeraJob> jobMap = new HashMap<>(jobList.size());
-                generateScheduleJobAction(jobList, cronDate, actionMap, nowAction, idMap, jobMap);
-                for (Map.Entry<Integer, HeraJob> entry : jobMap.entrySet()) {
-                    generateDependJobAction(jobMap, entry.getValue(), actionMap, nowAction, idMap);
+                Map<Long, HeraAction> finalActionMap = actionMap;
+                //定时任务并行生成后，依赖任务按层级逐层生成，每层批量写库
+                masterContext.getActionGenerator().generate(jobList, cronDate, actions -> batchInsertList(actions, finalActionMap, nowAction));
+                if (!isSingle) {
+                    masterContext.getActionGenerator().retainCronPlans(jobList);
                 }
                 if (executeHour < ActionUtil.ACTION_CREATE_MAX_HOUR) {
                     heraActionMap = actionMap;
@@ -429,8 +506,9 @@ public class Master {
                 Dispatcher dispatcher = masterContext.getDispatcher();
                 if (dispatcher != null) {
                     if (actionMap.size() > 0) {
-                        for (Long id : actionMap.keySet()) {
-                            dispatcher.addJobHandler(new JobHandler(id.toString(), masterContext.getMaster(), masterContext));
+                        for (Map.Entry<Long, HeraAction> entry : actionMap.entrySet()) {
+                            Long id = entry.getKey();
+                            dispatcher.addJobHandler(new JobHandler(id.toString(), masterContext.getMaster(), masterContext), entry.getValue().getDependencies());
                             //如果是今天的版本 更新缓存
                             if (ActionUtil.isTodayActionVersion(id.toString())) {
                                 dispatcher.forwardEvent(new HeraJobMaintenanceEvent(Events.UpdateActions, id.toString()));
@@ -469,45 +547,6 @@ public class Master {
         return jobList;
     }
 
-    /**
-     * 自动任务的版本生成
-     *
-     * @param jobList   任务集合
-     * @param cronDate  日期
-     * @param actionMap actionMap集合
-     * @param nowAction 生成版本时间的action
-     * @param idMap     已经遍历过的idMap
-     * @param jobMap    依赖任务map映射
-     */
-    public void generateScheduleJobAction(List<HeraJob> jobList, String cronDate, Map<Long, HeraAction> actionMap, Long nowAction, Map<Integer, List<HeraAction>> idMap, Map<Integer, HeraJob> jobMap) {
-        List<HeraAction> insertActionList = new ArrayList<>();
-        for (HeraJob heraJob : jobList) {
-            if (heraJob.getScheduleType() != null) {
-                if (heraJob.getScheduleType() == 1) {
-                    jobMap.put(heraJob.getId(), heraJob);
-                } else if (heraJob.getScheduleType() == 0) {
-                    String cron = heraJob.getCronExpression();
-                    List<String> list = new ArrayList<>();
-                    if (StringUtils.isNotBlank(cron)) {
-                        boolean isCronExp = CronParse.Parser(cron, cronDate, list);
-                        if (!isCronExp) {
-                            HeraLog.warn("cron parse error,jobId={},cron = {}", heraJob.getId(), cron);
-                            continue;
-                        }
-                        List<HeraAction> heraAction = createHeraAction(list, heraJob);
-                        idMap.put(heraJob.getId(), heraAction);
-                        insertActionList.addAll(heraAction);
-                    }
-                } else {
-                    ErrorLog.error("任务{}未知的调度类型{}", heraJob.getId(), heraJob.getScheduleType());
-                }
-            }
-        }
-        batchInsertList(insertActionList, actionMap, nowAction);
-
-    }
-
-
     /**
      * 批量插入
      *
@@ -531,6 +570,7 @@ public class Master {
                 masterContext.getHeraJobActionService().batchInsert(insertList, nowAction);
                 for (HeraAction action : insertList) {
                     actionMap.put(action.getId(), action);
+                    pendingActions.add(action);
                 }
 
             }
@@ -538,39 +578,6 @@ public class Master {
     }
 
 
-    /**
-     * 生成action
-     *
-     * @param list    表格cronTab 表达式，对应多了时间点的版本集合
-     * @param heraJob hera_job 表对象
-     * @return 更新后的action 信息，保存到内存
-     */
-    private List<HeraAction> createHeraAction(List<String> list, HeraJob heraJob) {
-        List<HeraAction> heraActionList = new ArrayList<>();
-        for (String str : list) {
-            String actionDate = HeraDateTool.StringToDateStr(str, ActionUtil.DEFAULT_FORMAT, ActionUtil.ACTION_MIN);
-            String actionCron = HeraDateTool.StringToDateStr(str, ActionUtil.DEFAULT_FORMAT, ActionUtil.ACTION_CRON) + " ?";
-            HeraAction heraAction = new HeraAction();
-            BeanUtils.copyProperties(heraJob, heraAction);
-            Long actionId = Long.parseLong(actionDate) * 1000000 + Long.parseLong(String.valueOf(heraJob.getId()));
-            heraAction.setId(actionId);
-            heraAction.setCronExpression(actionCron);
-            heraAction.setGmtCreate(new Date());
-            heraAction.setJobId(heraJob.getId());
-            heraAction.setHistoryId(heraJob.getHistoryId());
-            heraAction.setAuto(heraJob.getAuto());
-            heraAction.setGmtModified(new Date());
-            heraAction.setJobDependencies(null);
-            heraAction.setDependencies(null);
-            heraAction.setReadyDependency(null);
-            heraAction.setHostGroupId(heraJob.getHostGroupId());
-            heraAction.setBatchId(getBatchIdFromActionIdPeriod(actionId,heraJob.getCronPeriod(),heraJob.getCronInterval())); //批次号
-            heraActionList.add(heraAction);
-        }
-        return heraActionList;
-    }
-
-
     private void clearInvalidAction() {
         ScheduleLog.warn("开始进行版本清理");
         Dispatcher dispatcher = masterContext.getDispatcher();
@@ -589,10 +596,10 @@ public class Master {
                 String actionId = jobHandler.getActionId();
                 Long aid = Long.parseLong(actionId);
                 if (Long.parseLong(actionId) < preCheckTime) {
-                    masterContext.getQuartzSchedulerService().deleteJob(actionId);
+                    masterContext.getTriggerService().cancel(actionId);
                 } else if (aid >= currDate && aid < nextDay) {
                     if (!actionMapNew.containsKey(aid)) {
-                        masterContext.getQuartzSchedulerService().deleteJob(actionId);
+                        masterContext.getTriggerService().cancel(actionId);
                         masterContext.getHeraJobActionService().delete(actionId);
                         shouldRemove.add(jobHandler);
                     }
@@ -610,141 +617,119 @@ public class Master {
 
 
     /**
-     * 递归生成任务依赖action
-     *
-     * @param jobMap    任务映射map
-     * @param heraJob   当前生成版本的任务
-     * @param actionMap 版本map
-     * @param nowAction 生成版本时间的action
-     * @param idMap     job的id集合  只要已经检测过的id都放入idSet中
+     * 扫描任务等待队列，在并行度允许的范围内一次尽量多地取出任务去执行。
+     * 三个队列轮流各取一个，每个队列最多扫描一遍，没有可用worker的任务本轮结束后放回原队列
      */
-    private void generateDependJobAction(Map<Integer, HeraJob> jobMap, HeraJob heraJob, Map<Long, HeraAction> actionMap, Long nowAction, Map<Integer, List<HeraAction>> idMap) {
-        if (heraJob == null || idMap.containsKey(heraJob.getId())) {
-            return;
+    public boolean scan() throws InterruptedException {
+        List<BlockingQueue<JobElement>> queues = Arrays.asList(masterContext.getScheduleQueue(), masterContext.getManualQueue(), masterContext.getDebugQueue());
+        int[] remain = new int[queues.size()];
+        List<List<JobElement>> skipped = new ArrayList<>(queues.size());
+        for (int i = 0; i < queues.size(); i++) {
+            remain[i] = queues.get(i).size();
+            skipped.add(new ArrayList<>(0));
         }
-        String jobDependencies = heraJob.getDependencies();
-        if (StringUtils.isNotBlank(jobDependencies)) {
-            Map<String, List<HeraAction>> dependenciesMap = new HashMap<>(1024);
-            String[] dependencies = jobDependencies.split(Constants.COMMA);
-            String actionMinDeps = "";
-            boolean noAction = false;
-            for (String dependentId : dependencies) {
-                Integer dpId = Integer.parseInt(dependentId);
-                //如果idSet不包含依赖任务dpId  则递归查找
-                if (!idMap.containsKey(dpId)) {
-                    generateDependJobAction(jobMap, jobMap.get(dpId), actionMap, nowAction, idMap);
-                }
-                List<HeraAction> dpActions = idMap.get(dpId);
-                dependenciesMap.put(dependentId, dpActions);
-                if (dpActions == null || dpActions.size() == 0) {
-                    HeraLog.info("{}今天找不到版本，无法为任务{}生成版本", dependentId, heraJob.getId());
-                    noAction = true;
-                    break;
-                }
-                if (StringUtils.isBlank(actionMinDeps)) {
-                    actionMinDeps = dependentId;
-                }
-                //找到所依赖的任务中版本最少的作为基准版本。
-                if (dependenciesMap.get(actionMinDeps).size() > dependenciesMap.get(dependentId).size()) {
-                    actionMinDeps = dependentId;
-                } else if (dependenciesMap.get(dependentId).size() > 0 && dependenciesMap.get(actionMinDeps).size() == dependenciesMap.get(dependentId).size() &&
-                        dependenciesMap.get(actionMinDeps).get(0).getId() < dependenciesMap.get(dependentId).get(0).getId()) {
-                    //如果两个版本的个数一样  那么应该找一个时间较大的
-                    actionMinDeps = dependentId;
+        int dispatched = 0;
+        try {
+            boolean polled = true;
+            while (polled && !masterRunJob.isTaskLimit()) {
+                polled = false;
+                for (int i = 0; i < queues.size() && !masterRunJob.isTaskLimit(); i++) {
+                    if (remain[i] <= 0) {
+                        continue;
+                    }
+                    remain[i]--;
+                    JobElement jobElement = queues.get(i).poll();
+                    if (jobElement == null) {
+                        remain[i] = 0;
+                        continue;
+                    }
+                    polled = true;
+                    MasterWorkHolder selectWork = getRunnableWork(jobElement);
+                    if (selectWork == null) {
+                        skipped.get(i).add(jobElement);
+                    } else {
+                        recordDispatchLatency(jobElement);
+                        masterContext.getInFlightRegistry().dispatched(jobElement.getTriggerType(),
+                                ActionUtil.getJobId(jobElement.getJobId()), jobElement.getHistoryId());
+                        masterRunJob.run(selectWork, jobElement);
+                        dispatched++;
+                    }
                 }
             }
-            if (noAction) {
-                idMap.put(heraJob.getId(), null);
-            } else {
-                List<HeraAction> actionMinList = dependenciesMap.get(actionMinDeps);
-                if (actionMinList != null && actionMinList.size() > 0) {
-                    List<HeraAction> insertList = new ArrayList<>();
-                    for (HeraAction action : actionMinList) {
-                        StringBuilder actionDependencies = new StringBuilder(action.getId().toString());
-                        Long longActionId = Long.parseLong(actionDependencies.toString());
-                        for (String dependency : dependencies) {
-                            if (!dependency.equals(actionMinDeps)) {
-                                List<HeraAction> otherAction = dependenciesMap.get(dependency);
-                                if (otherAction == null || otherAction.size() == 0) {
-                                    continue;
-                                }
-                                //找到一个离基准版本时间最近的action，添加为该任务的依赖
-                                String otherActionId = otherAction.get(0).getId().toString();
-                                for (HeraAction o : otherAction) {
-                                    if (Math.abs(o.getId() - longActionId) < Math.abs(Long.parseLong(otherActionId) - longActionId)) {
-                                        otherActionId = o.getId().toString();
-                                    }
-                                }
-                                actionDependencies.append(",");
-                                actionDependencies.append(Long.parseLong(otherActionId) / 1000000 * 1000000 + Long.parseLong(dependency));
-                            }
-                        }
-                        HeraAction actionNew = new HeraAction();
-                        BeanUtils.copyProperties(heraJob, actionNew);
-                        Long actionId = longActionId / 1000000 * 1000000 + Long.parseLong(String.valueOf(heraJob.getId()));
-                        actionNew.setId(actionId);
-                        actionNew.setGmtCreate(new Date());
-                        actionNew.setDependencies(actionDependencies.toString());
-                        actionNew.setJobDependencies(heraJob.getDependencies());
-                        actionNew.setJobId(heraJob.getId());
-                        actionNew.setAuto(heraJob.getAuto());
-                        actionNew.setHostGroupId(heraJob.getHostGroupId());
-                        actionNew.setBatchId(getBatchIdFromActionIdPeriod(actionId,heraJob.getCronPeriod(),heraJob.getCronInterval()));//批次号
-                        masterContext.getHeraJobActionService().insert(actionNew, nowAction);
-                        actionMap.put(actionNew.getId(), actionNew);
-                        insertList.add(actionNew);
-                    }
-                    idMap.put(heraJob.getId(), insertList);
+        } finally {
+            for (int i = 0; i < queues.size(); i++) {
+                for (JobElement jobElement : skipped.get(i)) {
+                    queues.get(i).put(jobElement);
                 }
             }
         }
-
+        //每轮只汇总一次，避免每次心跳、入队都为每个等待的任务打一行
+        if (!skipped.get(0).isEmpty() || !skipped.get(1).isEmpty() || !skipped.get(2).isEmpty()) {
+            ScheduleLog.warn("can not get work to execute jobs in master, schedule:{}, manual:{}, debug:{}",
+                    skipped.get(0).size(), skipped.get(1).size(), skipped.get(2).size());
+        }
+        if (dispatched > 0) {
+            if (firstDispatchCost < 0) {
+                firstDispatchCost = System.currentTimeMillis() - startTime;
+                HeraLog.info("master启动后首次分发任务耗时:{}ms", firstDispatchCost);
+            }
+            ScanLog.info("dispatch {} jobs, latency:{}", dispatched, getDispatchLatency());
+        }
+        return dispatched > 0;
     }
 
+    private void recordDispatchLatency(JobElement jobElement) {
+        if (jobElement.getEnqueueTime() <= 0) {
+            return;
+        }
+        long latency = Math.max(0, System.currentTimeMillis() - jobElement.getEnqueueTime());
+        dispatchCount.incrementAndGet();
+        dispatchLatencyTotal.addAndGet(latency);
+        dispatchLatencyMax.accumulateAndGet(latency, Math::max);
+    }
 
     /**
-     * 扫描任务等待队列，取出任务去执行
+     * 任务从入队到分发的延迟统计
+     *
+     * @return [count, avg, max] 单位毫秒
      */
-    public boolean scan() throws InterruptedException {
-        boolean hasTask = false;
-        if (!masterContext.getScheduleQueue().isEmpty()) {
-            JobElement jobElement = masterContext.getScheduleQueue().take();
-            MasterWorkHolder selectWork = getRunnableWork(jobElement);
-            if (selectWork == null) {
-                masterContext.getScheduleQueue().put(jobElement);
-                ScheduleLog.warn("can not get work to execute Schedule job in master,job is:{}", jobElement.toString());
-            } else {
-                masterRunJob.run(selectWork, jobElement);
-                hasTask = true;
-            }
-        }
+    public String getDispatchLatency() {
+        long count = dispatchCount.get();
+        return "[count:" + count
+                + ",avg:" + (count == 0 ? 0 : dispatchLatencyTotal.get() / count) + "ms"
+                + ",max:" + dispatchLatencyMax.get() + "ms]";
+    }
 
-        if (!masterContext.getManualQueue().isEmpty()) {
-            JobElement jobElement = masterContext.getManualQueue().take();
-            MasterWorkHolder selectWork = getRunnableWork(jobElement);
-            if (selectWork == null) {
-                masterContext.getManualQueue().put(jobElement);
-                ScheduleLog.warn("can not get work to execute ManualQueue job in master,job is:{}", jobElement.toString());
-            } else {
-                masterRunJob.run(selectWork, jobElement);
-                hasTask = true;
-            }
-        }
+    /**
+     * 放入等待队列并唤醒分发线程
+     */
+    private void enqueue(BlockingQueue<JobElement> queue, JobElement element) throws InterruptedException {
+        element.setEnqueueTime(System.currentTimeMillis());
+        queue.put(element);
+        masterContext.getDispatchSignal().signal();
+    }
 
-        if (!masterContext.getDebugQueue().isEmpty()) {
-            JobElement jobElement = masterContext.getDebugQueue().take();
-            MasterWorkHolder selectWork = getRunnableWork(jobElement);
-            if (selectWork == null) {
-                masterContext.getDebugQueue().put(jobElement);
-                ScheduleLog.warn("can not get work to execute DebugQueue job in master,job is:{}", jobElement.toString());
-            } else {
-                masterRunJob.run(selectWork, jobElement);
-                hasTask = true;
+    /**
+     * 被worker拒绝执行的任务放回原来的等待队列，由分发线程换一台worker
+     */
+    public void requeue(JobElement element) {
+        masterContext.getInFlightRegistry().requeued(element.getTriggerType(), ActionUtil.getJobId(element.getJobId()), element.getHistoryId());
+        try {
+            switch (element.getTriggerType()) {
+                case DEBUG:
+                    enqueue(masterContext.getDebugQueue(), element);
+                    break;
+                case MANUAL:
+                    enqueue(masterContext.getManualQueue(), element);
+                    break;
+                default:
+                    enqueue(masterContext.getScheduleQueue(), element);
+                    break;
             }
-
+        } catch (InterruptedException e) {
+            masterContext.getInFlightRegistry().release(element.getTriggerType(), ActionUtil.getJobId(element.getJobId()), element.getHistoryId());
+            ErrorLog.error("任务" + element.getJobId() + "放回等待队列失败", e);
         }
-        return hasTask;
-
     }
 
 
@@ -757,26 +742,8 @@ public class Master {
     private MasterWorkHolder getRunnableWork(JobElement jobElement) {
         //TODO 如果是emr集群 是否可以在这里判断内存信息？
 
-        MasterWorkHolder selectWork = loadBalance.select(jobElement, masterContext);
-        if (selectWork == null) {
-            return null;
-        }
-        Channel channel = selectWork.getChannel().getChannel();
-        HeartBeatInfo beatInfo = selectWork.getHeartBeatInfo();
-        // 如果最近两次选择的work一致  需要等待机器最新状态发来之后(睡眠)再进行任务分发
-        if (HeraGlobalEnv.getWarmUpCheck() > 0 && lastWork != null && channel == lastWork && (beatInfo.getCpuLoadPerCore() > 0.6F || beatInfo.getMemRate() > 0.7F)) {
-            ScheduleLog.info("达到预热条件，睡眠" + HeraGlobalEnv.getWarmUpCheck() + "秒");
-            try {
-                TimeUnit.SECONDS.sleep(HeraGlobalEnv.getWarmUpCheck());
-            } catch (InterruptedException e) {
-                ErrorLog.error("InterruptedException", e);
-
-            }
-            lastWork = null;
-            return null;
-        }
-        lastWork = channel;
-        return selectWork;
+        //预热冷却中的worker由负载均衡跳过，不阻塞分发线程
+        return loadBalance.select(jobElement, masterContext);
     }
 
     public void debug(HeraDebugHistoryVo debugHistory) {
@@ -795,33 +762,13 @@ public class Master {
         debugHistory.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 进入任务队列");
         masterContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(debugHistory));
         try {
-            masterContext.getDebugQueue().put(element);
+            enqueue(masterContext.getDebugQueue(), element);
         } catch (InterruptedException e) {
             ErrorLog.error("添加开发中心执行任务失败:" + element.getJobId(), e);
         }
     }
 
 
-    private String getInheritVal(Integer groupId, String key, String defaultKey) {
-        HeraGroup group = masterContext.getHeraGroupService().findConfigById(groupId);
-        String defaultVal = null;
-        while (group != null && groupId != null && groupId != 0) {
-            Map<String, String> map = StringUtil.convertStringToMap(group.getConfigs());
-            // 多重继承相同变量，以第一个的为准
-            for (Map.Entry<String, String> entry : map.entrySet()) {
-                if (entry.getKey().equals(key)) {
-                    return entry.getValue();
-                }
-                if (StringUtils.isBlank(defaultVal) && entry.getKey().equals(defaultKey)) {
-                    defaultVal = entry.getValue();
-                }
-            }
-            groupId = group.getParent();
-            group = masterContext.getHeraGroupService().findConfigById(groupId);
-        }
-        return defaultVal;
-    }
-
     /**
      * 手动执行任务或者手动恢复任务的时候，先进行任务是否在执行的判断，
      * 没有在运行进入队列等待，已经在运行的任务不入队列，避免重复执行
@@ -829,12 +776,21 @@ public class Master {
      * @param heraJobHistory heraJobHistory表信息
      */
     public void run(HeraJobHistoryVo heraJobHistory, HeraJob heraJob) {
-        String actionId = heraJobHistory.getActionId();
         heraJobHistory.setStatusEnum(StatusEnum.RUNNING);
-        //重复job检测
+        //重复job检测，不重复时登记为排队中
         if (checkJobExists(heraJobHistory, false)) {
             return;
         }
+        try {
+            runChecked(heraJobHistory, heraJob);
+        } catch (RuntimeException e) {
+            releaseInFlight(heraJobHistory);
+            throw e;
+        }
+    }
+
+    private void runChecked(HeraJobHistoryVo heraJobHistory, HeraJob heraJob) {
+        String actionId = heraJobHistory.getActionId();
         HeraAction heraAction = masterContext.getHeraJobActionService().findById(actionId);
         Set<String> areaList = areaList(heraJob.getAreaId());
         //非执行区域任务直接设置为成功
@@ -856,6 +812,7 @@ public class Master {
             heraJobHistory.setStartTime(endTime);
             heraJobHistory.setExecuteHost(host);
             masterContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(heraJobHistory));
+            releaseInFlight(heraJobHistory);
             HeraJobSuccessEvent successEvent = new HeraJobSuccessEvent(actionId, heraJobHistory.getTriggerType(), heraJobHistory.getId());
             masterContext.getDispatcher().forwardEvent(successEvent);
             return;
@@ -874,7 +831,7 @@ public class Master {
 
         boolean isFixed;
         int priorityLevel = 3;
-        Map<String, String> configs = StringUtil.convertStringToMap(heraAction.getConfigs());
+        Map<String, String> configs = StringUtil.convertStringToMap(masterContext.getHeraJobActionService().findConfigs(heraAction));
         String priorityLevelValue = configs.get("run.priority.level");
         if (priorityLevelValue != null) {
             priorityLevel = Integer.parseInt(priorityLevelValue);
@@ -883,7 +840,7 @@ public class Master {
         if (configs.containsKey(Constants.HERA_EMR_FIXED) || configs.containsKey(areaFixed)) {
             isFixed = Boolean.parseBoolean(configs.get(areaFixed)) || Boolean.parseBoolean(configs.get(Constants.HERA_EMR_FIXED));
         } else {
-            isFixed = Boolean.parseBoolean(getInheritVal(heraAction.getGroupId(), areaFixed, Constants.HERA_EMR_FIXED));
+            isFixed = Boolean.parseBoolean(masterContext.getHeraGroupService().getInheritVal(heraAction.getGroupId(), areaFixed, Constants.HERA_EMR_FIXED));
         }
         Integer endMinute = masterContext.getHeraJobService().findMustEndMinute(heraAction.getJobId());
         JobElement element = JobElement.builder()
@@ -897,17 +854,29 @@ public class Master {
         try {
             if (heraJobHistory.getTriggerType() == TriggerTypeEnum.MANUAL) {
                 element.setTriggerType(TriggerTypeEnum.MANUAL);
-                masterContext.getManualQueue().put(element);
+                enqueue(masterContext.getManualQueue(), element);
             } else {
                 element.setTriggerType(TriggerTypeEnum.SCHEDULE);
-                masterContext.getScheduleQueue().put(element);
+                enqueue(masterContext.getScheduleQueue(), element);
             }
         } catch (InterruptedException e) {
+            releaseInFlight(heraJobHistory);
             ErrorLog.error("添加任务" + element.getJobId() + "失败", e);
         }
     }
 
+    private void releaseInFlight(HeraJobHistoryVo heraJobHistory) {
+        masterContext.getInFlightRegistry().release(heraJobHistory.getTriggerType(), heraJobHistory.getJobId(), heraJobHistory.getId());
+    }
+
 
+    /**
+     * 重复执行检测，查询排队、分发、执行中的任务登记表
+     *
+     * @param heraJobHistory 执行记录
+     * @param checkOnly      true:只检测 false:不重复时登记为排队中，重复时把执行记录置为wait
+     * @return 是否已在排队或执行
+     */
     public boolean checkJobExists(HeraJobHistoryVo heraJobHistory, boolean checkOnly) {
         // 允许重复的话 不检测
         if (masterContext.getHeraJobService().isRepeat(heraJobHistory.getJobId())) {
@@ -915,38 +884,12 @@ public class Master {
         }
         String actionId = heraJobHistory.getActionId();
         Integer jobId = heraJobHistory.getJobId();
-
-        boolean exists = false;
-        if (heraJobHistory.getTriggerType() == TriggerTypeEnum.MANUAL_RECOVER || heraJobHistory.getTriggerType() == TriggerTypeEnum.SCHEDULE) {
-            // check调度器等待队列是否有此任务在排队
-            for (JobElement jobElement : masterContext.getScheduleQueue()) {
-                if (ActionUtil.jobEquals(jobElement.getJobId(), actionId)) {
-                    exists = true;
-                    TaskLog.warn("调度队列已存在该任务，添加失败 {}", actionId);
-                }
-            }
-            // check所有的worker中是否有此任务的id在执行，如果有，不进入队列等待
-            for (MasterWorkHolder workHolder : masterContext.getWorkMap().values()) {
-                if (workHolder.getRunning().contains(jobId)) {
-                    exists = true;
-                    TaskLog.warn("该任务正在执行，添加失败 {}", actionId);
-                }
-            }
-        } else if (heraJobHistory.getTriggerType() == TriggerTypeEnum.MANUAL) {
-
-            for (JobElement jobElement : masterContext.getManualQueue()) {
-                if (ActionUtil.jobEquals(jobElement.getJobId(), actionId)) {
-                    exists = true;
-                    TaskLog.warn("手动任务队列已存在该任务，添加失败 {}", actionId);
-                }
-            }
-
-            for (MasterWorkHolder workHolder : masterContext.getWorkMap().values()) {
-                if (workHolder.getManningRunning().contains(jobId)) {
-                    exists = true;
-                    TaskLog.warn("该任务正在执行，添加失败 {}", actionId);
-                }
-            }
+        TriggerTypeEnum triggerType = heraJobHistory.getTriggerType();
+        InFlightRegistry registry = masterContext.getInFlightRegistry();
+        boolean exists = checkOnly ? registry.exists(triggerType, jobId) : !registry.register(triggerType, jobId, actionId, heraJobHistory.getId());
+        if (exists) {
+            InFlightRegistry.InFlight inFlight = registry.get(triggerType, jobId);
+            TaskLog.warn("{}任务已在{}，添加失败 {}", triggerType.toName(), inFlight == null ? "执行结束" : inFlight.getStage(), actionId);
         }
         if (exists && !checkOnly) {
             heraJobHistory.getLog().append(LogConstant.CHECK_QUEUE_LOG);
@@ -984,8 +927,13 @@ public class Master {
         notifyAdmin("警告:work断线了", ip);
         MasterWorkHolder workHolder = masterContext.getWorkMap().get(channel);
         masterContext.getWorkMap().remove(channel);
+        masterContext.getWorkerRegistry().remove(workHolder);
         if (workHolder != null) {
-            List<String> scheduleTask = workHolder.getHeartBeatInfo().getRunning();
+            //断线worker上的任务不再算作执行中，十分钟后按重连情况决定是否重跑
+            String host = workHolder.getHeartBeatInfo() == null ? ip : workHolder.getHeartBeatInfo().getHost();
+            workHolder.getRunning().forEach(jobId -> masterContext.getInFlightRegistry().releaseOnHost(TriggerTypeEnum.SCHEDULE, jobId, host));
+            workHolder.getManningRunning().forEach(jobId -> masterContext.getInFlightRegistry().releaseOnHost(TriggerTypeEnum.MANUAL, jobId, host));
+            List<String> scheduleTask = new ArrayList<>(workHolder.getBeatRunning());
 
             if (scheduleTask == null || scheduleTask.size() == 0) {
                 return;
@@ -1041,7 +989,7 @@ public class Master {
                                     newBeatInfo = masterContext.getWorkMap().get(newChannel).getHeartBeatInfo();
                                 }
                                 if (newBeatInfo != null) {
-                                    List<String> newRunning = newBeatInfo.getRunning();
+                                    Collection<String> newRunning = newBeatInfo.getRunning();
                                     //如果work新的心跳信息 包含该任务的信息 work继续执行即可
                                     if (newRunning.contains(action)) {
                                         SocketLog.warn("任务{}还在运行中，并且work重连后心跳信息存在，等待work执行完成", action);
@@ -1104,57 +1052,13 @@ public class Master {
 
     public void printThreadPoolLog() {
         masterRunJob.printThreadPoolLog();
+        ScheduleLog.info("入队到分发延迟" + getDispatchLatency() + ",启动到首次分发耗时:" + firstDispatchCost + "ms");
+        ScheduleLog.info("失败重试发件箱积压:" + FailBackOutbox.depth(FailBackOutbox.Side.MASTER));
+        if (masterContext.getHeraJobService() instanceof HeraJobMemoryServiceImpl) {
+            ScheduleLog.info("任务缓存:" + ((HeraJobMemoryServiceImpl) masterContext.getHeraJobService()).getCacheStats());
+        }
+        if (masterContext.getHeraGroupService() instanceof HeraGroupMemoryServiceImpl) {
+            ScheduleLog.info("分组缓存:" + ((HeraGroupMemoryServiceImpl) masterContext.getHeraGroupService()).getCacheStats());
+        }
     }
-    
-    /**
-     * 输出批次号
-     * @param actionId
-     * @param cronPeriod 周期
-     * @param cronInterval 间隔
-     * @return 批次号；示例actionId=20190102112233,cronPeriod=day,cronInterval=-1,则批次号=2019-01-01
-     */
-    public String getBatchIdFromActionIdPeriod(Long actionId,String cronPeriod,int cronInterval) {
-    	cronPeriod=cronPeriod.toLowerCase();
-    	if(cronPeriod.equals("other")){
-    		return actionId.toString();
-    	}else{
-    		String dmStr=actionId.toString().substring(0, 14);
-    		Date currDate = HeraDateTool.StringToDate(dmStr, "yyyyMMddHHmmss");
-    		Calendar cal=Calendar.getInstance();
-    		cal.setTime(currDate);
-    		String outDateStr;
-    		SimpleDateFormat outDateFormat = new SimpleDateFormat(TimeFormatConstant.YYYY_MM_DD_HH_MM_SS);
-    		if(cronPeriod.equals("year")){
-    			cal.add(Calendar.YEAR, cronInterval);    			
-    			outDateStr = outDateFormat.format(cal.getTime());
-    			return outDateStr.substring(0,4);
-    		}else if(cronPeriod.equals("month")){
-    			cal.add(Calendar.MONTH, cronInterval);    			
-    			outDateStr = outDateFormat.format(cal.getTime());
-    			return outDateStr.substring(0,7);
-    		}else if(cronPeriod.equals("day")){
-    			cal.add(Calendar.DATE, cronInterval);    			
-    			outDateStr = outDateFormat.format(cal.getTime());
-    			return outDateStr.substring(0,10);
-    		}else if(cronPeriod.equals("hour")){
-    			cal.add(Calendar.HOUR, cronInterval);    			
-    			outDateStr = outDateFormat.format(cal.getTime());
-    			return outDateStr.substring(0,13);
-    		}else if(cronPeriod.equals("minute")){
-    			cal.add(Calendar.MINUTE, cronInterval);    			
-    			outDateStr = outDateFormat.format(cal.getTime());
-    			return outDateStr.substring(0,16);
-    		}else if(cronPeriod.equals("second")){
-    			cal.add(Calendar.SECOND, cronInterval);    			
-    			outDateStr = outDateFormat.format(cal.getTime());
-    			return outDateStr.substring(0,19);
-    		}else{//未知，使用秒方案
-    			cal.add(Calendar.SECOND, cronInterval);    			
-    			outDateStr = outDateFormat.format(cal.getTime());
-    			return outDateStr.substring(0,19);
-    		}
-    	}
-    }
-    
-    
 }
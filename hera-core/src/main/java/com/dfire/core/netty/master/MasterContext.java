@@ -6,7 +6,11 @@ import com.dfire.common.util.NamedThreadFactory;
 import com.dfire.config.HeraGlobalEnv;
 import com.dfire.core.event.Dispatcher;
 import com.dfire.core.quartz.QuartzSchedulerService;
+import com.dfire.core.quartz.QuartzTriggerService;
+import com.dfire.core.quartz.TimingWheelTriggerService;
+import com.dfire.core.quartz.TriggerService;
 import com.dfire.common.vo.JobElement;
+import com.dfire.event.HeraScheduleTriggerEvent;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.HeraLog;
 import com.dfire.monitor.service.AlarmCenter;
@@ -41,6 +45,11 @@ public class MasterContext {
     private Master master;
 
     private Map<Channel, MasterWorkHolder> workMap = new ConcurrentHashMap<>();
+    private WorkerRegistry workerRegistry = new WorkerRegistry();
+    /**
+     * 排队、分发、执行中的任务登记表，用于重复执行检测
+     */
+    private InFlightRegistry inFlightRegistry = new InFlightRegistry();
     @Autowired
     private HeraHostGroupService heraHostGroupService;
     @Autowired
@@ -63,8 +72,12 @@ public class MasterContext {
     @Autowired
     private HeraDebugHistoryService heraDebugHistoryService;
     @Autowired
+    private HeraProfileService heraProfileService;
+    @Autowired
     private HeraJobActionService heraJobActionService;
     @Autowired
+    private HeraJobSnapshotService heraJobSnapshotService;
+    @Autowired
     private AlarmCenter alarmCenter;
     @Autowired
     private HeraJobMonitorService heraJobMonitorService;
@@ -72,16 +85,34 @@ public class MasterContext {
     private HeraSsoService heraSsoService;
 
     private Dispatcher dispatcher;
+    /**
+     * 独立调度版本的定时触发
+     */
+    private TriggerService triggerService;
+    /**
+     * worker返回的执行状态和日志由master批量写库
+     */
+    private JobHistoryWriter jobHistoryWriter;
+    /**
+     * 按依赖层级并行生成版本
+     */
+    private ActionGenerator actionGenerator;
     private Map<Integer, HeraHostGroupVo> hostGroupCache;
     private BlockingQueue<JobElement> scheduleQueue = new PriorityBlockingQueue<>(10000, Comparator.comparing(JobElement::getPriorityLevel).reversed());
     private BlockingQueue<JobElement> debugQueue = new LinkedBlockingQueue<>(10000);
     private BlockingQueue<JobElement> manualQueue = new LinkedBlockingQueue<>(10000);
+    private DispatchSignal dispatchSignal = new DispatchSignal();
 
     private MasterHandler handler;
     private MasterServer masterServer;
     @Getter
     private ExecutorService threadPool;
 
+    /**
+     * 任务分发线程，等待队列有任务或者有空闲容量时被唤醒
+     */
+    private ExecutorService dispatchPool;
+
     /**
      * todo 参数可配置
      */
@@ -94,8 +125,13 @@ public class MasterContext {
         masterSchedule = new ScheduledThreadPoolExecutor(5, new NamedThreadFactory("master-schedule", false));
         masterSchedule.setKeepAliveTime(5, TimeUnit.MINUTES);
         masterSchedule.allowCoreThreadTimeOut(true);
-        this.getQuartzSchedulerService().start();
+        dispatchPool = Executors.newSingleThreadExecutor(new NamedThreadFactory("master-dispatch", true));
         dispatcher = new Dispatcher();
+        triggerService = createTriggerService();
+        triggerService.start();
+        jobHistoryWriter = new JobHistoryWriter(heraJobHistoryService, heraDebugHistoryService);
+        jobHistoryWriter.start();
+        actionGenerator = new ActionGenerator(HeraGlobalEnv.getActionParallelism(), heraJobSnapshotService::save);
         handler = new MasterHandler(this);
         masterServer = new MasterServer(handler);
         masterServer.start(HeraGlobalEnv.getConnectPort());
@@ -106,20 +142,37 @@ public class MasterContext {
     public void destroy() {
         threadPool.shutdown();
         masterSchedule.shutdown();
+        dispatchPool.shutdownNow();
         if (masterServer != null) {
             masterServer.shutdown();
         }
-        if (quartzSchedulerService != null) {
+        if (triggerService != null) {
             try {
-                quartzSchedulerService.shutdown();
-                HeraLog.info("quartz schedule shutdown success");
+                triggerService.shutdown();
+                HeraLog.info("trigger service shutdown success");
             } catch (Exception e) {
-                ErrorLog.error("quartz schedule shutdown error", e);
+                ErrorLog.error("trigger service shutdown error", e);
             }
         }
+        if (jobHistoryWriter != null) {
+            jobHistoryWriter.shutdown();
+        }
+        if (actionGenerator != null) {
+            actionGenerator.shutdown();
+        }
         HeraLog.info("destroy master context success");
     }
 
+    /**
+     * 根据hera.triggerEngine选择定时触发实现，时间轮到点后直接按actionId投递给对应的handler
+     */
+    private TriggerService createTriggerService() {
+        if (TriggerService.QUARTZ.equalsIgnoreCase(HeraGlobalEnv.getTriggerEngine())) {
+            return new QuartzTriggerService(quartzSchedulerService, dispatcher);
+        }
+        return new TimingWheelTriggerService(actionId -> dispatcher.forwardEvent(HeraScheduleTriggerEvent.builder().jobId(actionId).build()));
+    }
+
     public synchronized Map<Integer, HeraHostGroupVo> getHostGroupCache() {
         return hostGroupCache;
     }
@@ -4,9 +4,10 @@ import com.dfire.common.util.NamedThreadFactory;
 import com.dfire.core.netty.HeraChannel;
 import com.dfire.core.netty.NettyChannel;
 import com.dfire.core.netty.cluster.FailBackCluster;
-import com.dfire.core.netty.listener.ResponseListener;
+import com.dfire.core.netty.cluster.FailBackOutbox;
 import com.dfire.core.netty.master.response.MasterHandleRequest;
 import com.dfire.core.netty.master.response.MasterHandlerWebResponse;
+import com.dfire.core.netty.util.ResponseFutureTable;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.SocketLog;
 import com.dfire.logs.TaskLog;
@@ -22,7 +23,6 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 
 import java.net.SocketAddress;
-import java.util.List;
 import java.util.concurrent.*;
 
 /**
@@ -57,8 +57,12 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
                             future = completionService.take();
                             response = future.get();
                             TaskLog.info("3-1.MasterHandler:-->master prepare send status : {}", response.webResponse.getStatus());
-                            response.channel.writeAndFlush(wrapper(response.webResponse));
-                            TaskLog.info("3-2.MasterHandler:-->master send response success, requestId={}", response.webResponse.getRid());
+                            int rid = response.webResponse.getRid();
+                            response.channel.send(wrapper(response.webResponse)).addListener(f -> {
+                                if (f.isSuccess()) {
+                                    TaskLog.info("3-2.MasterHandler:-->master send response success, requestId={}", rid);
+                                }
+                            });
                         } catch (Exception e) {
                             ErrorLog.error("master handler future take error:{}", e);
                         } catch (Throwable throwable) {
@@ -80,11 +84,18 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
                 Request request = Request.newBuilder().mergeFrom(socketMessage.getBody()).build();
                 switch (request.getOperate()) {
                     case HeartBeat:
-                        masterContext.getThreadPool().execute(() -> MasterHandleRequest.handleHeartBeat(masterContext, channel, request));
+                        MasterHandleRequest.handleHeartBeat(masterContext, channel, request);
                         break;
                     case SetWorkInfo:
                         masterContext.getThreadPool().execute(() -> MasterHandleRequest.setWorkInfo(masterContext, channel, request));
                         break;
+                    //只放入写库队列，在IO线程中处理，保证日志先于随后到达的执行结果写库
+                    case JobLog:
+                        MasterHandleRequest.handleJobLog(masterContext, request);
+                        break;
+                    case DebugLog:
+                        MasterHandleRequest.handleDebugLog(masterContext, request);
+                        break;
                     default:
                         ErrorLog.error("unknow request operate error.{}", request.getOperateValue());
                         break;
@@ -95,32 +106,32 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
                 switch (webRequest.getOperate()) {
                     case ExecuteJob:
                         completionService.submit(() ->
-                                new ChannelResponse(FailBackCluster.wrap(channel), MasterHandlerWebResponse.handleWebExecute(masterContext, webRequest)));
+                                new ChannelResponse(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER), MasterHandlerWebResponse.handleWebExecute(masterContext, webRequest)));
                         break;
                     case CancelJob:
                         completionService.submit(() ->
-                                new ChannelResponse(FailBackCluster.wrap(channel), MasterHandlerWebResponse.handleWebCancel(masterContext, webRequest)));
+                                new ChannelResponse(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER), MasterHandlerWebResponse.handleWebCancel(masterContext, webRequest)));
                         break;
                     case UpdateJob:
                         completionService.submit(() ->
-                                new ChannelResponse(FailBackCluster.wrap(channel), MasterHandlerWebResponse.handleWebUpdate(masterContext, webRequest)));
+                                new ChannelResponse(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER), MasterHandlerWebResponse.handleWebUpdate(masterContext, webRequest)));
                         break;
                     case ExecuteDebug:
                         completionService.submit(() ->
-                                new ChannelResponse(FailBackCluster.wrap(channel), MasterHandlerWebResponse.handleWebDebug(masterContext, webRequest)));
+                                new ChannelResponse(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER), MasterHandlerWebResponse.handleWebDebug(masterContext, webRequest)));
                         break;
                     case GenerateAction:
                         completionService.submit(() ->
-                                new ChannelResponse(FailBackCluster.wrap(channel), MasterHandlerWebResponse.generateActionByJobId(masterContext, webRequest)));
+                                new ChannelResponse(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER), MasterHandlerWebResponse.generateActionByJobId(masterContext, webRequest)));
                         break;
 
                     case GetAllHeartBeatInfo:
                         completionService.submit(() ->
-                                new ChannelResponse(FailBackCluster.wrap(channel), MasterHandlerWebResponse.buildJobQueueInfo(masterContext, webRequest)));
+                                new ChannelResponse(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER), MasterHandlerWebResponse.buildJobQueueInfo(masterContext, webRequest)));
                         break;
                     case GetAllWorkInfo:
                         completionService.submit(() ->
-                                new ChannelResponse(FailBackCluster.wrap(channel), MasterHandlerWebResponse.buildAllWorkInfo(masterContext, webRequest)));
+                                new ChannelResponse(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER), MasterHandlerWebResponse.buildAllWorkInfo(masterContext, webRequest)));
                         break;
                     default:
                         ErrorLog.error("unknown webRequest operate error:{}", webRequest.getOperate());
@@ -134,9 +145,7 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
                         response = Response.newBuilder().mergeFrom(socketMessage.getBody()).build();
 
                         SocketLog.info("6.MasterHandler:receiver socket info from work {}, response is {}", ctx.channel().remoteAddress(), response.getRid());
-                        for (ResponseListener listener : listeners) {
-                            listener.onResponse(response);
-                        }
+                        pendingResponses.complete(response.getRid(), response);
                     } catch (InvalidProtocolBufferException e) {
                         ErrorLog.error("解析消息异常", e);
                     }
@@ -144,18 +153,8 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
 
                 break;
             case WEB_RESPONSE:
-                masterContext.getThreadPool().execute(() -> {
-                    WebResponse webResponse = null;
-                    try {
-                        webResponse = WebResponse.newBuilder().mergeFrom(socketMessage.getBody()).build();
-                    } catch (InvalidProtocolBufferException e) {
-                        ErrorLog.error("解析消息异常", e);
-                    }
-                    SocketLog.info("6.MasterHandler:receiver socket info from work {}, webResponse is {}", ctx.channel().remoteAddress(), webResponse.getRid());
-                    for (ResponseListener listener : listeners) {
-                        listener.onWebResponse(webResponse);
-                    }
-                });
+                //master不向worker发送webRequest，不会有等待中的webResponse
+                SocketLog.warn("MasterHandler:drop unexpected webResponse from work {}", ctx.channel().remoteAddress());
                 break;
             default:
                 ErrorLog.error("unknown request type : {}", socketMessage.getKind());
@@ -167,7 +166,7 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
     public void channelRegistered(ChannelHandlerContext ctx) {
         masterContext.getThreadPool().execute(() -> {
             Channel channel = ctx.channel();
-            masterContext.getWorkMap().put(channel, new MasterWorkHolder(FailBackCluster.wrap(channel)));
+            masterContext.getWorkMap().put(channel, new MasterWorkHolder(FailBackCluster.wrap(channel, FailBackOutbox.Side.MASTER)));
             SocketAddress remoteAddress = channel.remoteAddress();
             SocketLog.info("worker client channel registered connect success : {}", remoteAddress.toString());
         });
@@ -186,6 +185,16 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
         Channel channel = ctx.channel();
         SocketAddress remoteAddress = channel.remoteAddress();
         SocketLog.info("worker client channel active success : {}", remoteAddress.toString());
+        //worker重连后补发上一个连接未送达的消息
+        FailBackOutbox.rebind(FailBackOutbox.Side.MASTER, new NettyChannel(channel));
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            FailBackOutbox.writable(FailBackOutbox.Side.MASTER, ctx.channel());
+        }
+        ctx.fireChannelWritabilityChanged();
     }
 
     @Override
@@ -198,18 +207,32 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
         return SocketMessage.newBuilder().setKind(SocketMessage.Kind.WEB_RESPONSE).setBody(response.toByteString()).build();
     }
 
-    private List<ResponseListener> listeners = new CopyOnWriteArrayList<>();
+    private final ResponseFutureTable<Response> pendingResponses = new ResponseFutureTable<>("master-response-timer");
+
+    /**
+     * 发送request前注册，收到相同rid的response或者超时后future完成
+     *
+     * @param rid       request id
+     * @param timeout   超时时间
+     * @param unit      时间单位
+     * @param onTimeout 超时回调
+     * @return response future，超时为null
+     */
+    public CompletableFuture<Response> registerRequest(int rid, long timeout, TimeUnit unit, Runnable onTimeout) {
+        return pendingResponses.register(rid, timeout, unit, onTimeout);
+    }
 
-    public void addListener(ResponseListener listener) {
-        listeners.add(listener);
+    public void cancelRequest(int rid) {
+        pendingResponses.cancel(rid);
     }
 
-    public void removeListener(ResponseListener listener) {
-        listeners.remove(listener);
+    public int pendingRequestSize() {
+        return pendingResponses.size();
     }
 
     public void shutdown() {
         shutdown = true;
+        pendingResponses.shutdown();
     }
 
 
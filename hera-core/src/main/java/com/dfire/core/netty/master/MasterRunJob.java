@@ -26,7 +26,7 @@ import com.dfire.protocol.RpcResponse;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -46,40 +46,54 @@ public class MasterRunJob implements RunJob {
 
     private RunJobThreadPool executeJobPool;
 
+    /**
+     * 处理work返回结果、失败重试的线程池，等待work返回期间不占用线程
+     */
+    private ThreadPoolExecutor completeJobPool;
+
     public MasterRunJob(MasterContext masterContext, Master master) {
         this.master = master;
         this.masterContext = masterContext;
         executeJobPool = new RunJobThreadPool(masterContext, HeraGlobalEnv.getMaxParallelNum(), HeraGlobalEnv.getMaxParallelNum(), 10L, TimeUnit.MINUTES,
                 new LinkedBlockingQueue<>(Integer.MAX_VALUE), new NamedThreadFactory("master-execute-job"), new ThreadPoolExecutor.AbortPolicy());
         executeJobPool.allowCoreThreadTimeOut(true);
+        int completeThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        completeJobPool = new ThreadPoolExecutor(completeThreads, completeThreads, 10L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("master-complete-job"), new ThreadPoolExecutor.AbortPolicy());
+        completeJobPool.allowCoreThreadTimeOut(true);
     }
 
     /**
      * 开发中心脚本执行逻辑
      *
      * @param selectWork 所选机器
-     * @param debugId    debugId
+     * @param element    队列中的任务
+     * @return 任务结束的future
      */
-    private void runDebugJob(MasterWorkHolder selectWork, String debugId) {
+    private CompletableFuture<Void> runDebugJob(MasterWorkHolder selectWork, JobElement element) {
+        String debugId = element.getJobId();
         HeraDebugHistoryVo history = masterContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
         history.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 开始运行");
+        history.setExecuteHost(selectWork.getHeartBeatInfo().getHost());
         masterContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(history));
-        Exception exception = null;
-        RpcResponse.Response response = null;
-        Future<RpcResponse.Response> future = null;
-        try {
-            future = new MasterExecuteJob().executeJob(masterContext, selectWork, JobExecuteKind.ExecuteKind.DebugKind, debugId);
-            response = future.get(HeraGlobalEnv.getTaskTimeout(), TimeUnit.HOURS);
-        } catch (Exception e) {
-            exception = e;
-            if (future != null) {
-                future.cancel(true);
-            }
-            DebugLog.error(String.format("debugId:%s run failed", debugId), e);
+        return new MasterExecuteJob().executeJob(masterContext, selectWork, JobExecuteKind.ExecuteKind.DebugKind, debugId)
+                .handleAsync((response, throwable) -> {
+                    if (MasterExecuteJob.isRejected(response)) {
+                        requeue(selectWork, element, element.getHistoryId(), 0);
+                    } else {
+                        onDebugResponse(debugId, history, response, throwable);
+                    }
+                    return null;
+                }, completeJobPool);
+    }
+
+    private void onDebugResponse(String debugId, HeraDebugHistoryVo history, RpcResponse.Response response, Throwable throwable) {
+        if (throwable != null) {
+            DebugLog.error(String.format("debugId:%s run failed", debugId), throwable);
         }
         boolean success = response != null && response.getStatusEnum() == ResponseStatus.Status.OK;
         if (!success) {
-            exception = new HeraException(String.format("fileId:%s run failed ", history.getFileId()), exception);
+            Exception exception = new HeraException(String.format("fileId:%s run failed ", history.getFileId()), throwable);
             TaskLog.info("8.Master: debug job error");
             history = masterContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
             HeraDebugFailEvent failEvent = HeraDebugFailEvent.builder()
@@ -102,9 +116,11 @@ public class MasterRunJob implements RunJob {
      * 手动执行任务调度器执行逻辑，向master的channel写manual任务执行请求
      *
      * @param selectWork selectWork 所选机器
-     * @param actionId   actionId
+     * @param element    队列中的任务
+     * @return 任务结束的future
      */
-    private void runManualJob(MasterWorkHolder selectWork, String actionId) {
+    private CompletableFuture<Void> runManualJob(MasterWorkHolder selectWork, JobElement element) {
+        String actionId = element.getJobId();
         SocketLog.info("start run manual job, actionId = {}", actionId);
         HeraAction heraAction = masterContext.getHeraJobActionService().findById(actionId);
         HeraJobHistory history = masterContext.getHeraJobHistoryService().findById(heraAction.getHistoryId());
@@ -112,26 +128,23 @@ public class MasterRunJob implements RunJob {
         historyVo.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 开始运行");
         heraAction.setStatus(StatusEnum.RUNNING.toString());
         historyVo.setStatusEnum(StatusEnum.RUNNING);
-        HeraAction cacheAction = master.getHeraActionMap().get(Long.parseLong(actionId));
-        if (cacheAction != null) {
-            cacheAction.setStatus(StatusEnum.RUNNING.toString());
-            cacheAction.setHistoryId(heraAction.getHistoryId());
-        }
+        runningCacheAction(actionId, heraAction.getHistoryId());
         masterContext.getHeraJobHistoryService().updateHeraJobHistoryLogAndStatus(BeanConvertUtils.convert(historyVo));
+        return new MasterExecuteJob().executeJob(masterContext, selectWork, JobExecuteKind.ExecuteKind.ManualKind, actionId, historyVo)
+                .handleAsync((response, throwable) -> {
+                    if (MasterExecuteJob.isRejected(response)) {
+                        requeue(selectWork, element, history.getId(), 0);
+                    } else {
+                        onManualResponse(actionId, heraAction, history, historyVo, response, throwable);
+                    }
+                    return null;
+                }, completeJobPool);
+    }
 
-        Exception exception = null;
-        RpcResponse.Response response = null;
-        Future<RpcResponse.Response> future = null;
-        try {
-            future = new MasterExecuteJob().executeJob(masterContext, selectWork,
-                    JobExecuteKind.ExecuteKind.ManualKind, actionId);
-            response = future.get();
-        } catch (Exception e) {
-            exception = e;
-            if (future != null) {
-                future.cancel(true);
-            }
-            ErrorLog.error("manual job run error {}", e);
+    private void onManualResponse(String actionId, HeraAction heraAction, HeraJobHistory history, HeraJobHistoryVo historyVo,
+                                  RpcResponse.Response response, Throwable throwable) {
+        if (throwable != null) {
+            ErrorLog.error("manual job run error {}", throwable);
         }
         boolean success = response != null && response.getStatusEnum() != null && response.getStatusEnum() == ResponseStatus.Status.OK;
         if (response != null) {
@@ -139,8 +152,8 @@ public class MasterRunJob implements RunJob {
         }
         ApplicationEvent event;
         if (!success) {
-            if (exception != null) {
-                HeraException heraException = new HeraException(exception);
+            if (throwable != null) {
+                HeraException heraException = new HeraException(throwable);
                 ErrorLog.error("manual actionId = {} error, {}", history.getActionId(), heraException.getMessage());
             }
             ScheduleLog.info("actionId = {} manual execute failed", history.getActionId());
@@ -165,13 +178,15 @@ public class MasterRunJob implements RunJob {
     }
 
     /**
-     * 调度任务执行前，先获取任务的执行重试时间间隔和重试次数
+     * 调度任务执行前，先获取任务的执行重试时间间隔和重试次数，被worker拒绝后重新分发的任务接着之前的执行次数
      *
      * @param selectWork 所选机器
-     * @param actionId   actionId
+     * @param element    队列中的任务
+     * @return 任务结束(包括所有重试)的future
      */
-    private void runScheduleJob(MasterWorkHolder selectWork, String actionId) {
-        int runCount = 0;
+    private CompletableFuture<Void> runScheduleJob(MasterWorkHolder selectWork, JobElement element) {
+        String actionId = element.getJobId();
+        int runCount = element.getRunCount();
         int retryCount = 0;
         int retryWaitTime = 1;
         HeraActionVo heraActionVo = masterContext.getHeraJobActionService().findHeraActionVo(actionId).getSource();
@@ -180,36 +195,46 @@ public class MasterRunJob implements RunJob {
             retryCount = Integer.parseInt(properties.get("roll.back.times") == null ? "0" : properties.get("roll.back.times"));
             retryWaitTime = Integer.parseInt(properties.get("roll.back.wait.time") == null ? "0" : properties.get("roll.back.wait.time"));
         }
-        runScheduleJobContext(selectWork, actionId, runCount, retryCount, retryWaitTime);
+        return runScheduleJobContext(selectWork, element, runCount, retryCount, retryWaitTime);
+    }
+
+    /**
+     * 失败重试，等待retryWaitTime分钟后再次下发，等待期间不占用线程
+     *
+     * @param selectWork    selectWork
+     * @param element       队列中的任务
+     * @param runCount      runCount
+     * @param retryCount    retryCount
+     * @param retryWaitTime retryWaitTime
+     * @return 重试结束的future
+     */
+    private CompletableFuture<Void> retryScheduleJob(MasterWorkHolder selectWork, JobElement element, int runCount, int retryCount, int retryWaitTime) {
+        DebugLog.info("任务重试，等待：{}分钟", retryWaitTime);
+        CompletableFuture<Void> delay = new CompletableFuture<>();
+        masterContext.getMasterSchedule().schedule(() -> delay.complete(null), retryWaitTime, TimeUnit.MINUTES);
+        return delay.thenComposeAsync(v -> runScheduleJobContext(selectWork, element, runCount, retryCount, retryWaitTime), completeJobPool);
     }
 
     /**
      * 自动调度任务开始执行入口，向master端的channel写请求任务执行请求
      *
      * @param selectWork    selectWork
-     * @param actionId      actionId
+     * @param element       队列中的任务
      * @param runCount      runCount
      * @param retryCount    retryCount
      * @param retryWaitTime retryWaitTime
+     * @return 任务结束(包括所有重试)的future
      */
-    private void runScheduleJobContext(MasterWorkHolder selectWork, String actionId, int runCount, int retryCount, int retryWaitTime) {
+    private CompletableFuture<Void> runScheduleJobContext(MasterWorkHolder selectWork, JobElement element, int runCount, int retryCount, int retryWaitTime) {
+        String actionId = element.getJobId();
         DebugLog.info("重试次数：{},重试时间：{},actionId:{}", retryCount, retryWaitTime, actionId);
         runCount++;
-        boolean isCancelJob = false;
-        if (runCount > 1) {
-            DebugLog.info("任务重试，睡眠：{}分钟", retryWaitTime);
-            try {
-                TimeUnit.MINUTES.sleep(retryWaitTime);
-            } catch (InterruptedException e) {
-                ErrorLog.error("sleep interrupted", e);
-            }
-
-        }
         HeraJobHistoryVo heraJobHistoryVo;
         HeraJobHistory heraJobHistory;
         TriggerTypeEnum triggerType;
         HeraAction heraAction;
-        if (runCount == 1) {
+        //出队后的第一次执行沿用已有的执行记录，包括被拒绝后放回队列的重试
+        if (runCount == element.getRunCount() + 1) {
             heraAction = masterContext.getHeraJobActionService().findById(actionId);
             heraJobHistory = masterContext.getHeraJobHistoryService().
                     findById(heraAction.getHistoryId());
@@ -238,7 +263,7 @@ public class MasterRunJob implements RunJob {
                             .build()
                     , true)) {
                 TaskLog.info("--------------------------{}正在执行，取消重试--------------------------", heraAction.getJobId());
-                return;
+                return CompletableFuture.completedFuture(null);
             }
             masterContext.getHeraJobHistoryService().insert(heraJobHistory);
             heraAction.setHistoryId(heraJobHistory.getId());
@@ -248,24 +273,40 @@ public class MasterRunJob implements RunJob {
             heraJobHistoryVo.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 第" + (runCount - 1) + "次重试运行\n");
             triggerType = heraJobHistoryVo.getTriggerType();
         }
-        HeraAction cacheAction = master.getHeraActionMap().get(Long.parseLong(actionId));
-        if (cacheAction != null) {
-            cacheAction.setStatus(StatusEnum.RUNNING.toString());
-            cacheAction.setHistoryId(heraJobHistory.getId());
-        }
+        runningCacheAction(actionId, heraJobHistory.getId());
         heraJobHistoryVo.setStatusEnum(StatusEnum.RUNNING);
         masterContext.getHeraJobHistoryService().updateHeraJobHistoryLogAndStatus(BeanConvertUtils.convert(heraJobHistoryVo));
-        RpcResponse.Response response = null;
-        Future<RpcResponse.Response> future = null;
-        try {
-            future = new MasterExecuteJob().executeJob(masterContext, selectWork,
-                    JobExecuteKind.ExecuteKind.ScheduleKind, actionId);
-            response = future.get(HeraGlobalEnv.getTaskTimeout(), TimeUnit.HOURS);
-        } catch (Exception e) {
-            ErrorLog.error("schedule job run error :" + actionId, e);
-            if (future != null) {
-                future.cancel(true);
-            }
+        ScheduleJobRun jobRun = new ScheduleJobRun(selectWork, element, runCount, retryCount, retryWaitTime, heraAction, heraJobHistory, heraJobHistoryVo, triggerType);
+        return new MasterExecuteJob().executeJob(masterContext, selectWork, JobExecuteKind.ExecuteKind.ScheduleKind, actionId, heraJobHistoryVo)
+                .handleAsync((response, throwable) -> onScheduleResponse(jobRun, response, throwable), completeJobPool)
+                .thenCompose(retry -> {
+                    if (retry) {
+                        DebugLog.info("--------------------------失败任务，准备重试--------------------------");
+                        return retryScheduleJob(selectWork, element, jobRun.runCount, retryCount, retryWaitTime);
+                    }
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+
+    /**
+     * 处理work返回的调度任务执行结果
+     *
+     * @param jobRun    本次执行的上下文
+     * @param response  work返回结果，超时为null
+     * @param throwable 异常
+     * @return 是否需要重试
+     */
+    private boolean onScheduleResponse(ScheduleJobRun jobRun, RpcResponse.Response response, Throwable throwable) {
+        if (MasterExecuteJob.isRejected(response)) {
+            requeue(jobRun.workHolder, jobRun.element, jobRun.heraJobHistory.getId(), jobRun.runCount - 1);
+            return false;
+        }
+        String actionId = jobRun.actionId;
+        HeraAction heraAction = jobRun.heraAction;
+        HeraJobHistoryVo heraJobHistoryVo = jobRun.heraJobHistoryVo;
+        boolean isCancelJob = false;
+        if (throwable != null) {
+            ErrorLog.error("schedule job run error :" + actionId, throwable);
             heraAction.setStatus(StatusEnum.FAILED.toString());
             heraJobHistoryVo.setStatusEnum(StatusEnum.FAILED);
             masterContext.getHeraJobHistoryService().updateHeraJobHistoryStatus(BeanConvertUtils.convert(heraJobHistoryVo));
@@ -276,10 +317,10 @@ public class MasterRunJob implements RunJob {
             heraAction.setStatus(StatusEnum.FAILED.toString());
             HeraJobHistory history = masterContext.getHeraJobHistoryService().findById(heraJobHistoryVo.getId());
             HeraJobHistoryVo jobHistory = BeanConvertUtils.convert(history);
-            HeraJobFailedEvent event = new HeraJobFailedEvent(actionId, triggerType, jobHistory);
-            event.setRollBackTime(retryWaitTime);
-            event.setRunCount(runCount);
-            event.setRetryCount(retryCount);
+            HeraJobFailedEvent event = new HeraJobFailedEvent(actionId, jobRun.triggerType, jobHistory);
+            event.setRollBackTime(jobRun.retryWaitTime);
+            event.setRunCount(jobRun.runCount);
+            event.setRetryCount(jobRun.retryCount);
             if (Constants.CANCEL_JOB_MESSAGE.equals(jobHistory.getIllustrate()) || StatusEnum.WAIT.toString().equals(history.getStatus())) {
                 isCancelJob = true;
                 ScheduleLog.info("任务取消或者暂停，取消重试:{}", jobHistory.getActionId());
@@ -292,18 +333,49 @@ public class MasterRunJob implements RunJob {
                 heraAction.setReadyDependency("{}");
             }
             heraAction.setStatus(StatusEnum.SUCCESS.toString());
-            HeraJobSuccessEvent successEvent = new HeraJobSuccessEvent(actionId, triggerType, heraJobHistory.getId());
+            HeraJobSuccessEvent successEvent = new HeraJobSuccessEvent(actionId, jobRun.triggerType, jobRun.heraJobHistory.getId());
             masterContext.getDispatcher().forwardEvent(successEvent);
         }
 
         updateCacheAction(actionId, heraAction.getStatus());
         heraAction.setStatisticEndTime(new Date());
         masterContext.getHeraJobActionService().update(heraAction);
-        if (runCount < (retryCount + 1) && !success && !isCancelJob) {
+        return jobRun.runCount < (jobRun.retryCount + 1) && !success && !isCancelJob;
+    }
 
-            DebugLog.info("--------------------------失败任务，准备重试--------------------------");
-            runScheduleJobContext(selectWork, actionId, runCount, retryCount, retryWaitTime);
+    /**
+     * worker执行槽位已满拒绝执行，不算失败也不消耗重试次数，以新的元素立即放回等待队列换一台worker
+     *
+     * @param workHolder 拒绝执行的worker
+     * @param element    队列中的任务
+     * @param historyId  本次执行记录id，失败重试时与队列中的不同
+     * @param runCount   被拒绝之前已经执行的次数
+     */
+    private void requeue(MasterWorkHolder workHolder, JobElement element, String historyId, int runCount) {
+        workHolder.markFull();
+        element.setRequeued(true);
+        ScheduleLog.warn("worker {} slots are full, requeue {} job:{}", workHolder.getHeartBeatInfo().getHost(), element.getTriggerType(), element.getJobId());
+        master.requeue(JobElement.builder()
+                .jobId(element.getJobId())
+                .hostGroupId(element.getHostGroupId())
+                .fixedEmr(element.isFixedEmr())
+                .priorityLevel(element.getPriorityLevel())
+                .historyId(historyId)
+                .triggerType(element.getTriggerType())
+                .costMinute(element.getCostMinute())
+                .runCount(runCount)
+                .build());
+    }
 
+    /**
+     * 缓存的版本置为执行中，已结束的版本重新执行时重新加入待执行索引
+     */
+    private void runningCacheAction(String actionId, String historyId) {
+        HeraAction cacheAction = master.getHeraActionMap().get(Long.parseLong(actionId));
+        if (cacheAction != null) {
+            cacheAction.setStatus(StatusEnum.RUNNING.toString());
+            cacheAction.setHistoryId(historyId);
+            master.getPendingActions().add(cacheAction);
         }
     }
 
@@ -314,17 +386,48 @@ public class MasterRunJob implements RunJob {
         }
     }
 
+    /**
+     * 一次调度任务执行的上下文，用于work返回结果后的处理
+     */
+    private static class ScheduleJobRun {
+        private final MasterWorkHolder workHolder;
+        private final JobElement element;
+        private final String actionId;
+        private final int runCount;
+        private final int retryCount;
+        private final int retryWaitTime;
+        private final HeraAction heraAction;
+        private final HeraJobHistory heraJobHistory;
+        private final HeraJobHistoryVo heraJobHistoryVo;
+        private final TriggerTypeEnum triggerType;
+
+        ScheduleJobRun(MasterWorkHolder workHolder, JobElement element, int runCount, int retryCount, int retryWaitTime, HeraAction heraAction,
+                       HeraJobHistory heraJobHistory, HeraJobHistoryVo heraJobHistoryVo, TriggerTypeEnum triggerType) {
+            this.workHolder = workHolder;
+            this.element = element;
+            this.actionId = element.getJobId();
+            this.runCount = runCount;
+            this.retryCount = retryCount;
+            this.retryWaitTime = retryWaitTime;
+            this.heraAction = heraAction;
+            this.heraJobHistory = heraJobHistory;
+            this.heraJobHistoryVo = heraJobHistoryVo;
+            this.triggerType = triggerType;
+        }
+    }
+
     /**
      * 任务超出最大并行度 放入任务队列，不要放到线程池队列
      *
      * @return
      */
     public boolean isTaskLimit() {
-        return executeJobPool.getActiveCount() >= HeraGlobalEnv.getMaxParallelNum();
+        return executeJobPool.getRunningJobCount() >= HeraGlobalEnv.getMaxParallelNum();
     }
 
     public void printThreadPoolLog() {
-        String sb = "当前线程池信息" + "[ActiveCount: " + executeJobPool.getActiveCount() + "," +
+        String sb = "当前线程池信息" + "[RunningJobCount: " + executeJobPool.getRunningJobCount() + "," +
+                "ActiveCount: " + executeJobPool.getActiveCount() + "," +
                 "CompletedTaskCount：" + executeJobPool.getCompletedTaskCount() + "," +
                 "PoolSize:" + executeJobPool.getPoolSize() + "," +
                 "LargestPoolSize:" + executeJobPool.getLargestPoolSize() + "," +
@@ -337,13 +440,13 @@ public class MasterRunJob implements RunJob {
         switch (element.getTriggerType()) {
             case SCHEDULE:
             case MANUAL_RECOVER:
-                executeJobPool.execute(() -> runScheduleJob(workHolder, element.getJobId()), element);
+                executeJobPool.execute(() -> runScheduleJob(workHolder, element), element);
                 break;
             case MANUAL:
-                executeJobPool.execute(() -> runManualJob(workHolder, element.getJobId()), element);
+                executeJobPool.execute(() -> runManualJob(workHolder, element), element);
                 break;
             case DEBUG:
-                executeJobPool.execute(() -> runDebugJob(workHolder, element.getJobId()), element);
+                executeJobPool.execute(() -> runDebugJob(workHolder, element), element);
                 break;
             default:
                 ErrorLog.error("未知的执行类型:" + element.getTriggerType().toString());
@@ -1,5 +1,6 @@
 package com.dfire.core.netty.master;
 
+import com.dfire.core.netty.util.NettyTransport;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.HeraLog;
 import com.dfire.protocol.RpcSocketMessage;
@@ -8,9 +9,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufEncoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
@@ -41,17 +40,19 @@ public class MasterServer {
     public MasterServer(final MasterHandler handler) {
         serverBootstrap = new ServerBootstrap();
         //服务端接受客户端的连接， Reactor线程组
-        bossGroup = new NioEventLoopGroup(1);
+        bossGroup = NettyTransport.newEventLoopGroup(1, "master-boss");
         //SocketChannel的网络读写
-        workGroup = new NioEventLoopGroup(1);
+        workGroup = NettyTransport.newEventLoopGroup(NettyTransport.ioThreads(), "master-io");
         this.handler = handler;
         serverBootstrap.group(bossGroup, workGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(NettyTransport.serverChannelClass())
                 .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.TCP_NODELAY, true)
                 .childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) {
-                        ch.pipeline().addLast("frameDecoder", new ProtobufVarint32FrameDecoder())
+                        ch.pipeline().addLast("flushConsolidation", NettyTransport.flushConsolidation())
+                                .addLast("frameDecoder", new ProtobufVarint32FrameDecoder())
                                 .addLast("decoder", new ProtobufDecoder(RpcSocketMessage.SocketMessage.getDefaultInstance()))
                                 .addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender())
                                 .addLast("encoder", new ProtobufEncoder())
@@ -69,7 +70,7 @@ public class MasterServer {
             ErrorLog.error("InterruptedException", e);
         }
         if (channelFuture != null && channelFuture.isSuccess()) {
-            HeraLog.info("start master server success");
+            HeraLog.info("start master server success, transport:{}, io threads:{}", NettyTransport.name(), NettyTransport.ioThreads());
         } else {
             ErrorLog.error("start master server failed");
         }
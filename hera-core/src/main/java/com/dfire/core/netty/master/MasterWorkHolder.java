@@ -1,12 +1,19 @@
 package com.dfire.core.netty.master;
 
+import com.dfire.config.HeraGlobalEnv;
 import com.dfire.core.message.HeartBeatInfo;
 import com.dfire.core.netty.HeraChannel;
+import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
 import com.dfire.protocol.RpcWorkInfo.WorkInfo;
 import lombok.Data;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -17,6 +24,13 @@ import java.util.Set;
 @Data
 public class MasterWorkHolder {
 
+    /**
+     * 预估负载超过该值时进入预热冷却
+     */
+    private static final float WARM_UP_CPU_LOAD = 0.6F;
+
+    private static final float WARM_UP_MEM_RATE = 0.7F;
+
     private HeraChannel channel;
 
     /**
@@ -36,8 +50,186 @@ public class MasterWorkHolder {
 
     private volatile WorkInfo workInfo;
 
+    /**
+     * 按心跳合并出的worker上执行中的任务，心跳只上报增减
+     */
+    private final Set<String> beatRunning = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> beatManualRunning = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> beatDebugRunning = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 最近一次合并的心跳序号
+     */
+    private long beatSeq;
+
+    /**
+     * 是否已收到全量心跳且之后的增量没有中断
+     */
+    private boolean beatSynced;
+
+    /**
+     * 按最近一次心跳计算的剩余可分配任务数，分发时预占，下次心跳重新计算
+     */
+    private final AtomicInteger freeSlots = new AtomicInteger(0);
+
+    /**
+     * 最近一次心跳之后分发的任务数，用于在下次心跳之前预估机器负载
+     */
+    private final AtomicInteger dispatched = new AtomicInteger(0);
+
+    /**
+     * 预热冷却截止时间，之前不再向该worker分发任务
+     */
+    private volatile long coolDownUntil;
+
     public MasterWorkHolder(HeraChannel channel) {
         this.channel = channel;
     }
 
+    public void setHeartBeatInfo(HeartBeatInfo heartBeatInfo) {
+        this.heartBeatInfo = heartBeatInfo;
+        dispatched.set(0);
+        refreshFreeSlots();
+    }
+
+    private void refreshFreeSlots() {
+        if (heartBeatInfo == null || heartBeatInfo.getMemTotal() == null) {
+            freeSlots.set(0);
+            return;
+        }
+        Float assignTaskNum = (heartBeatInfo.getMemTotal() - HeraGlobalEnv.getSystemMemUsed()) / HeraGlobalEnv.getPerTaskUseMem();
+        int sum = size(heartBeatInfo.getDebugRunning()) + size(heartBeatInfo.getManualRunning()) + size(heartBeatInfo.getRunning());
+        //运行中的任务数不超过assignTaskNum时还可以再分配
+        int free = assignTaskNum.intValue() - sum + 1;
+        Integer slotTotal = heartBeatInfo.getSlotTotal();
+        if (slotTotal != null && slotTotal > 0) {
+            //worker上报了执行槽位时不超过剩余槽位，超出的会被worker拒绝
+            int slotUsed = heartBeatInfo.getSlotUsed() == null ? 0 : heartBeatInfo.getSlotUsed();
+            free = Math.min(free, slotTotal - slotUsed);
+        }
+        freeSlots.set(free);
+    }
+
+    /**
+     * worker执行槽位已满拒绝了任务，下次心跳之前不再向其分发
+     */
+    public void markFull() {
+        freeSlots.set(0);
+    }
+
+    private int size(Collection<String> running) {
+        return running == null ? 0 : running.size();
+    }
+
+    /**
+     * 合并心跳中的执行中任务。全量心跳直接替换，增量心跳在上一次的基础上增减；
+     * 增量序号不连续时仍尽量合并，等下一次全量心跳校正
+     *
+     * @param beat 心跳消息
+     * @return 合并结果是否与worker一致
+     */
+    public synchronized boolean mergeRunning(HeartBeatMessage beat) {
+        if (!beat.getDelta()) {
+            replace(beatRunning, beat.getRunningsList());
+            replace(beatManualRunning, beat.getManualRunningsList());
+            replace(beatDebugRunning, beat.getDebugRunningsList());
+            beatSynced = true;
+        } else {
+            if (beat.getSeq() != beatSeq + 1) {
+                beatSynced = false;
+            }
+            merge(beatRunning, beat.getRunningsList(), beat.getRemovedRunningsList());
+            merge(beatManualRunning, beat.getManualRunningsList(), beat.getRemovedManualRunningsList());
+            merge(beatDebugRunning, beat.getDebugRunningsList(), beat.getRemovedDebugRunningsList());
+        }
+        beatSeq = beat.getSeq();
+        return beatSynced;
+    }
+
+    private void replace(Set<String> target, List<String> current) {
+        target.retainAll(new HashSet<>(current));
+        target.addAll(current);
+    }
+
+    private void merge(Set<String> target, List<String> added, List<String> removed) {
+        removed.forEach(target::remove);
+        target.addAll(added);
+    }
+
+    /**
+     * 预占一个任务槽位
+     *
+     * @return 是否预占成功
+     */
+    public boolean tryReserveSlot() {
+        for (; ; ) {
+            int free = freeSlots.get();
+            if (free <= 0) {
+                return false;
+            }
+            if (freeSlots.compareAndSet(free, free - 1)) {
+                dispatched.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 预占后没有下发任务时归还槽位
+     */
+    public void releaseSlot() {
+        freeSlots.incrementAndGet();
+        dispatched.updateAndGet(count -> count > 0 ? count - 1 : 0);
+    }
+
+    /**
+     * 预估的cpu load per core：心跳上报值加上之后分发的任务，每个任务按占满一个核计算
+     */
+    public float predictCpuLoad() {
+        HeartBeatInfo info = heartBeatInfo;
+        if (info == null || info.getCpuLoadPerCore() == null) {
+            return Float.MAX_VALUE;
+        }
+        int cores = info.getCores() == null || info.getCores() <= 0 ? 1 : info.getCores();
+        return info.getCpuLoadPerCore() + (float) dispatched.get() / cores;
+    }
+
+    /**
+     * 预估的内存使用率：心跳上报值加上之后分发的任务，每个任务按perTaskUseMem计算
+     */
+    public float predictMemRate() {
+        HeartBeatInfo info = heartBeatInfo;
+        if (info == null || info.getMemRate() == null) {
+            return Float.MAX_VALUE;
+        }
+        if (info.getMemTotal() == null || info.getMemTotal() <= 0) {
+            return info.getMemRate();
+        }
+        return info.getMemRate() + dispatched.get() * HeraGlobalEnv.getPerTaskUseMem() / info.getMemTotal();
+    }
+
+    /**
+     * 是否处于预热冷却中。心跳之后已经分发过任务且预估负载较高时开始冷却，
+     * 冷却期间跳过该worker，等机器把已下发的任务启动起来
+     *
+     * @param warmUpSeconds 冷却时长(秒)，0表示关闭
+     * @return 是否在冷却中
+     */
+    public boolean isCoolingDown(int warmUpSeconds) {
+        long now = System.currentTimeMillis();
+        if (now < coolDownUntil) {
+            return true;
+        }
+        if (warmUpSeconds <= 0 || dispatched.get() == 0) {
+            return false;
+        }
+        if (predictCpuLoad() > WARM_UP_CPU_LOAD || predictMemRate() > WARM_UP_MEM_RATE) {
+            coolDownUntil = now + TimeUnit.SECONDS.toMillis(warmUpSeconds);
+            return true;
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,57 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.enums.StatusEnum;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * @desc 未执行和执行中的版本索引，按版本id排序，版本id的前缀就是触发时间。
+ * 漏跑和信号丢失检测只取出已过期的部分；已结束或已被新版本替换的版本在取出时移出索引，重新执行时再加回
+ */
+public class PendingActionIndex {
+
+    private final ConcurrentSkipListMap<Long, HeraAction> pending = new ConcurrentSkipListMap<>();
+
+    public void add(HeraAction heraAction) {
+        if (heraAction != null && isPending(heraAction)) {
+            pending.put(heraAction.getId(), heraAction);
+        }
+    }
+
+    public void addAll(Collection<HeraAction> actions) {
+        actions.forEach(this::add);
+    }
+
+    /**
+     * 取出触发时间早于before的未执行和执行中版本
+     *
+     * @param before    版本id上限(不包含)
+     * @param actionMap 当前内存中的版本，不在其中的版本已失效
+     * @return 按版本id升序
+     */
+    public List<HeraAction> overdue(long before, Map<Long, HeraAction> actionMap) {
+        List<HeraAction> res = new ArrayList<>();
+        for (HeraAction heraAction : pending.headMap(before).values()) {
+            if (actionMap.get(heraAction.getId()) != heraAction || !isPending(heraAction)) {
+                //只移除当前这个对象，期间重新生成或重新执行加入的不受影响
+                pending.remove(heraAction.getId(), heraAction);
+            } else {
+                res.add(heraAction);
+            }
+        }
+        return res;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private boolean isPending(HeraAction heraAction) {
+        return heraAction.getStatus() == null || StatusEnum.RUNNING.toString().equals(heraAction.getStatus());
+    }
+}
@@ -9,6 +9,7 @@ import com.dfire.common.enums.JobStatus;
 import com.dfire.common.enums.TriggerTypeEnum;
 import com.dfire.common.service.HeraDebugHistoryService;
 import com.dfire.common.service.HeraJobHistoryService;
+import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.common.vo.JobElement;
 import com.dfire.config.HeraGlobalEnv;
@@ -18,6 +19,8 @@ import com.dfire.logs.ErrorLog;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -39,6 +42,12 @@ public class RunJobThreadPool extends ThreadPoolExecutor {
 
     private boolean emrCluster;
 
+    private final AtomicInteger runningJobCount = new AtomicInteger(0);
+
+    private final DispatchSignal dispatchSignal;
+
+    private final InFlightRegistry inFlightRegistry;
+
     public static List<String> getWaitClusterJob(TriggerTypeEnum... typeEnum) {
         if (jobEmrType == null) {
             return new ArrayList<>(0);
@@ -75,6 +84,8 @@ public class RunJobThreadPool extends ThreadPoolExecutor {
         debugHistoryService = masterContext.getHeraDebugHistoryService();
         jobEmrType = new ConcurrentHashMap<>(maximumPoolSize);
         emrCluster = HeraGlobalEnv.isEmrJob();
+        dispatchSignal = masterContext.getDispatchSignal();
+        inFlightRegistry = masterContext.getInFlightRegistry();
     }
 
     @Override
@@ -135,9 +146,29 @@ public class RunJobThreadPool extends ThreadPoolExecutor {
         }
     }
 
+    /**
+     * 任务线程只负责下发，任务真正结束是在work返回结果之后，此时再做后置处理
+     */
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
-        JobElement jobElement = jobEmrType.get(r);
+        if (t == null && r instanceof JobTask) {
+            CompletableFuture<Void> completion = ((JobTask) r).completion;
+            if (completion != null && !completion.isDone()) {
+                completion.whenComplete((v, e) -> completeJob(r));
+                return;
+            }
+        }
+        completeJob(r);
+    }
+
+    private void completeJob(Runnable r) {
+        JobElement jobElement = jobEmrType.remove(r);
+        if (jobElement == null) {
+            return;
+        }
+        runningJobCount.decrementAndGet();
+        //空出了并行度，唤醒分发线程
+        dispatchSignal.signal();
         try {
             if (isEmrDynamicJob(jobElement)) {
                 emr.removeJob();
@@ -145,8 +176,11 @@ public class RunJobThreadPool extends ThreadPoolExecutor {
         } catch (Exception e) {
             ErrorLog.error("任务后置执行异常" + e.getMessage(), e);
         } finally {
-            jobEmrType.remove(r);
             jobElement.setStatus(JobStatus.complete);
+            //取消、下发前异常时没有经过worker返回，这里兜底移除登记
+            if (!jobElement.isRequeued()) {
+                inFlightRegistry.release(jobElement.getTriggerType(), ActionUtil.getJobId(jobElement.getJobId()), jobElement.getHistoryId());
+            }
             doFilter(FilterType.response, jobElement);
         }
     }
@@ -179,7 +213,9 @@ public class RunJobThreadPool extends ThreadPoolExecutor {
     public List<Runnable> shutdownNow() {
         List<Runnable> alive = super.shutdownNow();
         for (Runnable runnable : alive) {
-            jobEmrType.remove(runnable);
+            if (jobEmrType.remove(runnable) != null) {
+                runningJobCount.decrementAndGet();
+            }
         }
         return alive;
     }
@@ -187,12 +223,39 @@ public class RunJobThreadPool extends ThreadPoolExecutor {
     /**
      * 任务执行的入口
      *
-     * @param command    执行的内容
+     * @param job        下发任务，返回任务结束的future
      * @param jobElement JobElement
      */
-    public void execute(Runnable command, JobElement jobElement) {
+    public void execute(Supplier<CompletableFuture<Void>> job, JobElement jobElement) {
+        JobTask command = new JobTask(job);
         jobElement.setStatus(JobStatus.waitCluster);
         jobEmrType.putIfAbsent(command, jobElement);
+        runningJobCount.incrementAndGet();
         super.execute(command);
     }
+
+    /**
+     * 已经提交但还未结束的任务数，包括等待work返回结果的任务
+     *
+     * @return 任务数
+     */
+    public int getRunningJobCount() {
+        return runningJobCount.get();
+    }
+
+    private static class JobTask implements Runnable {
+
+        private final Supplier<CompletableFuture<Void>> job;
+
+        private volatile CompletableFuture<Void> completion;
+
+        JobTask(Supplier<CompletableFuture<Void>> job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            completion = job.get();
+        }
+    }
 }
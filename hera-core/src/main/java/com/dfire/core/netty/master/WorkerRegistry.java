@@ -0,0 +1,48 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.core.message.HeartBeatInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @desc 按host索引的worker注册表，收到心跳时登记，断线、心跳超时时摘除
+ */
+public class WorkerRegistry {
+
+    private final Map<String, MasterWorkHolder> hostWorkers = new ConcurrentHashMap<>();
+
+    public void heartBeat(MasterWorkHolder workHolder) {
+        String host = getHost(workHolder);
+        if (host != null) {
+            hostWorkers.put(host, workHolder);
+        }
+    }
+
+    public void remove(MasterWorkHolder workHolder) {
+        String host = getHost(workHolder);
+        if (host != null) {
+            //同一台机器重连后的新连接不摘除
+            hostWorkers.remove(host, workHolder);
+        }
+    }
+
+    public MasterWorkHolder get(String host) {
+        return host == null ? null : hostWorkers.get(host.trim());
+    }
+
+    public int size() {
+        return hostWorkers.size();
+    }
+
+    private String getHost(MasterWorkHolder workHolder) {
+        if (workHolder == null) {
+            return null;
+        }
+        HeartBeatInfo heartBeatInfo = workHolder.getHeartBeatInfo();
+        if (heartBeatInfo == null || heartBeatInfo.getHost() == null) {
+            return null;
+        }
+        return heartBeatInfo.getHost().trim();
+    }
+}
@@ -150,6 +150,7 @@ public class MasterCancelJob {
                     .setErrorText("手动执行任务中找不到匹配的job(" + heraJobHistory.getJobId() + "," + actionId + ")，无法执行取消命令")
                     .build();
         }
+        context.getInFlightRegistry().release(TriggerTypeEnum.MANUAL, jobId, historyId);
         heraJobHistory.setIllustrate(Constants.CANCEL_JOB_MESSAGE);
         heraJobHistory.setEndTime(new Date());
         heraJobHistory.setStatus(StatusEnum.FAILED.toString());
@@ -216,6 +217,7 @@ public class MasterCancelJob {
                     .setErrorText("调度队列中找不到匹配的job(" + heraJobHistory.getJobId() + "," + heraJobHistory.getActionId() + ")，无法执行取消命令")
                     .build();
         }
+        context.getInFlightRegistry().release(TriggerTypeEnum.SCHEDULE, jobId, historyId);
         heraJobHistory.setEndTime(new Date());
         heraJobHistory.setStatus(StatusEnum.FAILED.toString());
         heraJobHistory.setIllustrate(Constants.CANCEL_JOB_MESSAGE);
@@ -1,25 +1,36 @@
 package com.dfire.core.netty.master.response;
 
+import com.alibaba.fastjson.JSONObject;
+import com.dfire.common.entity.HeraDebugHistory;
+import com.dfire.common.entity.HeraFile;
+import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.model.HeraJobBean;
+import com.dfire.common.entity.vo.HeraDebugHistoryVo;
+import com.dfire.common.entity.vo.HeraJobHistoryVo;
+import com.dfire.common.entity.vo.HeraProfileVo;
+import com.dfire.common.enums.StatusEnum;
 import com.dfire.common.enums.TriggerTypeEnum;
 import com.dfire.common.util.ActionUtil;
+import com.dfire.common.util.BeanConvertUtils;
+import com.dfire.common.util.StringUtil;
 import com.dfire.config.HeraGlobalEnv;
-import com.dfire.core.exception.RemotingException;
-import com.dfire.core.netty.listener.MasterResponseListener;
 import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.master.MasterWorkHolder;
 import com.dfire.core.netty.util.AtomicIncrease;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.TaskLog;
 import com.dfire.protocol.JobExecuteKind.ExecuteKind;
+import com.dfire.protocol.ResponseStatus;
 import com.dfire.protocol.RpcDebugMessage.DebugMessage;
 import com.dfire.protocol.RpcExecuteMessage.ExecuteMessage;
 import com.dfire.protocol.RpcOperate.Operate;
 import com.dfire.protocol.RpcRequest.Request;
 import com.dfire.protocol.RpcResponse.Response;
 import com.dfire.protocol.RpcSocketMessage.SocketMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Future;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,16 +39,26 @@ import java.util.concurrent.TimeUnit;
  */
 public class MasterExecuteJob {
 
-    public Future<Response> executeJob(final MasterContext context, final MasterWorkHolder holder, ExecuteKind kind, final String id) {
+    public CompletableFuture<Response> executeJob(final MasterContext context, final MasterWorkHolder holder, ExecuteKind kind, final String id) {
+        return executeJob(context, holder, kind, id, null);
+    }
+
+    /**
+     * 下发任务，调度/手动任务带上执行记录时，master解析好任务配置一起下发，worker执行期间不再查库，
+     * 执行结果和日志随response返回由master写库
+     *
+     * @param history 执行记录，为空时worker自己查库
+     */
+    public CompletableFuture<Response> executeJob(final MasterContext context, final MasterWorkHolder holder, ExecuteKind kind, final String id, HeraJobHistoryVo history) {
         switch (kind) {
             case ScheduleKind:
-                return executeScheduleJob(context, holder, id);
+                return executeScheduleJob(context, holder, id, history);
             case ManualKind:
-                return executeManualJob(context, holder, id);
+                return executeManualJob(context, holder, id, history);
             case DebugKind:
                 return executeDebugJob(context, holder, id);
             default:
-                return null;
+                return CompletableFuture.completedFuture(null);
         }
     }
 
@@ -48,19 +69,20 @@ public class MasterExecuteJob {
      * @param context    MasterContext
      * @param workHolder MasterWorkHolder
      * @param actionId   String
-     * @return Future
+     * @param history    HeraJobHistoryVo
+     * @return CompletableFuture
      */
-    private Future<Response> executeManualJob(MasterContext context, MasterWorkHolder workHolder, String actionId) {
+    private CompletableFuture<Response> executeManualJob(MasterContext context, MasterWorkHolder workHolder, String actionId, HeraJobHistoryVo history) {
         Integer jobId = ActionUtil.getJobId(actionId);
+        String historyId = history == null ? null : history.getId();
         workHolder.getManningRunning().add(jobId);
+        context.getInFlightRegistry().running(TriggerTypeEnum.MANUAL, jobId, actionId, historyId, workHolder.getHeartBeatInfo().getHost());
         return buildFuture(context, Request.newBuilder()
                 .setRid(AtomicIncrease.getAndIncrement())
                 .setOperate(Operate.Manual)
-                .setBody(ExecuteMessage
-                        .newBuilder()
-                        .setActionId(actionId)
-                        .build().toByteString())
-                .build(), workHolder, actionId, TriggerTypeEnum.MANUAL, jobId);
+                .setBody(buildExecuteMessage(context, workHolder, actionId, jobId, history).toByteString())
+                .build(), workHolder, actionId, TriggerTypeEnum.MANUAL, jobId, historyId)
+                .thenCompose(response -> persistResult(context, response));
     }
 
 
@@ -70,20 +92,98 @@ public class MasterExecuteJob {
      * @param context    MasterContext
      * @param workHolder MasterWorkHolder
      * @param actionId   String
-     * @return Future
+     * @param history    HeraJobHistoryVo
+     * @return CompletableFuture
      */
-    private Future<Response> executeScheduleJob(MasterContext context, MasterWorkHolder workHolder, String actionId) {
+    private CompletableFuture<Response> executeScheduleJob(MasterContext context, MasterWorkHolder workHolder, String actionId, HeraJobHistoryVo history) {
         Integer jobId = ActionUtil.getJobId(actionId);
+        String historyId = history == null ? null : history.getId();
         workHolder.getRunning().add(jobId);
+        context.getInFlightRegistry().running(TriggerTypeEnum.SCHEDULE, jobId, actionId, historyId, workHolder.getHeartBeatInfo().getHost());
         return buildFuture(context, Request.newBuilder()
                 .setRid(AtomicIncrease.getAndIncrement())
                 .setOperate(Operate.Schedule)
-                .setBody(ExecuteMessage
-                        .newBuilder()
-                        .setActionId(actionId)
-                        .build().toByteString())
-                .build(), workHolder, actionId, TriggerTypeEnum.SCHEDULE, jobId);
+                .setBody(buildExecuteMessage(context, workHolder, actionId, jobId, history).toByteString())
+                .build(), workHolder, actionId, TriggerTypeEnum.SCHEDULE, jobId, historyId)
+                .thenCompose(response -> persistResult(context, response));
+
+    }
+
+    /**
+     * 组装任务执行消息：任务的配置和资源按分组继承关系合并好，连同执行记录一起下发，
+     * 执行机器和开始时间由master写库
+     *
+     * @param context    MasterContext
+     * @param workHolder MasterWorkHolder
+     * @param actionId   actionId
+     * @param jobId      jobId
+     * @param history    执行记录
+     * @return ExecuteMessage
+     */
+    private ExecuteMessage buildExecuteMessage(MasterContext context, MasterWorkHolder workHolder, String actionId, Integer jobId, HeraJobHistoryVo history) {
+        ExecuteMessage.Builder builder = ExecuteMessage.newBuilder().setActionId(actionId);
+        if (history == null) {
+            return builder.build();
+        }
+        HeraJobBean jobBean = context.getHeraGroupService().getUpstreamJobBean(jobId);
+        if (jobBean == null) {
+            return builder.build();
+        }
+        JSONObject job = (JSONObject) JSONObject.toJSON(jobBean.getHeraJob());
+        job.put("configs", StringUtil.convertMapToString(jobBean.getHierarchyProperties().getAllProperties()));
+        job.put("resources", StringUtil.convertResourceToString(jobBean.getHierarchyResources()));
+
+        history.setExecuteHost(workHolder.getHeartBeatInfo().getHost());
+        history.setStartTime(new Date());
+        context.getJobHistoryWriter().started(HeraJobHistory.builder()
+                .id(history.getId())
+                .executeHost(history.getExecuteHost())
+                .startTime(history.getStartTime())
+                .hostGroupId(history.getHostGroupId())
+                .build());
+        return builder.setHistoryId(history.getId())
+                .setJob(job.toJSONString())
+                .setHistory(JSONObject.toJSONString(BeanConvertUtils.convert(history)))
+                .build();
+    }
 
+    /**
+     * worker随response返回执行结果时，master写库后再交给后续处理，保证后续读到的是最终状态
+     *
+     * @param context  MasterContext
+     * @param response work返回结果
+     * @return 写库完成后的future
+     */
+    private CompletableFuture<Response> persistResult(MasterContext context, Response response) {
+        ExecuteMessage result = parseResult(response);
+        if (result == null) {
+            return CompletableFuture.completedFuture(response);
+        }
+        return context.getJobHistoryWriter().finished(HeraJobHistory.builder()
+                .id(result.getHistoryId())
+                .log(result.getLog())
+                .status(StatusEnum.fromExitCode(result.getExitCode()).toString())
+                .endTime(new Date())
+                .build())
+                .thenApply(v -> response);
+    }
+
+    /**
+     * @param response work返回结果
+     * @return response中带的执行结果，被拒绝或没有执行记录时返回null
+     */
+    private ExecuteMessage parseResult(Response response) {
+        if (response == null || response.getBody().isEmpty()) {
+            return null;
+        }
+        ExecuteMessage result;
+        try {
+            result = ExecuteMessage.parseFrom(response.getBody());
+        } catch (InvalidProtocolBufferException e) {
+            ErrorLog.error("parse execute result error, rid:" + response.getRid(), e);
+            return null;
+        }
+        return result.getHistoryId().isEmpty() ? null : result;
     }
 
 
@@ -93,20 +193,68 @@ public class MasterExecuteJob {
      * @param context    MasterContext
      * @param workHolder MasterWorkHolder
      * @param id         String
-     * @return Future
+     * @return CompletableFuture
      */
-    private Future<Response> executeDebugJob(MasterContext context, MasterWorkHolder workHolder, String id) {
+    private CompletableFuture<Response> executeDebugJob(MasterContext context, MasterWorkHolder workHolder, String id) {
         Integer debugId = Integer.parseInt(id);
         workHolder.getDebugRunning().add(debugId);
         return buildFuture(context, Request.newBuilder()
                 .setRid(AtomicIncrease.getAndIncrement())
                 .setOperate(Operate.Debug)
-                .setBody(DebugMessage
-                        .newBuilder()
-                        .setDebugId(id)
-                        .build().toByteString())
-                .build(), workHolder, id, TriggerTypeEnum.DEBUG, debugId);
+                .setBody(buildDebugMessage(context, id).toByteString())
+                .build(), workHolder, id, TriggerTypeEnum.DEBUG, debugId, null)
+                .thenCompose(response -> persistDebugResult(context, response));
+
+    }
+
+    /**
+     * 组装开发中心任务执行消息：执行记录和脚本所属用户的hadoop配置一起下发，worker不再查库
+     *
+     * @param context MasterContext
+     * @param id      debugId
+     * @return DebugMessage
+     */
+    private DebugMessage buildDebugMessage(MasterContext context, String id) {
+        DebugMessage.Builder builder = DebugMessage.newBuilder().setDebugId(id);
+        HeraDebugHistoryVo history = context.getHeraDebugHistoryService().findById(Integer.parseInt(id));
+        if (history == null) {
+            return builder.build();
+        }
+        HeraFile file = context.getHeraFileService().findById(history.getFileId());
+        HeraProfileVo profile = file == null ? null : context.getHeraProfileService().findByOwner(file.getOwner());
+        if (profile != null && profile.getHadoopConf() != null) {
+            builder.setConfigs(StringUtil.convertMapToString(profile.getHadoopConf()));
+        }
+        return builder.setHistory(JSONObject.toJSONString(BeanConvertUtils.convert(history))).build();
+    }
+
+    /**
+     * 开发中心任务的执行结果同样由master写库，historyId为debugId
+     *
+     * @param context  MasterContext
+     * @param response work返回结果
+     * @return 写库完成后的future
+     */
+    private CompletableFuture<Response> persistDebugResult(MasterContext context, Response response) {
+        ExecuteMessage result = parseResult(response);
+        if (result == null) {
+            return CompletableFuture.completedFuture(response);
+        }
+        return context.getJobHistoryWriter().debugFinished(HeraDebugHistory.builder()
+                .id(result.getHistoryId())
+                .log(result.getLog())
+                .status(StatusEnum.fromExitCode(result.getExitCode()).toString())
+                .endTime(new Date())
+                .build())
+                .thenApply(v -> response);
+    }
 
+    /**
+     * @param response work返回结果
+     * @return 是否因为worker执行槽位已满被拒绝，此时任务没有执行
+     */
+    public static boolean isRejected(Response response) {
+        return response != null && response.getStatusEnum() == ResponseStatus.Status.REJECTED;
     }
 
     /**
@@ -117,52 +265,48 @@ public class MasterExecuteJob {
      * @param holder   MasterWorkHolder
      * @param actionId String
      * @param typeEnum TriggerTypeEnum
-     * @param jobId    jobId
-     * @return Future
+     * @param jobId     jobId
+     * @param historyId 执行记录id，结束时只移除这次执行的登记
+     * @return CompletableFuture
      */
 
-    private Future<Response> buildFuture(MasterContext context, Request request, MasterWorkHolder holder, String actionId, TriggerTypeEnum typeEnum, Integer jobId) {
-        final CountDownLatch latch = new CountDownLatch(1);
-        MasterResponseListener responseListener = new MasterResponseListener(request, false, latch, null);
-        context.getHandler().addListener(responseListener);
-        Future<Response> future = context.getThreadPool().submit(() -> {
-            try {
-                latch.await(HeraGlobalEnv.getTaskTimeout(), TimeUnit.HOURS);
-                if (!responseListener.getReceiveResult()) {
-                    ErrorLog.error("任务({})信号丢失，{}小时未收到work返回：{}", typeEnum.toName(), HeraGlobalEnv.getTaskTimeout(), actionId);
-                }
-            } finally {
-                context.getHandler().removeListener(responseListener);
-                switch (typeEnum) {
-                    case MANUAL:
-                        holder.getManningRunning().remove(jobId);
-                        break;
-                    case SCHEDULE:
-                        holder.getRunning().remove(jobId);
-                        break;
-                    case MANUAL_RECOVER:
-                        holder.getRunning().remove(jobId);
-                        break;
-                    case DEBUG:
-                        holder.getDebugRunning().remove(jobId);
-                        break;
-                    default:
-                        ErrorLog.warn("未识别的任务执行类型{}", typeEnum);
-                }
+    private CompletableFuture<Response> buildFuture(MasterContext context, Request request, MasterWorkHolder holder, String actionId, TriggerTypeEnum typeEnum, Integer jobId, String historyId) {
+        CompletableFuture<Response> future = context.getHandler().registerRequest(request.getRid(), HeraGlobalEnv.getTaskTimeout(), TimeUnit.HOURS,
+                () -> ErrorLog.error("任务({})信号丢失，{}小时未收到work返回：{}", typeEnum.toName(), HeraGlobalEnv.getTaskTimeout(), actionId));
+        future.whenComplete((response, throwable) -> {
+            switch (typeEnum) {
+                case MANUAL:
+                    holder.getManningRunning().remove(jobId);
+                    break;
+                case SCHEDULE:
+                    holder.getRunning().remove(jobId);
+                    break;
+                case MANUAL_RECOVER:
+                    holder.getRunning().remove(jobId);
+                    break;
+                case DEBUG:
+                    holder.getDebugRunning().remove(jobId);
+                    break;
+                default:
+                    ErrorLog.warn("未识别的任务执行类型{}", typeEnum);
+            }
+            //被worker拒绝的任务会放回等待队列，保留登记
+            if (!isRejected(response)) {
+                context.getInFlightRegistry().release(typeEnum, jobId, historyId);
+            }
+        });
+        holder.getChannel().send(SocketMessage
+                .newBuilder()
+                .setKind(SocketMessage.Kind.REQUEST)
+                .setBody(request.toByteString())
+                .build()).addListener(f -> {
+            if (f.isSuccess()) {
+                TaskLog.info("5.MasterExecuteJob:master send debug command to worker,rid = " + request.getRid() + ",actionId = " + actionId + ",address " + holder.getChannel().getRemoteAddress());
+            } else {
+                context.getHandler().cancelRequest(request.getRid());
+                ErrorLog.error("5.MasterExecuteJob:master send debug command to worker exception,rid = " + request.getRid() + ",actionId = " + actionId + ",address " + holder.getChannel().getRemoteAddress(), f.cause());
             }
-            return responseListener.getResponse();
         });
-        try {
-            holder.getChannel().writeAndFlush(SocketMessage
-                    .newBuilder()
-                    .setKind(SocketMessage.Kind.REQUEST)
-                    .setBody(request.toByteString())
-                    .build());
-            TaskLog.info("5.MasterExecuteJob:master send debug command to worker,rid = " + request.getRid() + ",actionId = " + actionId + ",address " + holder.getChannel().getRemoteAddress());
-        } catch (RemotingException e) {
-            context.getHandler().removeListener(responseListener);
-            ErrorLog.error("5.MasterExecuteJob:master send debug command to worker exception,rid = " + request.getRid() + ",actionId = " + actionId + ",address " + holder.getChannel().getRemoteAddress(), e);
-        }
         return future;
 
     }
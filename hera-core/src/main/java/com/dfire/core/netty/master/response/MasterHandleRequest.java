@@ -1,12 +1,14 @@
 package com.dfire.core.netty.master.response;
 
 import com.alibaba.fastjson.JSONObject;
+import com.dfire.common.entity.HeraDebugHistory;
 import com.dfire.core.message.HeartBeatInfo;
 import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.master.MasterWorkHolder;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.HeartLog;
 import com.dfire.logs.HeraLog;
+import com.dfire.protocol.RpcExecuteMessage.ExecuteMessage;
 import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
 import com.dfire.protocol.RpcRequest.Request;
 import com.dfire.protocol.RpcWorkInfo.WorkInfo;
@@ -20,23 +22,39 @@ import io.netty.channel.Channel;
  */
 public class MasterHandleRequest {
 
+    /**
+     * 在channel的IO线程中处理，保证同一worker的心跳按发送顺序合并
+     */
     public static void handleHeartBeat(MasterContext masterContext, Channel channel, Request request) {
         MasterWorkHolder workHolder = masterContext.getWorkMap().get(channel);
+        if (workHolder == null) {
+            return;
+        }
         HeartBeatInfo heartBeatInfo = new HeartBeatInfo();
         HeartBeatMessage heartBeatMessage;
         try {
             heartBeatMessage = HeartBeatMessage.newBuilder().mergeFrom(request.getBody()).build();
+            if (!workHolder.mergeRunning(heartBeatMessage)) {
+                HeartLog.warn("heart beat from {} is out of sequence, seq:{}, wait for next full heart beat", heartBeatMessage.getHost(), heartBeatMessage.getSeq());
+            }
             heartBeatInfo.setHost(heartBeatMessage.getHost());
             heartBeatInfo.setMemRate(heartBeatMessage.getMemRate());
             heartBeatInfo.setMemTotal(heartBeatMessage.getMemTotal());
             heartBeatInfo.setCpuLoadPerCore(heartBeatMessage.getCpuLoadPerCore());
-            heartBeatInfo.setRunning(heartBeatMessage.getRunningsList());
-            heartBeatInfo.setDebugRunning(heartBeatMessage.getDebugRunningsList());
-            heartBeatInfo.setManualRunning(heartBeatMessage.getManualRunningsList());
+            heartBeatInfo.setRunning(workHolder.getBeatRunning());
+            heartBeatInfo.setDebugRunning(workHolder.getBeatDebugRunning());
+            heartBeatInfo.setManualRunning(workHolder.getBeatManualRunning());
             heartBeatInfo.setTimestamp(heartBeatMessage.getTimestamp());
             heartBeatInfo.setCores(heartBeatMessage.getCores());
+            heartBeatInfo.setSlotTotal(heartBeatMessage.getSlotTotal());
+            heartBeatInfo.setSlotUsed(heartBeatMessage.getSlotUsed());
             workHolder.setHeartBeatInfo(heartBeatInfo);
-            HeartLog.debug("received heart beat from {} : {}", heartBeatMessage.getHost(), JSONObject.toJSONString(heartBeatInfo));
+            masterContext.getWorkerRegistry().heartBeat(workHolder);
+            //worker负载变化，唤醒分发线程重新选择
+            masterContext.getDispatchSignal().signal();
+            if (HeartLog.isDebugEnabled()) {
+                HeartLog.debug("received heart beat from {} : {}", heartBeatMessage.getHost(), JSONObject.toJSONString(heartBeatInfo));
+            }
         } catch (InvalidProtocolBufferException e) {
             ErrorLog.error("解析消息异常", e);
         }
@@ -52,4 +70,31 @@ public class MasterHandleRequest {
             ErrorLog.error("解析消息异常", e);
         }
     }
+
+    /**
+     * 调度任务运行中新增的日志片段，交给master统一写库
+     */
+    public static void handleJobLog(MasterContext masterContext, Request request) {
+        try {
+            ExecuteMessage message = ExecuteMessage.parseFrom(request.getBody());
+            masterContext.getJobHistoryWriter().appendLog(message.getHistoryId(), message.getLog());
+        } catch (InvalidProtocolBufferException e) {
+            ErrorLog.error("解析消息异常", e);
+        }
+    }
+
+    /**
+     * 开发中心任务运行中的日志，交给master统一写库
+     */
+    public static void handleDebugLog(MasterContext masterContext, Request request) {
+        try {
+            ExecuteMessage message = ExecuteMessage.parseFrom(request.getBody());
+            masterContext.getJobHistoryWriter().debugLog(HeraDebugHistory.builder()
+                    .id(message.getHistoryId())
+                    .log(message.getLog())
+                    .build());
+        } catch (InvalidProtocolBufferException e) {
+            ErrorLog.error("解析消息异常", e);
+        }
+    }
 }
@@ -9,14 +9,12 @@ import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.core.netty.master.RunJobThreadPool;
 import com.dfire.event.HeraJobMaintenanceEvent;
 import com.dfire.event.Events;
-import com.dfire.core.exception.RemotingException;
 import com.dfire.core.message.HeartBeatInfo;
 import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.master.MasterWorkHolder;
 import com.dfire.core.netty.worker.WorkContext;
 import com.dfire.common.vo.JobElement;
-import com.dfire.core.tool.CpuLoadPerCoreJob;
-import com.dfire.core.tool.MemUseRateJob;
+import com.dfire.core.tool.SystemSampler;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.HeraLog;
 import com.dfire.logs.TaskLog;
@@ -225,21 +223,18 @@ public class MasterHandlerWebResponse {
         context.getManualQueue().forEach(jobElement -> masterManualQueue.add(jobElement.getJobId()));
 
 
-        MemUseRateJob memUseRateJob = new MemUseRateJob(1);
-        memUseRateJob.readMemUsed();
-        CpuLoadPerCoreJob loadPerCoreJob = new CpuLoadPerCoreJob();
-        loadPerCoreJob.run();
+        SystemSampler.Snapshot snapshot = SystemSampler.getInstance().getSnapshot();
 
         allInfo.put(Constants.MASTER_PREFIX + WorkContext.host, HeartBeatMessage.newBuilder()
                 .addAllDebugRunnings(masterDebugQueue)
                 .addAllRunnings(masterScheduleQueue)
                 .addAllManualRunnings(masterManualQueue)
-                .setMemRate(memUseRateJob.getRate())
-                .setMemTotal(memUseRateJob.getMemTotal())
-                .setCpuLoadPerCore(loadPerCoreJob.getLoadPerCore())
+                .setMemRate(snapshot.getMemRate())
+                .setMemTotal(snapshot.getMemTotal())
+                .setCpuLoadPerCore(snapshot.getLoadPerCore())
                 .setTimestamp(System.currentTimeMillis())
                 .setHost(WorkContext.host)
-                .setCores(WorkContext.cpuCoreNum)
+                .setCores(snapshot.getCores())
                 .build());
 
         return WebResponse.newBuilder()
@@ -254,14 +249,12 @@ public class MasterHandlerWebResponse {
         if (!workReady) {
             HeraLog.info("workInfo未准备，准备请求work组装workInfo");
             //发送workInfo build 请求
-            context.getThreadPool().submit(() -> context.getWorkMap().values().parallelStream().forEach(workHolder -> {
-                try {
-                    workHolder.getChannel().writeAndFlush(RpcSocketMessage.SocketMessage.newBuilder()
-                            .setKind(RpcSocketMessage.SocketMessage.Kind.REQUEST)
-                            .setBody(RpcRequest.Request.newBuilder().setOperate(RpcOperate.Operate.GetWorkInfo).build().toByteString())
-                            .build());
-                } catch (RemotingException e) {
-                    ErrorLog.error("发送消息异常", e);
+            context.getWorkMap().values().forEach(workHolder -> workHolder.getChannel().send(RpcSocketMessage.SocketMessage.newBuilder()
+                    .setKind(RpcSocketMessage.SocketMessage.Kind.REQUEST)
+                    .setBody(RpcRequest.Request.newBuilder().setOperate(RpcOperate.Operate.GetWorkInfo).build().toByteString())
+                    .build()).addListener(f -> {
+                if (!f.isSuccess()) {
+                    ErrorLog.error("发送消息异常", f.cause());
                 }
             }));
             CountDownLatch latch = new CountDownLatch(1);
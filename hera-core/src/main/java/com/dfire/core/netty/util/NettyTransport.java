@@ -0,0 +1,61 @@
+package com.dfire.core.netty.util;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.config.HeraGlobalEnv;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * @desc netty传输层选择：linux下native epoll可用时使用epoll，否则使用nio。
+ * io线程数由hera.nettyIoThreads配置，0表示cpu核数
+ */
+public class NettyTransport {
+
+    /**
+     * 连续多少次flush合并为一次系统调用
+     */
+    private static final int EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
+    public static boolean useEpoll() {
+        return HeraGlobalEnv.isNativeEpoll() && HeraGlobalEnv.isLinuxSystem() && Epoll.isAvailable();
+    }
+
+    public static EventLoopGroup newEventLoopGroup(int threads, String name) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(name);
+        return useEpoll() ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+    }
+
+    public static int ioThreads() {
+        int threads = HeraGlobalEnv.getNettyIoThreads();
+        return threads > 0 ? threads : Constants.AVAILABLE_CORES;
+    }
+
+    public static Class<? extends ServerChannel> serverChannelClass() {
+        return useEpoll() ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public static Class<? extends SocketChannel> channelClass() {
+        return useEpoll() ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * 合并同一个event loop周期内的多次flush，放在pipeline最前面
+     */
+    public static FlushConsolidationHandler flushConsolidation() {
+        return new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, true);
+    }
+
+    public static String name() {
+        return useEpoll() ? "epoll" : "nio";
+    }
+}
@@ -0,0 +1,84 @@
+package com.dfire.core.netty.util;
+
+import com.dfire.common.util.NamedThreadFactory;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @desc 按rid索引的待响应请求表，response到达时O(1)匹配对应的future，超时由时间轮统一清理，
+ * 超时或者发送失败的请求以null结果完成，与原来的监听器超时返回null保持一致
+ */
+public class ResponseFutureTable<T> {
+
+    private final Map<Integer, CompletableFuture<T>> pending = new ConcurrentHashMap<>();
+
+    private final HashedWheelTimer timer;
+
+    public ResponseFutureTable(String name) {
+        timer = new HashedWheelTimer(new NamedThreadFactory(name, true), 100, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * 发送请求前注册rid
+     *
+     * @param rid       请求id
+     * @param timeout   超时时间
+     * @param unit      时间单位
+     * @param onTimeout 超时回调，可以为空
+     * @return 收到response或者超时后完成的future
+     */
+    public CompletableFuture<T> register(int rid, long timeout, TimeUnit unit, Runnable onTimeout) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pending.put(rid, future);
+        Timeout timeoutTask = timer.newTimeout(task -> {
+            if (pending.remove(rid, future)) {
+                if (onTimeout != null) {
+                    onTimeout.run();
+                }
+                future.complete(null);
+            }
+        }, timeout, unit);
+        future.whenComplete((response, throwable) -> {
+            timeoutTask.cancel();
+            pending.remove(rid, future);
+        });
+        return future;
+    }
+
+    /**
+     * response到达
+     *
+     * @param rid      请求id
+     * @param response response
+     * @return 是否有对应的请求在等待
+     */
+    public boolean complete(int rid, T response) {
+        CompletableFuture<T> future = pending.remove(rid);
+        return future != null && future.complete(response);
+    }
+
+    /**
+     * 请求发送失败，不再等待response
+     *
+     * @param rid 请求id
+     */
+    public void cancel(int rid) {
+        CompletableFuture<T> future = pending.remove(rid);
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public void shutdown() {
+        timer.stop();
+    }
+}
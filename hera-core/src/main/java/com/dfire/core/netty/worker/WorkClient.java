@@ -3,18 +3,20 @@ package com.dfire.core.netty.worker;
 
 import com.dfire.common.entity.vo.HeraDebugHistoryVo;
 import com.dfire.common.entity.vo.HeraJobHistoryVo;
-import com.dfire.common.enums.StatusEnum;
 import com.dfire.common.util.ActionUtil;
-import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.common.vo.LogContent;
 import com.dfire.common.vo.MachineInfoVo;
 import com.dfire.common.vo.OSInfoVo;
 import com.dfire.common.vo.ProcessMonitorVo;
 import com.dfire.common.vo.WorkInfoVo;
 import com.dfire.config.HeraGlobalEnv;
+import com.dfire.core.exception.RemotingException;
 import com.dfire.core.job.Job;
 import com.dfire.core.message.HeartBeatInfo;
 import com.dfire.core.netty.cluster.FailFastCluster;
+import com.dfire.core.netty.util.AtomicIncrease;
+import com.dfire.core.netty.util.NettyTransport;
 import com.dfire.core.netty.worker.request.WorkerHandleWebRequest;
 import com.dfire.core.netty.worker.request.WorkerHandlerHeartBeat;
 import com.dfire.logs.ErrorLog;
@@ -23,8 +25,11 @@ import com.dfire.logs.HeraLog;
 import com.dfire.logs.SocketLog;
 import com.dfire.protocol.JobExecuteKind.ExecuteKind;
 import com.dfire.protocol.ResponseStatus;
+import com.dfire.protocol.RpcExecuteMessage.ExecuteMessage;
 import com.dfire.protocol.RpcHeartBeatMessage.AllHeartBeatInfoMessage;
 import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
+import com.dfire.protocol.RpcOperate.Operate;
+import com.dfire.protocol.RpcRequest;
 import com.dfire.protocol.RpcSocketMessage;
 import com.dfire.protocol.RpcWebResponse;
 import com.dfire.protocol.RpcWorkInfo.*;
@@ -33,10 +38,9 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufEncoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
@@ -47,7 +51,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.net.InetSocketAddress;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -102,14 +105,16 @@ public class WorkClient {
 
         workContext.setWorkClient(this);
         workContext.init();
-        eventLoopGroup = new NioEventLoopGroup();
+        eventLoopGroup = NettyTransport.newEventLoopGroup(NettyTransport.ioThreads(), "worker-io");
         bootstrap = new Bootstrap();
         bootstrap.group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
+                .channel(NettyTransport.channelClass())
+                .option(ChannelOption.TCP_NODELAY, true)
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) throws Exception {
-                        ch.pipeline().addLast(new IdleStateHandler(0, 0, 5, TimeUnit.SECONDS))
+                        ch.pipeline().addLast("flushConsolidation", NettyTransport.flushConsolidation())
+                                .addLast(new IdleStateHandler(0, 0, 5, TimeUnit.SECONDS))
                                 .addLast("frameDecoder", new ProtobufVarint32FrameDecoder())
                                 .addLast("decoder", new ProtobufDecoder(RpcSocketMessage.SocketMessage.getDefaultInstance()))
                                 .addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender())
@@ -117,7 +122,7 @@ public class WorkClient {
                                 .addLast(new WorkHandler(workContext));
                     }
                 });
-        HeraLog.info("init work client success ");
+        HeraLog.info("init work client success, transport:{}", NettyTransport.name());
 
         workSchedule.schedule(new Runnable() {
 
@@ -148,7 +153,7 @@ public class WorkClient {
         }, HeraGlobalEnv.getHeartBeat(), TimeUnit.SECONDS);
 
         /**
-         * 定时 刷新日志到数据库
+         * 定时 上报运行中的日志，由master写库
          */
         workSchedule.scheduleWithFixedDelay(new Runnable() {
             /**
@@ -195,33 +200,77 @@ public class WorkClient {
                 }
             }
 
+            /**
+             * 上报任务自上次上报以来新增的日志，发送成功后才算追加完成。
+             * 与任务结束互斥，已结束的任务完整日志随执行结果返回，不再上报
+             */
+            private void sendAppend(Map<String, Job> running, String actionId, Job job) throws RemotingException {
+                synchronized (job) {
+                    if (running.get(actionId) != job) {
+                        return;
+                    }
+                    HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
+                    LogContent.Append append = history.getLog().nextAppend();
+                    if (append != null) {
+                        sendLog(Operate.JobLog, history.getId(), append.getContent());
+                        history.getLog().commitAppend(append);
+                    }
+                }
+            }
+
+            private void sendDebugLog(String debugId, Job job) throws RemotingException {
+                synchronized (job) {
+                    if (workContext.getDebugRunning().get(debugId) != job) {
+                        return;
+                    }
+                    HeraDebugHistoryVo history = job.getJobContext().getDebugHistory();
+                    sendLog(Operate.DebugLog, history.getId(), history.getLog().getContent());
+                }
+            }
+
+            private void sendLog(Operate operate, String historyId, String log) throws RemotingException {
+                workContext.getServerChannel().writeAndFlush(RpcSocketMessage.SocketMessage.newBuilder()
+                        .setKind(RpcSocketMessage.SocketMessage.Kind.REQUEST)
+                        .setBody(RpcRequest.Request.newBuilder()
+                                .setRid(AtomicIncrease.getAndIncrement())
+                                .setOperate(operate)
+                                .setBody(ExecuteMessage.newBuilder()
+                                        .setHistoryId(historyId)
+                                        .setLog(log)
+                                        .build().toByteString())
+                                .build().toByteString())
+                        .build());
+            }
+
             @Override
             public void run() {
+                //未连上master时日志留到下次上报
+                if (workContext.getServerChannel() == null) {
+                    return;
+                }
                 try {
-                    for (Job job : new ArrayList<>(workContext.getRunning().values())) {
+                    //调度任务只上报新增的日志片段，由master批量写入
+                    for (Map.Entry<String, Job> entry : new ArrayList<>(workContext.getRunning().entrySet())) {
                         try {
-                            HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
-                            workContext.getHeraJobHistoryService().updateHeraJobHistoryLog(BeanConvertUtils.convert(history));
+                            sendAppend(workContext.getRunning(), entry.getKey(), entry.getValue());
                         } catch (Exception e) {
-                            printScheduleLog(job, e);
+                            printScheduleLog(entry.getValue(), e);
                         }
                     }
 
-                    for (Job job : new ArrayList<>(workContext.getManualRunning().values())) {
+                    for (Map.Entry<String, Job> entry : new ArrayList<>(workContext.getManualRunning().entrySet())) {
                         try {
-                            HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
-                            workContext.getHeraJobHistoryService().updateHeraJobHistoryLog(BeanConvertUtils.convert(history));
+                            sendAppend(workContext.getManualRunning(), entry.getKey(), entry.getValue());
                         } catch (Exception e) {
-                            printScheduleLog(job, e);
+                            printScheduleLog(entry.getValue(), e);
                         }
                     }
 
-                    for (Job job : new ArrayList<>(workContext.getDebugRunning().values())) {
+                    for (Map.Entry<String, Job> entry : new ArrayList<>(workContext.getDebugRunning().entrySet())) {
                         try {
-                            HeraDebugHistoryVo history = job.getJobContext().getDebugHistory();
-                            workContext.getHeraDebugHistoryService().updateLog(BeanConvertUtils.convert(history));
+                            sendDebugLog(entry.getKey(), entry.getValue());
                         } catch (Exception e) {
-                            printDebugLog(job, e);
+                            printDebugLog(entry.getValue(), e);
                         }
                     }
                 } catch (Exception e) {
@@ -282,13 +331,10 @@ public class WorkClient {
      */
     public void cancelDebugJob(String debugId) {
         Job job = workContext.getDebugRunning().get(debugId);
+        //日志随执行结果返回，状态和结束时间由master写库
+        job.getJobContext().getDebugHistory().getLog().appendHera("任务被取消");
         job.cancel();
         workContext.getDebugRunning().remove(debugId);
-        HeraDebugHistoryVo history = job.getJobContext().getDebugHistory();
-        history.setEndTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
-        history.setStatus(StatusEnum.FAILED);
-        history.getLog().appendHera("任务被取消");
-        workContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(history));
     }
 
     /**
@@ -300,16 +346,11 @@ public class WorkClient {
         cancelJob(workContext.getManualRunning().remove(actionId));
     }
 
+    /**
+     * 只停止任务，取消的状态和说明由master写库
+     */
     private void cancelJob(Job job) {
         job.cancel();
-        HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
-        String illustrate = history.getIllustrate();
-        if (illustrate != null && illustrate.trim().length() > 0) {
-            illustrate += ";手动取消该任务";
-        } else {
-            illustrate = "手动取消该任务";
-        }
-        workContext.getHeraJobHistoryService().updateStatusAndIllustrate(Integer.parseInt(history.getId()), StatusEnum.FAILED.toString(), illustrate, new Date());
     }
 
     /**
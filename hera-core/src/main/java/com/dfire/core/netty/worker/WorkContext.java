@@ -1,21 +1,15 @@
 package com.dfire.core.netty.worker;
 
-import com.dfire.common.service.*;
 import com.dfire.common.util.NamedThreadFactory;
-import com.dfire.config.HeraGlobalEnv;
 import com.dfire.core.job.Job;
 import com.dfire.core.netty.HeraChannel;
-import com.dfire.core.tool.RunShell;
+import com.dfire.core.tool.SystemSampler;
 import com.dfire.core.util.NetUtils;
-import com.dfire.logs.ErrorLog;
 import com.dfire.logs.HeraLog;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -30,7 +24,6 @@ import java.util.concurrent.*;
 @Component
 public class WorkContext {
 
-    private static final String loadStr = "cat /proc/cpuinfo |grep processor | wc -l";
     public static String host;
     public static Integer cpuCoreNum;
 
@@ -39,40 +32,13 @@ public class WorkContext {
     static {
         host = NetUtils.getLocalAddress();
         HeraLog.info("-----------------------------当前机器的IP为:{}-----------------------------", host);
-        if (HeraGlobalEnv.isLinuxSystem()) {
-            RunShell shell = new RunShell(loadStr);
-            Integer exitCode = shell.run();
-            if (exitCode == 0) {
-                try {
-                    cpuCoreNum = Integer.parseInt(shell.getResult());
-                } catch (IOException e) {
-                    ErrorLog.error("获取cpu核数失败，使用默认配置", e);
-                    cpuCoreNum = 4;
-                }
-            }
-        } else {
-            cpuCoreNum = 4;
-        }
+        cpuCoreNum = SystemSampler.getInstance().getSnapshot().getCores();
     }
 
     public String serverHost;
-    @Autowired
-    private HeraDebugHistoryService heraDebugHistoryService;
-    @Autowired
-    private HeraJobHistoryService heraJobHistoryService;
-    @Autowired
-    @Qualifier("heraGroupMemoryService")
-    private HeraGroupService heraGroupService;
-    @Autowired
-    private HeraJobActionService heraJobActionService;
-    @Autowired
-    @Qualifier("heraFileMemoryService")
-    private HeraFileService heraFileService;
-    @Autowired
-    private HeraProfileService heraProfileService;
-    @Autowired
-    @Qualifier("heraJobMemoryService")
-    private HeraJobService heraJobService;
+    /**
+     * 与master的连接，执行记录和日志都通过master写库，worker不直接访问数据库
+     */
     private HeraChannel serverChannel;
     private Map<String, Job> running = new ConcurrentHashMap<>();
     private Map<String, Job> manualRunning = new ConcurrentHashMap<>();
@@ -89,10 +55,16 @@ public class WorkContext {
      */
     private ExecutorService workExecuteThreadPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.MINUTES,
             new SynchronousQueue<>(), new NamedThreadFactory("worker-execute"), new ThreadPoolExecutor.AbortPolicy());
+    /**
+     * 执行槽位，执行线程池不限线程数，同时执行的任务数由槽位限制
+     */
+    private WorkerSlots workerSlots;
 
     public void init() {
         //TODO 可以在这里接入统一数据源或者全局的自定义配置。
         cacheDBMap = new HashMap<>(0);
+        SystemSampler.Snapshot snapshot = SystemSampler.getInstance().getSnapshot();
+        workerSlots = WorkerSlots.create(snapshot.getCores(), snapshot.getMemTotal());
     }
 
 
@@ -1,10 +1,11 @@
 package com.dfire.core.netty.worker;
 
 import com.dfire.common.util.NamedThreadFactory;
-import com.dfire.core.exception.RemotingException;
 import com.dfire.core.netty.HeraChannel;
+import com.dfire.core.netty.NettyChannel;
 import com.dfire.core.netty.cluster.FailBackCluster;
-import com.dfire.core.netty.listener.ResponseListener;
+import com.dfire.core.netty.cluster.FailBackOutbox;
+import com.dfire.core.netty.util.ResponseFutureTable;
 import com.dfire.core.netty.worker.request.WorkExecuteJob;
 import com.dfire.core.netty.worker.request.WorkHandleCancel;
 import com.dfire.core.netty.worker.request.WorkHandlerRequest;
@@ -20,7 +21,6 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
-import java.util.List;
 import java.util.concurrent.*;
 
 /**
@@ -55,24 +55,36 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
                 try {
                     future = completionService.take();
                     response = future.get();
-                    response.channel.writeAndFlush(wrapper(response.response));
-                    TaskLog.info("1.WorkHandler: worker send response,rid={}", response.response.getRid());
-                } catch (InterruptedException | ExecutionException | RemotingException e) {
+                    int rid = response.response.getRid();
+                    response.channel.send(wrapper(response.response)).addListener(f -> {
+                        if (f.isSuccess()) {
+                            TaskLog.info("1.WorkHandler: worker send response,rid={}", rid);
+                        }
+                    });
+                } catch (InterruptedException | ExecutionException e) {
                     ErrorLog.error("1.WorkHandler: worker send response timeout,rid={}", response == null ? null : response.response.getRid());
                 }
             }
         });
     }
 
-
-    private List<ResponseListener> listeners = new CopyOnWriteArrayList<>();
-
-    public void addListener(ResponseListener listener) {
-        listeners.add(listener);
+    private final ResponseFutureTable<WebResponse> pendingWebResponses = new ResponseFutureTable<>("work-response-timer");
+
+    /**
+     * 发送webRequest前注册，收到相同rid的webResponse或者超时后future完成
+     *
+     * @param rid       request id
+     * @param timeout   超时时间
+     * @param unit      时间单位
+     * @param onTimeout 超时回调
+     * @return webResponse future，超时为null
+     */
+    public CompletableFuture<WebResponse> registerWebRequest(int rid, long timeout, TimeUnit unit, Runnable onTimeout) {
+        return pendingWebResponses.register(rid, timeout, unit, onTimeout);
     }
 
-    public void removeListener(ResponseListener listener) {
-        listeners.remove(listener);
+    public void cancelWebRequest(int rid) {
+        pendingWebResponses.cancel(rid);
     }
 
     public SocketMessage wrapper(Response response) {
@@ -108,20 +120,10 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
                         ErrorLog.warn("unknow operate value {}", request.getOperateValue());
                         break;
                 }
+                break;
             case RESPONSE:
-                workContext.getWorkWebThreadPool().execute(() -> {
-                    Response response = null;
-                    try {
-                        response = Response.newBuilder().mergeFrom(socketMessage.getBody()).build();
-                    } catch (InvalidProtocolBufferException e) {
-                        ErrorLog.error("解析消息异常", e);
-                    }
-                    TaskLog.info("4.WorkHandler:receiver: socket info from master {}, response is {}", ctx.channel().remoteAddress(), response.getRid());
-                    for (ResponseListener listener : listeners) {
-                        listener.onResponse(response);
-                    }
-                });
-
+                //worker向master发送的request不等待response
+                SocketLog.warn("WorkHandler:drop unexpected response from master {}", ctx.channel().remoteAddress());
                 break;
             case WEB_RESPONSE:
                 workContext.getWorkWebThreadPool().execute(() -> {
@@ -132,9 +134,7 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
                         ErrorLog.error("解析消息失败", e);
                     }
                     TaskLog.info("4.WorkHandler:receiver socket info from master {}, webResponse is {}", ctx.channel().remoteAddress(), webResponse.getRid());
-                    for (ResponseListener listener : listeners) {
-                        listener.onWebResponse(webResponse);
-                    }
+                    pendingWebResponses.complete(webResponse.getRid(), webResponse);
                 });
                 break;
             default:
@@ -147,7 +147,7 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
 
     private HeraChannel getChannel(Channel channel) {
         if (channelMap.get(channel) == null) {
-            channelMap.putIfAbsent(channel, FailBackCluster.wrap(channel));
+            channelMap.putIfAbsent(channel, FailBackCluster.wrap(channel, FailBackOutbox.Side.WORKER));
         }
         return channelMap.get(channel);
     }
@@ -157,6 +157,16 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
         SocketLog.info("客户端与服务端连接开启");
         ctx.fireChannelActive();
         getChannel(ctx.channel());
+        //重连master后补发上一个连接未送达的消息
+        FailBackOutbox.rebind(FailBackOutbox.Side.WORKER, new NettyChannel(ctx.channel()));
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            FailBackOutbox.writable(FailBackOutbox.Side.WORKER, ctx.channel());
+        }
+        ctx.fireChannelWritabilityChanged();
     }
 
     @Override
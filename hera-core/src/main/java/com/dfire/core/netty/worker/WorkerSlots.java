@@ -0,0 +1,108 @@
+package com.dfire.core.netty.worker;
+
+import com.dfire.config.HeraGlobalEnv;
+import com.dfire.logs.HeraLog;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @desc worker上的执行槽位。总数按cpu核数和内存计算，不同类型的任务占用的槽位数不同，
+ * 槽位不足时worker直接拒绝，由master放回等待队列换一台worker
+ */
+public class WorkerSlots {
+
+    private final int total;
+
+    private final Map<String, Integer> weights;
+
+    private final AtomicInteger used = new AtomicInteger(0);
+
+    public WorkerSlots(int total, String weights) {
+        this.total = Math.max(1, total);
+        this.weights = parseWeights(weights);
+    }
+
+    /**
+     * 按配置创建，没有配置workerSlots时取cpu核数*2和内存可容纳任务数的较小值
+     *
+     * @param cores    逻辑cpu核数
+     * @param memTotal 总内存
+     * @return WorkerSlots
+     */
+    public static WorkerSlots create(int cores, float memTotal) {
+        int total = HeraGlobalEnv.getWorkerSlots();
+        if (total <= 0) {
+            total = Math.max(1, cores) * 2;
+            Float perTaskUseMem = HeraGlobalEnv.getPerTaskUseMem();
+            if (memTotal > 0 && perTaskUseMem != null && perTaskUseMem > 0) {
+                float systemMemUsed = HeraGlobalEnv.getSystemMemUsed() == null ? 0F : HeraGlobalEnv.getSystemMemUsed();
+                total = Math.min(total, (int) ((memTotal - systemMemUsed) / perTaskUseMem));
+            }
+        }
+        WorkerSlots slots = new WorkerSlots(total, HeraGlobalEnv.getSlotWeights());
+        HeraLog.info("worker执行槽位总数:{}, 各类型任务占用槽位:{}", slots.getTotal(), slots.weights);
+        return slots;
+    }
+
+    /**
+     * @param runType 任务类型，shell/hive/spark等
+     * @return 该类型任务占用的槽位数，未配置的类型占1个
+     */
+    public int weight(String runType) {
+        if (runType == null) {
+            return 1;
+        }
+        return weights.getOrDefault(runType.trim().toLowerCase(), 1);
+    }
+
+    /**
+     * 占用槽位。没有任务在执行时总是允许，避免占用超过总数的任务永远无法执行
+     *
+     * @param weight 占用的槽位数
+     * @return 是否占用成功
+     */
+    public boolean tryAcquire(int weight) {
+        for (; ; ) {
+            int now = used.get();
+            if (now > 0 && now + weight > total) {
+                return false;
+            }
+            if (used.compareAndSet(now, now + weight)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int weight) {
+        used.updateAndGet(now -> Math.max(0, now - weight));
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getUsed() {
+        return used.get();
+    }
+
+    private static Map<String, Integer> parseWeights(String config) {
+        Map<String, Integer> res = new HashMap<>(8);
+        if (config == null) {
+            return res;
+        }
+        for (String item : config.split(",")) {
+            String[] kv = item.split(":");
+            if (kv.length != 2) {
+                continue;
+            }
+            try {
+                res.put(kv[0].trim().toLowerCase(), Math.max(1, Integer.parseInt(kv[1].trim())));
+            } catch (NumberFormatException e) {
+                HeraLog.warn("任务槽位配置错误:{}", item);
+            }
+        }
+        return res;
+    }
+}
@@ -1,16 +1,16 @@
 package com.dfire.core.netty.worker.request;
 
-import com.dfire.common.constants.Constants;
-import com.dfire.common.entity.HeraAction;
+import com.alibaba.fastjson.JSONObject;
+import com.dfire.common.entity.HeraDebugHistory;
+import com.dfire.common.entity.HeraJob;
 import com.dfire.common.entity.HeraJobHistory;
 import com.dfire.common.entity.model.HeraJobBean;
 import com.dfire.common.entity.vo.HeraDebugHistoryVo;
 import com.dfire.common.entity.vo.HeraJobHistoryVo;
-import com.dfire.common.enums.StatusEnum;
 import com.dfire.common.exception.HeraException;
 import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.BeanConvertUtils;
-import com.dfire.common.vo.JobStatus;
+import com.dfire.common.util.StringUtil;
 import com.dfire.config.HeraGlobalEnv;
 import com.dfire.core.job.Job;
 import com.dfire.core.job.JobContext;
@@ -26,6 +26,9 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 /**
@@ -35,6 +38,8 @@ import java.util.concurrent.Future;
  */
 public class WorkExecuteJob {
 
+    private static final String UNSUPPORTED = "master未下发任务配置，请先升级master";
+
     public Future<RpcResponse.Response> execute(final WorkContext workContext, final RpcRequest.Request request) {
         try {
             if (request.getOperate() == RpcOperate.Operate.Debug) {
@@ -69,63 +74,10 @@ public class WorkExecuteJob {
         }
         final String actionId = message.getActionId();
         SocketLog.info("worker received master request to run manual job, actionId = {}", actionId);
-        HeraAction heraAction = workContext.getHeraJobActionService().findById(actionId);
-        final HeraJobHistoryVo history = BeanConvertUtils.convert(workContext.getHeraJobHistoryService().findById(heraAction.getHistoryId()));
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
-            history.setExecuteHost(WorkContext.host);
-            history.setStartTime(new Date());
-            workContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(history));
-
-            String date = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
-            File directory = new File(HeraGlobalEnv.getWorkDir()
-                    + File.separator + date + File.separator + "manual-" + history.getId());
-            if (!directory.exists()) {
-                if (!directory.mkdirs()) {
-                    HeraLog.error("创建文件失败:" + directory.getAbsolutePath());
-                }
-            }
-            int exitCode = -1;
-            Exception exception = null;
-            try {
-                HeraJobBean jobBean = workContext.getHeraGroupService().getUpstreamJobBean(history.getJobId());
-                final Job job = JobUtils.createScheduleJob(new JobContext(JobContext.SCHEDULE_RUN),
-                        jobBean, history, directory.getAbsolutePath());
-                workContext.getManualRunning().put(actionId, job);
-                exitCode = job.run();
-            } catch (Exception e) {
-                exception = e;
-                history.getLog().appendHeraException(e);
-            } finally {
-                StatusEnum statusEnum = getStatusFromCode(exitCode);
-                //更新状态和日志
-                workContext.getHeraJobHistoryService().updateHeraJobHistoryLogAndStatus(
-                        HeraJobHistory.builder()
-                                .id(history.getId())
-                                .log(history.getLog().getContent())
-                                .status(statusEnum.toString())
-                                .endTime(new Date())
-                                .build());
-                workContext.getManualRunning().remove(actionId);
-            }
-
-            ResponseStatus.Status status = ResponseStatus.Status.OK;
-            String errorText = "";
-            if (exitCode != 0) {
-                status = ResponseStatus.Status.ERROR;
-            }
-            if (exception != null && exception.getMessage() != null) {
-                errorText = exception.getMessage();
-            }
-
-            RpcResponse.Response response = RpcResponse.Response.newBuilder()
-                    .setRid(request.getRid())
-                    .setOperate(RpcOperate.Operate.Schedule)
-                    .setStatusEnum(status)
-                    .setErrorText(errorText)
-                    .build();
-            SocketLog.info("send execute message, actionId = {}", actionId);
-            return response;
-        });
+        if (message.getJob().isEmpty()) {
+            return unsupported(request, message);
+        }
+        return executeWithPayload(workContext, request, message, workContext.getManualRunning(), "manual-");
     }
 
     /**
@@ -146,63 +98,148 @@ public class WorkExecuteJob {
         // 查看master分发 actionHistoryId
         final String jobId = message.getActionId();
         SocketLog.info("worker received master request to run schedule, actionId :" + jobId);
-        final JobStatus jobStatus = workContext.getHeraJobActionService().findJobStatus(jobId);
-        final HeraJobHistory heraJobHistory = workContext.getHeraJobHistoryService().findById(jobStatus.getHistoryId());
-        HeraJobHistoryVo history = BeanConvertUtils.convert(heraJobHistory);
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
-            history.setExecuteHost(WorkContext.host);
-            history.setStartTime(new Date());
-            workContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(history));
-            HeraJobBean jobBean = workContext.getHeraGroupService().getUpstreamJobBean(heraJobHistory.getJobId());
-            String date = ActionUtil.getCurrDate();
+        if (message.getJob().isEmpty()) {
+            return unsupported(request, message);
+        }
+        return executeWithPayload(workContext, request, message, workContext.getRunning(), "");
+    }
+
+    /**
+     * master下发了合并好配置的任务和执行记录，执行期间不再查库，执行状态和日志随response返回给master写库
+     *
+     * @param workContext workContext
+     * @param request     request
+     * @param message     带任务和执行记录的消息
+     * @param running     运行中的任务
+     * @param dirPrefix   工作目录前缀
+     * @return
+     */
+    private Future<RpcResponse.Response> executeWithPayload(WorkContext workContext, RpcRequest.Request request, RpcExecuteMessage.ExecuteMessage message,
+                                                            Map<String, Job> running, String dirPrefix) {
+        final String actionId = message.getActionId();
+        final HeraJobHistoryVo history = BeanConvertUtils.convert(JSONObject.parseObject(message.getHistory(), HeraJobHistory.class));
+        final HeraJobBean jobBean = HeraJobBean.builder()
+                .heraJob(JSONObject.parseObject(message.getJob(), HeraJob.class))
+                .build();
+        //任务类型取自下发的任务，缺省时按默认权重
+        int weight = workContext.getWorkerSlots().weight(jobBean.getHeraJob().getRunType());
+        if (!workContext.getWorkerSlots().tryAcquire(weight)) {
+            return rejected(workContext, request, actionId);
+        }
+        return submit(workContext, weight, () -> {
             File directory = new File(HeraGlobalEnv.getWorkDir()
-                    + File.separator + date + File.separator + history.getId());
+                    + File.separator + ActionUtil.getCurrDate() + File.separator + dirPrefix + history.getId());
             if (!directory.exists()) {
                 if (!directory.mkdirs()) {
                     HeraLog.error("创建文件失败:" + directory.getAbsolutePath());
                 }
             }
-
             int exitCode = -1;
             Exception exception = null;
+            Job job = null;
             try {
-                final Job job = JobUtils.createScheduleJob(new JobContext(JobContext.SCHEDULE_RUN), jobBean, history, directory.getAbsolutePath());
-                workContext.getRunning().put(jobId, job);
+                job = JobUtils.createScheduleJob(new JobContext(JobContext.SCHEDULE_RUN), jobBean, history, directory.getAbsolutePath());
+                running.put(actionId, job);
                 exitCode = job.run();
             } catch (Exception e) {
                 exception = e;
                 history.getLog().appendHeraException(e);
             } finally {
-                StatusEnum statusEnum = getStatusFromCode(exitCode);
-                //更新状态和日志
-                workContext.getHeraJobHistoryService().updateHeraJobHistoryLogAndStatus(
-                        HeraJobHistory.builder().
-                                id(history.getId()).
-                                log(history.getLog().getContent()).status(statusEnum.toString()).
-                                endTime(new Date())
-                                .build());
-                workContext.getRunning().remove(jobId);
-            }
-
-            ResponseStatus.Status status = ResponseStatus.Status.OK;
-            String errorText = "";
-            if (exitCode != 0) {
-                status = ResponseStatus.Status.ERROR;
-            }
-            if (exception != null) {
-                errorText = exception.toString();
+                finish(running, actionId, job);
             }
 
             RpcResponse.Response response = RpcResponse.Response.newBuilder()
                     .setRid(request.getRid())
-                    .setOperate(RpcOperate.Operate.Schedule)
-                    .setStatusEnum(status)
-                    .setErrorText(errorText)
+                    .setOperate(request.getOperate())
+                    .setStatusEnum(exitCode == 0 ? ResponseStatus.Status.OK : ResponseStatus.Status.ERROR)
+                    .setErrorText(exception == null ? "" : exception.toString())
+                    .setBody(RpcExecuteMessage.ExecuteMessage.newBuilder()
+                            .setActionId(actionId)
+                            .setHistoryId(message.getHistoryId())
+                            .setExitCode(exitCode)
+                            .setLog(history.getLog().getContent())
+                            .build().toByteString())
                     .build();
-            ScheduleLog.info("send execute message, resId = {} actionId = {}", request.getRid(), jobId);
+            ScheduleLog.info("send execute result, resId = {} actionId = {} exitCode = {}", request.getRid(), actionId, exitCode);
             return response;
         });
+    }
 
+    /**
+     * 旧版本master只下发id，需要worker自己查库写库，已不再支持，需要先升级master
+     */
+    private Future<RpcResponse.Response> unsupported(RpcRequest.Request request, RpcExecuteMessage.ExecuteMessage message) {
+        ErrorLog.error("{}, actionId:{}", UNSUPPORTED, message.getActionId());
+        RpcExecuteMessage.ExecuteMessage.Builder result = RpcExecuteMessage.ExecuteMessage.newBuilder()
+                .setActionId(message.getActionId())
+                .setHistoryId(message.getHistoryId())
+                .setExitCode(-1);
+        if (!message.getHistory().isEmpty()) {
+            HeraJobHistoryVo history = BeanConvertUtils.convert(JSONObject.parseObject(message.getHistory(), HeraJobHistory.class));
+            history.getLog().appendHera(UNSUPPORTED);
+            result.setLog(history.getLog().getContent());
+        }
+        return CompletableFuture.completedFuture(RpcResponse.Response.newBuilder()
+                .setRid(request.getRid())
+                .setOperate(request.getOperate())
+                .setStatusEnum(ResponseStatus.Status.ERROR)
+                .setErrorText(UNSUPPORTED)
+                .setBody(result.build().toByteString())
+                .build());
+    }
+
+    private Future<RpcResponse.Response> unsupported(RpcRequest.Request request, String debugId) {
+        ErrorLog.error("{}, debugId:{}", UNSUPPORTED, debugId);
+        return CompletableFuture.completedFuture(RpcResponse.Response.newBuilder()
+                .setRid(request.getRid())
+                .setOperate(request.getOperate())
+                .setStatusEnum(ResponseStatus.Status.ERROR)
+                .setErrorText(UNSUPPORTED)
+                .build());
+    }
+
+    /**
+     * 与运行中日志的上报互斥，移出运行队列后不会再上报日志，保证日志先于执行结果发给master
+     */
+    private void finish(Map<String, Job> running, String id, Job job) {
+        if (job == null) {
+            return;
+        }
+        synchronized (job) {
+            running.remove(id, job);
+        }
+    }
+
+    /**
+     * 在执行线程池中执行，结束后归还占用的槽位
+     */
+    private Future<RpcResponse.Response> submit(WorkContext workContext, int weight, Callable<RpcResponse.Response> task) {
+        try {
+            return workContext.getWorkExecuteThreadPool().submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    workContext.getWorkerSlots().release(weight);
+                }
+            });
+        } catch (RuntimeException e) {
+            workContext.getWorkerSlots().release(weight);
+            throw e;
+        }
+    }
+
+    /**
+     * 槽位已满时直接返回拒绝，不算执行失败，master收到后放回等待队列换一台worker
+     */
+    private Future<RpcResponse.Response> rejected(WorkContext workContext, RpcRequest.Request request, String id) {
+        SocketLog.warn("worker slots are full, reject {} job:{}, slots:{}/{}", request.getOperate(), id,
+                workContext.getWorkerSlots().getUsed(), workContext.getWorkerSlots().getTotal());
+        return CompletableFuture.completedFuture(RpcResponse.Response.newBuilder()
+                .setRid(request.getRid())
+                .setOperate(request.getOperate())
+                .setStatusEnum(ResponseStatus.Status.REJECTED)
+                .setErrorText("worker执行槽位已满")
+                .build());
     }
 
     /**
@@ -220,13 +257,19 @@ public class WorkExecuteJob {
             throw new HeraException("解析消息异常", e);
         }
         String debugId = debugMessage.getDebugId();
-        HeraDebugHistoryVo history = workContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
+        if (debugMessage.getHistory().isEmpty()) {
+            return unsupported(request, debugId);
+        }
+        HeraDebugHistoryVo history = BeanConvertUtils.convert(JSONObject.parseObject(debugMessage.getHistory(), HeraDebugHistory.class));
+        Map<String, String> hadoopConf = StringUtil.convertStringToMap(debugMessage.getConfigs().isEmpty() ? null : debugMessage.getConfigs());
+        int weight = workContext.getWorkerSlots().weight(history.getRunType() == null ? null : history.getRunType().toString());
+        if (!workContext.getWorkerSlots().tryAcquire(weight)) {
+            return rejected(workContext, request, debugId);
+        }
+        return submit(workContext, weight, () -> {
             int exitCode = -1;
             Exception exception = null;
-            ResponseStatus.Status status;
-            history.setExecuteHost(WorkContext.host);
-            workContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(history));
+            Job job = null;
             String date = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
             try {
                 File directory = new File(HeraGlobalEnv.getWorkDir() + File.separator + date + File.separator + "debug-" + debugId);
@@ -235,53 +278,35 @@ public class WorkExecuteJob {
                         HeraLog.error("创建文件失败:" + directory.getAbsolutePath());
                     }
                 }
-                Job job = JobUtils.createDebugJob(new JobContext(JobContext.DEBUG_RUN), BeanConvertUtils.convert(history),
-                        directory.getAbsolutePath(), workContext);
+                job = JobUtils.createDebugJob(new JobContext(JobContext.DEBUG_RUN), BeanConvertUtils.convert(history),
+                        directory.getAbsolutePath(), hadoopConf);
                 workContext.getDebugRunning().putIfAbsent(debugId, job);
                 exitCode = job.run();
             } catch (Exception e) {
                 exception = e;
-                history.getLog().appendHeraException(e);
             } finally {
-                HeraDebugHistoryVo heraDebugHistoryVo = workContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
-                heraDebugHistoryVo.setEndTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
-
-                StatusEnum statusEnum = getStatusFromCode(exitCode);
-                if (exitCode == 0) {
-                    status = ResponseStatus.Status.OK;
-                    heraDebugHistoryVo.setStatus(statusEnum);
-                } else {
-                    status = ResponseStatus.Status.ERROR;
-                    heraDebugHistoryVo.setStatus(statusEnum);
-                }
-                workContext.getHeraDebugHistoryService().updateStatus(BeanConvertUtils.convert(heraDebugHistoryVo));
-                HeraDebugHistoryVo debugHistory = workContext.getDebugRunning().get(debugId).getJobContext().getDebugHistory();
-                workContext.getHeraDebugHistoryService().updateLog(BeanConvertUtils.convert(debugHistory));
-                workContext.getDebugRunning().remove(debugId);
+                finish(workContext.getDebugRunning(), debugId, job);
             }
+            //状态和日志随response返回，由master写库
+            HeraDebugHistoryVo result = job == null ? history : job.getJobContext().getDebugHistory();
             String errorText = "";
-            if (exception != null && exception.getMessage() != null) {
-                errorText = exception.getMessage();
+            if (exception != null) {
+                result.getLog().appendHeraException(exception);
+                if (exception.getMessage() != null) {
+                    errorText = exception.getMessage();
+                }
             }
             return RpcResponse.Response.newBuilder()
                     .setRid(request.getRid())
                     .setOperate(RpcOperate.Operate.Debug)
-                    .setStatusEnum(status)
+                    .setStatusEnum(exitCode == 0 ? ResponseStatus.Status.OK : ResponseStatus.Status.ERROR)
                     .setErrorText(errorText)
+                    .setBody(RpcExecuteMessage.ExecuteMessage.newBuilder()
+                            .setHistoryId(debugId)
+                            .setExitCode(exitCode)
+                            .setLog(result.getLog().getContent())
+                            .build().toByteString())
                     .build();
         });
     }
-
-
-    private StatusEnum getStatusFromCode(int exitCode) {
-        if (exitCode == Constants.SUCCESS_EXIT_CODE) {
-            return StatusEnum.SUCCESS;
-        }
-
-        if (exitCode == Constants.WAIT_EXIT_CODE) {
-            return StatusEnum.WAIT;
-        }
-        return StatusEnum.FAILED;
-
-    }
 }
@@ -1,10 +1,7 @@
 package com.dfire.core.netty.worker.request;
 
-import com.dfire.common.entity.HeraJobHistory;
-import com.dfire.common.entity.vo.HeraDebugHistoryVo;
 import com.dfire.common.entity.vo.HeraJobHistoryVo;
-import com.dfire.common.enums.StatusEnum;
-import com.dfire.common.util.BeanConvertUtils;
+import com.dfire.core.job.Job;
 import com.dfire.core.netty.worker.WorkContext;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.SocketLog;
@@ -12,8 +9,7 @@ import com.dfire.protocol.*;
 import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.extern.slf4j.Slf4j;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Map;
 import java.util.concurrent.Future;
 
 /**
@@ -50,10 +46,9 @@ public class WorkHandleCancel {
      * @return
      */
     private Future<RpcResponse.Response> cancelManual(WorkContext workContext, RpcRequest.Request request, String historyId) {
-        HeraJobHistory heraJobHistory = workContext.getHeraJobHistoryService().findById(historyId);
-        final String actionId = heraJobHistory.getActionId();
+        final String actionId = findActionId(workContext.getManualRunning(), historyId);
         SocketLog.info("worker receive cancel manual job, actionId =" + actionId);
-        if (!workContext.getManualRunning().containsKey(actionId)) {
+        if (actionId == null) {
             return workContext.getWorkExecuteThreadPool().submit(() -> RpcResponse.Response.newBuilder()
                     .setRid(request.getRid())
                     .setOperate(RpcOperate.Operate.Cancel)
@@ -80,10 +75,9 @@ public class WorkHandleCancel {
      * @return
      */
     private Future<RpcResponse.Response> cancelSchedule(WorkContext workContext, RpcRequest.Request request, String historyId) {
-        HeraJobHistory heraJobHistory = workContext.getHeraJobHistoryService().findById(historyId);
-        String actionId = heraJobHistory.getActionId();
+        String actionId = findActionId(workContext.getRunning(), historyId);
         SocketLog.info("worker receive cancel schedule job, actionId =" + actionId);
-        if (!workContext.getRunning().containsKey(actionId)) {
+        if (actionId == null) {
             return workContext.getWorkExecuteThreadPool().submit(() -> RpcResponse.Response.newBuilder()
                     .setRid(request.getRid())
                     .setOperate(RpcOperate.Operate.Cancel)
@@ -118,10 +112,6 @@ public class WorkHandleCancel {
                     .setStatusEnum(ResponseStatus.Status.ERROR)
                     .setErrorText("运行任务中查无此任务")
                     .build());
-            HeraDebugHistoryVo debugHistory = workContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
-            debugHistory.setStatus(StatusEnum.FAILED);
-            debugHistory.setEndTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
-            workContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(debugHistory));
         } else {
             future = workContext.getWorkExecuteThreadPool().submit(() -> {
                 workContext.getWorkClient().cancelDebugJob(debugId);
@@ -135,4 +125,21 @@ public class WorkHandleCancel {
         return future;
     }
 
+    /**
+     * 按执行记录id在运行中的任务里查找actionId，不再查库
+     *
+     * @param running   运行中的任务
+     * @param historyId 执行记录id
+     * @return actionId，任务已结束时返回null
+     */
+    private String findActionId(Map<String, Job> running, String historyId) {
+        for (Map.Entry<String, Job> entry : running.entrySet()) {
+            HeraJobHistoryVo history = entry.getValue().getJobContext().getHeraJobHistory();
+            if (history != null && historyId.equals(history.getId())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
 }
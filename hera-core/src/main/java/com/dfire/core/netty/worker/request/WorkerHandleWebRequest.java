@@ -1,8 +1,6 @@
 package com.dfire.core.netty.worker.request;
 
 import com.dfire.config.HeraGlobalEnv;
-import com.dfire.core.exception.RemotingException;
-import com.dfire.core.netty.listener.WorkResponseListener;
 import com.dfire.core.netty.util.AtomicIncrease;
 import com.dfire.core.netty.worker.WorkContext;
 import com.dfire.logs.ErrorLog;
@@ -13,7 +11,6 @@ import com.dfire.protocol.RpcWebOperate.WebOperate;
 import com.dfire.protocol.RpcWebRequest.WebRequest;
 import com.dfire.protocol.RpcWebResponse.WebResponse;
 
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -75,27 +72,19 @@ public class WorkerHandleWebRequest {
     }
 
     private static Future<WebResponse> buildMessage(WebRequest request, WorkContext workContext, String errorMsg) {
-        CountDownLatch latch = new CountDownLatch(1);
-        WorkResponseListener responseListener = new WorkResponseListener(request, false, latch, null);
-        workContext.getHandler().addListener(responseListener);
-        Future<WebResponse> future = workContext.getWorkWebThreadPool().submit(() -> {
-            latch.await(HeraGlobalEnv.getRequestTimeout(), TimeUnit.SECONDS);
-            if (!responseListener.getReceiveResult()) {
-                ErrorLog.error(errorMsg);
+        Future<WebResponse> future = workContext.getHandler().registerWebRequest(request.getRid(), HeraGlobalEnv.getRequestTimeout(), TimeUnit.SECONDS,
+                () -> ErrorLog.error(errorMsg));
+        workContext.getServerChannel().send(SocketMessage.newBuilder()
+                .setKind(SocketMessage.Kind.WEB_REQUEST)
+                .setBody(request.toByteString())
+                .build()).addListener(f -> {
+            if (f.isSuccess()) {
+                SocketLog.info("1.WorkerHandleWebRequest: send web request to master requestId ={}", request.getRid());
+            } else {
+                workContext.getHandler().cancelWebRequest(request.getRid());
+                ErrorLog.error("1.WorkerHandleWebRequest: send web request to master exception requestId =" + request.getRid(), f.cause());
             }
-            workContext.getHandler().removeListener(responseListener);
-            return responseListener.getWebResponse();
         });
-        try {
-            workContext.getServerChannel().writeAndFlush(SocketMessage.newBuilder()
-                    .setKind(SocketMessage.Kind.WEB_REQUEST)
-                    .setBody(request.toByteString())
-                    .build());
-            SocketLog.info("1.WorkerHandleWebRequest: send web request to master requestId ={}", request.getRid());
-        } catch (RemotingException e) {
-            workContext.getHandler().removeListener(responseListener);
-            ErrorLog.error("1.WorkerHandleWebRequest: send web request to master exception requestId =" + request.getRid(), e);
-        }
         return future;
 
     }
@@ -1,41 +1,67 @@
 package com.dfire.core.netty.worker.request;
 
 import com.dfire.common.exception.HeraException;
+import com.dfire.config.HeraGlobalEnv;
 import com.dfire.core.exception.RemotingException;
 import com.dfire.core.netty.util.AtomicIncrease;
 import com.dfire.core.netty.worker.WorkContext;
-import com.dfire.core.tool.CpuLoadPerCoreJob;
-import com.dfire.core.tool.MemUseRateJob;
-import com.dfire.logs.ErrorLog;
+import com.dfire.core.tool.SystemSampler;
 import com.dfire.protocol.RpcHeartBeatMessage;
 import com.dfire.protocol.RpcOperate;
 import com.dfire.protocol.RpcRequest;
 import com.dfire.protocol.RpcSocketMessage;
+import io.netty.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author xiaosuda
  * @date 2018/4/12
+ * @desc 心跳只上报执行中任务相对上一次心跳的增减，新连接、发送失败后以及每隔heartBeatFullInterval次上报一次全量
  */
 public class WorkerHandlerHeartBeat {
 
+    /**
+     * 上一次发送成功的连接，连接变化后先发全量
+     */
+    private Channel lastChannel;
+
+    private long seq;
+
+    /**
+     * 距离上一次全量心跳的次数
+     */
+    private int sinceFull;
+
+    private Set<String> lastRunning = new HashSet<>();
+
+    private Set<String> lastManualRunning = new HashSet<>();
+
+    private Set<String> lastDebugRunning = new HashSet<>();
 
     public boolean send(WorkContext context) throws HeraException {
         try {
-            MemUseRateJob memUseRateJob = new MemUseRateJob(1);
-            memUseRateJob.readMemUsed();
-            CpuLoadPerCoreJob loadPerCoreJob = new CpuLoadPerCoreJob();
-            loadPerCoreJob.run();
-            RpcHeartBeatMessage.HeartBeatMessage hbm = RpcHeartBeatMessage.HeartBeatMessage.newBuilder()
+            SystemSampler.Snapshot snapshot = SystemSampler.getInstance().getSnapshot();
+            Channel channel = context.getServerChannel().getChannel();
+            boolean full = channel != lastChannel || sinceFull >= HeraGlobalEnv.getHeartBeatFullInterval();
+            Set<String> running = new HashSet<>(context.getRunning().keySet());
+            Set<String> manualRunning = new HashSet<>(context.getManualRunning().keySet());
+            Set<String> debugRunning = new HashSet<>(context.getDebugRunning().keySet());
+            RpcHeartBeatMessage.HeartBeatMessage.Builder builder = fillRunning(RpcHeartBeatMessage.HeartBeatMessage.newBuilder()
                     .setHost(WorkContext.host)
-                    .setMemTotal(memUseRateJob.getMemTotal())
-                    .setMemRate(memUseRateJob.getRate())
-                    .setCpuLoadPerCore(loadPerCoreJob.getLoadPerCore())
+                    .setMemTotal(snapshot.getMemTotal())
+                    .setMemRate(snapshot.getMemRate())
+                    .setCpuLoadPerCore(snapshot.getLoadPerCore())
                     .setTimestamp(System.currentTimeMillis())
-                    .addAllDebugRunnings(context.getDebugRunning().keySet())
-                    .addAllManualRunnings(context.getManualRunning().keySet())
-                    .addAllRunnings(context.getRunning().keySet())
-                    .setCores(WorkContext.cpuCoreNum)
-                    .build();
+                    .setCores(snapshot.getCores()), full, running, manualRunning, debugRunning);
+            if (context.getWorkerSlots() != null) {
+                builder.setSlotTotal(context.getWorkerSlots().getTotal())
+                        .setSlotUsed(context.getWorkerSlots().getUsed());
+            }
+            RpcHeartBeatMessage.HeartBeatMessage hbm = builder.build();
             context.getServerChannel().writeAndFlush(RpcSocketMessage.SocketMessage.newBuilder().
                     setKind(RpcSocketMessage.SocketMessage.Kind.REQUEST).
                     setBody(RpcRequest.Request.newBuilder().
@@ -44,10 +70,53 @@ public class WorkerHandlerHeartBeat {
                             setBody(hbm.toByteString()).
                             build().toByteString()).
                     build());
+            sent(channel, full, running, manualRunning, debugRunning);
         } catch (RemotingException e) {
+            //master可能没收到这次增量，下次发全量
+            lastChannel = null;
             throw new HeraException("发送心跳消息失败", e);
         }
         return true;
     }
 
+    /**
+     * 填充序号和执行中的任务，全量时是当前所有任务，增量时是相对上一次发送成功的增减
+     */
+    RpcHeartBeatMessage.HeartBeatMessage.Builder fillRunning(RpcHeartBeatMessage.HeartBeatMessage.Builder builder, boolean full,
+                                                             Set<String> running, Set<String> manualRunning, Set<String> debugRunning) {
+        builder.setSeq(++seq).setDelta(!full);
+        if (full) {
+            return builder.addAllRunnings(running)
+                    .addAllManualRunnings(manualRunning)
+                    .addAllDebugRunnings(debugRunning);
+        }
+        return builder.addAllRunnings(diff(running, lastRunning))
+                .addAllRemovedRunnings(diff(lastRunning, running))
+                .addAllManualRunnings(diff(manualRunning, lastManualRunning))
+                .addAllRemovedManualRunnings(diff(lastManualRunning, manualRunning))
+                .addAllDebugRunnings(diff(debugRunning, lastDebugRunning))
+                .addAllRemovedDebugRunnings(diff(lastDebugRunning, debugRunning));
+    }
+
+    /**
+     * 发送成功后记录本次上报的任务，作为下一次增量的基准
+     */
+    void sent(Channel channel, boolean full, Set<String> running, Set<String> manualRunning, Set<String> debugRunning) {
+        lastChannel = channel;
+        sinceFull = full ? 1 : sinceFull + 1;
+        lastRunning = running;
+        lastManualRunning = manualRunning;
+        lastDebugRunning = debugRunning;
+    }
+
+    private static List<String> diff(Set<String> source, Set<String> exclude) {
+        List<String> res = new ArrayList<>(0);
+        for (String id : source) {
+            if (!exclude.contains(id)) {
+                res.add(id);
+            }
+        }
+        return res;
+    }
+
 }
@@ -9,7 +9,9 @@ import org.quartz.impl.StdSchedulerFactory;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -70,6 +72,17 @@ public class QuartzSchedulerService {
         return scheduler;
     }
 
+    /**
+     * 批量注册定时调度，已存在的替换
+     *
+     * @param jobs JobDetail -> trigger
+     */
+    public void scheduleJobs(Map<JobDetail, Set<? extends Trigger>> jobs) throws SchedulerException {
+        if (!jobs.isEmpty()) {
+            scheduler.scheduleJobs(jobs, true);
+        }
+    }
+
     public void deleteJob(String actionId) {
         try {
             JobKey jobKey = new JobKey(actionId, Constants.HERA_GROUP);
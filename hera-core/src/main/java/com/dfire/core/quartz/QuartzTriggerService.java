@@ -0,0 +1,108 @@
+package com.dfire.core.quartz;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.util.ActionUtil;
+import com.dfire.core.event.Dispatcher;
+import com.dfire.logs.ErrorLog;
+import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @desc 基于quartz的定时触发，每个版本一个JobDetail和CronTrigger，触发后经dispatcher转发调度事件
+ */
+public class QuartzTriggerService implements TriggerService {
+
+    private final QuartzSchedulerService quartzSchedulerService;
+
+    private final Dispatcher dispatcher;
+
+    public QuartzTriggerService(QuartzSchedulerService quartzSchedulerService, Dispatcher dispatcher) {
+        this.quartzSchedulerService = quartzSchedulerService;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void start() {
+        quartzSchedulerService.start();
+    }
+
+    @Override
+    public void shutdown() {
+        quartzSchedulerService.shutdown();
+    }
+
+    @Override
+    public boolean schedule(String actionId, String cron) throws SchedulerException {
+        Scheduler scheduler = quartzSchedulerService.getScheduler();
+        if (scheduler.getJobDetail(new JobKey(actionId, Constants.HERA_GROUP)) != null) {
+            return false;
+        }
+        scheduler.scheduleJob(buildJobDetail(actionId), buildTrigger(actionId, cron));
+        return true;
+    }
+
+    @Override
+    public int scheduleAll(Map<String, String> triggers) {
+        Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>(triggers.size());
+        triggers.forEach((actionId, cron) -> {
+            try {
+                jobs.put(buildJobDetail(actionId), Collections.singleton(buildTrigger(actionId, cron)));
+            } catch (Exception e) {
+                ErrorLog.error("create job quartz schedule error:" + actionId, e);
+            }
+        });
+        try {
+            quartzSchedulerService.scheduleJobs(jobs);
+        } catch (SchedulerException e) {
+            ErrorLog.error("批量注册定时调度失败", e);
+            return 0;
+        }
+        return jobs.size();
+    }
+
+    @Override
+    public void cancel(String actionId) {
+        quartzSchedulerService.deleteJob(actionId);
+    }
+
+    @Override
+    public void cancelJob(Integer jobId) {
+        try {
+            for (JobKey jobKey : quartzSchedulerService.getScheduler().getJobKeys(GroupMatcher.jobGroupEquals(Constants.HERA_GROUP))) {
+                if (Objects.equals(ActionUtil.getJobId(jobKey.getName()), jobId)) {
+                    quartzSchedulerService.deleteJob(jobKey.getName());
+                }
+            }
+        } catch (SchedulerException e) {
+            ErrorLog.error("remove quartz schedule error, jobId:" + jobId, e);
+        }
+    }
+
+    @Override
+    public int size() {
+        try {
+            return quartzSchedulerService.getScheduler().getJobKeys(GroupMatcher.jobGroupEquals(Constants.HERA_GROUP)).size();
+        } catch (SchedulerException e) {
+            ErrorLog.error("get quartz job size error", e);
+            return 0;
+        }
+    }
+
+    private JobDetail buildJobDetail(String actionId) {
+        JobDetail jobDetail = JobBuilder.newJob(HeraQuartzJob.class).withIdentity(new JobKey(actionId, Constants.HERA_GROUP)).build();
+        jobDetail.getJobDataMap().put(Constants.QUARTZ_ID, actionId);
+        jobDetail.getJobDataMap().put(Constants.QUARTZ_DISPATCHER, dispatcher);
+        return jobDetail;
+    }
+
+    private CronTrigger buildTrigger(String actionId, String cron) {
+        CronScheduleBuilder scheduleBuilder = CronScheduleBuilder.cronSchedule(cron.trim());
+        return TriggerBuilder.newTrigger().withIdentity(actionId, Constants.HERA_GROUP).withSchedule(scheduleBuilder).build();
+    }
+}
@@ -0,0 +1,323 @@
+package com.dfire.core.quartz;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.util.ActionUtil;
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.HeraLog;
+import com.dfire.logs.ScheduleLog;
+import org.quartz.CronExpression;
+import org.quartz.SchedulerException;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * @desc 哈希时间轮实现的定时触发。版本按触发时间挂到轮子的槽位上，注册和按actionId取消都是O(1)，
+ * 轮子线程每个tick只遍历一个槽位，到点的版本交给触发线程池回调。
+ * 注册时已经过了触发时间但没超过misfire阈值的版本立即补触发，与quartz的misfireThreshold保持一致
+ */
+public class TimingWheelTriggerService implements TriggerService {
+
+    private static final long TICK = 100L;
+
+    private static final int WHEEL_SIZE = 1024;
+
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private static final long MISFIRE_THRESHOLD = 60 * 1000L;
+
+    /**
+     * 每个tick最多从注册队列转移到轮子上的数量，避免批量注册时长时间占用轮子线程
+     */
+    private static final int MAX_TRANSFER = 100000;
+
+    private final Consumer<String> onFire;
+
+    /**
+     * actionId -> 等待触发的版本
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * jobId -> 等待触发的actionId
+     */
+    private final Map<Integer, Set<String>> jobIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 新注册的版本先进入队列，由轮子线程挂到槽位上，槽位只在轮子线程中访问
+     */
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+
+    private final List<List<Entry>> wheel = new ArrayList<>(WHEEL_SIZE);
+
+    private final ExecutorService firePool;
+
+    private volatile boolean running;
+
+    private volatile long startTime;
+
+    private long tick;
+
+    private Thread worker;
+
+    /**
+     * @param onFire 版本到点时的回调，参数为actionId
+     */
+    public TimingWheelTriggerService(Consumer<String> onFire) {
+        this.onFire = onFire;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.firePool = Executors.newFixedThreadPool(Constants.AVAILABLE_CORES, new NamedThreadFactory("hera-trigger-fire", true));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        startTime = System.currentTimeMillis();
+        tick = 0;
+        running = true;
+        worker = new NamedThreadFactory("hera-trigger-wheel", true).newThread(this::run);
+        worker.start();
+        HeraLog.info("start timing wheel trigger, tick:{}ms, wheel size:{}", TICK, WHEEL_SIZE);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        firePool.shutdownNow();
+        HeraLog.info("shutdown timing wheel trigger, pending:{}", entries.size());
+    }
+
+    @Override
+    public boolean schedule(String actionId, String cron) throws SchedulerException {
+        Entry entry = new Entry(actionId, nextFireTime(cron, System.currentTimeMillis()));
+        if (entry.deadline < 0 || entries.putIfAbsent(actionId, entry) != null) {
+            return false;
+        }
+        index(entry);
+        add(entry);
+        return true;
+    }
+
+    @Override
+    public int scheduleAll(Map<String, String> triggers) {
+        long now = System.currentTimeMillis();
+        int scheduled = 0;
+        int misfire = 0;
+        for (Map.Entry<String, String> trigger : triggers.entrySet()) {
+            Entry entry;
+            try {
+                entry = new Entry(trigger.getKey(), nextFireTime(trigger.getValue(), now));
+            } catch (SchedulerException e) {
+                ErrorLog.error("create job trigger error:" + trigger.getKey(), e);
+                continue;
+            }
+            if (entry.deadline < 0) {
+                continue;
+            }
+            Entry old = entries.put(entry.actionId, entry);
+            if (old != null) {
+                old.cancelled = true;
+            } else {
+                index(entry);
+            }
+            if (entry.deadline <= now) {
+                misfire++;
+            }
+            add(entry);
+            scheduled++;
+        }
+        HeraLog.info("timing wheel schedule {} triggers, misfire:{}", scheduled, misfire);
+        return scheduled;
+    }
+
+    @Override
+    public void cancel(String actionId) {
+        Entry entry = entries.remove(actionId);
+        if (entry != null) {
+            entry.cancelled = true;
+            unIndex(entry);
+            ScheduleLog.info("remove action {} from timing wheel", actionId);
+        }
+    }
+
+    @Override
+    public void cancelJob(Integer jobId) {
+        Set<String> actionIds = jobIndex.remove(jobId);
+        if (actionIds == null) {
+            return;
+        }
+        for (String actionId : actionIds) {
+            Entry entry = entries.remove(actionId);
+            if (entry != null) {
+                entry.cancelled = true;
+            }
+        }
+        ScheduleLog.info("remove job {} from timing wheel, actions:{}", jobId, actionIds.size());
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 计算触发时间，从misfire阈值之前开始找，错过的触发时间在阈值内时返回过去的时间用于补触发
+     *
+     * @return 触发时间，没有下一次触发时返回-1
+     */
+    private long nextFireTime(String cron, long now) throws SchedulerException {
+        try {
+            Date next = new CronExpression(cron.trim()).getNextValidTimeAfter(new Date(now - MISFIRE_THRESHOLD));
+            return next == null ? -1 : next.getTime();
+        } catch (ParseException e) {
+            throw new SchedulerException("cron表达式错误:" + cron, e);
+        }
+    }
+
+    private void add(Entry entry) {
+        if (entry.deadline <= System.currentTimeMillis()) {
+            fire(entry);
+        } else {
+            pending.add(entry);
+        }
+    }
+
+    private void index(Entry entry) {
+        Integer jobId = ActionUtil.getJobId(entry.actionId);
+        if (jobId == null) {
+            return;
+        }
+        jobIndex.compute(jobId, (key, actionIds) -> {
+            if (actionIds == null) {
+                actionIds = ConcurrentHashMap.newKeySet();
+            }
+            actionIds.add(entry.actionId);
+            return actionIds;
+        });
+    }
+
+    private void unIndex(Entry entry) {
+        Integer jobId = ActionUtil.getJobId(entry.actionId);
+        if (jobId == null) {
+            return;
+        }
+        jobIndex.computeIfPresent(jobId, (key, actionIds) -> {
+            actionIds.remove(entry.actionId);
+            return actionIds.isEmpty() ? null : actionIds;
+        });
+    }
+
+    private void run() {
+        while (running) {
+            long sleep;
+            while ((sleep = startTime + (tick + 1) * TICK - System.currentTimeMillis()) > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+            try {
+                transfer();
+                expire(wheel.get((int) (tick & MASK)));
+            } catch (Exception e) {
+                ErrorLog.error("timing wheel tick error", e);
+            }
+            tick++;
+        }
+    }
+
+    /**
+     * 把新注册的版本挂到槽位上，触发时间已经过了的挂到当前槽位
+     */
+    private void transfer() {
+        Entry entry;
+        for (int i = 0; i < MAX_TRANSFER && (entry = pending.poll()) != null; i++) {
+            if (entry.cancelled) {
+                continue;
+            }
+            long target = Math.max((entry.deadline - startTime) / TICK, tick);
+            entry.rounds = (target - tick) / WHEEL_SIZE;
+            wheel.get((int) (target & MASK)).add(entry);
+        }
+    }
+
+    private void expire(List<Entry> bucket) {
+        int keep = 0;
+        int size = bucket.size();
+        for (int i = 0; i < size; i++) {
+            Entry entry = bucket.get(i);
+            if (entry.cancelled) {
+                continue;
+            }
+            if (entry.rounds <= 0) {
+                fire(entry);
+            } else {
+                entry.rounds--;
+                bucket.set(keep++, entry);
+            }
+        }
+        if (keep < size) {
+            bucket.subList(keep, size).clear();
+        }
+    }
+
+    private void fire(Entry entry) {
+        if (!entries.remove(entry.actionId, entry)) {
+            return;
+        }
+        unIndex(entry);
+        try {
+            firePool.execute(() -> {
+                try {
+                    onFire.accept(entry.actionId);
+                    ScheduleLog.info("execute schedule job {}, delay:{}ms", entry.actionId, System.currentTimeMillis() - entry.deadline);
+                } catch (Exception e) {
+                    ErrorLog.error("execute schedule job error:" + entry.actionId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ErrorLog.error("trigger pool rejected:" + entry.actionId, e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final String actionId;
+
+        private final long deadline;
+
+        /**
+         * 还需要转过的圈数，只在轮子线程中修改
+         */
+        private long rounds;
+
+        private volatile boolean cancelled;
+
+        Entry(String actionId, long deadline) {
+            this.actionId = actionId;
+            this.deadline = deadline;
+        }
+    }
+}
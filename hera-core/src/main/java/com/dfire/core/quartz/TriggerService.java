@@ -0,0 +1,57 @@
+package com.dfire.core.quartz;
+
+import org.quartz.SchedulerException;
+
+import java.util.Map;
+
+/**
+ * @desc 独立调度版本的定时触发。版本到点时按actionId把调度事件投递给对应的handler，
+ * 默认使用时间轮实现，hera.triggerEngine=quartz时回退到quartz
+ */
+public interface TriggerService {
+
+    String WHEEL = "wheel";
+
+    String QUARTZ = "quartz";
+
+    void start();
+
+    void shutdown();
+
+    /**
+     * 注册版本的定时触发，已经注册的版本不重复注册
+     *
+     * @param actionId 版本id
+     * @param cron     版本的cron表达式
+     * @return 是否新注册
+     * @throws SchedulerException cron表达式错误
+     */
+    boolean schedule(String actionId, String cron) throws SchedulerException;
+
+    /**
+     * 批量注册，已经注册的版本替换
+     *
+     * @param triggers actionId -> cron表达式
+     * @return 注册成功的数量
+     */
+    int scheduleAll(Map<String, String> triggers);
+
+    /**
+     * 取消版本的定时触发
+     *
+     * @param actionId 版本id
+     */
+    void cancel(String actionId);
+
+    /**
+     * 取消任务所有版本的定时触发
+     *
+     * @param jobId 任务id
+     */
+    void cancelJob(Integer jobId);
+
+    /**
+     * @return 等待触发的版本数量
+     */
+    int size();
+}
@@ -12,7 +12,8 @@ public enum ResultReason {
     MEM_LIMIT("内存超过限制"),
     LOAD_LIMIT("CPU LOAD 超过限制"),
     HOSTS_ERROR("hosts 不匹配"),
-    TASK_LIMIT("运行任务数量超过限制");
+    TASK_LIMIT("运行任务数量超过限制"),
+    WARM_UP("预热冷却中");
 
     private  String msg;
 
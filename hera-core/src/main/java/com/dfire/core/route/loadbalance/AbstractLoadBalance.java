@@ -42,25 +42,44 @@ public abstract class AbstractLoadBalance implements LoadBalance {
         }
         HeartBeatInfo heartBeatInfo = worker.getHeartBeatInfo();
 
-        if (heartBeatInfo.getMemRate() == null || heartBeatInfo.getMemRate() > HeraGlobalEnv.getMaxMemRate()) {
-            MasterLog.warn(ResultReason.MEM_LIMIT.getMsg() + ":{}, host:{}", heartBeatInfo.getMemRate(), heartBeatInfo.getHost());
+        //心跳之后分发的任务计入负载，不用等下次心跳
+        float memRate = worker.predictMemRate();
+        if (memRate > HeraGlobalEnv.getMaxMemRate()) {
+            MasterLog.warn(ResultReason.MEM_LIMIT.getMsg() + ":{}, host:{}", memRate, heartBeatInfo.getHost());
             return false;
         }
-        if (heartBeatInfo.getCpuLoadPerCore() == null || heartBeatInfo.getCpuLoadPerCore() > HeraGlobalEnv.getMaxCpuLoadPerCore()) {
-            MasterLog.warn(ResultReason.LOAD_LIMIT.getMsg() + ":{}, host:{}", heartBeatInfo.getCpuLoadPerCore(), heartBeatInfo.getHost());
+        float cpuLoad = worker.predictCpuLoad();
+        if (cpuLoad > HeraGlobalEnv.getMaxCpuLoadPerCore()) {
+            MasterLog.warn(ResultReason.LOAD_LIMIT.getMsg() + ":{}, host:{}", cpuLoad, heartBeatInfo.getHost());
+            return false;
+        }
+        if (worker.isCoolingDown(HeraGlobalEnv.getWarmUpCheck())) {
+            MasterLog.warn(ResultReason.WARM_UP.getMsg() + ", host:{}", heartBeatInfo.getHost());
             return false;
         }
 
-        // 配置计算数量
-        Float assignTaskNum = (heartBeatInfo.getMemTotal() - HeraGlobalEnv.getSystemMemUsed()) / HeraGlobalEnv.getPerTaskUseMem();
-        int sum = heartBeatInfo.getDebugRunning().size() + heartBeatInfo.getManualRunning().size() + heartBeatInfo.getRunning().size();
-        if (sum > assignTaskNum.intValue()) {
-            MasterLog.warn(ResultReason.TASK_LIMIT.getMsg() + ":{}, host:{}", sum, heartBeatInfo.getHost());
+        // 剩余槽位在收到心跳时计算
+        if (worker.getFreeSlots().get() <= 0) {
+            MasterLog.warn(ResultReason.TASK_LIMIT.getMsg() + ":{}, host:{}", worker.getFreeSlots().get(), heartBeatInfo.getHost());
             return false;
         }
         return true;
     }
 
 
+    /**
+     * 检查worker并预占一个任务槽位，避免下次心跳之前同一台机器被超额分配
+     */
+    protected boolean acquire(MasterWorkHolder worker) {
+        if (!check(worker)) {
+            return false;
+        }
+        if (!worker.tryReserveSlot()) {
+            MasterLog.warn(ResultReason.TASK_LIMIT.getMsg() + ", host:{}", worker.getHeartBeatInfo().getHost());
+            return false;
+        }
+        return true;
+    }
+
     protected abstract MasterWorkHolder doSelect(HeraHostGroupVo hostGroup, MasterContext masterContext);
 }
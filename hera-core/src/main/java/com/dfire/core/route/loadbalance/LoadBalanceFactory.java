@@ -1,6 +1,7 @@
 package com.dfire.core.route.loadbalance;
 
 import com.dfire.config.HeraGlobalEnv;
+import com.dfire.core.route.loadbalance.impl.LeastLoadBalance;
 import com.dfire.core.route.loadbalance.impl.RandomLoadBalance;
 import com.dfire.core.route.loadbalance.impl.RoundRobinLoadBalance;
 
@@ -22,6 +23,10 @@ public class LoadBalanceFactory {
             return new RandomLoadBalance();
         }
 
+        if (LeastLoadBalance.NAME.equals(HeraGlobalEnv.getLoadBalance())) {
+            return new LeastLoadBalance();
+        }
+
         return new RoundRobinLoadBalance();
     }
 
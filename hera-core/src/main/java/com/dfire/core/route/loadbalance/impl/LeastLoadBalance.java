@@ -0,0 +1,49 @@
+package com.dfire.core.route.loadbalance.impl;
+
+import com.dfire.common.entity.vo.HeraHostGroupVo;
+import com.dfire.core.netty.master.MasterContext;
+import com.dfire.core.netty.master.MasterWorkHolder;
+import com.dfire.core.route.loadbalance.AbstractLoadBalance;
+import com.dfire.logs.ScheduleLog;
+
+import java.util.List;
+
+/**
+ * 最少负载：选择剩余槽位最多的worker，槽位相同时选择cpu负载低的
+ */
+public class LeastLoadBalance extends AbstractLoadBalance {
+
+    public static final String NAME = "leastload";
+
+    @Override
+    protected MasterWorkHolder doSelect(HeraHostGroupVo hostGroup, MasterContext masterContext) {
+        List<String> hosts = hostGroup.getHosts();
+        //预占失败说明槽位刚被占用，重新选择
+        for (int i = 0; i < hosts.size(); i++) {
+            MasterWorkHolder best = null;
+            for (String host : hosts) {
+                MasterWorkHolder workHolder = masterContext.getWorkerRegistry().get(host);
+                if (workHolder != null && check(workHolder) && (best == null || lessLoaded(workHolder, best))) {
+                    best = workHolder;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            if (best.tryReserveSlot()) {
+                ScheduleLog.warn("select work is :{}", best.getHeartBeatInfo().getHost());
+                return best;
+            }
+        }
+        return null;
+    }
+
+    private boolean lessLoaded(MasterWorkHolder workHolder, MasterWorkHolder other) {
+        int free = workHolder.getFreeSlots().get();
+        int otherFree = other.getFreeSlots().get();
+        if (free != otherFree) {
+            return free > otherFree;
+        }
+        return workHolder.getHeartBeatInfo().getCpuLoadPerCore() < other.getHeartBeatInfo().getCpuLoadPerCore();
+    }
+}
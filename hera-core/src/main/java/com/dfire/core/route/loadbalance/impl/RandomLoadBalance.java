@@ -33,14 +33,10 @@ public class RandomLoadBalance extends AbstractLoadBalance {
                     break;
                 }
             }
-            for (MasterWorkHolder workHolder : masterContext.getWorkMap().values()) {
-                if (workHolder.getHeartBeatInfo() != null && workHolder.getHeartBeatInfo().getHost().equals(hosts.get(select).trim())) {
-                    if (check(workHolder)) {
-                        ScheduleLog.warn("select work is :{}", workHolder.getChannel().getRemoteAddress());
-                        return workHolder;
-                    }
-                    break;
-                }
+            MasterWorkHolder workHolder = masterContext.getWorkerRegistry().get(hosts.get(select));
+            if (workHolder != null && acquire(workHolder)) {
+                ScheduleLog.warn("select work is :{}", workHolder.getChannel().getRemoteAddress());
+                return workHolder;
             }
         }
         return null;
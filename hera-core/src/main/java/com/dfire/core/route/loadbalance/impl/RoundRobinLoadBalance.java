@@ -24,16 +24,11 @@ public class RoundRobinLoadBalance extends AbstractLoadBalance {
         int index = hostGroup.getNextPos();
         int size = hosts.size();
         for (int i = 0; i < size; i++) {
-            String host = hosts.get(index);
-            for (MasterWorkHolder workHolder : masterContext.getWorkMap().values()) {
-                if (workHolder.getHeartBeatInfo() != null && workHolder.getHeartBeatInfo().getHost().equals(host.trim())) {
-                    if (check(workHolder)) {
-                        hostGroup.setNextPos(++index >= size ? 0 : index);
-                        ScheduleLog.warn("select work is :{}", workHolder.getChannel().getRemoteAddress());
-                        return workHolder;
-                    }
-                    break;
-                }
+            MasterWorkHolder workHolder = masterContext.getWorkerRegistry().get(hosts.get(index));
+            if (workHolder != null && acquire(workHolder)) {
+                hostGroup.setNextPos(++index >= size ? 0 : index);
+                ScheduleLog.warn("select work is :{}", workHolder.getChannel().getRemoteAddress());
+                return workHolder;
             }
             if (++index >= size) {
                 index = 0;
@@ -0,0 +1,349 @@
+package com.dfire.core.tool;
+
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.config.HeraGlobalEnv;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.HeraLog;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @desc 进程内的系统指标采样。后台线程定时直接解析/proc/loadavg、/proc/meminfo、/proc/stat，
+ * 文件句柄和读取缓冲区复用，心跳从最近一次的快照取值，不再fork shell命令
+ */
+public class SystemSampler {
+
+    private static final String LOAD_AVG_PATH = "/proc/loadavg";
+
+    private static final String MEM_INFO_PATH = "/proc/meminfo";
+
+    private static final String STAT_PATH = "/proc/stat";
+
+    private static final long SAMPLE_INTERVAL = 1000L;
+
+    /**
+     * 指数平滑系数，越大越接近最新值
+     */
+    private static final float ALPHA = 0.3f;
+
+    private static final int DEFAULT_CORES = 4;
+
+    private static final byte[] MEM_TOTAL = bytes("MemTotal:");
+
+    private static final byte[] MEM_AVAILABLE = bytes("MemAvailable:");
+
+    private static final byte[] MEM_FREE = bytes("MemFree:");
+
+    private static final byte[] BUFFERS = bytes("Buffers:");
+
+    private static final byte[] CACHED = bytes("Cached:");
+
+    private static final byte[] CPU = bytes("cpu");
+
+    private static volatile SystemSampler instance;
+
+    private final byte[] buffer = new byte[64 * 1024];
+
+    private final RandomAccessFile[] files = new RandomAccessFile[3];
+
+    /**
+     * 解析位置，只在采样线程中使用
+     */
+    private int pos;
+
+    private long lastCpuTotal;
+
+    private long lastCpuIdle;
+
+    private float lastCpuUsage;
+
+    private float parsedMemTotal;
+
+    private float parsedMemAvailable;
+
+    private volatile Snapshot snapshot;
+
+    private ScheduledExecutorService sampleSchedule;
+
+    public static SystemSampler getInstance() {
+        if (instance == null) {
+            synchronized (SystemSampler.class) {
+                if (instance == null) {
+                    instance = new SystemSampler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private SystemSampler() {
+        if (!HeraGlobalEnv.isLinuxSystem()) {
+            snapshot = new Snapshot(0.1f, 10240f, 1f, 0f, DEFAULT_CORES);
+            return;
+        }
+        snapshot = new Snapshot(0f, 0f, 1f, 0f, DEFAULT_CORES);
+        sample();
+        HeraLog.info("system sampler started:{}", snapshot);
+        sampleSchedule = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("system-sampler", true));
+        sampleSchedule.scheduleWithFixedDelay(this::sample, SAMPLE_INTERVAL, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private synchronized void sample() {
+        try {
+            Snapshot last = snapshot;
+            int cores = last.cores;
+            float cpuUsage = last.cpuUsage;
+            int len = read(2, STAT_PATH);
+            if (len > 0) {
+                cores = parseStat(len, last);
+                cpuUsage = lastCpuUsage;
+            }
+            float memTotal = last.memTotal;
+            float memRate = last.memRate;
+            len = read(1, MEM_INFO_PATH);
+            if (len > 0 && parseMemInfo(len)) {
+                memTotal = parsedMemTotal;
+                float rate = (parsedMemTotal - parsedMemAvailable) / parsedMemTotal;
+                //内存上涨立即反映，回落时平滑
+                memRate = last.memTotal == 0 ? rate : Math.max(rate, smooth(last.memRate, rate));
+            }
+            float loadPerCore = last.loadPerCore;
+            len = read(0, LOAD_AVG_PATH);
+            if (len > 0) {
+                pos = 0;
+                loadPerCore = parseFloat(len) / cores;
+            }
+            snapshot = new Snapshot(memRate, memTotal, loadPerCore, cpuUsage, cores);
+        } catch (Exception e) {
+            ErrorLog.error("系统指标采样失败", e);
+        }
+    }
+
+    /**
+     * 解析/proc/stat开头的cpu行，计算两次采样之间的cpu使用率
+     *
+     * @return cpu核数
+     */
+    private int parseStat(int len, Snapshot last) {
+        pos = 0;
+        if (!startsWith(len, CPU)) {
+            return last.cores;
+        }
+        pos += CPU.length;
+        long total = 0;
+        long idle = 0;
+        //user nice system idle iowait irq softirq steal
+        for (int i = 0; i < 8 && skipSpace(len); i++) {
+            long value = parseLong(len);
+            total += value;
+            if (i == 3 || i == 4) {
+                idle += value;
+            }
+        }
+        long totalDelta = total - lastCpuTotal;
+        if (lastCpuTotal > 0 && totalDelta > 0) {
+            float usage = 1f - (float) (idle - lastCpuIdle) / totalDelta;
+            lastCpuUsage = smooth(last.cpuUsage, usage);
+        }
+        lastCpuTotal = total;
+        lastCpuIdle = idle;
+
+        int cores = 0;
+        while (nextLine(len) && startsWith(len, CPU)) {
+            int next = pos + CPU.length;
+            if (next < len && buffer[next] >= '0' && buffer[next] <= '9') {
+                cores++;
+            }
+        }
+        return cores == 0 ? last.cores : cores;
+    }
+
+    /**
+     * 解析/proc/meminfo，单位转换为M。内核3.4以下没有MemAvailable时使用MemFree + Buffers + Cached
+     *
+     * @return 是否解析成功
+     */
+    private boolean parseMemInfo(int len) {
+        long memTotal = -1, memAvailable = -1, memFree = -1, buffers = -1, cached = -1;
+        pos = 0;
+        do {
+            if (startsWith(len, MEM_TOTAL)) {
+                memTotal = parseValue(len, MEM_TOTAL);
+            } else if (startsWith(len, MEM_AVAILABLE)) {
+                memAvailable = parseValue(len, MEM_AVAILABLE);
+            } else if (startsWith(len, MEM_FREE)) {
+                memFree = parseValue(len, MEM_FREE);
+            } else if (startsWith(len, BUFFERS)) {
+                buffers = parseValue(len, BUFFERS);
+            } else if (startsWith(len, CACHED)) {
+                cached = parseValue(len, CACHED);
+            }
+        } while (nextLine(len));
+        if (memTotal <= 0) {
+            return false;
+        }
+        if (memAvailable < 0) {
+            memAvailable = Math.max(memFree, 0) + Math.max(buffers, 0) + Math.max(cached, 0);
+        }
+        parsedMemTotal = memTotal / 1024f;
+        parsedMemAvailable = memAvailable / 1024f;
+        return true;
+    }
+
+    private long parseValue(int len, byte[] key) {
+        pos += key.length;
+        skipSpace(len);
+        return parseLong(len);
+    }
+
+    /**
+     * 从头读取文件到复用的缓冲区，/proc下的文件seek到开头即可读到最新内容
+     */
+    private int read(int index, String path) {
+        try {
+            if (files[index] == null) {
+                files[index] = new RandomAccessFile(path, "r");
+            }
+            RandomAccessFile file = files[index];
+            file.seek(0);
+            int total = 0;
+            int n;
+            while (total < buffer.length && (n = file.read(buffer, total, buffer.length - total)) > 0) {
+                total += n;
+            }
+            return total;
+        } catch (IOException e) {
+            ErrorLog.error("读取" + path + "失败", e);
+            close(index);
+            return -1;
+        }
+    }
+
+    private void close(int index) {
+        if (files[index] != null) {
+            try {
+                files[index].close();
+            } catch (IOException e) {
+                ErrorLog.error("关闭文件失败", e);
+            }
+            files[index] = null;
+        }
+    }
+
+    private boolean startsWith(int len, byte[] prefix) {
+        if (pos + prefix.length > len) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[pos + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nextLine(int len) {
+        while (pos < len && buffer[pos] != '\n') {
+            pos++;
+        }
+        return ++pos < len;
+    }
+
+    private boolean skipSpace(int len) {
+        while (pos < len && (buffer[pos] == ' ' || buffer[pos] == '\t')) {
+            pos++;
+        }
+        return pos < len;
+    }
+
+    private long parseLong(int len) {
+        long value = 0;
+        while (pos < len && buffer[pos] >= '0' && buffer[pos] <= '9') {
+            value = value * 10 + (buffer[pos++] - '0');
+        }
+        return value;
+    }
+
+    private float parseFloat(int len) {
+        float value = parseLong(len);
+        if (pos < len && buffer[pos] == '.') {
+            pos++;
+            float scale = 0.1f;
+            while (pos < len && buffer[pos] >= '0' && buffer[pos] <= '9') {
+                value += (buffer[pos++] - '0') * scale;
+                scale /= 10;
+            }
+        }
+        return value;
+    }
+
+    private static float smooth(float last, float current) {
+        return last + ALPHA * (current - last);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 一次采样的结果，内存单位M
+     */
+    public static final class Snapshot {
+
+        private final float memRate;
+
+        private final float memTotal;
+
+        private final float loadPerCore;
+
+        private final float cpuUsage;
+
+        private final int cores;
+
+        Snapshot(float memRate, float memTotal, float loadPerCore, float cpuUsage, int cores) {
+            this.memRate = memRate;
+            this.memTotal = memTotal;
+            this.loadPerCore = loadPerCore;
+            this.cpuUsage = cpuUsage;
+            this.cores = cores;
+        }
+
+        public float getMemRate() {
+            return memRate;
+        }
+
+        public float getMemTotal() {
+            return memTotal;
+        }
+
+        /**
+         * 最近1分钟系统的平均cpu负载÷cpu核心数量
+         */
+        public float getLoadPerCore() {
+            return loadPerCore;
+        }
+
+        public float getCpuUsage() {
+            return cpuUsage;
+        }
+
+        public int getCores() {
+            return cores;
+        }
+
+        @Override
+        public String toString() {
+            return "[memRate:" + memRate + ",memTotal:" + memTotal + ",loadPerCore:" + loadPerCore
+                    + ",cpuUsage:" + cpuUsage + ",cores:" + cores + "]";
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.dfire.core.util;
+
+import org.quartz.CronExpression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @desc 按任务缓存cron解析结果：cron不变时复用解析好的表达式，cron和日期都不变时直接复用当天的触发时间
+ */
+public class CronPlanCache {
+
+    private final Map<Integer, Plan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * @param jobId    任务id
+     * @param cron     cron表达式
+     * @param cronDate 日期 yyyy-MM-dd
+     * @return 当天的触发时间(yyyy-MM-dd HH:mm:ss)，不可修改；cron不合法时为null
+     */
+    public List<String> get(Integer jobId, String cron, String cronDate) {
+        Plan plan = plans.get(jobId);
+        CronExpression expression;
+        if (plan != null && plan.cron.equals(cron)) {
+            if (plan.expression == null || Objects.equals(plan.cronDate, cronDate)) {
+                return plan.times;
+            }
+            expression = plan.expression;
+        } else {
+            expression = CronParse.compile(cron);
+        }
+        List<String> times = null;
+        if (expression != null) {
+            List<String> result = new ArrayList<>();
+            if (CronParse.parse(expression, cronDate, result)) {
+                times = Collections.unmodifiableList(result);
+            }
+        }
+        plans.put(jobId, new Plan(cron, expression, cronDate, times));
+        return times;
+    }
+
+    /**
+     * 只保留这些任务的缓存
+     */
+    public void retain(Collection<Integer> jobIds) {
+        Set<Integer> ids = new HashSet<>(jobIds);
+        plans.keySet().removeIf(id -> !ids.contains(id));
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    private static class Plan {
+
+        private final String cron;
+
+        private final CronExpression expression;
+
+        private final String cronDate;
+
+        private final List<String> times;
+
+        Plan(String cron, CronExpression expression, String cronDate, List<String> times) {
+            this.cron = cron;
+            this.expression = expression;
+            this.cronDate = cronDate;
+            this.times = times;
+        }
+    }
+}
@@ -4,7 +4,6 @@ import com.dfire.common.constants.RunningJobKeyConstant;
 import com.dfire.common.entity.HeraDebugHistory;
 import com.dfire.common.entity.model.HeraJobBean;
 import com.dfire.common.entity.vo.HeraJobHistoryVo;
-import com.dfire.common.entity.vo.HeraProfileVo;
 import com.dfire.common.enums.JobRunTypeEnum;
 import com.dfire.common.exception.HeraException;
 import com.dfire.common.util.BeanConvertUtils;
@@ -20,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,8 +36,11 @@ public class JobUtils {
     private static final Pattern valPatt = Pattern.compile("\\$\\{([^}{$])*\\}");
 
 
+    /**
+     * @param hadoopConf 脚本所属用户的hadoop配置，由master查好随任务下发
+     */
     public static Job createDebugJob(JobContext jobContext, HeraDebugHistory heraDebugHistory,
-                                     String workDir, WorkContext workContext) throws HeraException {
+                                     String workDir, Map<String, String> hadoopConf) throws HeraException {
         jobContext.setDebugHistory(BeanConvertUtils.convert(heraDebugHistory));
         jobContext.setWorkDir(workDir);
 
@@ -50,12 +53,8 @@ public class JobUtils {
         jobContext.setResources(resources);
         hierarchyProperties.setProperty(RunningJobKeyConstant.JOB_SCRIPT, script);
 
-        String owner = workContext.getHeraFileService().findById(heraDebugHistory.getFileId()).getOwner();
-        HeraProfileVo heraProfile = workContext.getHeraProfileService().findByOwner(owner);
-        if (heraProfile != null && heraProfile.getHadoopConf() != null) {
-            for (String key : heraProfile.getHadoopConf().keySet()) {
-                hierarchyProperties.setProperty(key, heraProfile.getHadoopConf().get(key));
-            }
+        for (String key : hadoopConf.keySet()) {
+            hierarchyProperties.setProperty(key, hadoopConf.get(key));
         }
 
         jobContext.setProperties(new RenderHierarchyProperties(hierarchyProperties));
@@ -124,24 +123,25 @@ public class JobUtils {
         return pres;
     }
 
+    /**
+     * 变量取值顺序：任务配置、数据库缓存变量、带区域前缀的任务配置，不再把所有配置复制到一个新的map
+     */
     private static String replace(Map<String, String> allProperties, String script) {
         if (script == null) {
             return null;
         }
-        Map<String, String> varMap = new HashMap<>(allProperties.size());
-        if (WorkContext.cacheDBMap != null && WorkContext.cacheDBMap.size() != 0) {
-            varMap.putAll(WorkContext.cacheDBMap);
-        }
-        String key;
+        Map<String, String> cacheDBMap = WorkContext.cacheDBMap;
         String areaSuffix = HeraGlobalEnv.getArea() + ".";
-        for (Map.Entry<String, String> entry : allProperties.entrySet()) {
-            key = entry.getKey();
-            varMap.put(key, entry.getValue());
-            if (key.startsWith(areaSuffix)) {
-                varMap.putIfAbsent(key.replaceFirst(areaSuffix, ""), entry.getValue());
+        return replaceVal(script, name -> {
+            if (allProperties.containsKey(name)) {
+                return String.valueOf(allProperties.get(name));
             }
-        }
-        return replaceVal(script, varMap);
+            if (cacheDBMap != null && cacheDBMap.containsKey(name)) {
+                return String.valueOf(cacheDBMap.get(name));
+            }
+            String areaKey = areaSuffix + name;
+            return allProperties.containsKey(areaKey) ? String.valueOf(allProperties.get(areaKey)) : null;
+        });
     }
 
     /**
@@ -185,7 +185,10 @@ public class JobUtils {
         return script;
     }
 
-    private static String replaceVal(String script, Map<String, String> confs) {
+    /**
+     * @param confs 变量名 -> 变量值，变量不存在时返回null，保留原样
+     */
+    private static String replaceVal(String script, Function<String, String> confs) {
         Matcher matcher = valPatt.matcher(script);
         StringBuilder newScript = new StringBuilder();
         int start = 0, end;
@@ -194,7 +197,8 @@ public class JobUtils {
             String group = matcher.group();
             end = matcher.start();
             newScript.append(script, start, end);
-            newScript.append(confs.getOrDefault(group.substring(2, group.length() - 1), group));
+            String value = confs.apply(group.substring(2, group.length() - 1));
+            newScript.append(value == null ? group : value);
             start = matcher.end();
         }
         newScript.append(script, start, script.length());
@@ -39,6 +39,14 @@ public final class ResponseStatus {
      * <code>ERROR = 1;</code>
      */
     ERROR(1),
+    /**
+     * <pre>
+     *worker执行槽位已满，拒绝执行，master换一台worker重新分发
+     * </pre>
+     *
+     * <code>REJECTED = 2;</code>
+     */
+    REJECTED(2),
     UNRECOGNIZED(-1),
     ;
 
@@ -58,6 +66,14 @@ public final class ResponseStatus {
      * <code>ERROR = 1;</code>
      */
     public static final int ERROR_VALUE = 1;
+    /**
+     * <pre>
+     *worker执行槽位已满，拒绝执行，master换一台worker重新分发
+     * </pre>
+     *
+     * <code>REJECTED = 2;</code>
+     */
+    public static final int REJECTED_VALUE = 2;
 
 
     public final int getNumber() {
@@ -80,6 +96,7 @@ public final class ResponseStatus {
       switch (value) {
         case 0: return OK;
         case 1: return ERROR;
+        case 2: return REJECTED;
         default: return null;
       }
     }
@@ -141,9 +158,9 @@ public final class ResponseStatus {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\014status.proto*\033\n\006Status\022\006\n\002OK\020\000\022\t\n\005ERRO" +
-      "R\020\001B&\n\022com.dfire.protocolB\016ResponseStatu" +
-      "sH\001b\006proto3"
+      "\n\014status.proto*)\n\006Status\022\006\n\002OK\020\000\022\t\n\005ERRO" +
+      "R\020\001\022\014\n\010REJECTED\020\002B&\n\022com.dfire.protocolB" +
+      "\016ResponseStatusH\001b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
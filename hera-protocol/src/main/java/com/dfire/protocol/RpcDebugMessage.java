@@ -32,6 +32,26 @@ public final class RpcDebugMessage {
      * <code>sint32 exitCode = 2;</code>
      */
     int getExitCode();
+
+    /**
+     * <code>string history = 3;</code>
+     */
+    java.lang.String getHistory();
+    /**
+     * <code>string history = 3;</code>
+     */
+    com.google.protobuf.ByteString
+        getHistoryBytes();
+
+    /**
+     * <code>string configs = 4;</code>
+     */
+    java.lang.String getConfigs();
+    /**
+     * <code>string configs = 4;</code>
+     */
+    com.google.protobuf.ByteString
+        getConfigsBytes();
   }
   /**
    * Protobuf type {@code DebugMessage}
@@ -48,6 +68,8 @@ public final class RpcDebugMessage {
     private DebugMessage() {
       debugId_ = "";
       exitCode_ = 0;
+      history_ = "";
+      configs_ = "";
     }
 
     @java.lang.Override
@@ -85,6 +107,18 @@ public final class RpcDebugMessage {
               exitCode_ = input.readSInt32();
               break;
             }
+            case 26: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              history_ = s;
+              break;
+            }
+            case 34: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              configs_ = s;
+              break;
+            }
             default: {
               if (!parseUnknownFieldProto3(
                   input, unknownFields, extensionRegistry, tag)) {
@@ -160,6 +194,74 @@ public final class RpcDebugMessage {
       return exitCode_;
     }
 
+    public static final int HISTORY_FIELD_NUMBER = 3;
+    private volatile java.lang.Object history_;
+    /**
+     * <code>string history = 3;</code>
+     */
+    public java.lang.String getHistory() {
+      java.lang.Object ref = history_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        history_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string history = 3;</code>
+     */
+    public com.google.protobuf.ByteString
+        getHistoryBytes() {
+      java.lang.Object ref = history_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        history_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int CONFIGS_FIELD_NUMBER = 4;
+    private volatile java.lang.Object configs_;
+    /**
+     * <code>string configs = 4;</code>
+     */
+    public java.lang.String getConfigs() {
+      java.lang.Object ref = configs_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        configs_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string configs = 4;</code>
+     */
+    public com.google.protobuf.ByteString
+        getConfigsBytes() {
+      java.lang.Object ref = configs_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        configs_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
     private byte memoizedIsInitialized = -1;
     @java.lang.Override
     public final boolean isInitialized() {
@@ -180,6 +282,12 @@ public final class RpcDebugMessage {
       if (exitCode_ != 0) {
         output.writeSInt32(2, exitCode_);
       }
+      if (!getHistoryBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 3, history_);
+      }
+      if (!getConfigsBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 4, configs_);
+      }
       unknownFields.writeTo(output);
     }
 
@@ -196,6 +304,12 @@ public final class RpcDebugMessage {
         size += com.google.protobuf.CodedOutputStream
           .computeSInt32Size(2, exitCode_);
       }
+      if (!getHistoryBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(3, history_);
+      }
+      if (!getConfigsBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(4, configs_);
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
@@ -216,6 +330,10 @@ public final class RpcDebugMessage {
           .equals(other.getDebugId());
       result = result && (getExitCode()
           == other.getExitCode());
+      result = result && getHistory()
+          .equals(other.getHistory());
+      result = result && getConfigs()
+          .equals(other.getConfigs());
       result = result && unknownFields.equals(other.unknownFields);
       return result;
     }
@@ -231,6 +349,10 @@ public final class RpcDebugMessage {
       hash = (53 * hash) + getDebugId().hashCode();
       hash = (37 * hash) + EXITCODE_FIELD_NUMBER;
       hash = (53 * hash) + getExitCode();
+      hash = (37 * hash) + HISTORY_FIELD_NUMBER;
+      hash = (53 * hash) + getHistory().hashCode();
+      hash = (37 * hash) + CONFIGS_FIELD_NUMBER;
+      hash = (53 * hash) + getConfigs().hashCode();
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -368,6 +490,10 @@ public final class RpcDebugMessage {
 
         exitCode_ = 0;
 
+        history_ = "";
+
+        configs_ = "";
+
         return this;
       }
 
@@ -396,6 +522,8 @@ public final class RpcDebugMessage {
         com.dfire.protocol.RpcDebugMessage.DebugMessage result = new com.dfire.protocol.RpcDebugMessage.DebugMessage(this);
         result.debugId_ = debugId_;
         result.exitCode_ = exitCode_;
+        result.history_ = history_;
+        result.configs_ = configs_;
         onBuilt();
         return result;
       }
@@ -451,6 +579,14 @@ public final class RpcDebugMessage {
         if (other.getExitCode() != 0) {
           setExitCode(other.getExitCode());
         }
+        if (!other.getHistory().isEmpty()) {
+          history_ = other.history_;
+          onChanged();
+        }
+        if (!other.getConfigs().isEmpty()) {
+          configs_ = other.configs_;
+          onChanged();
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
@@ -574,6 +710,144 @@ public final class RpcDebugMessage {
         onChanged();
         return this;
       }
+
+      private java.lang.Object history_ = "";
+      /**
+       * <code>string history = 3;</code>
+       */
+      public java.lang.String getHistory() {
+        java.lang.Object ref = history_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          history_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string history = 3;</code>
+       */
+      public com.google.protobuf.ByteString
+          getHistoryBytes() {
+        java.lang.Object ref = history_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          history_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string history = 3;</code>
+       */
+      public Builder setHistory(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        history_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string history = 3;</code>
+       */
+      public Builder clearHistory() {
+        
+        history_ = getDefaultInstance().getHistory();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string history = 3;</code>
+       */
+      public Builder setHistoryBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        history_ = value;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object configs_ = "";
+      /**
+       * <code>string configs = 4;</code>
+       */
+      public java.lang.String getConfigs() {
+        java.lang.Object ref = configs_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          configs_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string configs = 4;</code>
+       */
+      public com.google.protobuf.ByteString
+          getConfigsBytes() {
+        java.lang.Object ref = configs_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          configs_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string configs = 4;</code>
+       */
+      public Builder setConfigs(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        configs_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string configs = 4;</code>
+       */
+      public Builder clearConfigs() {
+        
+        configs_ = getDefaultInstance().getConfigs();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string configs = 4;</code>
+       */
+      public Builder setConfigsBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        configs_ = value;
+        onChanged();
+        return this;
+      }
       @java.lang.Override
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
@@ -641,10 +915,10 @@ public final class RpcDebugMessage {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\023debug_message.proto\"1\n\014DebugMessage\022\017\n" +
-      "\007debugId\030\001 \001(\t\022\020\n\010exitCode\030\002 \001(\021B\'\n\022com." +
-      "dfire.protocolB\017RpcDebugMessageH\001b\006proto" +
-      "3"
+      "\n\023debug_message.proto\"S\n\014DebugMessage\022\017\n" +
+      "\007debugId\030\001 \001(\t\022\020\n\010exitCode\030\002 \001(\021\022\017\n\007hist" +
+      "ory\030\003 \001(\t\022\017\n\007configs\030\004 \001(\tB\'\n\022com.dfire." +
+      "protocolB\017RpcDebugMessageH\001b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -663,7 +937,7 @@ public final class RpcDebugMessage {
     internal_static_DebugMessage_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_DebugMessage_descriptor,
-        new java.lang.String[] { "DebugId", "ExitCode", });
+        new java.lang.String[] { "DebugId", "ExitCode", "History", "Configs", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
@@ -32,6 +32,46 @@ public final class RpcExecuteMessage {
      * <code>sint32 exitCode = 2;</code>
      */
     int getExitCode();
+
+    /**
+     * <code>string historyId = 3;</code>
+     */
+    java.lang.String getHistoryId();
+    /**
+     * <code>string historyId = 3;</code>
+     */
+    com.google.protobuf.ByteString
+        getHistoryIdBytes();
+
+    /**
+     * <code>string job = 4;</code>
+     */
+    java.lang.String getJob();
+    /**
+     * <code>string job = 4;</code>
+     */
+    com.google.protobuf.ByteString
+        getJobBytes();
+
+    /**
+     * <code>string history = 5;</code>
+     */
+    java.lang.String getHistory();
+    /**
+     * <code>string history = 5;</code>
+     */
+    com.google.protobuf.ByteString
+        getHistoryBytes();
+
+    /**
+     * <code>string log = 6;</code>
+     */
+    java.lang.String getLog();
+    /**
+     * <code>string log = 6;</code>
+     */
+    com.google.protobuf.ByteString
+        getLogBytes();
   }
   /**
    * Protobuf type {@code ExecuteMessage}
@@ -48,6 +88,10 @@ public final class RpcExecuteMessage {
     private ExecuteMessage() {
       actionId_ = "";
       exitCode_ = 0;
+      historyId_ = "";
+      job_ = "";
+      history_ = "";
+      log_ = "";
     }
 
     @java.lang.Override
@@ -85,6 +129,30 @@ public final class RpcExecuteMessage {
               exitCode_ = input.readSInt32();
               break;
             }
+            case 26: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              historyId_ = s;
+              break;
+            }
+            case 34: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              job_ = s;
+              break;
+            }
+            case 42: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              history_ = s;
+              break;
+            }
+            case 50: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              log_ = s;
+              break;
+            }
             default: {
               if (!parseUnknownFieldProto3(
                   input, unknownFields, extensionRegistry, tag)) {
@@ -160,6 +228,142 @@ public final class RpcExecuteMessage {
       return exitCode_;
     }
 
+    public static final int HISTORYID_FIELD_NUMBER = 3;
+    private volatile java.lang.Object historyId_;
+    /**
+     * <code>string historyId = 3;</code>
+     */
+    public java.lang.String getHistoryId() {
+      java.lang.Object ref = historyId_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        historyId_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string historyId = 3;</code>
+     */
+    public com.google.protobuf.ByteString
+        getHistoryIdBytes() {
+      java.lang.Object ref = historyId_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        historyId_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int JOB_FIELD_NUMBER = 4;
+    private volatile java.lang.Object job_;
+    /**
+     * <code>string job = 4;</code>
+     */
+    public java.lang.String getJob() {
+      java.lang.Object ref = job_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        job_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string job = 4;</code>
+     */
+    public com.google.protobuf.ByteString
+        getJobBytes() {
+      java.lang.Object ref = job_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        job_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int HISTORY_FIELD_NUMBER = 5;
+    private volatile java.lang.Object history_;
+    /**
+     * <code>string history = 5;</code>
+     */
+    public java.lang.String getHistory() {
+      java.lang.Object ref = history_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        history_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string history = 5;</code>
+     */
+    public com.google.protobuf.ByteString
+        getHistoryBytes() {
+      java.lang.Object ref = history_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        history_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int LOG_FIELD_NUMBER = 6;
+    private volatile java.lang.Object log_;
+    /**
+     * <code>string log = 6;</code>
+     */
+    public java.lang.String getLog() {
+      java.lang.Object ref = log_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        log_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string log = 6;</code>
+     */
+    public com.google.protobuf.ByteString
+        getLogBytes() {
+      java.lang.Object ref = log_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        log_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
     private byte memoizedIsInitialized = -1;
     @java.lang.Override
     public final boolean isInitialized() {
@@ -180,6 +384,18 @@ public final class RpcExecuteMessage {
       if (exitCode_ != 0) {
         output.writeSInt32(2, exitCode_);
       }
+      if (!getHistoryIdBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 3, historyId_);
+      }
+      if (!getJobBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 4, job_);
+      }
+      if (!getHistoryBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 5, history_);
+      }
+      if (!getLogBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 6, log_);
+      }
       unknownFields.writeTo(output);
     }
 
@@ -196,6 +412,18 @@ public final class RpcExecuteMessage {
         size += com.google.protobuf.CodedOutputStream
           .computeSInt32Size(2, exitCode_);
       }
+      if (!getHistoryIdBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(3, historyId_);
+      }
+      if (!getJobBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(4, job_);
+      }
+      if (!getHistoryBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(5, history_);
+      }
+      if (!getLogBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(6, log_);
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
@@ -216,6 +444,14 @@ public final class RpcExecuteMessage {
           .equals(other.getActionId());
       result = result && (getExitCode()
           == other.getExitCode());
+      result = result && getHistoryId()
+          .equals(other.getHistoryId());
+      result = result && getJob()
+          .equals(other.getJob());
+      result = result && getHistory()
+          .equals(other.getHistory());
+      result = result && getLog()
+          .equals(other.getLog());
       result = result && unknownFields.equals(other.unknownFields);
       return result;
     }
@@ -231,6 +467,14 @@ public final class RpcExecuteMessage {
       hash = (53 * hash) + getActionId().hashCode();
       hash = (37 * hash) + EXITCODE_FIELD_NUMBER;
       hash = (53 * hash) + getExitCode();
+      hash = (37 * hash) + HISTORYID_FIELD_NUMBER;
+      hash = (53 * hash) + getHistoryId().hashCode();
+      hash = (37 * hash) + JOB_FIELD_NUMBER;
+      hash = (53 * hash) + getJob().hashCode();
+      hash = (37 * hash) + HISTORY_FIELD_NUMBER;
+      hash = (53 * hash) + getHistory().hashCode();
+      hash = (37 * hash) + LOG_FIELD_NUMBER;
+      hash = (53 * hash) + getLog().hashCode();
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -368,6 +612,14 @@ public final class RpcExecuteMessage {
 
         exitCode_ = 0;
 
+        historyId_ = "";
+
+        job_ = "";
+
+        history_ = "";
+
+        log_ = "";
+
         return this;
       }
 
@@ -396,6 +648,10 @@ public final class RpcExecuteMessage {
         com.dfire.protocol.RpcExecuteMessage.ExecuteMessage result = new com.dfire.protocol.RpcExecuteMessage.ExecuteMessage(this);
         result.actionId_ = actionId_;
         result.exitCode_ = exitCode_;
+        result.historyId_ = historyId_;
+        result.job_ = job_;
+        result.history_ = history_;
+        result.log_ = log_;
         onBuilt();
         return result;
       }
@@ -451,6 +707,22 @@ public final class RpcExecuteMessage {
         if (other.getExitCode() != 0) {
           setExitCode(other.getExitCode());
         }
+        if (!other.getHistoryId().isEmpty()) {
+          historyId_ = other.historyId_;
+          onChanged();
+        }
+        if (!other.getJob().isEmpty()) {
+          job_ = other.job_;
+          onChanged();
+        }
+        if (!other.getHistory().isEmpty()) {
+          history_ = other.history_;
+          onChanged();
+        }
+        if (!other.getLog().isEmpty()) {
+          log_ = other.log_;
+          onChanged();
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
@@ -574,6 +846,282 @@ public final class RpcExecuteMessage {
         onChanged();
         return this;
       }
+
+      private java.lang.Object historyId_ = "";
+      /**
+       * <code>string historyId = 3;</code>
+       */
+      public java.lang.String getHistoryId() {
+        java.lang.Object ref = historyId_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          historyId_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string historyId = 3;</code>
+       */
+      public com.google.protobuf.ByteString
+          getHistoryIdBytes() {
+        java.lang.Object ref = historyId_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          historyId_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string historyId = 3;</code>
+       */
+      public Builder setHistoryId(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        historyId_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string historyId = 3;</code>
+       */
+      public Builder clearHistoryId() {
+        
+        historyId_ = getDefaultInstance().getHistoryId();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string historyId = 3;</code>
+       */
+      public Builder setHistoryIdBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        historyId_ = value;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object job_ = "";
+      /**
+       * <code>string job = 4;</code>
+       */
+      public java.lang.String getJob() {
+        java.lang.Object ref = job_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          job_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string job = 4;</code>
+       */
+      public com.google.protobuf.ByteString
+          getJobBytes() {
+        java.lang.Object ref = job_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          job_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string job = 4;</code>
+       */
+      public Builder setJob(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        job_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string job = 4;</code>
+       */
+      public Builder clearJob() {
+        
+        job_ = getDefaultInstance().getJob();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string job = 4;</code>
+       */
+      public Builder setJobBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        job_ = value;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object history_ = "";
+      /**
+       * <code>string history = 5;</code>
+       */
+      public java.lang.String getHistory() {
+        java.lang.Object ref = history_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          history_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string history = 5;</code>
+       */
+      public com.google.protobuf.ByteString
+          getHistoryBytes() {
+        java.lang.Object ref = history_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          history_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string history = 5;</code>
+       */
+      public Builder setHistory(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        history_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string history = 5;</code>
+       */
+      public Builder clearHistory() {
+        
+        history_ = getDefaultInstance().getHistory();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string history = 5;</code>
+       */
+      public Builder setHistoryBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        history_ = value;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object log_ = "";
+      /**
+       * <code>string log = 6;</code>
+       */
+      public java.lang.String getLog() {
+        java.lang.Object ref = log_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          log_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string log = 6;</code>
+       */
+      public com.google.protobuf.ByteString
+          getLogBytes() {
+        java.lang.Object ref = log_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          log_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string log = 6;</code>
+       */
+      public Builder setLog(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        log_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string log = 6;</code>
+       */
+      public Builder clearLog() {
+        
+        log_ = getDefaultInstance().getLog();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string log = 6;</code>
+       */
+      public Builder setLogBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        log_ = value;
+        onChanged();
+        return this;
+      }
       @java.lang.Override
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
@@ -641,10 +1189,11 @@ public final class RpcExecuteMessage {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\025execute_message.proto\"4\n\016ExecuteMessag" +
-      "e\022\020\n\010actionId\030\001 \001(\t\022\020\n\010exitCode\030\002 \001(\021B)\n" +
-      "\022com.dfire.protocolB\021RpcExecuteMessageH\001" +
-      "b\006proto3"
+      "\n\025execute_message.proto\"r\n\016ExecuteMessag" +
+      "e\022\020\n\010actionId\030\001 \001(\t\022\020\n\010exitCode\030\002 \001(\021\022\021\n" +
+      "\thistoryId\030\003 \001(\t\022\013\n\003job\030\004 \001(\t\022\017\n\007history" +
+      "\030\005 \001(\t\022\013\n\003log\030\006 \001(\tB)\n\022com.dfire.protoco" +
+      "lB\021RpcExecuteMessageH\001b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -663,7 +1212,7 @@ public final class RpcExecuteMessage {
     internal_static_ExecuteMessage_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_ExecuteMessage_descriptor,
-        new java.lang.String[] { "ActionId", "ExitCode", });
+        new java.lang.String[] { "ActionId", "ExitCode", "HistoryId", "Job", "History", "Log", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
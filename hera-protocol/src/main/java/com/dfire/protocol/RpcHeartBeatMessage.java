@@ -877,6 +877,147 @@ public final class RpcHeartBeatMessage {
      * <code>int32 cores = 8;</code>
      */
     int getCores();
+
+    /**
+     * <pre>
+     *心跳序号，同一连接内递增，master据此发现丢失的增量心跳
+     * </pre>
+     *
+     * <code>int64 seq = 9;</code>
+     */
+    long getSeq();
+
+    /**
+     * <pre>
+     *为true时runnings/debugRunnings/manualRunnings只是新增的job，removed*为结束的job；为false时是全量
+     * </pre>
+     *
+     * <code>bool delta = 10;</code>
+     */
+    boolean getDelta();
+
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    java.util.List<String>
+        getRemovedRunningsList();
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    int getRemovedRunningsCount();
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    String getRemovedRunnings(int index);
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    com.google.protobuf.ByteString
+        getRemovedRunningsBytes(int index);
+
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    java.util.List<String>
+        getRemovedDebugRunningsList();
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    int getRemovedDebugRunningsCount();
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    String getRemovedDebugRunnings(int index);
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    com.google.protobuf.ByteString
+        getRemovedDebugRunningsBytes(int index);
+
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    java.util.List<String>
+        getRemovedManualRunningsList();
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    int getRemovedManualRunningsCount();
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    String getRemovedManualRunnings(int index);
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    com.google.protobuf.ByteString
+        getRemovedManualRunningsBytes(int index);
+
+    /**
+     * <pre>
+     *worker执行槽位总数，0表示旧版本worker未上报
+     * </pre>
+     *
+     * <code>int32 slotTotal = 14;</code>
+     */
+    int getSlotTotal();
+
+    /**
+     * <pre>
+     *worker已占用的执行槽位数，不同类型的任务占用的槽位数不同
+     * </pre>
+     *
+     * <code>int32 slotUsed = 15;</code>
+     */
+    int getSlotUsed();
   }
   /**
    * Protobuf type {@code HeartBeatMessage}
@@ -900,6 +1041,13 @@ public final class RpcHeartBeatMessage {
       cpuLoadPerCore_ = 0F;
       memTotal_ = 0F;
       cores_ = 0;
+      seq_ = 0L;
+      delta_ = false;
+      removedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      removedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      removedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      slotTotal_ = 0;
+      slotUsed_ = 0;
     }
 
     @Override
@@ -986,6 +1134,53 @@ public final class RpcHeartBeatMessage {
               cores_ = input.readInt32();
               break;
             }
+            case 72: {
+
+              seq_ = input.readInt64();
+              break;
+            }
+            case 80: {
+
+              delta_ = input.readBool();
+              break;
+            }
+            case 90: {
+              String s = input.readStringRequireUtf8();
+              if (!((mutable_bitField0_ & 0x00000800) == 0x00000800)) {
+                removedRunnings_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00000800;
+              }
+              removedRunnings_.add(s);
+              break;
+            }
+            case 98: {
+              String s = input.readStringRequireUtf8();
+              if (!((mutable_bitField0_ & 0x00001000) == 0x00001000)) {
+                removedDebugRunnings_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00001000;
+              }
+              removedDebugRunnings_.add(s);
+              break;
+            }
+            case 106: {
+              String s = input.readStringRequireUtf8();
+              if (!((mutable_bitField0_ & 0x00002000) == 0x00002000)) {
+                removedManualRunnings_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00002000;
+              }
+              removedManualRunnings_.add(s);
+              break;
+            }
+            case 112: {
+
+              slotTotal_ = input.readInt32();
+              break;
+            }
+            case 120: {
+
+              slotUsed_ = input.readInt32();
+              break;
+            }
             case 32773: {
 
               memTotal_ = input.readFloat();
@@ -1008,6 +1203,15 @@ public final class RpcHeartBeatMessage {
         if (((mutable_bitField0_ & 0x00000004) == 0x00000004)) {
           manualRunnings_ = manualRunnings_.getUnmodifiableView();
         }
+        if (((mutable_bitField0_ & 0x00000800) == 0x00000800)) {
+          removedRunnings_ = removedRunnings_.getUnmodifiableView();
+        }
+        if (((mutable_bitField0_ & 0x00001000) == 0x00001000)) {
+          removedDebugRunnings_ = removedDebugRunnings_.getUnmodifiableView();
+        }
+        if (((mutable_bitField0_ & 0x00002000) == 0x00002000)) {
+          removedManualRunnings_ = removedManualRunnings_.getUnmodifiableView();
+        }
         this.unknownFields = unknownFields.build();
         makeExtensionsImmutable();
       }
@@ -1263,6 +1467,193 @@ public final class RpcHeartBeatMessage {
       return cores_;
     }
 
+    public static final int SEQ_FIELD_NUMBER = 9;
+    private long seq_;
+    /**
+     * <pre>
+     *心跳序号，同一连接内递增，master据此发现丢失的增量心跳
+     * </pre>
+     *
+     * <code>int64 seq = 9;</code>
+     */
+    public long getSeq() {
+      return seq_;
+    }
+
+    public static final int DELTA_FIELD_NUMBER = 10;
+    private boolean delta_;
+    /**
+     * <pre>
+     *为true时runnings/debugRunnings/manualRunnings只是新增的job，removed*为结束的job；为false时是全量
+     * </pre>
+     *
+     * <code>bool delta = 10;</code>
+     */
+    public boolean getDelta() {
+      return delta_;
+    }
+
+    public static final int REMOVEDRUNNINGS_FIELD_NUMBER = 11;
+    private com.google.protobuf.LazyStringList removedRunnings_;
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    public com.google.protobuf.ProtocolStringList
+        getRemovedRunningsList() {
+      return removedRunnings_;
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    public int getRemovedRunningsCount() {
+      return removedRunnings_.size();
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    public String getRemovedRunnings(int index) {
+      return removedRunnings_.get(index);
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的自动调度job列表
+     * </pre>
+     *
+     * <code>repeated string removedRunnings = 11;</code>
+     */
+    public com.google.protobuf.ByteString
+        getRemovedRunningsBytes(int index) {
+      return removedRunnings_.getByteString(index);
+    }
+
+    public static final int REMOVEDDEBUGRUNNINGS_FIELD_NUMBER = 12;
+    private com.google.protobuf.LazyStringList removedDebugRunnings_;
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    public com.google.protobuf.ProtocolStringList
+        getRemovedDebugRunningsList() {
+      return removedDebugRunnings_;
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    public int getRemovedDebugRunningsCount() {
+      return removedDebugRunnings_.size();
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    public String getRemovedDebugRunnings(int index) {
+      return removedDebugRunnings_.get(index);
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string removedDebugRunnings = 12;</code>
+     */
+    public com.google.protobuf.ByteString
+        getRemovedDebugRunningsBytes(int index) {
+      return removedDebugRunnings_.getByteString(index);
+    }
+
+    public static final int REMOVEDMANUALRUNNINGS_FIELD_NUMBER = 13;
+    private com.google.protobuf.LazyStringList removedManualRunnings_;
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    public com.google.protobuf.ProtocolStringList
+        getRemovedManualRunningsList() {
+      return removedManualRunnings_;
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    public int getRemovedManualRunningsCount() {
+      return removedManualRunnings_.size();
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    public String getRemovedManualRunnings(int index) {
+      return removedManualRunnings_.get(index);
+    }
+    /**
+     * <pre>
+     *本次心跳相对上一次结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string removedManualRunnings = 13;</code>
+     */
+    public com.google.protobuf.ByteString
+        getRemovedManualRunningsBytes(int index) {
+      return removedManualRunnings_.getByteString(index);
+    }
+
+    public static final int SLOTTOTAL_FIELD_NUMBER = 14;
+    private int slotTotal_;
+    /**
+     * <pre>
+     *worker执行槽位总数，0表示旧版本worker未上报
+     * </pre>
+     *
+     * <code>int32 slotTotal = 14;</code>
+     */
+    public int getSlotTotal() {
+      return slotTotal_;
+    }
+
+    public static final int SLOTUSED_FIELD_NUMBER = 15;
+    private int slotUsed_;
+    /**
+     * <pre>
+     *worker已占用的执行槽位数，不同类型的任务占用的槽位数不同
+     * </pre>
+     *
+     * <code>int32 slotUsed = 15;</code>
+     */
+    public int getSlotUsed() {
+      return slotUsed_;
+    }
+
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
       byte isInitialized = memoizedIsInitialized;
@@ -1299,6 +1690,27 @@ public final class RpcHeartBeatMessage {
       if (cores_ != 0) {
         output.writeInt32(8, cores_);
       }
+      if (seq_ != 0L) {
+        output.writeInt64(9, seq_);
+      }
+      if (delta_ != false) {
+        output.writeBool(10, delta_);
+      }
+      for (int i = 0; i < removedRunnings_.size(); i++) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 11, removedRunnings_.getRaw(i));
+      }
+      for (int i = 0; i < removedDebugRunnings_.size(); i++) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 12, removedDebugRunnings_.getRaw(i));
+      }
+      for (int i = 0; i < removedManualRunnings_.size(); i++) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 13, removedManualRunnings_.getRaw(i));
+      }
+      if (slotTotal_ != 0) {
+        output.writeInt32(14, slotTotal_);
+      }
+      if (slotUsed_ != 0) {
+        output.writeInt32(15, slotUsed_);
+      }
       if (memTotal_ != 0F) {
         output.writeFloat(4096, memTotal_);
       }
@@ -1353,25 +1765,65 @@ public final class RpcHeartBeatMessage {
         size += com.google.protobuf.CodedOutputStream
           .computeInt32Size(8, cores_);
       }
-      if (memTotal_ != 0F) {
+      if (seq_ != 0L) {
         size += com.google.protobuf.CodedOutputStream
-          .computeFloatSize(4096, memTotal_);
+          .computeInt64Size(9, seq_);
       }
-      size += unknownFields.getSerializedSize();
-      memoizedSize = size;
-      return size;
-    }
-
-    @Override
-    public boolean equals(final Object obj) {
-      if (obj == this) {
-       return true;
+      if (delta_ != false) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(10, delta_);
       }
-      if (!(obj instanceof HeartBeatMessage)) {
-        return super.equals(obj);
+      {
+        int dataSize = 0;
+        for (int i = 0; i < removedRunnings_.size(); i++) {
+          dataSize += computeStringSizeNoTag(removedRunnings_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getRemovedRunningsList().size();
       }
-      HeartBeatMessage other = (HeartBeatMessage) obj;
-
+      {
+        int dataSize = 0;
+        for (int i = 0; i < removedDebugRunnings_.size(); i++) {
+          dataSize += computeStringSizeNoTag(removedDebugRunnings_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getRemovedDebugRunningsList().size();
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < removedManualRunnings_.size(); i++) {
+          dataSize += computeStringSizeNoTag(removedManualRunnings_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getRemovedManualRunningsList().size();
+      }
+      if (slotTotal_ != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(14, slotTotal_);
+      }
+      if (slotUsed_ != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(15, slotUsed_);
+      }
+      if (memTotal_ != 0F) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeFloatSize(4096, memTotal_);
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof HeartBeatMessage)) {
+        return super.equals(obj);
+      }
+      HeartBeatMessage other = (HeartBeatMessage) obj;
+
       boolean result = true;
       result = result && getRunningsList()
           .equals(other.getRunningsList());
@@ -1397,6 +1849,20 @@ public final class RpcHeartBeatMessage {
               other.getMemTotal()));
       result = result && (getCores()
           == other.getCores());
+      result = result && (getSeq()
+          == other.getSeq());
+      result = result && (getDelta()
+          == other.getDelta());
+      result = result && getRemovedRunningsList()
+          .equals(other.getRemovedRunningsList());
+      result = result && getRemovedDebugRunningsList()
+          .equals(other.getRemovedDebugRunningsList());
+      result = result && getRemovedManualRunningsList()
+          .equals(other.getRemovedManualRunningsList());
+      result = result && (getSlotTotal()
+          == other.getSlotTotal());
+      result = result && (getSlotUsed()
+          == other.getSlotUsed());
       result = result && unknownFields.equals(other.unknownFields);
       return result;
     }
@@ -1436,6 +1902,28 @@ public final class RpcHeartBeatMessage {
           getMemTotal());
       hash = (37 * hash) + CORES_FIELD_NUMBER;
       hash = (53 * hash) + getCores();
+      hash = (37 * hash) + SEQ_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          getSeq());
+      hash = (37 * hash) + DELTA_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashBoolean(
+          getDelta());
+      if (getRemovedRunningsCount() > 0) {
+        hash = (37 * hash) + REMOVEDRUNNINGS_FIELD_NUMBER;
+        hash = (53 * hash) + getRemovedRunningsList().hashCode();
+      }
+      if (getRemovedDebugRunningsCount() > 0) {
+        hash = (37 * hash) + REMOVEDDEBUGRUNNINGS_FIELD_NUMBER;
+        hash = (53 * hash) + getRemovedDebugRunningsList().hashCode();
+      }
+      if (getRemovedManualRunningsCount() > 0) {
+        hash = (37 * hash) + REMOVEDMANUALRUNNINGS_FIELD_NUMBER;
+        hash = (53 * hash) + getRemovedManualRunningsList().hashCode();
+      }
+      hash = (37 * hash) + SLOTTOTAL_FIELD_NUMBER;
+      hash = (53 * hash) + getSlotTotal();
+      hash = (37 * hash) + SLOTUSED_FIELD_NUMBER;
+      hash = (53 * hash) + getSlotUsed();
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -1583,6 +2071,20 @@ public final class RpcHeartBeatMessage {
 
         cores_ = 0;
 
+        seq_ = 0L;
+
+        delta_ = false;
+
+        removedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000800);
+        removedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00001000);
+        removedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00002000);
+        slotTotal_ = 0;
+
+        slotUsed_ = 0;
+
         return this;
       }
 
@@ -1628,6 +2130,25 @@ public final class RpcHeartBeatMessage {
         result.cpuLoadPerCore_ = cpuLoadPerCore_;
         result.memTotal_ = memTotal_;
         result.cores_ = cores_;
+        result.seq_ = seq_;
+        result.delta_ = delta_;
+        if (((bitField0_ & 0x00000800) == 0x00000800)) {
+          removedRunnings_ = removedRunnings_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00000800);
+        }
+        result.removedRunnings_ = removedRunnings_;
+        if (((bitField0_ & 0x00001000) == 0x00001000)) {
+          removedDebugRunnings_ = removedDebugRunnings_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00001000);
+        }
+        result.removedDebugRunnings_ = removedDebugRunnings_;
+        if (((bitField0_ & 0x00002000) == 0x00002000)) {
+          removedManualRunnings_ = removedManualRunnings_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00002000);
+        }
+        result.removedManualRunnings_ = removedManualRunnings_;
+        result.slotTotal_ = slotTotal_;
+        result.slotUsed_ = slotUsed_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -1719,6 +2240,48 @@ public final class RpcHeartBeatMessage {
         if (other.getCores() != 0) {
           setCores(other.getCores());
         }
+        if (other.getSeq() != 0L) {
+          setSeq(other.getSeq());
+        }
+        if (other.getDelta() != false) {
+          setDelta(other.getDelta());
+        }
+        if (!other.removedRunnings_.isEmpty()) {
+          if (removedRunnings_.isEmpty()) {
+            removedRunnings_ = other.removedRunnings_;
+            bitField0_ = (bitField0_ & ~0x00000800);
+          } else {
+            ensureRemovedRunningsIsMutable();
+            removedRunnings_.addAll(other.removedRunnings_);
+          }
+          onChanged();
+        }
+        if (!other.removedDebugRunnings_.isEmpty()) {
+          if (removedDebugRunnings_.isEmpty()) {
+            removedDebugRunnings_ = other.removedDebugRunnings_;
+            bitField0_ = (bitField0_ & ~0x00001000);
+          } else {
+            ensureRemovedDebugRunningsIsMutable();
+            removedDebugRunnings_.addAll(other.removedDebugRunnings_);
+          }
+          onChanged();
+        }
+        if (!other.removedManualRunnings_.isEmpty()) {
+          if (removedManualRunnings_.isEmpty()) {
+            removedManualRunnings_ = other.removedManualRunnings_;
+            bitField0_ = (bitField0_ & ~0x00002000);
+          } else {
+            ensureRemovedManualRunningsIsMutable();
+            removedManualRunnings_.addAll(other.removedManualRunnings_);
+          }
+          onChanged();
+        }
+        if (other.getSlotTotal() != 0) {
+          setSlotTotal(other.getSlotTotal());
+        }
+        if (other.getSlotUsed() != 0) {
+          setSlotUsed(other.getSlotUsed());
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
@@ -2403,6 +2966,548 @@ public final class RpcHeartBeatMessage {
         onChanged();
         return this;
       }
+
+      private long seq_ ;
+      /**
+       * <pre>
+       *心跳序号，同一连接内递增，master据此发现丢失的增量心跳
+       * </pre>
+       *
+       * <code>int64 seq = 9;</code>
+       */
+      public long getSeq() {
+        return seq_;
+      }
+      /**
+       * <pre>
+       *心跳序号，同一连接内递增，master据此发现丢失的增量心跳
+       * </pre>
+       *
+       * <code>int64 seq = 9;</code>
+       */
+      public Builder setSeq(long value) {
+        
+        seq_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *心跳序号，同一连接内递增，master据此发现丢失的增量心跳
+       * </pre>
+       *
+       * <code>int64 seq = 9;</code>
+       */
+      public Builder clearSeq() {
+        
+        seq_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private boolean delta_ ;
+      /**
+       * <pre>
+       *为true时runnings/debugRunnings/manualRunnings只是新增的job，removed*为结束的job；为false时是全量
+       * </pre>
+       *
+       * <code>bool delta = 10;</code>
+       */
+      public boolean getDelta() {
+        return delta_;
+      }
+      /**
+       * <pre>
+       *为true时runnings/debugRunnings/manualRunnings只是新增的job，removed*为结束的job；为false时是全量
+       * </pre>
+       *
+       * <code>bool delta = 10;</code>
+       */
+      public Builder setDelta(boolean value) {
+        
+        delta_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *为true时runnings/debugRunnings/manualRunnings只是新增的job，removed*为结束的job；为false时是全量
+       * </pre>
+       *
+       * <code>bool delta = 10;</code>
+       */
+      public Builder clearDelta() {
+        
+        delta_ = false;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList removedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      private void ensureRemovedRunningsIsMutable() {
+        if (!((bitField0_ & 0x00000800) == 0x00000800)) {
+          removedRunnings_ = new com.google.protobuf.LazyStringArrayList(removedRunnings_);
+          bitField0_ |= 0x00000800;
+         }
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public com.google.protobuf.ProtocolStringList
+          getRemovedRunningsList() {
+        return removedRunnings_.getUnmodifiableView();
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public int getRemovedRunningsCount() {
+        return removedRunnings_.size();
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public String getRemovedRunnings(int index) {
+        return removedRunnings_.get(index);
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public com.google.protobuf.ByteString
+          getRemovedRunningsBytes(int index) {
+        return removedRunnings_.getByteString(index);
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public Builder setRemovedRunnings(
+          int index, String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureRemovedRunningsIsMutable();
+        removedRunnings_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public Builder addRemovedRunnings(
+          String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureRemovedRunningsIsMutable();
+        removedRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public Builder addAllRemovedRunnings(
+          Iterable<String> values) {
+        ensureRemovedRunningsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, removedRunnings_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public Builder clearRemovedRunnings() {
+        removedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000800);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的自动调度job列表
+       * </pre>
+       *
+       * <code>repeated string removedRunnings = 11;</code>
+       */
+      public Builder addRemovedRunningsBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        ensureRemovedRunningsIsMutable();
+        removedRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList removedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      private void ensureRemovedDebugRunningsIsMutable() {
+        if (!((bitField0_ & 0x00001000) == 0x00001000)) {
+          removedDebugRunnings_ = new com.google.protobuf.LazyStringArrayList(removedDebugRunnings_);
+          bitField0_ |= 0x00001000;
+         }
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public com.google.protobuf.ProtocolStringList
+          getRemovedDebugRunningsList() {
+        return removedDebugRunnings_.getUnmodifiableView();
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public int getRemovedDebugRunningsCount() {
+        return removedDebugRunnings_.size();
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public String getRemovedDebugRunnings(int index) {
+        return removedDebugRunnings_.get(index);
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public com.google.protobuf.ByteString
+          getRemovedDebugRunningsBytes(int index) {
+        return removedDebugRunnings_.getByteString(index);
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public Builder setRemovedDebugRunnings(
+          int index, String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureRemovedDebugRunningsIsMutable();
+        removedDebugRunnings_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public Builder addRemovedDebugRunnings(
+          String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureRemovedDebugRunningsIsMutable();
+        removedDebugRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public Builder addAllRemovedDebugRunnings(
+          Iterable<String> values) {
+        ensureRemovedDebugRunningsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, removedDebugRunnings_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public Builder clearRemovedDebugRunnings() {
+        removedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00001000);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string removedDebugRunnings = 12;</code>
+       */
+      public Builder addRemovedDebugRunningsBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        ensureRemovedDebugRunningsIsMutable();
+        removedDebugRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList removedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      private void ensureRemovedManualRunningsIsMutable() {
+        if (!((bitField0_ & 0x00002000) == 0x00002000)) {
+          removedManualRunnings_ = new com.google.protobuf.LazyStringArrayList(removedManualRunnings_);
+          bitField0_ |= 0x00002000;
+         }
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public com.google.protobuf.ProtocolStringList
+          getRemovedManualRunningsList() {
+        return removedManualRunnings_.getUnmodifiableView();
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public int getRemovedManualRunningsCount() {
+        return removedManualRunnings_.size();
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public String getRemovedManualRunnings(int index) {
+        return removedManualRunnings_.get(index);
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public com.google.protobuf.ByteString
+          getRemovedManualRunningsBytes(int index) {
+        return removedManualRunnings_.getByteString(index);
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public Builder setRemovedManualRunnings(
+          int index, String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureRemovedManualRunningsIsMutable();
+        removedManualRunnings_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public Builder addRemovedManualRunnings(
+          String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureRemovedManualRunningsIsMutable();
+        removedManualRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public Builder addAllRemovedManualRunnings(
+          Iterable<String> values) {
+        ensureRemovedManualRunningsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, removedManualRunnings_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public Builder clearRemovedManualRunnings() {
+        removedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00002000);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *本次心跳相对上一次结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string removedManualRunnings = 13;</code>
+       */
+      public Builder addRemovedManualRunningsBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        ensureRemovedManualRunningsIsMutable();
+        removedManualRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+
+      private int slotTotal_ ;
+      /**
+       * <pre>
+       *worker执行槽位总数，0表示旧版本worker未上报
+       * </pre>
+       *
+       * <code>int32 slotTotal = 14;</code>
+       */
+      public int getSlotTotal() {
+        return slotTotal_;
+      }
+      /**
+       * <pre>
+       *worker执行槽位总数，0表示旧版本worker未上报
+       * </pre>
+       *
+       * <code>int32 slotTotal = 14;</code>
+       */
+      public Builder setSlotTotal(int value) {
+        
+        slotTotal_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *worker执行槽位总数，0表示旧版本worker未上报
+       * </pre>
+       *
+       * <code>int32 slotTotal = 14;</code>
+       */
+      public Builder clearSlotTotal() {
+        
+        slotTotal_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int slotUsed_ ;
+      /**
+       * <pre>
+       *worker已占用的执行槽位数，不同类型的任务占用的槽位数不同
+       * </pre>
+       *
+       * <code>int32 slotUsed = 15;</code>
+       */
+      public int getSlotUsed() {
+        return slotUsed_;
+      }
+      /**
+       * <pre>
+       *worker已占用的执行槽位数，不同类型的任务占用的槽位数不同
+       * </pre>
+       *
+       * <code>int32 slotUsed = 15;</code>
+       */
+      public Builder setSlotUsed(int value) {
+        
+        slotUsed_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *worker已占用的执行槽位数，不同类型的任务占用的槽位数不同
+       * </pre>
+       *
+       * <code>int32 slotUsed = 15;</code>
+       */
+      public Builder clearSlotUsed() {
+        
+        slotUsed_ = 0;
+        onChanged();
+        return this;
+      }
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
         return super.setUnknownFieldsProto3(unknownFields);
@@ -2479,14 +3584,17 @@ public final class RpcHeartBeatMessage {
       "\n\007x.proto\"\221\001\n\027AllHeartBeatInfoMessage\0224\n" +
       "\006values\030\001 \003(\0132$.AllHeartBeatInfoMessage." +
       "ValuesEntry\032@\n\013ValuesEntry\022\013\n\003key\030\001 \001(\t\022" +
-      " \n\005value\030\002 \001(\0132\021.HeartBeatMessage:\0028\001\"\304\001" +
+      " \n\005value\030\002 \001(\0132\021.HeartBeatMessage:\0028\001\"\333\002" +
       "\n\020HeartBeatMessage\022\020\n\010runnings\030\001 \003(\t\022\025\n\r" +
       "debugRunnings\030\002 \003(\t\022\026\n\016manualRunnings\030\003 " +
       "\003(\t\022\021\n\ttimestamp\030\004 \001(\003\022\020\n\010mem_rate\030\005 \001(\002" +
       "\022\014\n\004host\030\006 \001(\t\022\031\n\021cpu_load_per_core\030\007 \001(" +
-      "\002\022\022\n\tmem_total\030\200  \001(\002\022\r\n\005cores\030\010 \001(\005B+\n\022" +
-      "com.dfire.protocolB\023RpcHeartBeatMessageH" +
-      "\001b\006proto3"
+      "\002\022\022\n\tmem_total\030\200  \001(\002\022\r\n\005cores\030\010 \001(\005\022\013\n\003" +
+      "seq\030\t \001(\003\022\r\n\005delta\030\n \001(\010\022\027\n\017removedRunni" +
+      "ngs\030\013 \003(\t\022\034\n\024removedDebugRunnings\030\014 \003(\t\022" +
+      "\035\n\025removedManualRunnings\030\r \003(\t\022\021\n\tslotTo" +
+      "tal\030\016 \001(\005\022\020\n\010slotUsed\030\017 \001(\005B+\n\022com.dfire" +
+      ".protocolB\023RpcHeartBeatMessageH\001b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -2517,7 +3625,7 @@ public final class RpcHeartBeatMessage {
     internal_static_HeartBeatMessage_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_HeartBeatMessage_descriptor,
-        new String[] { "Runnings", "DebugRunnings", "ManualRunnings", "Timestamp", "MemRate", "Host", "CpuLoadPerCore", "MemTotal", "Cores", });
+        new String[] { "Runnings", "DebugRunnings", "ManualRunnings", "Timestamp", "MemRate", "Host", "CpuLoadPerCore", "MemTotal", "Cores", "Seq", "Delta", "RemovedRunnings", "RemovedDebugRunnings", "RemovedManualRunnings", "SlotTotal", "SlotUsed", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
@@ -75,6 +75,22 @@ public final class RpcOperate {
      * <code>SetWorkInfo = 6;</code>
      */
     SetWorkInfo(6),
+    /**
+     * <pre>
+     *调度任务运行中新增的日志片段 worker->server
+     * </pre>
+     *
+     * <code>JobLog = 7;</code>
+     */
+    JobLog(7),
+    /**
+     * <pre>
+     *开发中心任务运行中的日志 worker->server
+     * </pre>
+     *
+     * <code>DebugLog = 8;</code>
+     */
+    DebugLog(8),
     UNRECOGNIZED(-1),
     ;
 
@@ -134,6 +150,22 @@ public final class RpcOperate {
      * <code>SetWorkInfo = 6;</code>
      */
     public static final int SetWorkInfo_VALUE = 6;
+    /**
+     * <pre>
+     *调度任务运行中新增的日志片段 worker->server
+     * </pre>
+     *
+     * <code>JobLog = 7;</code>
+     */
+    public static final int JobLog_VALUE = 7;
+    /**
+     * <pre>
+     *开发中心任务运行中的日志 worker->server
+     * </pre>
+     *
+     * <code>DebugLog = 8;</code>
+     */
+    public static final int DebugLog_VALUE = 8;
 
 
     public final int getNumber() {
@@ -161,6 +193,8 @@ public final class RpcOperate {
         case 4: return Manual;
         case 5: return GetWorkInfo;
         case 6: return SetWorkInfo;
+        case 7: return JobLog;
+        case 8: return DebugLog;
         default: return null;
       }
     }
@@ -222,11 +256,11 @@ public final class RpcOperate {
       descriptor;
   static {
     String[] descriptorData = {
-      "\n\007x.proto*k\n\007Operate\022\r\n\tHeartBeat\020\000\022\014\n\010S" +
-      "chedule\020\001\022\n\n\006Cancel\020\002\022\t\n\005Debug\020\003\022\n\n\006Manu" +
-      "al\020\004\022\017\n\013GetWorkInfo\020\005\022\017\n\013SetWorkInfo\020\006B\"" +
-      "\n\022com.dfire.protocolB\nRpcOperateH\001b\006prot" +
-      "o3"
+      "\n\007x.proto*\205\001\n\007Operate\022\r\n\tHeartBeat\020\000\022\014\n\010" +
+      "Schedule\020\001\022\n\n\006Cancel\020\002\022\t\n\005Debug\020\003\022\n\n\006Man" +
+      "ual\020\004\022\017\n\013GetWorkInfo\020\005\022\017\n\013SetWorkInfo\020\006\022" +
+      "\n\n\006JobLog\020\007\022\014\n\010DebugLog\020\010B\"\n\022com.dfire.p" +
+      "rotocolB\nRpcOperateH\001b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -0,0 +1,27 @@
+#添加运行日志片段表，任务运行中只追加新增的日志
+CREATE TABLE IF NOT EXISTS `hera_action_history_log`
+(
+  `id`         bigint(20) NOT NULL AUTO_INCREMENT,
+  `history_id` bigint(20) NOT NULL COMMENT '运行记录id',
+  `content`    mediumtext COMMENT '任务运行中追加的日志片段',
+  `gmt_create` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `ind_history_id` (`history_id`, `id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='运行日志片段表，任务结束后合并到hera_action_history';
+
+#添加任务定义快照表，版本不再复制任务的脚本和配置
+CREATE TABLE IF NOT EXISTS `hera_job_snapshot`
+(
+  `id`          char(64)   NOT NULL COMMENT '任务id和定义内容的sha-256',
+  `job_id`      bigint(20) NOT NULL COMMENT '任务id',
+  `script`      mediumtext COMMENT '任务脚本',
+  `configs`     text COMMENT '任务配置',
+  `resources`   text COMMENT '任务资源',
+  `description` varchar(256) DEFAULT NULL COMMENT '任务描述',
+  `gmt_create`  datetime     DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `ind_job_id` (`job_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='任务定义快照表，内容相同的定义只存一份，版本通过snapshot_id引用';
+ALTER TABLE `hera_action` ADD COLUMN `snapshot_id` char(64) DEFAULT NULL COMMENT '任务定义快照id';